@@ -0,0 +1,200 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.bench;
+
+import java.nio.*;
+
+import java.util.concurrent.*;
+
+import net.sf.farrago.fennel.tuple.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+
+/**
+ * Measures marshalling and unmarshalling of Fennel tuples by {@link
+ * FennelTupleAccessor}, and the lazy and columnar alternatives used when
+ * returning pure Fennel results to JDBC.
+ *
+ * <p>Each benchmark processes a buffer of {@link #tupleCount} tuples with an
+ * integer, a bigint, a double and a nullable varchar column.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FennelTupleBench
+{
+    //~ Instance fields --------------------------------------------------------
+
+    @Param({ "200" })
+    public int tupleCount;
+
+    private FennelTupleDescriptor tupleDesc;
+    private FennelTupleAccessor tupleAccessor;
+    private FennelTupleData [] tuples;
+    private ByteBuffer marshalBuf;
+    private ByteBuffer unmarshalBuf;
+    private FennelTupleData unmarshalData;
+    private FennelLazyTupleData lazyData;
+    private FennelColumnarTupleData columnarData;
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Setup
+    public void setUp()
+    {
+        tupleDesc = new FennelTupleDescriptor();
+        tupleDesc.add(
+            new FennelTupleAttributeDescriptor(
+                FennelStandardTypeDescriptor.INT_32,
+                false,
+                0));
+        tupleDesc.add(
+            new FennelTupleAttributeDescriptor(
+                FennelStandardTypeDescriptor.INT_64,
+                false,
+                0));
+        tupleDesc.add(
+            new FennelTupleAttributeDescriptor(
+                FennelStandardTypeDescriptor.DOUBLE,
+                false,
+                0));
+        tupleDesc.add(
+            new FennelTupleAttributeDescriptor(
+                FennelStandardTypeDescriptor.VARCHAR,
+                true,
+                40));
+        tupleAccessor = newAccessor();
+
+        tuples = new FennelTupleData[tupleCount];
+        for (int i = 0; i < tupleCount; ++i) {
+            FennelTupleData tuple = new FennelTupleData(tupleDesc);
+            tuple.getDatum(0).setInt(i);
+            tuple.getDatum(1).setLong((long) i * 1000);
+            tuple.getDatum(2).setDouble(i / 4.0);
+            if ((i % 10) != 0) {
+                tuple.getDatum(3).setString("value " + i);
+            }
+            tuples[i] = tuple;
+        }
+
+        marshalBuf =
+            ByteBuffer.allocate(tupleCount * tupleAccessor.getMaxByteCount());
+        marshalBuf.order(ByteOrder.nativeOrder());
+        marshalAll();
+        unmarshalBuf = marshalBuf.duplicate();
+        unmarshalBuf.order(ByteOrder.nativeOrder());
+        unmarshalBuf.flip();
+
+        unmarshalData = new FennelTupleData(tupleDesc);
+        lazyData = new FennelLazyTupleData(tupleDesc, newAccessor());
+        columnarData = new FennelColumnarTupleData(tupleDesc, newAccessor());
+    }
+
+    private FennelTupleAccessor newAccessor()
+    {
+        FennelTupleAccessor accessor = new FennelTupleAccessor(true);
+        accessor.compute(tupleDesc);
+        return accessor;
+    }
+
+    private int marshalAll()
+    {
+        marshalBuf.clear();
+        for (int i = 0; i < tupleCount; ++i) {
+            ByteBuffer tupleBuf = marshalBuf.slice();
+            tupleBuf.order(marshalBuf.order());
+            tupleAccessor.marshal(tuples[i], tupleBuf);
+            marshalBuf.position(
+                tupleAccessor.alignRoundUp(
+                    marshalBuf.position() + tupleBuf.position()));
+        }
+        return marshalBuf.position();
+    }
+
+    @Benchmark
+    public int marshal()
+    {
+        return marshalAll();
+    }
+
+    /**
+     * Unmarshals every column of every tuple, as {@link
+     * net.sf.farrago.runtime.FennelOnlyTupleReader} did before lazy
+     * unmarshalling.
+     */
+    @Benchmark
+    public void unmarshal(Blackhole bh)
+    {
+        ByteBuffer buf = unmarshalBuf.duplicate();
+        buf.order(unmarshalBuf.order());
+        while (buf.hasRemaining()) {
+            ByteBuffer tupleBuf = buf.slice();
+            tupleBuf.order(buf.order());
+            tupleAccessor.setCurrentTupleBuf(tupleBuf);
+            tupleAccessor.unmarshal(unmarshalData);
+            bh.consume(unmarshalData.getDatum(1).getLong());
+            buf.position(
+                tupleAccessor.alignRoundUp(
+                    buf.position() + tupleAccessor.getCurrentByteCount()));
+        }
+    }
+
+    /**
+     * Binds every tuple lazily and reads only the bigint column.
+     */
+    @Benchmark
+    public void unmarshalLazyOneColumn(Blackhole bh)
+    {
+        ByteBuffer buf = unmarshalBuf.duplicate();
+        buf.order(unmarshalBuf.order());
+        while (buf.hasRemaining()) {
+            ByteBuffer tupleBuf = buf.slice();
+            tupleBuf.order(buf.order());
+            lazyData.bind(tupleBuf);
+            bh.consume(lazyData.getDatum(1).getLong());
+            buf.position(
+                tupleAccessor.alignRoundUp(
+                    buf.position() + lazyData.getBoundByteCount()));
+        }
+    }
+
+    /**
+     * Decodes the whole buffer into column arrays and reads the bigint column
+     * of every row.
+     */
+    @Benchmark
+    public void unmarshalColumnar(Blackhole bh)
+    {
+        ByteBuffer buf = unmarshalBuf.duplicate();
+        buf.order(unmarshalBuf.order());
+        columnarData.load(buf);
+        while (columnarData.next()) {
+            bh.consume(columnarData.getRawLong(1));
+        }
+    }
+}
+
+// End FennelTupleBench.java
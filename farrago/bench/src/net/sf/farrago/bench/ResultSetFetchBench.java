@@ -0,0 +1,147 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.bench;
+
+import java.sql.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import net.sf.farrago.runtime.*;
+
+import org.eigenbase.reltype.*;
+import org.eigenbase.runtime.*;
+import org.eigenbase.sql.type.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+
+/**
+ * Measures fetching rows through a {@link FarragoTupleIterResultSet}, the
+ * result set which JDBC clients of the engine driver see for statements with
+ * Java execution streams.
+ *
+ * <p>The rows come from an in-memory iterator, so the numbers reflect the
+ * per-row overhead of the result set and column getters, not of execution.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultSetFetchBench
+{
+    //~ Instance fields --------------------------------------------------------
+
+    @Param({ "1000" })
+    public int rowCount;
+
+    private List<Row> rows;
+    private RelDataType rowType;
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Setup
+    public void setUp()
+    {
+        rows = new ArrayList<Row>();
+        for (int i = 0; i < rowCount; ++i) {
+            Row row = new Row();
+            row.id = i;
+            row.amount = (long) i * 1000;
+            row.price = i / 4.0;
+            row.name = "name" + i;
+            rows.add(row);
+        }
+        RelDataTypeFactory typeFactory = new SqlTypeFactoryImpl();
+        rowType =
+            typeFactory.createStructType(
+                new RelDataType[] {
+                    typeFactory.createSqlType(SqlTypeName.INTEGER),
+                    typeFactory.createSqlType(SqlTypeName.BIGINT),
+                    typeFactory.createSqlType(SqlTypeName.DOUBLE),
+                    typeFactory.createSqlType(SqlTypeName.VARCHAR, 20)
+                },
+                new String[] { "ID", "AMOUNT", "PRICE", "NAME" });
+    }
+
+    private ResultSet newResultSet()
+    {
+        return new FarragoTupleIterResultSet(
+            new RestartableCollectionTupleIter(rows),
+            Row.class,
+            rowType,
+            null);
+    }
+
+    /**
+     * Reads every column of every row by ordinal, as a typical JDBC client
+     * does.
+     */
+    @Benchmark
+    public void fetchByOrdinal(Blackhole bh)
+        throws SQLException
+    {
+        ResultSet resultSet = newResultSet();
+        while (resultSet.next()) {
+            bh.consume(resultSet.getInt(1));
+            bh.consume(resultSet.getLong(2));
+            bh.consume(resultSet.getDouble(3));
+            bh.consume(resultSet.getString(4));
+        }
+        resultSet.close();
+    }
+
+    /**
+     * Reads every column of every row by name.
+     */
+    @Benchmark
+    public void fetchByName(Blackhole bh)
+        throws SQLException
+    {
+        ResultSet resultSet = newResultSet();
+        while (resultSet.next()) {
+            bh.consume(resultSet.getInt("ID"));
+            bh.consume(resultSet.getLong("AMOUNT"));
+            bh.consume(resultSet.getDouble("PRICE"));
+            bh.consume(resultSet.getString("NAME"));
+        }
+        resultSet.close();
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * Row class of the kind generated for Java execution streams.
+     */
+    public static class Row
+        extends SyntheticObject
+    {
+        public int id;
+        public long amount;
+        public double price;
+        public String name;
+    }
+}
+
+// End ResultSetFetchBench.java
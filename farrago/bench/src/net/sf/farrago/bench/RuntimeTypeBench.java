@@ -0,0 +1,135 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.bench;
+
+import java.math.*;
+
+import java.util.concurrent.*;
+
+import net.sf.farrago.type.runtime.*;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Measures the Farrago runtime types which generated Java calculator code
+ * calls per row: {@link CharStringComparator} and {@link EncodedSqlDecimal}.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RuntimeTypeBench
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private String padded1;
+    private String padded2;
+    private String unpadded;
+
+    private Decimal decimal;
+    private NullablePrimitive.NullableLong nullableLong;
+    private BigDecimal bigDecimal;
+    private long unscaled;
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Setup
+    public void setUp()
+    {
+        padded1 = "Carrot cake                   ";
+        padded2 = "Carrot cakes                  ";
+        unpadded = "Carrot cake";
+
+        decimal = new Decimal();
+        nullableLong = new NullablePrimitive.NullableLong();
+        bigDecimal = new BigDecimal("12345678.91");
+        unscaled = 1234567891L;
+    }
+
+    @Benchmark
+    public int compareCharStringsPadded()
+    {
+        return CharStringComparator.compareCharStrings(padded1, padded2);
+    }
+
+    @Benchmark
+    public int compareCharStringsMixedPadding()
+    {
+        return CharStringComparator.compareCharStrings(padded1, unpadded);
+    }
+
+    /**
+     * Reinterprets a long as a decimal with an overflow check, as generated
+     * code does after decimal arithmetic.
+     */
+    @Benchmark
+    public long decimalReinterpret()
+    {
+        decimal.reinterpret(unscaled, true);
+        decimal.assignTo(nullableLong);
+        return nullableLong.value;
+    }
+
+    @Benchmark
+    public Object decimalAssignFromString()
+    {
+        decimal.assignFrom("12345678.91");
+        return decimal.value;
+    }
+
+    @Benchmark
+    public Object decimalNarrowCast()
+    {
+        decimal.narrowCast(bigDecimal);
+        return decimal.value;
+    }
+
+    @Benchmark
+    public Object decimalGetNullableData()
+    {
+        decimal.assignFrom(unscaled);
+        return decimal.getNullableData();
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * DECIMAL(10, 2), as the Java calculator would generate it.
+     */
+    public static class Decimal
+        extends EncodedSqlDecimal
+    {
+        protected int getPrecision()
+        {
+            return 10;
+        }
+
+        protected int getScale()
+        {
+            return 2;
+        }
+    }
+}
+
+// End RuntimeTypeBench.java
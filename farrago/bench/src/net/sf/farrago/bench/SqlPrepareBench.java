@@ -0,0 +1,152 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.bench;
+
+import java.util.concurrent.*;
+
+import org.eigenbase.rel.*;
+import org.eigenbase.rel.rules.*;
+import org.eigenbase.relopt.hep.*;
+import org.eigenbase.reltype.*;
+import org.eigenbase.sql.*;
+import org.eigenbase.sql.fun.*;
+import org.eigenbase.sql.parser.*;
+import org.eigenbase.sql.type.*;
+import org.eigenbase.sql.validate.*;
+import org.eigenbase.test.*;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Measures the stages of preparing a query: parsing with {@link SqlParser},
+ * validation with {@link SqlValidatorImpl}, and a heuristic planner run over
+ * the converted relational expression.
+ *
+ * <p>Queries run against the SCOTT-like schema of {@link MockCatalogReader},
+ * so no repository is needed. A validator cannot validate the same parse tree
+ * twice, so {@link #parseAndValidate} includes parsing; subtract {@link
+ * #parse} to get the cost of validation alone.
+ *
+ * @version $Id$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SqlPrepareBench
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final String SIMPLE_QUERY =
+        "select empno, ename from emp where deptno = 10";
+
+    private static final String COMPLEX_QUERY =
+        "select d.name, count(*) as c, sum(e.sal + coalesce(e.comm, 0))\n"
+        + "from emp as e join dept as d on e.deptno = d.deptno\n"
+        + "where e.sal > 1000 and e.job in ('CLERK', 'ANALYST')\n"
+        + "and e.hiredate > timestamp '1981-01-01 00:00:00'\n"
+        + "group by d.name\n"
+        + "having count(*) > 1\n"
+        + "order by c desc";
+
+    //~ Instance fields --------------------------------------------------------
+
+    @Param({ "simple", "complex" })
+    public String query;
+
+    private String sql;
+    private SqlToRelTestBase.Tester tester;
+    private RelDataTypeFactory typeFactory;
+    private SqlValidatorCatalogReader catalogReader;
+    private HepProgram program;
+
+    //~ Methods ----------------------------------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        sql = query.equals("simple") ? SIMPLE_QUERY : COMPLEX_QUERY;
+        tester = new SqlToRelTestBase.TesterImpl(null) {
+        };
+        typeFactory = new SqlTypeFactoryImpl();
+        catalogReader = new MockCatalogReader(typeFactory);
+
+        HepProgramBuilder programBuilder = new HepProgramBuilder();
+        programBuilder.addRuleInstance(PushFilterPastJoinRule.instance);
+        programBuilder.addRuleInstance(PushFilterPastProjectRule.instance);
+        programBuilder.addRuleInstance(MergeProjectRule.instance);
+        programBuilder.addRuleInstance(RemoveTrivialProjectRule.instance);
+        programBuilder.addRuleInstance(FilterToCalcRule.instance);
+        programBuilder.addRuleInstance(ProjectToCalcRule.instance);
+        programBuilder.addRuleInstance(MergeCalcRule.instance);
+        program = programBuilder.createProgram();
+    }
+
+    @Benchmark
+    public SqlNode parse()
+        throws SqlParseException
+    {
+        return new SqlParser(sql).parseQuery();
+    }
+
+    @Benchmark
+    public SqlNode parseAndValidate()
+        throws SqlParseException
+    {
+        SqlNode sqlNode = new SqlParser(sql).parseQuery();
+        SqlValidator validator =
+            SqlValidatorUtil.newValidator(
+                SqlStdOperatorTable.instance(),
+                catalogReader,
+                typeFactory);
+        return validator.validate(sqlNode);
+    }
+
+    @Benchmark
+    public RelNode plan(ConvertedRel converted)
+    {
+        HepPlanner planner = new HepPlanner(program);
+        planner.setRoot(converted.rel);
+        return planner.findBestExp();
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * Freshly converted tree for {@link #plan}. The planner modifies the tree
+     * it is given, so each invocation needs its own; keeping it in a separate
+     * state means only {@link #plan} pays for the per-invocation setup.
+     */
+    @State(Scope.Thread)
+    public static class ConvertedRel
+    {
+        private RelNode rel;
+
+        @Setup(Level.Invocation)
+        public void convert(SqlPrepareBench bench)
+        {
+            rel = bench.tester.convertSqlToRel(bench.sql);
+        }
+    }
+}
+
+// End SqlPrepareBench.java
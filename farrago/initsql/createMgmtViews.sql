@@ -35,6 +35,36 @@ external name 'class net.sf.farrago.syslib.FarragoManagementUDR.statements';
 create or replace view statements_view as
   select * from table(statements());
 
+create or replace function statement_timings()
+returns table(stmt_id bigint, session_id bigint, end_time timestamp, sql_stmt varchar(1024), phase varchar(128), elapsed_millis double)
+language java
+parameter style system defined java
+no sql
+external name 'class net.sf.farrago.syslib.FarragoManagementUDR.statementTimings';
+
+create or replace view statement_timings_view as
+  select * from table(statement_timings());
+
+create or replace function statement_timing_summary()
+returns table(canonical_sql varchar(1024), phase varchar(128), exec_count bigint, total_millis double, min_millis double, max_millis double, avg_millis double, median_millis double, p95_millis double)
+language java
+parameter style system defined java
+no sql
+external name 'class net.sf.farrago.syslib.FarragoManagementUDR.statementTimingSummary';
+
+create or replace view statement_timing_summary_view as
+  select * from table(statement_timing_summary());
+
+create or replace function statement_timing_histogram()
+returns table(canonical_sql varchar(1024), phase varchar(128), upper_bound_millis double, exec_count bigint)
+language java
+parameter style system defined java
+no sql
+external name 'class net.sf.farrago.syslib.FarragoManagementUDR.statementTimingHistogram';
+
+create or replace view statement_timing_histogram_view as
+  select * from table(statement_timing_histogram());
+
 create or replace function sessions()
 returns table(id int, url varchar(128), current_user_name varchar(128), current_role_name varchar(128), session_user_name varchar(128), system_user_name varchar(128), system_user_fullname varchar(128), session_name varchar(128), program_name varchar(128), process_id int, catalog_name varchar(128), schema_name varchar(128), is_closed boolean, is_auto_commit boolean, is_txn_in_progress boolean, label_name varchar(128))
 language java
@@ -1561,4 +1591,33 @@ returns table(
 language java parameter style system defined java no sql
 external name 'class net.sf.farrago.syslib.FarragoLurqlUDR.getObjectDdl';
 
+-- Register an LCS table as a precomputed aggregate of a fact table
+--
+-- definition lists the aggregate table's columns, separated by commas:
+-- a grouping key is given as COL or COL = FACT_COL, and a measure as
+-- COL = SUM(FACT_COL), COUNT(FACT_COL), COUNT(*), MIN(FACT_COL) or
+-- MAX(FACT_COL).  The registration lapses as soon as either table is
+-- modified.
+create or replace procedure register_aggregate_table(
+    in catalog_name varchar(2000),
+    in fact_schema_name varchar(2000),
+    in fact_table_name varchar(2000),
+    in agg_schema_name varchar(2000),
+    in agg_table_name varchar(2000),
+    in definition varchar(65535))
+language java
+contains sql
+external name
+'class org.luciddb.lcs.LcsAggregateTableUDR.register_aggregate_table';
+
+-- Unregister an aggregate table
+create or replace procedure unregister_aggregate_table(
+    in catalog_name varchar(2000),
+    in agg_schema_name varchar(2000),
+    in agg_table_name varchar(2000))
+language java
+contains sql
+external name
+'class org.luciddb.lcs.LcsAggregateTableUDR.unregister_aggregate_table';
+
 -- End createMgmtViews.sql
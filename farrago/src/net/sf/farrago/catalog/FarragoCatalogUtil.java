@@ -55,6 +55,14 @@ import org.eigenbase.util.*;
  */
 public abstract class FarragoCatalogUtil
 {
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Minimum ratio of distinct values to rows for {@link
+     * #extrapolateHistograms} to treat a column as unique.
+     */
+    private static final double UNIQUE_COLUMN_RATIO = 0.9;
+
     //~ Enums ------------------------------------------------------------------
 
     /**
@@ -1575,6 +1583,61 @@ public abstract class FarragoCatalogUtil
         }
     }
 
+    /**
+     * Extrapolates the distinct value counts of a table's column histograms
+     * after rows have been added to it, so that the statistics follow a load
+     * without waiting for the table to be reanalyzed.
+     *
+     * <p>Only columns which are (nearly) unique are extrapolated; their
+     * distinct value count grows in proportion to the rows. A column with
+     * fewer distinct values usually draws them from a bounded domain (codes,
+     * flags, dates within a period), which new rows are as likely to repeat
+     * as to extend, so its count is left alone until the table is
+     * reanalyzed. Because {@link FarragoColumnHistogram} scales the value
+     * counts of the histogram's bars by the distinct value count, range
+     * predicates see the extrapolated cardinality as well.
+     *
+     * <p>Histograms that are visible to a label are left unchanged.
+     *
+     * @param table the table that rows were added to
+     * @param oldRowCount row count before the rows were added
+     * @param newRowCount row count after the rows were added
+     * @param repos repository
+     */
+    public static void extrapolateHistograms(
+        FemAbstractColumnSet table,
+        long oldRowCount,
+        long newRowCount,
+        FarragoRepos repos)
+    {
+        if ((oldRowCount <= 1) || (newRowCount <= oldRowCount)) {
+            return;
+        }
+        double growth = (double) newRowCount / oldRowCount;
+
+        for (FemAbstractColumn column
+            : Util.filter(table.getFeature(), FemAbstractColumn.class))
+        {
+            FemColumnHistogram histogram =
+                getHistogramForUpdate(repos, column, false);
+            if (histogram == null) {
+                continue;
+            }
+            Long distinctValues = histogram.getDistinctValueCount();
+            if ((distinctValues == null)
+                || (distinctValues < (UNIQUE_COLUMN_RATIO * oldRowCount)))
+            {
+                continue;
+            }
+            long newDistinctValues =
+                Math.min(Math.round(distinctValues * growth), newRowCount);
+            if (newDistinctValues > distinctValues) {
+                histogram.setDistinctValueCount(newDistinctValues);
+                histogram.setDistinctValueCountEstimated(true);
+            }
+        }
+    }
+
     /**
      * Determines which histogram record should be updated. Either the latest
      * one is reused, or a new one is created, if desired.
@@ -635,6 +635,18 @@ public abstract class FarragoReposImpl
         }
     }
 
+    /**
+     * Tests whether the current thread holds a shared or exclusive lock on the
+     * repository (see {@link #lockRepos}).
+     *
+     * @return true if the current thread holds a repository lock
+     */
+    public boolean isReposLockedByCurrentThread()
+    {
+        return sxLock.isWriteLockedByCurrentThread()
+            || (sxLock.getReadHoldCount() > 0);
+    }
+
     // TODO: SWZ: 2008-03-27: implement on platform side and remove
     // implement FarragoRepos (for red-zone components ignorant of Enki)
     public EnkiMDRepository getEnkiMdrRepos()
@@ -81,6 +81,13 @@ import org.eigenbase.util.property.*;
 public class FarragoDatabase
     extends FarragoDbSingleton
 {
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Maximum number of entries in the SQL text cache.
+     */
+    public static final int SQL_TEXT_CACHE_MAX_ENTRIES = 1000;
+
     //~ Instance fields --------------------------------------------------------
 
     private FarragoRepos systemRepos;
@@ -117,6 +124,43 @@ public class FarragoDatabase
      */
     private AtomicLong uniqueId = new AtomicLong(1);
 
+    /**
+     * Per-phase timings of recently executed statements.
+     */
+    private final FarragoDbStmtTimingHistory stmtTimingHistory =
+        new FarragoDbStmtTimingHistory();
+
+    /**
+     * Incremented whenever DDL commits, so that keys which depend on name
+     * resolution or privileges can be told apart across catalog changes.
+     */
+    private final AtomicLong catalogVersion = new AtomicLong(0);
+
+    /**
+     * Maps raw SQL text (plus the session context which affects its
+     * meaning, and {@link #catalogVersion}) to the key of
+     * the corresponding executable statement in {@link #codeCache}, so that a
+     * repeated statement can skip parsing and validation entirely. Least
+     * recently used entries are dropped beyond {@link
+     * #SQL_TEXT_CACHE_MAX_ENTRIES}; the executable statements themselves are
+     * still governed by codeCache.
+     */
+    private final Map<String, String> mapSqlTextToStmtKey =
+        new LinkedHashMap<String, String>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(
+                Map.Entry<String, String> eldest)
+            {
+                return size() > SQL_TEXT_CACHE_MAX_ENTRIES;
+            }
+        };
+
+    /**
+     * Names of catalog objects offered as completion hints; validated against
+     * {@link #catalogVersion} by each session which uses it.
+     */
+    private final FarragoSessionNameIndex nameIndex =
+        new FarragoSessionNameIndex();
+
     //~ Constructors -----------------------------------------------------------
 
     /**
@@ -317,6 +361,31 @@ public class FarragoDatabase
         codeCache.setMaxBytes(maxBytes);
     }
 
+    /**
+     * @return the current catalog version; changes whenever DDL commits
+     */
+    public long getCatalogVersion()
+    {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Notes that DDL is committing, invalidating the SQL text cache. Must be
+     * called while the catalog write lock is held.
+     */
+    public void incrementCatalogVersion()
+    {
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * @return the index of catalog object names used for completion hints
+     */
+    public FarragoSessionNameIndex getNameIndex()
+    {
+        return nameIndex;
+    }
+
     /**
      * @return the shared data wrapper cache for this database
      */
@@ -757,6 +826,14 @@ public class FarragoDatabase
         return ddlLockManager;
     }
 
+    /**
+     * @return the history of per-phase statement timings for this database
+     */
+    public FarragoDbStmtTimingHistory getStmtTimingHistory()
+    {
+        return stmtTimingHistory;
+    }
+
     /**
      * Gets a unique identifier: never 0.
      *
@@ -948,12 +1025,144 @@ public class FarragoDatabase
         SqlNode sqlNode,
         FarragoAllocationOwner owner,
         FarragoSessionAnalyzedSql analyzedSql)
+    {
+        return prepareStmt(
+            stmtContext,
+            stmtValidator,
+            sqlNode,
+            owner,
+            analyzedSql,
+            null,
+            true);
+    }
+
+    /**
+     * Prepares an SQL expression as {@link #prepareStmt(
+     * FarragoSessionStmtContext, FarragoSessionStmtValidator, SqlNode,
+     * FarragoAllocationOwner, FarragoSessionAnalyzedSql)} does, and if the
+     * result is cached, also remembers it under the given SQL text key for
+     * {@link #prepareStmtFromSqlText}. The statement can also be kept out of
+     * the cache entirely, for example when it is one of many generated
+     * statements which differ only in their literals.
+     *
+     * @param stmtContext embracing stmt context
+     * @param stmtValidator generic stmt validator
+     * @param sqlNode the parsed form of the statement
+     * @param owner the FarragoAllocationOwner which will be responsible for the
+     * returned stmt
+     * @param analyzedSql receives information about a prepared expression
+     * @param sqlTextKey key for the SQL text from which sqlNode was parsed, or
+     * null
+     * @param cacheStmt whether the statement may be cached (subject also to
+     * the session's "cacheStatements" setting)
+     *
+     * @return statement implementation, or null when analyzedSql is non-null
+     */
+    public FarragoSessionExecutableStmt prepareStmt(
+        FarragoSessionStmtContext stmtContext,
+        FarragoSessionStmtValidator stmtValidator,
+        SqlNode sqlNode,
+        FarragoAllocationOwner owner,
+        FarragoSessionAnalyzedSql analyzedSql,
+        String sqlTextKey,
+        boolean cacheStmt)
     {
         final FarragoSessionPreparingStmt stmt =
             stmtValidator.getSession().getPersonality().newPreparingStmt(
                 stmtContext,
                 stmtValidator);
-        return prepareStmtImpl(stmt, sqlNode, owner, analyzedSql);
+        return prepareStmtImpl(
+            stmt,
+            sqlNode,
+            owner,
+            analyzedSql,
+            sqlTextKey,
+            cacheStmt);
+    }
+
+    /**
+     * Looks up a previously prepared statement by SQL text, skipping parsing
+     * and validation. Only statements which were cached in the code cache and
+     * are not stale can be found this way. On a hit, the statement
+     * validator's repository transaction is left holding a catalog read lock,
+     * as it would be after parsing a query; on a miss, no lock is held.
+     *
+     * @param stmtValidator generic stmt validator
+     * @param sqlTextKey key for the SQL text, as recorded by {@link
+     * #prepareStmt(FarragoSessionStmtContext, FarragoSessionStmtValidator,
+     * SqlNode, FarragoAllocationOwner, FarragoSessionAnalyzedSql, String,
+     * boolean)}
+     * @param catalogVersion the {@link #getCatalogVersion catalog version}
+     * from which sqlTextKey was built
+     * @param owner the FarragoAllocationOwner which will be responsible for the
+     * returned stmt
+     *
+     * @return statement implementation, or null on a miss
+     */
+    public FarragoSessionExecutableStmt prepareStmtFromSqlText(
+        FarragoSessionStmtValidator stmtValidator,
+        String sqlTextKey,
+        long catalogVersion,
+        FarragoAllocationOwner owner)
+    {
+        String stmtKey;
+        synchronized (mapSqlTextToStmtKey) {
+            stmtKey = mapSqlTextToStmtKey.get(sqlTextKey);
+        }
+        if (stmtKey == null) {
+            return null;
+        }
+
+        final FarragoRepos stmtRepos = stmtValidator.getRepos();
+        FarragoObjectCache.CachedObjectFactory stalenessChecker =
+            new FarragoObjectCache.CachedObjectFactory() {
+                public void initializeEntry(
+                    Object key,
+                    FarragoObjectCache.UninitializedEntry entry)
+                {
+                    // pinExisting never creates entries
+                    throw new AssertionError();
+                }
+
+                public boolean isStale(Object value)
+                {
+                    return isExecutableStmtStale(
+                        stmtRepos,
+                        (FarragoSessionExecutableStmt) value);
+                }
+            };
+        boolean sharable =
+            stmtValidator.getSession().getPersonality().supportsFeature(
+                EigenbaseResource.instance().SharedStatementPlans);
+        FarragoReposTxnContext reposTxnContext =
+            stmtValidator.getReposTxnContext();
+        reposTxnContext.beginLockedTxn(true);
+        FarragoObjectCache.Entry cacheEntry = null;
+        try {
+            // DDL which committed after the key was built bumped the version
+            // while holding the write lock, so checking it again now that we
+            // hold the read lock is enough to catch it
+            if (catalogVersion == getCatalogVersion()) {
+                cacheEntry =
+                    codeCache.pinExisting(
+                        stmtKey,
+                        stalenessChecker,
+                        !sharable);
+            }
+        } finally {
+            if (cacheEntry == null) {
+                // leave the repository as we found it, so the caller can
+                // go on to parse normally
+                reposTxnContext.commit();
+                reposTxnContext.unlockAfterTxn();
+            }
+        }
+        if (cacheEntry == null) {
+            return null;
+        }
+        stmtValidator.getTimingTracer().traceTime("sql text cache hit");
+        owner.addAllocation(cacheEntry);
+        return (FarragoSessionExecutableStmt) cacheEntry.getValue();
     }
 
     /**
@@ -991,7 +1200,9 @@ public class FarragoDatabase
         final FarragoSessionPreparingStmt stmt,
         final SqlNode sqlNode,
         FarragoAllocationOwner owner,
-        FarragoSessionAnalyzedSql analyzedSql)
+        FarragoSessionAnalyzedSql analyzedSql,
+        String sqlTextKey,
+        boolean cacheStmt)
     {
         final EigenbaseTimingTracer timingTracer =
             stmt.getStmtValidator().getTimingTracer();
@@ -1002,9 +1213,10 @@ public class FarragoDatabase
 
         // It would be silly to cache EXPLAIN PLAN results, so deal with them
         // directly. Also check for whether statement caching is turned off
-        // for the session before continuing.
+        // for the statement or the session before continuing.
         boolean cacheStatements =
-            stmt.getSession().getSessionVariables().getBoolean(
+            cacheStmt
+            && stmt.getSession().getSessionVariables().getBoolean(
                 FarragoDefaultSessionPersonality.CACHE_STATEMENTS);
         if (sqlNode.getKind() == SqlKind.EXPLAIN || !cacheStatements) {
             FarragoSessionExecutableStmt executableStmt =
@@ -1074,6 +1286,7 @@ public class FarragoDatabase
         if (labelCsn != null) {
             key += labelCsn;
         }
+        key += session.getPlanParamsCacheKey();
         final String stmtKey = key;
 
         FarragoObjectCache.Entry cacheEntry;
@@ -1119,6 +1332,11 @@ public class FarragoDatabase
         FarragoSessionExecutableStmt executableStmt =
             (FarragoSessionExecutableStmt) cacheEntry.getValue();
         owner.addAllocation(cacheEntry);
+        if (sqlTextKey != null) {
+            synchronized (mapSqlTextToStmtKey) {
+                mapSqlTextToStmtKey.put(sqlTextKey, stmtKey);
+            }
+        }
         return executableStmt;
     }
 
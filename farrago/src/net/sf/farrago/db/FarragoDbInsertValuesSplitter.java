@@ -0,0 +1,583 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.db;
+
+import java.util.regex.*;
+
+import org.eigenbase.reltype.*;
+import org.eigenbase.sql.*;
+import org.eigenbase.sql.parser.*;
+import org.eigenbase.sql.type.*;
+
+
+/**
+ * FarragoDbInsertValuesSplitter breaks the row list of a multi-row <code>
+ * INSERT INTO t [(columns)] VALUES (...), (...), ...</code> statement into
+ * batches, each of which is an INSERT statement in its own right. This allows
+ * {@link FarragoDbStmtContext} to parse, validate and execute a very large
+ * statement (e.g. one produced by a migration tool) a batch at a time, rather
+ * than building a parse tree and a ValuesRel for all of its rows at once.
+ *
+ * <p>The scan is purely lexical, so only row lists whose values are all
+ * literals (character strings, numbers and NULL) are split. The validator
+ * gives each column of a row list the least restrictive type of all of its
+ * values, so the splitter derives the same types from the literals up front,
+ * and casts any value in a batch whose own type differs from its column's.
+ * For example, <code>'a'</code> in a column which also contains <code>
+ * 'abc'</code> is cast to CHAR(3), just as it would be padded in the
+ * unsplit statement. Any statement whose shape or values it does not
+ * recognize is left alone, so that the parser can deal with it (and report
+ * any errors) in the usual way.
+ *
+ * @version $Id$
+ */
+public class FarragoDbInsertValuesSplitter
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final Pattern EXACT_NUMERIC_PATTERN =
+        Pattern.compile("[0-9]+(\\.[0-9]*)?|\\.[0-9]+");
+
+    private static final Pattern APPROX_NUMERIC_PATTERN =
+        Pattern.compile("([0-9]+(\\.[0-9]*)?|\\.[0-9]+)[eE][+-]?[0-9]+");
+
+    /**
+     * Longest numeric literal (in digits) which is split; longer ones are
+     * left to the parser, whose typing of them is not worth replicating.
+     */
+    private static final int MAX_NUMERIC_DIGITS = 18;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final String sql;
+    private final String prefix;
+    private final int batchSize;
+    private final int rowCount;
+    private final RelDataTypeFactory typeFactory;
+
+    /**
+     * Least restrictive (non-nullable) type of each column over all rows.
+     */
+    private final RelDataType [] columnTypes;
+
+    /**
+     * Offset of the first row of the next batch, or -1 once all batches have
+     * been returned.
+     */
+    private int pos;
+
+    //~ Constructors -----------------------------------------------------------
+
+    private FarragoDbInsertValuesSplitter(
+        String sql,
+        String prefix,
+        int start,
+        int batchSize,
+        int rowCount,
+        RelDataTypeFactory typeFactory,
+        RelDataType [] columnTypes)
+    {
+        this.sql = sql;
+        this.prefix = prefix;
+        this.pos = start;
+        this.batchSize = batchSize;
+        this.rowCount = rowCount;
+        this.typeFactory = typeFactory;
+        this.columnTypes = columnTypes;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Creates a splitter for a statement, if it is a multi-row INSERT ...
+     * VALUES statement of literals with more than one batch worth of rows.
+     *
+     * @param sql text of statement
+     * @param batchSize maximum number of rows per batch; 0 disables splitting
+     * @param typeFactory factory for the types of the literals, which must
+     * unify types the same way as the one used to validate the statement
+     *
+     * @return splitter, or null if the statement should be prepared as is
+     */
+    public static FarragoDbInsertValuesSplitter create(
+        String sql,
+        int batchSize,
+        RelDataTypeFactory typeFactory)
+    {
+        if ((batchSize <= 0) || (sql.length() < batchSize)) {
+            // can't possibly have more than batchSize rows
+            return null;
+        }
+        int n = sql.length();
+        int i = skipSpace(sql, 0);
+        int start = i;
+        i = matchWord(sql, i, "INSERT");
+        if (i < 0) {
+            return null;
+        }
+        i = matchWord(sql, skipSpace(sql, i), "INTO");
+        if (i < 0) {
+            return null;
+        }
+
+        // target table name, possibly qualified
+        for (;;) {
+            i = skipIdentifier(sql, skipSpace(sql, i));
+            if (i < 0) {
+                return null;
+            }
+            i = skipSpace(sql, i);
+            if ((i < n) && (sql.charAt(i) == '.')) {
+                ++i;
+                continue;
+            }
+            break;
+        }
+
+        // optional target column list
+        if ((i < n) && (sql.charAt(i) == '(')) {
+            i = skipGroup(sql, i);
+            if (i < 0) {
+                return null;
+            }
+            i = skipSpace(sql, i);
+        }
+        int prefixEnd = matchWord(sql, i, "VALUES");
+        if (prefixEnd < 0) {
+            return null;
+        }
+
+        // each row must be a parenthesized list of literals, all rows must
+        // have the same number of values, and nothing but whitespace and
+        // comments may follow the last one
+        i = skipSpace(sql, prefixEnd);
+        int rowStart = i;
+        int rowCount = 0;
+        RelDataType [] columnTypes = null;
+        for (;;) {
+            int columnCount = 0;
+            if ((i >= n) || (sql.charAt(i) != '(')) {
+                return null;
+            }
+            i = skipSpace(sql, i + 1);
+            for (;;) {
+                int valueEnd = skipLiteral(sql, i);
+                if (valueEnd < 0) {
+                    return null;
+                }
+                RelDataType type =
+                    deriveLiteralType(
+                        sql.substring(i, valueEnd),
+                        typeFactory);
+                if (type == null) {
+                    return null;
+                }
+                if (rowCount == 0) {
+                    columnTypes = growArray(columnTypes, columnCount + 1);
+                    columnTypes[columnCount] = type;
+                } else {
+                    if (columnCount >= columnTypes.length) {
+                        return null;
+                    }
+                    columnTypes[columnCount] =
+                        typeFactory.leastRestrictive(
+                            new RelDataType[] {
+                                columnTypes[columnCount], type
+                            });
+                    if (columnTypes[columnCount] == null) {
+                        // the parser will report the mismatch
+                        return null;
+                    }
+                }
+                ++columnCount;
+                i = skipSpace(sql, valueEnd);
+                if ((i < n) && (sql.charAt(i) == ',')) {
+                    i = skipSpace(sql, i + 1);
+                    continue;
+                }
+                if ((i < n) && (sql.charAt(i) == ')')) {
+                    break;
+                }
+                return null;
+            }
+            if (columnCount != columnTypes.length) {
+                return null;
+            }
+            ++rowCount;
+            i = skipSpace(sql, i + 1);
+            if (i >= n) {
+                break;
+            }
+            if (sql.charAt(i) != ',') {
+                return null;
+            }
+            i = skipSpace(sql, i + 1);
+        }
+        if (rowCount <= batchSize) {
+            return null;
+        }
+        for (int j = 0; j < columnTypes.length; ++j) {
+            columnTypes[j] =
+                typeFactory.createTypeWithNullability(columnTypes[j], false);
+        }
+        return new FarragoDbInsertValuesSplitter(
+            sql,
+            sql.substring(start, prefixEnd) + " ",
+            rowStart,
+            batchSize,
+            rowCount,
+            typeFactory,
+            columnTypes);
+    }
+
+    /**
+     * @return total number of rows in the statement
+     */
+    public int getRowCount()
+    {
+        return rowCount;
+    }
+
+    /**
+     * Returns the text of the INSERT statement for the next batch of rows.
+     *
+     * @return statement text, or null if all batches have been returned
+     */
+    public String nextBatch()
+    {
+        if (pos < 0) {
+            return null;
+        }
+        int n = sql.length();
+        StringBuilder buf = new StringBuilder(prefix);
+        int i = pos;
+        int rows = 0;
+        for (;;) {
+            // create has already checked the syntax, so just copy each
+            // value, adding a cast where its type differs from the column's
+            buf.append('(');
+            i = skipSpace(sql, i + 1);
+            for (int column = 0;; ++column) {
+                int valueEnd = skipLiteral(sql, i);
+                String value = sql.substring(i, valueEnd);
+                RelDataType type = deriveLiteralType(value, typeFactory);
+                if ((type.getSqlTypeName() == SqlTypeName.NULL)
+                    || type.equals(columnTypes[column]))
+                {
+                    buf.append(value);
+                } else {
+                    buf.append("CAST(").append(value).append(" AS ");
+                    appendType(buf, columnTypes[column]);
+                    buf.append(')');
+                }
+                i = skipSpace(sql, valueEnd);
+                if (sql.charAt(i) == ')') {
+                    break;
+                }
+                buf.append(", ");
+                i = skipSpace(sql, i + 1);
+            }
+            buf.append(')');
+            ++rows;
+            i = skipSpace(sql, i + 1);
+            if (i >= n) {
+                pos = -1;
+                break;
+            }
+
+            // skip the comma separating this row from the next one
+            i = skipSpace(sql, i + 1);
+            if (rows == batchSize) {
+                pos = i;
+                break;
+            }
+            buf.append(", ");
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Derives the type of a literal as the validator would.
+     *
+     * @param literal text of a literal accepted by {@link #skipLiteral}
+     * @param typeFactory type factory
+     *
+     * @return non-nullable type of the literal, the NULL type for NULL, or
+     * null if the literal is not one which can be split
+     */
+    private static RelDataType deriveLiteralType(
+        String literal,
+        RelDataTypeFactory typeFactory)
+    {
+        if (literal.charAt(0) == '\'') {
+            String value =
+                literal.substring(1, literal.length() - 1).replace("''", "'");
+            return SqlLiteral.createCharString(value, SqlParserPos.ZERO)
+                .createSqlType(typeFactory);
+        }
+        if (matchWord(literal, 0, "NULL") > 0) {
+            return typeFactory.createSqlType(SqlTypeName.NULL);
+        }
+
+        // the sign is a separate token, and doesn't affect the type
+        String number = literal;
+        if ((number.charAt(0) == '-') || (number.charAt(0) == '+')) {
+            number = number.substring(skipSpace(number, 1));
+        }
+        int digitCount = 0;
+        for (int i = 0; i < number.length(); ++i) {
+            if (Character.isDigit(number.charAt(i))) {
+                ++digitCount;
+            }
+        }
+        if (digitCount > MAX_NUMERIC_DIGITS) {
+            return null;
+        }
+        if (EXACT_NUMERIC_PATTERN.matcher(number).matches()) {
+            return SqlLiteral.createExactNumeric(number, SqlParserPos.ZERO)
+                .createSqlType(typeFactory);
+        }
+        if (APPROX_NUMERIC_PATTERN.matcher(number).matches()) {
+            return SqlLiteral.createApproxNumeric(number, SqlParserPos.ZERO)
+                .createSqlType(typeFactory);
+        }
+        return null;
+    }
+
+    /**
+     * Appends the SQL name of a type derived from literals.
+     */
+    private static void appendType(StringBuilder buf, RelDataType type)
+    {
+        SqlTypeName typeName = type.getSqlTypeName();
+        buf.append(typeName.name());
+        if (typeName.allowsScale()) {
+            buf.append('(').append(type.getPrecision()).append(", ")
+            .append(type.getScale()).append(')');
+        } else if (typeName.allowsPrec()) {
+            buf.append('(').append(type.getPrecision()).append(')');
+        }
+    }
+
+    private static RelDataType [] growArray(RelDataType [] types, int length)
+    {
+        RelDataType [] newTypes = new RelDataType[length];
+        if (types != null) {
+            System.arraycopy(types, 0, newTypes, 0, types.length);
+        }
+        return newTypes;
+    }
+
+    /**
+     * Skips whitespace and comments.
+     *
+     * @return offset of the next token, or the length of the text if there is
+     * none
+     */
+    private static int skipSpace(String sql, int i)
+    {
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                ++i;
+            } else if (sql.startsWith("--", i)) {
+                int eol = sql.indexOf('\n', i);
+                i = (eol < 0) ? n : (eol + 1);
+            } else if (sql.startsWith("/*", i)) {
+                int close = sql.indexOf("*/", i + 2);
+                i = (close < 0) ? n : (close + 2);
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Matches a keyword (case-insensitively) at a given offset.
+     *
+     * @return offset following the keyword, or -1 if it does not match
+     */
+    private static int matchWord(String sql, int i, String word)
+    {
+        int wordEnd = i + word.length();
+        if (!sql.regionMatches(true, i, word, 0, word.length())) {
+            return -1;
+        }
+        if ((wordEnd < sql.length())
+            && Character.isJavaIdentifierPart(sql.charAt(wordEnd)))
+        {
+            return -1;
+        }
+        return wordEnd;
+    }
+
+    /**
+     * Skips a regular or quoted identifier.
+     *
+     * @return offset following the identifier, or -1 if there is none
+     */
+    private static int skipIdentifier(String sql, int i)
+    {
+        int n = sql.length();
+        if (i >= n) {
+            return -1;
+        }
+        char c = sql.charAt(i);
+        if (c == '"') {
+            return skipQuoted(sql, i);
+        }
+        if (!Character.isJavaIdentifierStart(c)) {
+            return -1;
+        }
+        ++i;
+        while ((i < n) && Character.isJavaIdentifierPart(sql.charAt(i))) {
+            ++i;
+        }
+        return i;
+    }
+
+    /**
+     * Skips a literal which may be split: a character string literal (but not
+     * one continued by another), a possibly signed numeric literal, or NULL.
+     * The scan is loose; {@link #deriveLiteralType} rejects any malformed
+     * number.
+     *
+     * @return offset following the literal, or -1 if there is none
+     */
+    private static int skipLiteral(String sql, int i)
+    {
+        int n = sql.length();
+        if (i >= n) {
+            return -1;
+        }
+        char c = sql.charAt(i);
+        if (c == '\'') {
+            i = skipQuoted(sql, i);
+            if (i < 0) {
+                return -1;
+            }
+            int next = skipSpace(sql, i);
+            if ((next < n) && (sql.charAt(next) == '\'')) {
+                return -1;
+            }
+            return i;
+        }
+        int wordEnd = matchWord(sql, i, "NULL");
+        if (wordEnd > 0) {
+            return wordEnd;
+        }
+        if ((c == '-') || (c == '+')) {
+            i = skipSpace(sql, i + 1);
+        }
+        int start = i;
+        while (i < n) {
+            c = sql.charAt(i);
+            if (Character.isDigit(c) || (c == '.')) {
+                ++i;
+            } else if (((c == 'e') || (c == 'E')) && (i > start)) {
+                ++i;
+                if ((i < n)
+                    && ((sql.charAt(i) == '-') || (sql.charAt(i) == '+')))
+                {
+                    ++i;
+                }
+            } else {
+                break;
+            }
+        }
+        return (i > start) ? i : -1;
+    }
+
+    /**
+     * Skips a string literal or quoted identifier, in which the quote
+     * character is escaped by doubling it.
+     *
+     * @param i offset of the opening quote
+     *
+     * @return offset following the closing quote, or -1 if there is none
+     */
+    private static int skipQuoted(String sql, int i)
+    {
+        char quote = sql.charAt(i);
+        for (;;) {
+            int close = sql.indexOf(quote, i + 1);
+            if (close < 0) {
+                return -1;
+            }
+            if ((close + 1 < sql.length())
+                && (sql.charAt(close + 1) == quote))
+            {
+                i = close + 1;
+                continue;
+            }
+            return close + 1;
+        }
+    }
+
+    /**
+     * Skips a parenthesized group, including any nested groups.
+     *
+     * @param i offset of the opening parenthesis
+     *
+     * @return offset following the matching closing parenthesis, or -1 if
+     * there is none
+     */
+    private static int skipGroup(String sql, int i)
+    {
+        int n = sql.length();
+        int depth = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            switch (c) {
+            case '(':
+                ++depth;
+                ++i;
+                break;
+            case ')':
+                ++i;
+                if (--depth == 0) {
+                    return i;
+                }
+                break;
+            case '\'':
+            case '"':
+                i = skipQuoted(sql, i);
+                if (i < 0) {
+                    return -1;
+                }
+                break;
+            case '-':
+            case '/':
+                int next = skipSpace(sql, i);
+                i = (next == i) ? (i + 1) : next;
+                break;
+            default:
+                ++i;
+            }
+        }
+        return -1;
+    }
+}
+
+// End FarragoDbInsertValuesSplitter.java
@@ -87,6 +87,19 @@ public class FarragoDbSession
 
     public static final String MDR_USER_NAME = "MDR";
 
+    /**
+     * Session parameters which change the plan chosen for a statement without
+     * changing its text, and so must be part of its cache keys.
+     */
+    private static final String [] PLAN_PARAMS =
+    {
+        FarragoDefaultSessionPersonality.REDUCE_NON_CORRELATED_SUBQUERIES,
+        FarragoDefaultSessionPersonality.DEGREE_OF_PARALLELISM,
+        FarragoDefaultSessionPersonality.DML_DEGREE_OF_PARALLELISM,
+        FarragoDefaultSessionPersonality.IN_LIST_THRESHOLD,
+        FarragoDefaultSessionPersonality.HASH_IN_LIST
+    };
+
     //~ Instance fields --------------------------------------------------------
 
     /**
@@ -184,6 +197,12 @@ public class FarragoDbSession
 
     private boolean isLoopback;
 
+    /**
+     * Reduced values of constant expressions; shared across all clones via
+     * shallow-copy.
+     */
+    private FarragoSessionReductionCache reductionCache;
+
     //~ Constructors -----------------------------------------------------------
 
     /**
@@ -377,6 +396,8 @@ public class FarragoDbSession
 
         sessionIndexMap = new FarragoDbSessionIndexMap(this, this, repos);
 
+        reductionCache = new FarragoSessionReductionCache();
+
         personality = sessionFactory.newSessionPersonality(this, null);
         defaultPersonality = personality;
         personality.loadDefaultSessionVariables(sessionVariables);
@@ -812,7 +833,8 @@ public class FarragoDbSession
                 sql,
                 null,
                 false,
-                analyzedSql);
+                analyzedSql,
+                true);
         assert (stmt == null);
         if (typeFactory != null) {
             // Have to copy types into the caller's factory since
@@ -1158,14 +1180,16 @@ public class FarragoDbSession
         String sql,
         FarragoAllocationOwner owner,
         boolean isExecDirect,
-        FarragoSessionAnalyzedSql analyzedSql)
+        FarragoSessionAnalyzedSql analyzedSql,
+        boolean cacheStmt)
     {
         tracer.info(sql);
 
         EigenbaseTimingTracer timingTracer =
             new EigenbaseTimingTracer(
                 sqlTimingTracer,
-                "begin prepare");
+                "begin prepare",
+                (stmtContext == null) ? null : stmtContext.getStmtTimings());
 
         // The local variable is necessary to insure that the repository
         // session can be closed if the statement causes a shutdown.
@@ -1203,6 +1227,7 @@ public class FarragoDbSession
                     stmtContext,
                     stmtValidator,
                     reposTxnContext,
+                    cacheStmt,
                     pRollback);
 
             // NOTE jvs 17-Mar-2006:  We have to do this here
@@ -1243,8 +1268,28 @@ public class FarragoDbSession
         FarragoDbStmtContextBase stmtContext,
         FarragoSessionStmtValidator stmtValidator,
         FarragoReposTxnContext reposTxnContext,
+        boolean cacheStmt,
         boolean [] pRollback)
     {
+        // Repeated statements can skip parsing and validation entirely
+        long catalogVersion = database.getCatalogVersion();
+        String sqlTextKey =
+            cacheStmt ? getSqlTextCacheKey(sql, analyzedSql, catalogVersion)
+            : null;
+        if (sqlTextKey != null) {
+            FarragoSessionExecutableStmt stmt =
+                database.prepareStmtFromSqlText(
+                    stmtValidator,
+                    sqlTextKey,
+                    catalogVersion,
+                    owner);
+            if (stmt != null) {
+                pRollback[0] = false;
+                checkPreparedStmt(stmt, sql, owner, isExecDirect);
+                return stmt;
+            }
+        }
+
         // REVIEW: May need to disallow some types of prepared DDL.
         FarragoSessionDdlValidator ddlValidator =
             personality.newDdlValidator(stmtValidator);
@@ -1275,24 +1320,11 @@ public class FarragoDbSession
                     stmtValidator,
                     sqlNode,
                     owner,
-                    analyzedSql);
-            if (isExecDirect) {
-                if (stmt.getDynamicParamRowType().getFieldList().size() > 0) {
-                    owner.closeAllocation();
-                    throw FarragoResource.instance()
-                    .SessionNoExecuteImmediateParameters.ex(sql);
-                }
-
-                // DML statements are disallowed if a session label is set.
-                // For CALL statements, the contents of the UDP determines
-                // whether the call can be executed.
-                if (stmt.isDml()
-                    && (stmt.getTableModOp() != null)
-                    && isSessionLabelEnabled())
-                {
-                    owner.closeAllocation();
-                    throw FarragoResource.instance().ReadOnlySession.ex();
-                }
+                    analyzedSql,
+                    sqlTextKey,
+                    cacheStmt);
+            if (stmt != null) {
+                checkPreparedStmt(stmt, sql, owner, isExecDirect);
             }
             return stmt;
         }
@@ -1348,6 +1380,106 @@ public class FarragoDbSession
         return null;
     }
 
+    /**
+     * Checks that a statement just prepared (or found in the cache) may be
+     * used as requested.
+     *
+     * @param stmt prepared statement
+     * @param sql text of the statement
+     * @param owner owner of stmt; closed if the check fails
+     * @param isExecDirect whether the statement is being prepared as part of
+     * direct execution
+     */
+    private void checkPreparedStmt(
+        FarragoSessionExecutableStmt stmt,
+        String sql,
+        FarragoAllocationOwner owner,
+        boolean isExecDirect)
+    {
+        if (!isExecDirect) {
+            return;
+        }
+        if (stmt.getDynamicParamRowType().getFieldList().size() > 0) {
+            owner.closeAllocation();
+            throw FarragoResource.instance()
+            .SessionNoExecuteImmediateParameters.ex(sql);
+        }
+
+        // DML statements are disallowed if a session label is set.
+        // For CALL statements, the contents of the UDP determines
+        // whether the call can be executed.
+        if (stmt.isDml()
+            && (stmt.getTableModOp() != null)
+            && isSessionLabelEnabled())
+        {
+            owner.closeAllocation();
+            throw FarragoResource.instance().ReadOnlySession.ex();
+        }
+    }
+
+    /**
+     * Computes the key under which a statement's executable form is
+     * remembered by its raw SQL text. Besides the text, the key includes
+     * everything in the session which can change what the text means: the
+     * default catalog, schema and path used for name resolution, the current
+     * user and role (since a hit skips privilege checking in the validator),
+     * the session label, the session parameters which affect planning, and
+     * the catalog version.
+     *
+     * @param sql text of the statement
+     * @param analyzedSql non-null if the statement is only being analyzed
+     * @param catalogVersion catalog version to include in the key
+     *
+     * @return key, or null if the statement should not be looked up by text
+     */
+    private String getSqlTextCacheKey(
+        String sql,
+        FarragoSessionAnalyzedSql analyzedSql,
+        long catalogVersion)
+    {
+        if ((analyzedSql != null)
+            || !sessionVariables.getBoolean(
+                FarragoDefaultSessionPersonality.CACHE_STATEMENTS))
+        {
+            return null;
+        }
+        StringBuilder buf = new StringBuilder(sql.length() + 128);
+        buf.append("version=").append(catalogVersion);
+        buf.append(";personality=").append(personality.getClass().getName());
+        buf.append(";catalog=").append(sessionVariables.catalogName);
+        buf.append(";schema=").append(sessionVariables.schemaName);
+        buf.append(";path=").append(sessionVariables.schemaSearchPath);
+        buf.append(";user=").append(sessionVariables.currentUserName);
+        buf.append(";role=").append(sessionVariables.currentRoleName);
+        buf.append(";label=");
+        Long labelCsn = getSessionLabelCsn();
+        if (labelCsn != null) {
+            buf.append(labelCsn);
+        }
+        buf.append(getPlanParamsCacheKey());
+        buf.append(";sql=").append(sql.length()).append(':').append(sql);
+        return buf.toString();
+    }
+
+    /**
+     * Describes the settings of the session parameters which affect how
+     * statements are planned, for inclusion in statement cache keys; see
+     * {@link #PLAN_PARAMS}.
+     *
+     * @return key fragment, starting with a separator
+     */
+    String getPlanParamsCacheKey()
+    {
+        StringBuilder buf = new StringBuilder();
+        for (String name : PLAN_PARAMS) {
+            buf.append(';').append(name).append('=');
+            if (sessionVariables.containsVariable(name)) {
+                buf.append(sessionVariables.get(name));
+            }
+        }
+        return buf.toString();
+    }
+
     private void validateDdl(
         FarragoSessionDdlValidator ddlValidator,
         FarragoDbStmtContextBase stmtContext,
@@ -1453,6 +1585,14 @@ public class FarragoDbSession
             }
             ddlStmt.postExecute();
 
+            if (ddlStmt.requiresCommit()) {
+                // Name resolution and privileges may have changed.  Do this
+                // while we still hold the catalog write lock, so that no
+                // statement can be looked up by its text under the old
+                // version once the new catalog is visible.
+                database.incrementCatalogVersion();
+            }
+
             tracer.fine("committing DDL");
             reposTxnContext.commit();
             commitImpl();
@@ -1526,6 +1666,21 @@ public class FarragoDbSession
         return (getSessionIndexMap().getOldTableStructure() != null);
     }
 
+    // implement FarragoSession
+    public FarragoSessionReductionCache getReductionCache()
+    {
+        reductionCache.validate(getDatabase().getCatalogVersion());
+        return reductionCache;
+    }
+
+    // implement FarragoSession
+    public FarragoSessionNameIndex getNameIndex()
+    {
+        FarragoSessionNameIndex nameIndex = getDatabase().getNameIndex();
+        nameIndex.validate(getDatabase().getCatalogVersion());
+        return nameIndex;
+    }
+
     //~ Inner Classes ----------------------------------------------------------
 
     private class DdlExecutionVisitor
@@ -27,6 +27,7 @@ import java.sql.*;
 import java.util.*;
 import java.util.logging.*;
 
+import net.sf.farrago.defimpl.*;
 import net.sf.farrago.resource.*;
 import net.sf.farrago.session.*;
 import net.sf.farrago.util.*;
@@ -34,6 +35,7 @@ import net.sf.farrago.util.*;
 import org.eigenbase.rel.*;
 import org.eigenbase.relopt.*;
 import org.eigenbase.reltype.*;
+import org.eigenbase.resource.*;
 import org.eigenbase.runtime.*;
 import org.eigenbase.sql.*;
 import org.eigenbase.util.*;
@@ -64,6 +66,13 @@ public class FarragoDbStmtContext
     private final FarragoWarningQueue warningQueue;
     private boolean isExecDirect;
 
+    /**
+     * Source of the remaining batches when a multi-row INSERT ... VALUES
+     * statement has been split up, or null if the currently prepared
+     * statement was prepared as is.
+     */
+    private FarragoDbInsertValuesSplitter insertValuesSplitter;
+
     /**
      * query timeout in seconds, default to 0.
      */
@@ -119,6 +128,56 @@ public class FarragoDbStmtContext
     public void prepare(
         String sql,
         boolean isExecDirect)
+    {
+        synchronized (session) {
+            FarragoDbInsertValuesSplitter splitter = null;
+            if (isExecDirect) {
+                splitter = newInsertValuesSplitter(sql);
+            }
+            if (splitter == null) {
+                prepareImpl(sql, isExecDirect, true);
+            } else {
+                // The batches differ only in their literals, so they are
+                // kept out of the statement cache.
+                prepareImpl(splitter.nextBatch(), true, false);
+                insertValuesSplitter = splitter;
+            }
+        }
+    }
+
+    /**
+     * Creates a splitter for a directly executed multi-row INSERT ... VALUES
+     * statement, if the session enables splitting and the statement can be
+     * split. Splitting requires autocommit mode and a personality which
+     * supports transactions, so that all of the batches can be run in one
+     * transaction and the statement remains atomic.
+     *
+     * @param sql text of statement
+     *
+     * @return splitter, or null if the statement should be prepared as is
+     */
+    private FarragoDbInsertValuesSplitter newInsertValuesSplitter(String sql)
+    {
+        int batchSize =
+            session.getSessionVariables().getInteger(
+                FarragoDefaultSessionPersonality.INSERT_VALUES_BATCH_SIZE);
+        if ((batchSize <= 0)
+            || !session.isAutoCommit()
+            || !session.getPersonality().supportsFeature(
+                EigenbaseResource.instance().SQLFeature_E151))
+        {
+            return null;
+        }
+        return FarragoDbInsertValuesSplitter.create(
+            sql,
+            batchSize,
+            session.getPersonality().newTypeFactory(session.getRepos()));
+    }
+
+    private void prepareImpl(
+        String sql,
+        boolean isExecDirect,
+        boolean cacheStmt)
     {
         synchronized (session) {
             warningQueue.clearWarnings();
@@ -127,17 +186,59 @@ public class FarragoDbStmtContext
             allocations = new FarragoCompoundAllocation();
             this.sql = sql;
             this.isExecDirect = isExecDirect;
+            stmtTimings =
+                new FarragoSessionStmtTimings(
+                    session.getSessionInfo().getId(),
+                    sql);
             executableStmt =
                 session.prepare(
                     this,
                     sql,
                     allocations,
                     isExecDirect,
-                    null);
+                    null,
+                    cacheStmt);
             finishPrepare();
         }
     }
 
+    /**
+     * Prepares the statement again if its plan has been invalidated since it
+     * was prepared (see {@link FarragoSessionStalenessCheck}). Dynamic
+     * parameter values which have already been set are kept.
+     */
+    private void prepareAgainIfStale()
+    {
+        if ((sql == null) || sql.equals("")
+            || !executableStmt.isStale(session.getRepos()))
+        {
+            return;
+        }
+        tracer.fine("preparing stale statement again");
+        Object [] paramValues = dynamicParamValues;
+        boolean [] paramValuesSet = dynamicParamValuesSet;
+        FarragoDbInsertValuesSplitter splitter = insertValuesSplitter;
+        prepareImpl(sql, isExecDirect, true);
+        insertValuesSplitter = splitter;
+        assert (isPrepared());
+        if ((paramValues != null)
+            && (paramValues.length == dynamicParamValues.length))
+        {
+            System.arraycopy(
+                paramValues,
+                0,
+                dynamicParamValues,
+                0,
+                paramValues.length);
+            System.arraycopy(
+                paramValuesSet,
+                0,
+                dynamicParamValuesSet,
+                0,
+                paramValuesSet.length);
+        }
+    }
+
     protected void finishPrepare()
     {
         if (isPrepared()) {
@@ -147,6 +248,9 @@ public class FarragoDbStmtContext
         } else {
             // always zero for DDL
             updateCount = 0;
+
+            // DDL is executed as part of preparation
+            publishStmtTimings();
         }
     }
 
@@ -233,13 +337,60 @@ public class FarragoDbStmtContext
     public void execute()
     {
         synchronized (session) {
-            executeImpl();
+            if (insertValuesSplitter == null) {
+                executeImpl();
+            } else {
+                executeInsertValuesBatches();
+            }
+        }
+    }
+
+    /**
+     * Executes a split INSERT ... VALUES statement, preparing and executing
+     * each of its batches in turn and reporting the total update count. The
+     * batches run as a single transaction, which is rolled back if any of
+     * them fails.
+     */
+    private void executeInsertValuesBatches()
+    {
+        FarragoDbInsertValuesSplitter splitter = insertValuesSplitter;
+        assert (session.isAutoCommit());
+        session.setAutoCommit(false);
+        boolean success = false;
+        long totalCount = 0;
+        try {
+            for (;;) {
+                executeImpl();
+                totalCount += updateCount;
+                String batchSql = splitter.nextBatch();
+                if (batchSql == null) {
+                    break;
+                }
+                if (cancelFlag.isCancelRequested()) {
+                    throw FarragoResource.instance().ExecutionAborted.ex();
+                }
+                prepareImpl(batchSql, true, false);
+                insertValuesSplitter = splitter;
+            }
+            success = true;
+        } finally {
+            try {
+                if (success) {
+                    session.commit();
+                } else {
+                    session.rollback(null);
+                }
+            } finally {
+                session.setAutoCommit(true);
+            }
         }
+        updateCount = totalCount;
     }
 
     private void executeImpl()
     {
         assert (isPrepared());
+        prepareAgainIfStale();
         if (!isExecDirect) {
             warningQueue.clearWarnings();
         }
@@ -312,7 +463,25 @@ public class FarragoDbStmtContext
             if (cancelFlag.isCancelRequested()) {
                 newContext.cancel();
             }
+            long openStart = System.nanoTime();
+            long fennelPrepareBefore = 0;
+            if (stmtTimings != null) {
+                fennelPrepareBefore =
+                    stmtTimings.getPhaseNanos(
+                        FarragoSessionStmtTimings.FENNEL_PREPARE);
+            }
             resultSet = executableStmt.execute(newContext);
+            if (stmtTimings != null) {
+                // Fennel plan preparation happens during open but is
+                // reported as a phase of its own
+                long fennelPrepare =
+                    stmtTimings.getPhaseNanos(
+                        FarragoSessionStmtTimings.FENNEL_PREPARE)
+                    - fennelPrepareBefore;
+                stmtTimings.recordPhase(
+                    FarragoSessionStmtTimings.OPEN,
+                    System.nanoTime() - openStart - fennelPrepare);
+            }
             runningContext = newContext;
             newContext = null;
 
@@ -487,6 +656,7 @@ public class FarragoDbStmtContext
             }
             executableStmt = null;
             isExecDirect = false;
+            insertValuesSplitter = null;
 
             super.unprepare();
         }
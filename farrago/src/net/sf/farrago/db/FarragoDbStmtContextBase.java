@@ -93,6 +93,13 @@ public abstract class FarragoDbStmtContextBase
 
     private FarragoSessionExecutingStmtInfo info = null;
 
+    /**
+     * Per-phase timings of the statement most recently prepared in this
+     * context; published to the database's timing history as phases
+     * complete.
+     */
+    protected FarragoSessionStmtTimings stmtTimings;
+
     private final long stmtCurrentTime;
     protected final FarragoSessionStmtContext rootStmtContext;
 
@@ -196,6 +203,23 @@ public abstract class FarragoDbStmtContextBase
         return info;
     }
 
+    // implement FarragoSessionStmtContext
+    public FarragoSessionStmtTimings getStmtTimings()
+    {
+        return stmtTimings;
+    }
+
+    /**
+     * Publishes the phase timings collected so far for the current statement
+     * to the database's timing history.
+     */
+    protected void publishStmtTimings()
+    {
+        if ((stmtTimings != null) && !stmtTimings.isEmpty()) {
+            session.getDatabase().getStmtTimingHistory().record(stmtTimings);
+        }
+    }
+
     // implement FarragoSessionStmtContext
     public void daemonize()
     {
@@ -207,6 +231,10 @@ public abstract class FarragoDbStmtContextBase
     {
         cancelFlag.clearCancel();
         synchronized (session) {
+            // statements prepared but never executed still report their
+            // preparation phases
+            publishStmtTimings();
+            stmtTimings = null;
             sql = null;
             dynamicParamValues = null;
             dynamicParamValuesSet = null;
@@ -486,6 +514,9 @@ public abstract class FarragoDbStmtContextBase
         FarragoDbSessionInfo sessionInfo =
             (FarragoDbSessionInfo) session.getSessionInfo();
         sessionInfo.addExecutingStmtInfo(info);
+        if (stmtTimings != null) {
+            stmtTimings.setStmtId(info.getId());
+        }
     }
 
     /**
@@ -504,6 +535,7 @@ public abstract class FarragoDbStmtContextBase
         long key = info.getId();
         getSessionInfo().removeExecutingStmtInfo(key);
         info = null;
+        publishStmtTimings();
     }
 
     // implement FarragoSessionStmtContext
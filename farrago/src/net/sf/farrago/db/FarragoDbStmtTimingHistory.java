@@ -0,0 +1,435 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.db;
+
+import java.util.*;
+
+import net.sf.farrago.session.*;
+
+
+/**
+ * FarragoDbStmtTimingHistory keeps the per-phase timings of recently completed
+ * statements, and aggregates timings per canonical SQL text into histograms.
+ * It backs the statement timing views in <code>sys_boot.mgmt</code>.
+ *
+ * <p>Canonical SQL is the statement text with literals replaced by '?' and
+ * runs of whitespace collapsed, so that statements which differ only in
+ * their literal values share a summary. Both the recent statement list and
+ * the set of summaries are bounded; the least recently updated summary is
+ * discarded first.
+ *
+ * <p>Histogram bucket <i>i</i> counts phases which took less than
+ * 2<sup><i>i</i></sup> microseconds (and at least half that, except for bucket
+ * 0).
+ *
+ * @version $Id$
+ */
+public class FarragoDbStmtTimingHistory
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    private static final int DEFAULT_MAX_RECENT_STMTS = 256;
+
+    private static final int DEFAULT_MAX_SUMMARIES = 500;
+
+    /**
+     * Number of histogram buckets; the last one, 2^40 microseconds, is about
+     * 12 days.
+     */
+    public static final int BUCKET_COUNT = 41;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final int maxRecentStmts;
+    private final LinkedList<StmtTiming> recentStmts;
+    private final LinkedHashMap<String, Map<String, PhaseSummary>> summaries;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a history with default bounds.
+     */
+    public FarragoDbStmtTimingHistory()
+    {
+        this(DEFAULT_MAX_RECENT_STMTS, DEFAULT_MAX_SUMMARIES);
+    }
+
+    /**
+     * Creates a history.
+     *
+     * @param maxRecentStmts number of completed statements to remember
+     * @param maxSummaries number of canonical SQL texts to keep summaries for
+     */
+    public FarragoDbStmtTimingHistory(
+        int maxRecentStmts,
+        final int maxSummaries)
+    {
+        this.maxRecentStmts = maxRecentStmts;
+        this.recentStmts = new LinkedList<StmtTiming>();
+        this.summaries =
+            new LinkedHashMap<String, Map<String, PhaseSummary>>(
+                16,
+                0.75f,
+                true)
+            {
+                protected boolean removeEldestEntry(
+                    Map.Entry<String, Map<String, PhaseSummary>> eldest)
+                {
+                    return size() > maxSummaries;
+                }
+            };
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Records the phases collected so far for a statement, and clears them
+     * from the statement's timings. Does nothing if no phase was collected.
+     *
+     * @param timings timings of a statement which has completed preparation
+     * or execution
+     */
+    public void record(FarragoSessionStmtTimings timings)
+    {
+        Map<String, Long> phases = timings.snapshotAndClear();
+        if (phases.isEmpty()) {
+            return;
+        }
+        String canonicalSql = canonicalize(timings.getSql());
+        StmtTiming stmtTiming =
+            new StmtTiming(
+                timings.getStmtId(),
+                timings.getSessionId(),
+                timings.getSql(),
+                canonicalSql,
+                System.currentTimeMillis(),
+                phases);
+        synchronized (this) {
+            recentStmts.addLast(stmtTiming);
+            while (recentStmts.size() > maxRecentStmts) {
+                recentStmts.removeFirst();
+            }
+            Map<String, PhaseSummary> phaseSummaries =
+                summaries.get(canonicalSql);
+            if (phaseSummaries == null) {
+                phaseSummaries = new LinkedHashMap<String, PhaseSummary>();
+                summaries.put(canonicalSql, phaseSummaries);
+            }
+            for (Map.Entry<String, Long> entry : phases.entrySet()) {
+                PhaseSummary summary = phaseSummaries.get(entry.getKey());
+                if (summary == null) {
+                    summary = new PhaseSummary(canonicalSql, entry.getKey());
+                    phaseSummaries.put(entry.getKey(), summary);
+                }
+                summary.add(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return recently completed statements, oldest first
+     */
+    public synchronized List<StmtTiming> getRecentStmts()
+    {
+        return new ArrayList<StmtTiming>(recentStmts);
+    }
+
+    /**
+     * @return copies of the summaries for every canonical SQL text and phase
+     */
+    public synchronized List<PhaseSummary> getPhaseSummaries()
+    {
+        List<PhaseSummary> list = new ArrayList<PhaseSummary>();
+        for (Map<String, PhaseSummary> phaseSummaries : summaries.values()) {
+            for (PhaseSummary summary : phaseSummaries.values()) {
+                list.add(new PhaseSummary(summary));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Forgets all recorded timings.
+     */
+    public synchronized void clear()
+    {
+        recentStmts.clear();
+        summaries.clear();
+    }
+
+    /**
+     * Returns the histogram bucket for a duration.
+     *
+     * @param nanos duration in nanoseconds
+     *
+     * @return bucket index, between 0 and {@link #BUCKET_COUNT} - 1
+     */
+    public static int getBucket(long nanos)
+    {
+        long micros = nanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Returns the exclusive upper bound of a histogram bucket.
+     *
+     * @param bucket bucket index
+     *
+     * @return upper bound in microseconds
+     */
+    public static long getBucketUpperBoundMicros(int bucket)
+    {
+        return 1L << bucket;
+    }
+
+    /**
+     * Canonicalizes SQL text by replacing literals with '?' and collapsing
+     * whitespace. Comments are removed.
+     *
+     * @param sql SQL text
+     *
+     * @return canonical SQL text
+     */
+    public static String canonicalize(String sql)
+    {
+        if (sql == null) {
+            return "";
+        }
+        StringBuilder buf = new StringBuilder(sql.length());
+        int n = sql.length();
+        int i = 0;
+        boolean pendingSpace = false;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = buf.length() > 0;
+                ++i;
+                continue;
+            }
+            if ((c == '-') && sql.startsWith("--", i)) {
+                while ((i < n) && (sql.charAt(i) != '\n')) {
+                    ++i;
+                }
+                pendingSpace = buf.length() > 0;
+                continue;
+            }
+            if ((c == '/') && sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = (end < 0) ? n : (end + 2);
+                pendingSpace = buf.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                buf.append(' ');
+                pendingSpace = false;
+            }
+            if ((c == '\'') || (c == '"')) {
+                // skip to the closing quote; a doubled quote is an escape
+                int start = i;
+                ++i;
+                while (i < n) {
+                    if (sql.charAt(i) == c) {
+                        if (((i + 1) < n) && (sql.charAt(i + 1) == c)) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    ++i;
+                }
+                i = Math.min(i + 1, n);
+                if (c == '\'') {
+                    buf.append('?');
+                } else {
+                    // quoted identifier
+                    buf.append(sql, start, i);
+                }
+                continue;
+            }
+            if (Character.isDigit(c)
+                || ((c == '.')
+                    && ((i + 1) < n)
+                    && Character.isDigit(sql.charAt(i + 1))))
+            {
+                while ((i < n)
+                    && (Character.isLetterOrDigit(sql.charAt(i))
+                        || (sql.charAt(i) == '.')
+                        || (((sql.charAt(i) == '+') || (sql.charAt(i) == '-'))
+                            && ((sql.charAt(i - 1) == 'e')
+                                || (sql.charAt(i - 1) == 'E')))))
+                {
+                    ++i;
+                }
+                buf.append('?');
+                continue;
+            }
+            if (Character.isLetter(c) || (c == '_') || (c == '$')) {
+                // identifier or keyword; digits in it are not literals
+                int start = i;
+                while ((i < n)
+                    && (Character.isLetterOrDigit(sql.charAt(i))
+                        || (sql.charAt(i) == '_')
+                        || (sql.charAt(i) == '$')))
+                {
+                    ++i;
+                }
+                buf.append(sql, start, i);
+                continue;
+            }
+            buf.append(c);
+            ++i;
+        }
+        return buf.toString();
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * Timings of one completed statement.
+     */
+    public static class StmtTiming
+    {
+        public final long stmtId;
+        public final long sessionId;
+        public final String sql;
+        public final String canonicalSql;
+        public final long endTime;
+
+        /**
+         * Map from phase name to nanoseconds, in the order phases occurred.
+         */
+        public final Map<String, Long> phaseNanos;
+
+        StmtTiming(
+            long stmtId,
+            long sessionId,
+            String sql,
+            String canonicalSql,
+            long endTime,
+            Map<String, Long> phaseNanos)
+        {
+            this.stmtId = stmtId;
+            this.sessionId = sessionId;
+            this.sql = sql;
+            this.canonicalSql = canonicalSql;
+            this.endTime = endTime;
+            this.phaseNanos = Collections.unmodifiableMap(phaseNanos);
+        }
+    }
+
+    /**
+     * Aggregated timings of one phase of all statements with the same
+     * canonical SQL.
+     */
+    public static class PhaseSummary
+    {
+        public final String canonicalSql;
+        public final String phase;
+        private long count;
+        private long totalNanos;
+        private long minNanos;
+        private long maxNanos;
+        private final long [] bucketCounts;
+
+        PhaseSummary(String canonicalSql, String phase)
+        {
+            this.canonicalSql = canonicalSql;
+            this.phase = phase;
+            this.minNanos = Long.MAX_VALUE;
+            this.bucketCounts = new long[BUCKET_COUNT];
+        }
+
+        PhaseSummary(PhaseSummary other)
+        {
+            this.canonicalSql = other.canonicalSql;
+            this.phase = other.phase;
+            this.count = other.count;
+            this.totalNanos = other.totalNanos;
+            this.minNanos = other.minNanos;
+            this.maxNanos = other.maxNanos;
+            this.bucketCounts = other.bucketCounts.clone();
+        }
+
+        void add(long nanos)
+        {
+            ++count;
+            totalNanos += nanos;
+            minNanos = Math.min(minNanos, nanos);
+            maxNanos = Math.max(maxNanos, nanos);
+            ++bucketCounts[getBucket(nanos)];
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        public long getTotalNanos()
+        {
+            return totalNanos;
+        }
+
+        public long getMinNanos()
+        {
+            return minNanos;
+        }
+
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+
+        /**
+         * @param bucket bucket index
+         *
+         * @return number of occurrences which fell into a histogram bucket
+         */
+        public long getBucketCount(int bucket)
+        {
+            return bucketCounts[bucket];
+        }
+
+        /**
+         * Estimates a percentile from the histogram.
+         *
+         * @param fraction percentile as a fraction, between 0 and 1
+         *
+         * @return upper bound, in microseconds, of the bucket containing the
+         * percentile
+         */
+        public long getPercentileMicros(double fraction)
+        {
+            long target = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                seen += bucketCounts[i];
+                if ((seen >= target) && (seen > 0)) {
+                    return getBucketUpperBoundMicros(i);
+                }
+            }
+            return getBucketUpperBoundMicros(BUCKET_COUNT - 1);
+        }
+    }
+}
+
+// End FarragoDbStmtTimingHistory.java
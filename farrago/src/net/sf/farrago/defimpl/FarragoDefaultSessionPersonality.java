@@ -59,6 +59,7 @@ import org.eigenbase.resource.*;
 import org.eigenbase.sql.*;
 import org.eigenbase.sql.fun.*;
 import org.eigenbase.sql.type.*;
+import org.eigenbase.sql2rel.*;
 import org.eigenbase.util.*;
 import org.eigenbase.util14.*;
 
@@ -115,6 +116,17 @@ public class FarragoDefaultSessionPersonality
     public static final String DEGREE_OF_PARALLELISM = "degreeOfParallelism";
     public static final String DEGREE_OF_PARALLELISM_DEFAULT = "1";
 
+    /**
+     * Degree of parallelism to use for DML statements, including the reloads
+     * done by index builds and ALTER TABLE REBUILD. The streams maintaining
+     * each cluster and index of the target table are independent of one
+     * another, so these statements can often use more threads than queries.
+     * The larger of this and {@link #DEGREE_OF_PARALLELISM} applies.
+     */
+    public static final String DML_DEGREE_OF_PARALLELISM =
+        "dmlDegreeOfParallelism";
+    public static final String DML_DEGREE_OF_PARALLELISM_DEFAULT = "1";
+
     /**
      * The label for the current session
      */
@@ -127,6 +139,41 @@ public class FarragoDefaultSessionPersonality
 
     public static final String USE_ENKI_MASS_DELETION = "useEnkiMassDeletion";
     public static final String USE_ENKI_MASS_DELETION_DEFAULT = "true";
+
+    /**
+     * Whether pure Fennel query results should be decoded a buffer at a time
+     * into column arrays, rather than unmarshalled tuple by tuple.
+     */
+    public static final String COLUMNAR_FETCH = "columnarFetch";
+    public static final String COLUMNAR_FETCH_DEFAULT = "false";
+
+    /**
+     * Size at which a literal IN list stops being expanded to a chain of ORs
+     * and is instead evaluated by hash lookup (or, if it contains anything
+     * other than literals, by a join).
+     */
+    public static final String IN_LIST_THRESHOLD = "inListThreshold";
+    public static final String IN_LIST_THRESHOLD_DEFAULT =
+        Integer.toString(SqlToRelConverter.DEFAULT_IN_SUBQUERY_THRESHOLD);
+
+    /**
+     * Whether literal IN lists at or above {@link #IN_LIST_THRESHOLD} are
+     * evaluated by hash lookup rather than by a join against their values.
+     */
+    public static final String HASH_IN_LIST = "hashInList";
+    public static final String HASH_IN_LIST_DEFAULT = "true";
+
+    /**
+     * Number of rows per batch when a directly executed multi-row INSERT ...
+     * VALUES statement is split up so that it can be parsed and executed in
+     * bounded memory; 0 (the default) disables splitting. Statements are only
+     * split in autocommit mode, and only if the personality supports
+     * transactions.
+     */
+    public static final String INSERT_VALUES_BATCH_SIZE =
+        "insertValuesBatchSize";
+    public static final String INSERT_VALUES_BATCH_SIZE_DEFAULT = "0";
+
     /**
      * "thisjar" replacement in the spec(section 4.11.1).
      */
@@ -162,9 +209,30 @@ public class FarragoDefaultSessionPersonality
             false,
             1,
             Integer.MAX_VALUE);
+        paramValidator.registerIntParam(
+            DML_DEGREE_OF_PARALLELISM,
+            false,
+            1,
+            Integer.MAX_VALUE);
         paramValidator.registerBoolParam(
             USE_ENKI_MASS_DELETION,
             false);
+        paramValidator.registerBoolParam(
+            COLUMNAR_FETCH,
+            false);
+        paramValidator.registerIntParam(
+            IN_LIST_THRESHOLD,
+            false,
+            0,
+            Integer.MAX_VALUE);
+        paramValidator.registerBoolParam(
+            HASH_IN_LIST,
+            false);
+        paramValidator.registerIntParam(
+            INSERT_VALUES_BATCH_SIZE,
+            false,
+            0,
+            Integer.MAX_VALUE);
         paramValidator.registerStringParam(SQLJ_THISJAR, false);
     }
 
@@ -508,9 +576,24 @@ public class FarragoDefaultSessionPersonality
         variables.setDefault(
             DEGREE_OF_PARALLELISM,
             DEGREE_OF_PARALLELISM_DEFAULT);
+        variables.setDefault(
+            DML_DEGREE_OF_PARALLELISM,
+            DML_DEGREE_OF_PARALLELISM_DEFAULT);
         variables.setDefault(
             USE_ENKI_MASS_DELETION,
             USE_ENKI_MASS_DELETION_DEFAULT);
+        variables.setDefault(
+            COLUMNAR_FETCH,
+            COLUMNAR_FETCH_DEFAULT);
+        variables.setDefault(
+            IN_LIST_THRESHOLD,
+            IN_LIST_THRESHOLD_DEFAULT);
+        variables.setDefault(
+            HASH_IN_LIST,
+            HASH_IN_LIST_DEFAULT);
+        variables.setDefault(
+            INSERT_VALUES_BATCH_SIZE,
+            INSERT_VALUES_BATCH_SIZE_DEFAULT);
         variables.setDefault(SQLJ_THISJAR, SQLJ_THISJAR_DEFAULT);
     }
 
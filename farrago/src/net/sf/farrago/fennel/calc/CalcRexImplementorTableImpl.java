@@ -621,6 +621,10 @@ public class CalcRexImplementorTableImpl
             SqlStdOperatorTable.prefixMinusOperator,
             CalcProgramBuilder.nativeNeg);
 
+        register(
+            SqlStdOperatorTable.inListOperator,
+            new InListImplementor());
+
         register(
             SqlStdOperatorTable.reinterpretOperator,
             new ReinterpretCastImplementor());
@@ -2422,6 +2426,66 @@ public class CalcRexImplementorTableImpl
         }
     }
 
+    /**
+     * Implements {@link SqlStdOperatorTable#inListOperator} by encoding the
+     * list values into a single VARCHAR literal, which the calculator decodes
+     * into a hash set the first time the instruction executes.
+     */
+    private static class InListImplementor
+        extends AbstractCalcRexImplementor
+    {
+        public boolean canImplement(RexCall call)
+        {
+            if (!super.canImplement(call)) {
+                return false;
+            }
+
+            // The calculator only handles single-byte strings; leave
+            // anything else to the Java calc.
+            String encoded =
+                SqlInListOperator.encodeValues(
+                    SqlInListOperator.getCanonicalValues(call));
+            for (int i = 0; i < encoded.length(); i++) {
+                if (encoded.charAt(i) > 0xff) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public CalcReg implement(
+            RexCall call,
+            RexToCalcTranslator translator)
+        {
+            RexNode key = call.operands[0];
+            RelDataType keyType = key.getType();
+            final ExtInstrDef instr;
+            if (SqlTypeUtil.isIntType(keyType)) {
+                instr = ExtInstructionDefTable.inListInt;
+                if (keyType.getSqlTypeName() != SqlTypeName.BIGINT) {
+                    RelDataTypeFactory fac =
+                        translator.rexBuilder.getTypeFactory();
+                    RelDataType bigintType =
+                        fac.createTypeWithNullability(
+                            fac.createSqlType(SqlTypeName.BIGINT),
+                            keyType.isNullable());
+                    key = translator.rexBuilder.makeCast(bigintType, key);
+                }
+            } else {
+                instr = ExtInstructionDefTable.inListStrA;
+            }
+
+            CalcReg resultReg = createResultRegister(translator, call);
+            CalcReg keyReg = translator.implementNode(key);
+            CalcReg listReg =
+                translator.builder.newVarcharLiteral(
+                    SqlInListOperator.encodeValues(
+                        SqlInListOperator.getCanonicalValues(call)));
+            instr.add(translator.builder, resultReg, keyReg, listReg);
+            return resultReg;
+        }
+    }
+
     /**
      * Abstract base class for classes which implement {@link
      * CalcRexAggImplementor}.
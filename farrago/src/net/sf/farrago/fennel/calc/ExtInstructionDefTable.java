@@ -59,6 +59,10 @@ public class ExtInstructionDefTable
         new CalcProgramBuilder.ExtInstrSizeDef("strCatA");
     public static final CalcProgramBuilder.ExtInstrDef dynamicVariable =
         new CalcProgramBuilder.ExtInstrDef("dynamicVariable", 2);
+    public static final CalcProgramBuilder.ExtInstrDef inListInt =
+        new CalcProgramBuilder.ExtInstrDef("inListInt", 3);
+    public static final CalcProgramBuilder.ExtInstrDef inListStrA =
+        new CalcProgramBuilder.ExtInstrDef("inListStrA", 3);
     public static final CalcProgramBuilder.ExtInstrDef like =
         new CalcProgramBuilder.ExtInstrSizeDef("strLikeA");
     public static final CalcProgramBuilder.ExtInstrDef localTime =
@@ -0,0 +1,298 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.fennel.tuple;
+
+import java.nio.*;
+
+
+/**
+ * FennelColumnarTupleData decodes a whole buffer of marshalled tuples into
+ * per-column arrays, and then presents one row at a time as a {@link
+ * FennelTupleData}. This class is JDK 1.4 compatible.
+ *
+ * <p>Numeric columns (including booleans and the INT_64 representation of
+ * decimals and datetimes) are stored as the raw <code>long</code> which
+ * {@link FennelTupleDatum#getLong()} would return, so a consumer which knows
+ * the column type can read the current row's value with {@link #isNull} and
+ * {@link #getRawLong} without touching a datum. Character and binary columns
+ * are copied into a per-column byte array and are copied out again only when
+ * the datum is accessed.
+ *
+ * @version $Id$
+ */
+public class FennelColumnarTupleData
+    extends FennelTupleData
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private final FennelTupleAccessor tupleAccessor;
+
+    /**
+     * For each column, whether it holds bytes rather than a numeric value.
+     */
+    private final boolean [] byteColumns;
+
+    private final boolean [][] nulls;
+    private final long [][] longValues;
+
+    /**
+     * For byte columns, the concatenated values of all rows.
+     */
+    private final byte [][] byteValues;
+
+    /**
+     * For byte columns, the end offset of each row's value in {@link
+     * #byteValues}; a row's value starts at the end of its predecessor.
+     */
+    private final int [][] byteEnds;
+
+    private int rowCapacity;
+    private int rowCount;
+    private int currentRow;
+
+    /**
+     * Whether the datums of the superclass hold the values of {@link
+     * #currentRow}.
+     */
+    private boolean datumsCurrent;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a FennelColumnarTupleData.
+     *
+     * @param tupleDesc descriptor of the tuples to be decoded
+     * @param tupleAccessor accessor computed from tupleDesc
+     */
+    public FennelColumnarTupleData(
+        FennelTupleDescriptor tupleDesc,
+        FennelTupleAccessor tupleAccessor)
+    {
+        super(tupleDesc);
+        this.tupleAccessor = tupleAccessor;
+        int n = getDatumCount();
+        assert tupleAccessor.size() == n;
+        byteColumns = new boolean[n];
+        nulls = new boolean[n][];
+        longValues = new long[n][];
+        byteValues = new byte[n][];
+        byteEnds = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            byteColumns[i] =
+                tupleDesc.getAttr(i).typeDescriptor.getOrdinal()
+                > FennelStandardTypeDescriptor.DOUBLE_ORDINAL;
+        }
+        rowCapacity = 0;
+        rowCount = 0;
+        currentRow = -1;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Decodes all tuples from the position of a buffer to its limit, and
+     * positions before the first of them. On return, the buffer position is
+     * at its limit.
+     *
+     * @param buf buffer containing aligned, marshalled tuples
+     *
+     * @return number of tuples decoded
+     */
+    public int load(ByteBuffer buf)
+    {
+        rowCount = 0;
+        currentRow = -1;
+        datumsCurrent = false;
+        int n = getDatumCount();
+        int [] byteLengths = new int[n];
+        while (buf.hasRemaining()) {
+            if (rowCount == rowCapacity) {
+                int estimate =
+                    buf.remaining()
+                    / Math.max(1, tupleAccessor.getMinByteCount());
+                grow(Math.max(rowCount + estimate, 2 * rowCount));
+            }
+            ByteBuffer tupleBuf = buf.slice();
+            tupleBuf.order(buf.order());
+            tupleAccessor.setCurrentTupleBuf(tupleBuf);
+            for (int i = 0; i < n; ++i) {
+                FennelTupleDatum datum = super.getDatum(i);
+                tupleAccessor.unmarshalAttribute(i, datum);
+                boolean isNull = !datum.isPresent();
+                nulls[i][rowCount] = isNull;
+                if (!byteColumns[i]) {
+                    longValues[i][rowCount] = isNull ? 0 : datum.getLong();
+                    continue;
+                }
+                int len = isNull ? 0 : datum.getLength();
+                int start = byteLengths[i];
+                if ((start + len) > byteValues[i].length) {
+                    byte [] newBytes =
+                        new byte[Math.max(
+                            start + len,
+                            2 * byteValues[i].length)];
+                    System.arraycopy(byteValues[i], 0, newBytes, 0, start);
+                    byteValues[i] = newBytes;
+                }
+                if (len > 0) {
+                    System.arraycopy(
+                        datum.getBytes(),
+                        0,
+                        byteValues[i],
+                        start,
+                        len);
+                }
+                byteLengths[i] = start + len;
+                byteEnds[i][rowCount] = start + len;
+            }
+            int tupleEnd =
+                buf.position() + tupleAccessor.getBufferByteCount(tupleBuf);
+            buf.position(tupleAccessor.alignRoundUp(tupleEnd));
+            ++rowCount;
+        }
+        tupleAccessor.resetCurrentTupleBuf();
+        return rowCount;
+    }
+
+    private void grow(int newCapacity)
+    {
+        for (int i = 0; i < getDatumCount(); ++i) {
+            nulls[i] = grow(nulls[i], newCapacity);
+            if (byteColumns[i]) {
+                byteEnds[i] = grow(byteEnds[i], newCapacity);
+                if (byteValues[i] == null) {
+                    byteValues[i] = new byte[newCapacity];
+                }
+            } else {
+                longValues[i] = grow(longValues[i], newCapacity);
+            }
+        }
+        rowCapacity = newCapacity;
+    }
+
+    private boolean [] grow(boolean [] a, int newCapacity)
+    {
+        boolean [] b = new boolean[newCapacity];
+        if (a != null) {
+            System.arraycopy(a, 0, b, 0, rowCount);
+        }
+        return b;
+    }
+
+    private int [] grow(int [] a, int newCapacity)
+    {
+        int [] b = new int[newCapacity];
+        if (a != null) {
+            System.arraycopy(a, 0, b, 0, rowCount);
+        }
+        return b;
+    }
+
+    private long [] grow(long [] a, int newCapacity)
+    {
+        long [] b = new long[newCapacity];
+        if (a != null) {
+            System.arraycopy(a, 0, b, 0, rowCount);
+        }
+        return b;
+    }
+
+    /**
+     * Advances to the next decoded row.
+     *
+     * @return false if all rows decoded by the last {@link #load} have been
+     * visited
+     */
+    public boolean next()
+    {
+        if ((currentRow + 1) >= rowCount) {
+            return false;
+        }
+        ++currentRow;
+        datumsCurrent = false;
+        return true;
+    }
+
+    /**
+     * Returns whether a column of the current row is null.
+     *
+     * @param n 0-based column ordinal
+     */
+    public boolean isNull(int n)
+    {
+        return nulls[n][currentRow];
+    }
+
+    /**
+     * Returns whether a column holds bytes (character or binary data) rather
+     * than a numeric value.
+     *
+     * @param n 0-based column ordinal
+     */
+    public boolean isByteColumn(int n)
+    {
+        return byteColumns[n];
+    }
+
+    /**
+     * Returns the raw numeric value of a column of the current row, as {@link
+     * FennelTupleDatum#getLong()} would; 0 if the value is null.
+     *
+     * @param n 0-based column ordinal of a numeric column
+     */
+    public long getRawLong(int n)
+    {
+        assert !byteColumns[n];
+        return longValues[n][currentRow];
+    }
+
+    // override FennelTupleData
+    public FennelTupleDatum getDatum(int n)
+    {
+        FennelTupleDatum datum = super.getDatum(n);
+        if (datumsCurrent || (currentRow < 0)) {
+            return datum;
+        }
+        for (int i = 0; i < getDatumCount(); ++i) {
+            materialize(i, super.getDatum(i));
+        }
+        datumsCurrent = true;
+        return datum;
+    }
+
+    private void materialize(int n, FennelTupleDatum datum)
+    {
+        if (nulls[n][currentRow]) {
+            datum.reset();
+        } else if (!byteColumns[n]) {
+            datum.setLong(longValues[n][currentRow]);
+        } else {
+            int start = (currentRow == 0) ? 0 : byteEnds[n][currentRow - 1];
+            int len = byteEnds[n][currentRow] - start;
+            datum.setLength(len);
+            byte [] rawBytes = datum.setRawBytes();
+            System.arraycopy(byteValues[n], start, rawBytes, 0, len);
+        }
+    }
+}
+
+// End FennelColumnarTupleData.java
@@ -0,0 +1,127 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.fennel.tuple;
+
+import java.nio.*;
+
+
+/**
+ * FennelLazyTupleData is a {@link FennelTupleData} which is a view over a
+ * marshalled tuple in a buffer. Each datum is unmarshalled the first time it
+ * is accessed via {@link #getDatum}, so a consumer which reads only a few
+ * columns of a wide tuple does not pay to copy the others. This class is JDK
+ * 1.4 compatible.
+ *
+ * <p>The view is only valid while the buffer passed to {@link #bind} still
+ * holds the tuple; typically, until the next tuple is fetched.
+ *
+ * @version $Id$
+ */
+public class FennelLazyTupleData
+    extends FennelTupleData
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private final FennelTupleAccessor tupleAccessor;
+
+    /**
+     * Buffer whose position 0 is the start of the current tuple, or null if
+     * no tuple is bound.
+     */
+    private ByteBuffer tupleBuf;
+
+    /**
+     * Incremented each time a tuple is bound.
+     */
+    private int generation;
+
+    /**
+     * For each datum, the value of {@link #generation} when it was last
+     * unmarshalled.
+     */
+    private final int [] datumGenerations;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a FennelLazyTupleData.
+     *
+     * @param tupleDesc descriptor of the tuples to be viewed
+     * @param tupleAccessor accessor computed from tupleDesc; this object sets
+     * the accessor's current tuple buffer, so it must not be shared with
+     * other users who rely on it
+     */
+    public FennelLazyTupleData(
+        FennelTupleDescriptor tupleDesc,
+        FennelTupleAccessor tupleAccessor)
+    {
+        super(tupleDesc);
+        this.tupleAccessor = tupleAccessor;
+        assert tupleAccessor.size() == getDatumCount();
+        datumGenerations = new int[getDatumCount()];
+        generation = 0;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Makes this object a view over a new tuple. Nothing is unmarshalled
+     * until a datum is accessed.
+     *
+     * @param tupleBuf buffer whose position 0 is the start of the tuple
+     */
+    public void bind(ByteBuffer tupleBuf)
+    {
+        this.tupleBuf = tupleBuf;
+        if (++generation == 0) {
+            // wrapped around; make sure no datum looks current
+            for (int i = 0; i < datumGenerations.length; ++i) {
+                datumGenerations[i] = -1;
+            }
+            generation = 1;
+        }
+    }
+
+    /**
+     * Returns the number of bytes occupied by the bound tuple, rounded up for
+     * alignment.
+     */
+    public int getBoundByteCount()
+    {
+        assert tupleBuf != null;
+        return tupleAccessor.getBufferByteCount(tupleBuf);
+    }
+
+    // override FennelTupleData
+    public FennelTupleDatum getDatum(int n)
+    {
+        FennelTupleDatum datum = super.getDatum(n);
+        if ((datumGenerations[n] != generation) && (tupleBuf != null)) {
+            tupleAccessor.setCurrentTupleBuf(tupleBuf);
+            tupleAccessor.unmarshalAttribute(n, datum);
+            datumGenerations[n] = generation;
+        }
+        return datum;
+    }
+}
+
+// End FennelLazyTupleData.java
@@ -773,6 +773,27 @@ public final class FennelTupleAccessor
         unmarshal(tuple, 0);
     }
 
+    /**
+     * Unmarshals a single attribute of the current tuple buffer, setting a
+     * datum to reference its value. Unlike {@link #unmarshal(FennelTupleData,
+     * int)}, the current tuple buffer must start at the beginning of the tuple
+     * (for example, a slice of a multi-tuple buffer), and its position is
+     * undefined on return.
+     *
+     * @param iAttribute 0-based index of the attribute within the tuple
+     * @param datum datum which will be modified to reference the unmarshalled
+     * value
+     */
+    public void unmarshalAttribute(int iAttribute, FennelTupleDatum datum)
+    {
+        FennelAttributeAccessor attr = getAttributeAccessor(iAttribute);
+        if (!attr.isPresent(currTupleBuf)) {
+            datum.reset();
+        } else {
+            attr.unmarshalValue(this, datum);
+        }
+    }
+
     /**
      * Gets an accessor for an individual attribute. This can be used to
      * unmarshall values individually.
@@ -536,20 +536,37 @@ public class FarragoJdbcEngineConnection
     {
         String initialSchema = info.getProperty("schema");
         if (initialSchema != null) {
-            Statement stmt = this.createStatement();
             final SqlBuilder buf = new SqlBuilder(SqlDialect.EIGENBASE);
             buf.append("set schema ");
             buf.literal(initialSchema);
-            final String sql = buf.getSql();
+            executeSetup(buf.getSql());
+        }
+
+        // Fetch pure Fennel results into column arrays; see
+        // FarragoDefaultSessionPersonality.COLUMNAR_FETCH.
+        String columnarFetch = info.getProperty("columnarFetch");
+        if (columnarFetch != null) {
+            final SqlBuilder buf = new SqlBuilder(SqlDialect.EIGENBASE);
+            buf.append("alter session set ");
+            buf.identifier("columnarFetch");
+            buf.append(" = ");
+            buf.append(Boolean.valueOf(columnarFetch).toString());
+            executeSetup(buf.getSql());
+        }
+    }
+
+    private void executeSetup(String sql)
+        throws SQLException
+    {
+        Statement stmt = this.createStatement();
+        try {
+            stmt.executeUpdate(sql);
+        } finally {
             try {
-                stmt.executeUpdate(sql);
-            } finally {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    // allow executeUpdate() exception to propagate
-                    Util.swallow(e, null);
-                }
+                stmt.close();
+            } catch (SQLException e) {
+                // allow executeUpdate() exception to propagate
+                Util.swallow(e, null);
             }
         }
     }
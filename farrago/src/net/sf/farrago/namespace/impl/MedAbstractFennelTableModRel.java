@@ -104,6 +104,34 @@ public abstract class MedAbstractFennelTableModRel
         return (FarragoTypeFactory) getCluster().getTypeFactory();
     }
 
+    /**
+     * Explains this rel as a modification of a table. The degree of
+     * parallelism the statement is prepared with is included when it is
+     * greater than 1, so that plans for parallel DML show it.
+     *
+     * @param pw plan writer
+     * @param tableName qualified name of the table being modified
+     */
+    protected void explainTableMod(
+        RelOptPlanWriter pw,
+        List<String> tableName)
+    {
+        FarragoPreparingStmt stmt = FennelRelUtil.getPreparingStmt(this);
+        int degreeOfParallelism =
+            (stmt == null) ? 1 : stmt.getDegreeOfParallelism(true);
+        if (degreeOfParallelism > 1) {
+            pw.explain(
+                this,
+                new String[] { "child", "table", "degreeOfParallelism" },
+                new Object[] { tableName, degreeOfParallelism });
+        } else {
+            pw.explain(
+                this,
+                new String[] { "child", "table" },
+                new Object[] { tableName });
+        }
+    }
+
     /**
      * Test if input needs to be buffered.
      *
@@ -236,6 +236,47 @@ class ResultSetToFarragoIteratorConverter
                     rowClass,
                     new ExpressionList())));
 
+        // override super.newRow and super.setRow so that each row of a batch
+        // is made in its own object
+        StatementList newRowBody = new StatementList();
+        newRowBody.add(
+            new ReturnStatement(
+                new AllocationExpression(
+                    rowClass,
+                    new ExpressionList())));
+        memberList.add(
+            new MethodDeclaration(
+                new ModifierList(ModifierList.PROTECTED),
+                TypeName.forOJClass(OJUtil.clazzObject),
+                "newRow",
+                new ParameterList(),
+                null,
+                newRowBody));
+
+        StatementList setRowBody = new StatementList();
+        setRowBody.add(
+            new ExpressionStatement(
+                new AssignmentExpression(
+                    varTuple,
+                    AssignmentExpression.EQUALS,
+                    new CastExpression(
+                        TypeName.forOJClass(rowClass),
+                        new Variable("newRow")))));
+        ParameterList setRowParamList = new ParameterList();
+        setRowParamList.add(
+            new Parameter(
+                new ModifierList(0),
+                TypeName.forOJClass(OJUtil.clazzObject),
+                "newRow"));
+        memberList.add(
+            new MethodDeclaration(
+                new ModifierList(ModifierList.PROTECTED),
+                TypeName.forOJClass(OJSystem.VOID),
+                "setRow",
+                setRowParamList,
+                null,
+                setRowBody));
+
         // add method as implementation for super.makeRow
         memberList.add(
             new MethodDeclaration(
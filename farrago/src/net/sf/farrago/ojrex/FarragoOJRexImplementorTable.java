@@ -174,6 +174,10 @@ public class FarragoOJRexImplementorTable
             SqlStdOperatorTable.likeOperator,
             new FarragoOJRexSimilarLikeImplementor(false));
 
+        registerOperator(
+            SqlStdOperatorTable.inListOperator,
+            new FarragoOJRexInListImplementor());
+
         registerOperator(
             SqlStdOperatorTable.caseOperator,
             new FarragoOJRexCaseImplementor());
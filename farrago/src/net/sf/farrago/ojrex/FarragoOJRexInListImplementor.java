@@ -0,0 +1,135 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.ojrex;
+
+import net.sf.farrago.type.runtime.*;
+
+import openjava.mop.*;
+
+import openjava.ptree.*;
+
+import org.eigenbase.rex.*;
+import org.eigenbase.sql.fun.*;
+import org.eigenbase.sql.type.*;
+
+
+/**
+ * FarragoOJRexInListImplementor implements Farrago specifics of {@link
+ * org.eigenbase.oj.rex.OJRexImplementor} for the internal <code>$IN_LIST</code>
+ * operator. The list values become a member {@link InListHashSet}, built when
+ * the calculator is instantiated, and each row does a single probe.
+ *
+ * @version $Id$
+ */
+public class FarragoOJRexInListImplementor
+    extends FarragoOJRexImplementor
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Maximum length of each string constant holding encoded values; Java
+     * limits a constant to 65535 bytes of modified UTF-8, which is at least
+     * this many characters.
+     */
+    private static final int CHUNK_LENGTH = 16000;
+
+    //~ Methods ----------------------------------------------------------------
+
+    // implement FarragoOJRexImplementor
+    public Expression implementFarrago(
+        FarragoRexToOJTranslator translator,
+        RexCall call,
+        Expression [] operands)
+    {
+        RexNode key = call.operands[0];
+        boolean integer = SqlTypeUtil.isIntType(key.getType());
+        String encoded =
+            SqlInListOperator.encodeValues(
+                SqlInListOperator.getCanonicalValues(call));
+        ExpressionList chunks = new ExpressionList();
+        for (int i = 0; i < encoded.length(); i += CHUNK_LENGTH) {
+            chunks.add(
+                Literal.makeLiteral(
+                    encoded.substring(
+                        i,
+                        Math.min(i + CHUNK_LENGTH, encoded.length()))));
+        }
+        OJClass ojSetClass = OJClass.forClass(InListHashSet.class);
+        Variable varSet =
+            translator.createScratchVariableWithExpression(
+                ojSetClass,
+                new AllocationExpression(
+                    ojSetClass,
+                    new ExpressionList(
+                        new ArrayAllocationExpression(
+                            TypeName.forOJClass(OJSystem.STRING),
+                            new ExpressionList(null),
+                            new ArrayInitializer(chunks)),
+                        Literal.makeLiteral(integer))));
+
+        Expression keyValue;
+        if (integer) {
+            keyValue =
+                new CastExpression(
+                    OJSystem.LONG,
+                    translator.convertPrimitiveAccess(operands[0], key));
+        } else {
+            keyValue = operands[0];
+        }
+        Expression probe =
+            new MethodCall(
+                varSet,
+                InListHashSet.CONTAINS_METHOD_NAME,
+                new ExpressionList(keyValue));
+
+        if (!call.getType().isNullable()) {
+            return probe;
+        }
+
+        Variable varResult = translator.createScratchVariable(call.getType());
+        Expression nullTest = translator.createNullTest(key, operands[0], null);
+        StatementList stmtList =
+            new StatementList(
+                translator.createSetNullStatement(varResult, false),
+                new ExpressionStatement(
+                    new AssignmentExpression(
+                        FarragoOJRexUtil.getValueAccessExpression(
+                            translator,
+                            call.getType(),
+                            varResult),
+                        AssignmentExpression.EQUALS,
+                        probe)));
+        if (nullTest == null) {
+            translator.addStatementsFromList(stmtList);
+        } else {
+            translator.addStatement(
+                new IfStatement(
+                    nullTest,
+                    new StatementList(
+                        translator.createSetNullStatement(varResult, true)),
+                    stmtList));
+        }
+        return varResult;
+    }
+}
+
+// End FarragoOJRexInListImplementor.java
@@ -28,6 +28,7 @@ import java.util.*;
 import java.util.logging.*;
 
 import net.sf.farrago.catalog.*;
+import net.sf.farrago.defimpl.*;
 import net.sf.farrago.fennel.*;
 import net.sf.farrago.fennel.rel.*;
 import net.sf.farrago.fennel.tuple.*;
@@ -126,9 +127,6 @@ class FarragoExecutableFennelStmt
             FennelTupleDescriptor tupleDesc =
                 FennelRelUtil.convertRowTypeToFennelTupleDesc(
                     rowType);
-            FennelTupleData tupleData = new FennelTupleData(tupleDesc);
-            FennelTupleReader tupleReader =
-                new FennelOnlyTupleReader(tupleDesc, tupleData);
             FennelStreamHandle streamHandle;
             int cachePageSize;
 
@@ -144,12 +142,27 @@ class FarragoExecutableFennelStmt
                 txn.commit();
             }
 
-            TupleIter tupleIter =
-                new FennelTupleIter(
-                    tupleReader,
-                    runtimeContext.getFennelStreamGraph(),
-                    streamHandle,
-                    cachePageSize);
+            TupleIter tupleIter;
+            Boolean columnarFetch =
+                runtimeContext.getSession().getSessionVariables().getBoolean(
+                    FarragoDefaultSessionPersonality.COLUMNAR_FETCH);
+            if (Boolean.TRUE.equals(columnarFetch)) {
+                tupleIter =
+                    new FennelColumnarTupleIter(
+                        tupleDesc,
+                        runtimeContext.getFennelStreamGraph(),
+                        streamHandle,
+                        cachePageSize);
+            } else {
+                // Unmarshal lazily; a JDBC client often reads only some of
+                // the columns.
+                tupleIter =
+                    new FennelTupleIter(
+                        new FennelOnlyTupleReader(tupleDesc),
+                        runtimeContext.getFennelStreamGraph(),
+                        streamHandle,
+                        cachePageSize);
+            }
             FennelOnlyResultSet resultSet =
                 new FennelOnlyResultSet(
                     tupleIter,
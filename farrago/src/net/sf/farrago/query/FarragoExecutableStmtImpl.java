@@ -25,6 +25,7 @@ package net.sf.farrago.query;
 import java.util.*;
 import java.util.logging.*;
 
+import net.sf.farrago.catalog.*;
 import net.sf.farrago.session.*;
 import net.sf.farrago.trace.*;
 import net.sf.farrago.util.*;
@@ -56,6 +57,7 @@ abstract class FarragoExecutableStmtImpl
     private final TableModificationRel.Operation tableModOp;
     private final RelDataType dynamicParamRowType;
     private final TableAccessMap tableAccessMap;
+    private List<FarragoSessionStalenessCheck> stalenessChecks;
 
     //~ Constructors -----------------------------------------------------------
 
@@ -69,6 +71,7 @@ abstract class FarragoExecutableStmtImpl
         this.tableModOp = tableModOp;
         this.dynamicParamRowType = dynamicParamRowType;
         this.tableAccessMap = tableAccessMap;
+        this.stalenessChecks = Collections.emptyList();
     }
 
     //~ Methods ----------------------------------------------------------------
@@ -103,6 +106,36 @@ abstract class FarragoExecutableStmtImpl
         return null;
     }
 
+    /**
+     * Sets the checks to be made by {@link #isStale} before each execution.
+     *
+     * @param stalenessChecks list of checks
+     */
+    void setStalenessChecks(List<FarragoSessionStalenessCheck> stalenessChecks)
+    {
+        this.stalenessChecks = stalenessChecks;
+    }
+
+    // implement FarragoSessionExecutableStmt
+    public boolean isStale(FarragoRepos repos)
+    {
+        if (stalenessChecks.isEmpty()) {
+            return false;
+        }
+        FarragoReposTxnContext txn = repos.newTxnContext(true);
+        txn.beginReadTxn();
+        try {
+            for (FarragoSessionStalenessCheck check : stalenessChecks) {
+                if (check.isStale(repos)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            txn.commit();
+        }
+    }
+
     // implement FarragoSessionExecutableStmt
     public TableAccessMap getTableAccessMap()
     {
@@ -114,6 +114,15 @@ public class FarragoPreparingStmt
     protected SqlOperatorTable sqlOperatorTable;
     private final FarragoUserDefinedRoutineLookup routineLookup;
     private int expansionDepth;
+
+    /**
+     * Templates for views already expanded while preparing this statement,
+     * keyed by view body; a view which is referenced more than once by the
+     * statement (directly, or via other views) is only validated and
+     * converted the first time. Templates are not shared across statements.
+     */
+    private final Map<String, RelNode> mapViewTextToRel;
+
     private RelDataType originalRowType;
     private SqlIdentifier dmlTarget;
     private PrivilegedAction dmlAction;
@@ -123,6 +132,8 @@ public class FarragoPreparingStmt
     private final Map<String, RelDataType> resultSetTypeMap;
     private final Map<String, RelDataType> iterCalcTypeMap;
     private boolean cachingDisabled;
+    private final List<FarragoSessionStalenessCheck> stalenessChecks =
+        new ArrayList<FarragoSessionStalenessCheck>();
     private FarragoPreparingStmt parentStmt;
     private final FarragoSessionStmtContext rootStmtContext;
 
@@ -193,6 +204,7 @@ public class FarragoPreparingStmt
                 null);
 
         resultSetTypeMap = new HashMap<String, RelDataType>();
+        mapViewTextToRel = new HashMap<String, RelNode>();
         iterCalcTypeMap = new HashMap<String, RelDataType>();
 
         clearDmlValidation();
@@ -226,6 +238,12 @@ public class FarragoPreparingStmt
         cachingDisabled = true;
     }
 
+    // implement FarragoSessionPreparingStmt
+    public void addStalenessCheck(FarragoSessionStalenessCheck check)
+    {
+        stalenessChecks.add(check);
+    }
+
     // implement FarragoSessionPreparingStmt
     public FarragoSessionStmtContext getRootStmtContext()
     {
@@ -267,6 +285,38 @@ public class FarragoPreparingStmt
         getSession().getPersonality().definePlannerListeners(planner);
     }
 
+    /**
+     * Determines the degree of parallelism with which this statement's Fennel
+     * stream graph is prepared. DML statements use the larger of the
+     * degreeOfParallelism and dmlDegreeOfParallelism session parameters;
+     * queries use degreeOfParallelism alone.
+     *
+     * <p>Both parameters are part of the statement cache keys (see
+     * FarragoDbSession.PLAN_PARAMS), so a plan is only reused by sessions
+     * which would choose the same degree of parallelism.
+     *
+     * @param dml whether the statement is DML
+     *
+     * @return degree of parallelism
+     */
+    public int getDegreeOfParallelism(boolean dml)
+    {
+        FarragoSessionVariables sessionVariables =
+            getSession().getSessionVariables();
+        int degreeOfParallelism =
+            sessionVariables.getInteger(
+                FarragoDefaultSessionPersonality.DEGREE_OF_PARALLELISM);
+        if (dml) {
+            degreeOfParallelism =
+                Math.max(
+                    degreeOfParallelism,
+                    sessionVariables.getInteger(
+                        FarragoDefaultSessionPersonality
+                            .DML_DEGREE_OF_PARALLELISM));
+        }
+        return degreeOfParallelism;
+    }
+
     /**
      * Tells this statement not to throw an exception if optimizer can't find a
      * valid physical plan. This is intended for use mainly by unit tests which
@@ -551,7 +601,7 @@ public class FarragoPreparingStmt
     protected FarragoSessionExecutableStmt implement(
         PreparedResult preparedResult)
     {
-        FarragoSessionExecutableStmt executableStmt;
+        FarragoExecutableStmtImpl executableStmt;
         if (preparedResult instanceof PreparedExecution) {
             PreparedExecution preparedExecution =
                 (PreparedExecution) preparedResult;
@@ -583,14 +633,8 @@ public class FarragoPreparingStmt
                 FemCmdPrepareExecutionStreamGraph cmdPrepareStream =
                     getRepos().newFemCmdPrepareExecutionStreamGraph();
 
-                // FIXME jvs 22-Jul-2008:  this does not play well
-                // with statement caching, since different sessions
-                // may have different settings for DOP, but the DOP
-                // is not part of the cache key
                 cmdPrepareStream.setDegreeOfParallelism(
-                    getSession().getSessionVariables().getInteger(
-                        FarragoDefaultSessionPersonality
-                            .DEGREE_OF_PARALLELISM));
+                    getDegreeOfParallelism(preparedResult.isDml()));
 
                 Collection<FemExecutionStreamDef> streamDefs =
                     cmdPrepareStream.getStreamDefs();
@@ -672,6 +716,11 @@ public class FarragoPreparingStmt
                     preparedResult.getCode());
         }
 
+        if (!stalenessChecks.isEmpty()) {
+            executableStmt.setStalenessChecks(
+                new ArrayList<FarragoSessionStalenessCheck>(stalenessChecks));
+        }
+
         // generated code is now the responsibility of executableStmt
         if (javaCodeDir != null) {
             executableStmt.addAllocation(javaCodeDir);
@@ -1015,15 +1064,20 @@ public class FarragoPreparingStmt
 
     /**
      * Returns a relational expression which is to be substituted for an access
-     * to a SQL view.
+     * to a SQL view. Its row type is that of the view body; the caller is
+     * responsible for casting it to the declared row type of the view.
      *
-     * @param rowType Row type of the view
      * @param queryString Body of the view
      *
      * @return Relational expression
      */
-    protected RelNode expandView(RelDataType rowType, String queryString)
+    protected RelNode expandView(String queryString)
     {
+        RelNode template = mapViewTextToRel.get(queryString);
+        if (template != null) {
+            return template.clone();
+        }
+
         expansionDepth++;
 
         FarragoSessionParser parser =
@@ -1039,9 +1093,35 @@ public class FarragoPreparingStmt
                 sqlQuery, true, SqlToRelConverter.QueryContext.VIEW);
 
         --expansionDepth;
+
+        // Correlation variables are tracked by the converter per relational
+        // expression, so a view which uses them has to be expanded afresh
+        // each time.
+        if (!isCorrelated(relNode)) {
+            mapViewTextToRel.put(queryString, relNode.clone());
+        }
         return relNode;
     }
 
+    private static boolean isCorrelated(RelNode rel)
+    {
+        final boolean [] correlated = { false };
+        new RelVisitor() {
+            public void visit(RelNode node, int ordinal, RelNode parent)
+            {
+                if ((node instanceof CorrelatorRel)
+                    || (node.getCorrelVariable() != null)
+                    || !node.getVariablesStopped().isEmpty())
+                {
+                    correlated[0] = true;
+                    return;
+                }
+                super.visit(node, ordinal, parent);
+            }
+        }.go(rel);
+        return correlated[0];
+    }
+
     RexNode expandInvocationExpression(
         SqlNode sqlExpr,
         FarragoRoutineInvocation invocation)
@@ -1120,6 +1200,17 @@ public class FarragoPreparingStmt
             // for ValuesRel is FennelValuesRel
             sqlToRelConverter.enableValuesRelCreation(
                 getRepos().isFennelEnabled());
+
+            // these are part of the statement cache keys; see
+            // FarragoDbSession.PLAN_PARAMS
+            FarragoSessionVariables sessionVariables =
+                getSession().getSessionVariables();
+            sqlToRelConverter.setInSubqueryThreshold(
+                sessionVariables.getInteger(
+                    FarragoDefaultSessionPersonality.IN_LIST_THRESHOLD));
+            sqlToRelConverter.enableInListCreation(
+                sessionVariables.getBoolean(
+                    FarragoDefaultSessionPersonality.HASH_IN_LIST));
         }
         return sqlToRelConverter;
     }
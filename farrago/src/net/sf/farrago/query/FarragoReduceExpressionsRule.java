@@ -366,18 +366,58 @@ public abstract class FarragoReduceExpressionsRule
             return true;
         }
 
-        // Compute the values they reduce to.
-        List<RexNode> reducedValues = new ArrayList<RexNode>();
-        ReentrantValuesStmt reentrantStmt =
-            new ReentrantValuesStmt(
-                preparingStmt.getRootStmtContext(),
-                rexBuilder,
-                constExps,
-                reducedValues);
+        // Compute the values they reduce to, reusing those remembered from
+        // earlier reductions in this session, and evaluating the rest
+        // together in a single reentrant statement.
         FarragoSession session = getSession(rel);
-        reentrantStmt.execute(session, true);
-        if (reentrantStmt.failed) {
-            return false;
+        FarragoSessionReductionCache cache = session.getReductionCache();
+        List<String> keys = new ArrayList<String>();
+        List<RexNode> reducedValues = new ArrayList<RexNode>();
+        List<RexNode> uncachedExps = new ArrayList<RexNode>();
+        for (RexNode exp : constExps) {
+            String key = makeCacheKey(preparingStmt, exp);
+            Object rawValue =
+                (key == null) ? FarragoSessionReductionCache.NOT_FOUND
+                : cache.get(key);
+            RexNode reducedValue = null;
+            if (rawValue != FarragoSessionReductionCache.NOT_FOUND) {
+                reducedValue =
+                    FarragoReentrantStmtExecutor.makeResult(
+                        rexBuilder,
+                        exp,
+                        rawValue);
+            }
+            if (reducedValue == null) {
+                uncachedExps.add(exp);
+            }
+            keys.add(key);
+            reducedValues.add(reducedValue);
+        }
+        if (!uncachedExps.isEmpty()) {
+            List<RexNode> uncachedValues = new ArrayList<RexNode>();
+            ReentrantValuesStmt reentrantStmt =
+                new ReentrantValuesStmt(
+                    preparingStmt.getRootStmtContext(),
+                    rexBuilder,
+                    uncachedExps,
+                    uncachedValues);
+            reentrantStmt.execute(session, true);
+            if (reentrantStmt.failed) {
+                return false;
+            }
+            int iUncached = 0;
+            for (int i = 0; i < reducedValues.size(); i++) {
+                if (reducedValues.get(i) != null) {
+                    continue;
+                }
+                reducedValues.set(i, uncachedValues.get(iUncached));
+                if (keys.get(i) != null) {
+                    cache.put(
+                        keys.get(i),
+                        reentrantStmt.rawResults.get(iUncached));
+                }
+                ++iUncached;
+            }
         }
 
         // For ProjectRel, we have to be sure to preserve the result
@@ -411,6 +451,72 @@ public abstract class FarragoReduceExpressionsRule
         return preparingStmt.getSession();
     }
 
+    /**
+     * Builds the key under which the reduced value of an expression is
+     * remembered in the session's {@link FarragoSessionReductionCache}. Besides
+     * the expression's digest and types, the key identifies the user-defined
+     * routines it calls (whose names alone are ambiguous across schemas), and,
+     * if it calls a dynamic function such as CURRENT_DATE, the statement time
+     * and session context in effect.
+     *
+     * @param preparingStmt the statement containing the expression
+     * @param exp reducible expression
+     *
+     * @return key, or null if the value should not be cached
+     */
+    private static String makeCacheKey(
+        FarragoSessionPreparingStmt preparingStmt,
+        RexNode exp)
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append(exp.toString());
+        buf.append(':');
+        buf.append(exp.getType().getFullTypeString());
+        final boolean [] dynamic = { false };
+        exp.accept(
+            new RexVisitorImpl<Void>(true) {
+                public Void visitLiteral(RexLiteral literal)
+                {
+                    buf.append(':');
+                    buf.append(literal.getType().getFullTypeString());
+                    return null;
+                }
+
+                public Void visitCall(RexCall call)
+                {
+                    SqlOperator op = call.getOperator();
+                    if (op.isDynamicFunction()) {
+                        dynamic[0] = true;
+                    }
+                    if (op instanceof FarragoUserDefinedRoutine) {
+                        buf.append(':');
+                        buf.append(
+                            ((FarragoUserDefinedRoutine) op).getFemRoutine()
+                            .refMofId());
+                    }
+                    return super.visitCall(call);
+                }
+            });
+        if (dynamic[0]) {
+            FarragoSessionStmtContext rootStmtContext =
+                preparingStmt.getRootStmtContext();
+            if (rootStmtContext == null) {
+                return null;
+            }
+            FarragoSessionVariables variables =
+                preparingStmt.getSession().getSessionVariables();
+            buf.append(':').append(rootStmtContext.getStmtCurrentTime());
+            buf.append(':').append(variables.catalogName);
+            buf.append(':').append(variables.schemaName);
+            buf.append(':').append(variables.schemaSearchPath);
+            buf.append(':').append(variables.systemUserName);
+            buf.append(':').append(variables.sessionUserName);
+            buf.append(':').append(variables.currentUserName);
+            buf.append(':').append(variables.currentRoleName);
+        }
+        return buf.toString();
+    }
+
     /**
      * Locates expressions that can be reduced to literals or converted to
      * expressions with redundant casts removed.
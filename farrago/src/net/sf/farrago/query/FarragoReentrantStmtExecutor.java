@@ -61,6 +61,12 @@ public abstract class FarragoReentrantStmtExecutor
 
     protected final RexBuilder rexBuilder;
     protected final List<RexNode> results;
+
+    /**
+     * Raw values from which {@link #results} were made when evaluating
+     * expressions; see {@link #makeResult}.
+     */
+    protected final List<Object> rawResults;
     protected boolean failed;
 
     //~ Constructors -----------------------------------------------------------
@@ -81,6 +87,7 @@ public abstract class FarragoReentrantStmtExecutor
         super(rootStmtContext);
         this.rexBuilder = rexBuilder;
         this.results = results;
+        this.rawResults = new ArrayList<Object>();
     }
 
     // ~ Methods ---------------------------------------------------------------
@@ -150,50 +157,21 @@ public abstract class FarragoReentrantStmtExecutor
             RexNode expr = exprs.get(i);
             SqlTypeName typeName = expr.getType().getSqlTypeName();
             SqlTypeFamily approxFamily = SqlTypeFamily.APPROXIMATE_NUMERIC;
-            double doubleValue = 0.0;
-            String stringValue = null;
+            Object rawValue;
             if (approxFamily.getTypeNames().contains(typeName)) {
                 // Use getDouble to preserve precision.
-                doubleValue = resultSet.getDouble(i + 1);
+                rawValue = resultSet.getDouble(i + 1);
             } else {
                 // Anything else can be handled safely via string
                 // representation.
-                stringValue = resultSet.getString(i + 1);
+                rawValue = resultSet.getString(i + 1);
             }
-            RexNode result;
             if (resultSet.wasNull()) {
-                result = rexBuilder.constantNull();
-                result =
-                    rexBuilder.makeCast(
-                        expr.getType(),
-                        result);
-            } else {
-                // TODO jvs 26-May-2006:  See comment on RexLiteral
-                // constructor regarding SqlTypeFamily.
-                typeName = broadenType(typeName);
-                RelDataType literalType =
-                    rexBuilder.getTypeFactory().createTypeWithNullability(
-                        expr.getType(),
-                        false);
-                if (stringValue == null) {
-                    try {
-                        result =
-                            rexBuilder.makeApproxLiteral(
-                                new BigDecimal(doubleValue),
-                                literalType);
-                    } catch (NumberFormatException ex) {
-                        // Infinity or NaN.  For these rare cases,
-                        // just skip constant reduction.
-                        failed = true;
-                        result = null;
-                    }
-                } else {
-                    result =
-                        RexLiteral.fromJdbcString(
-                            literalType,
-                            typeName,
-                            stringValue);
-                }
+                rawValue = null;
+            }
+            RexNode result = makeResult(rexBuilder, expr, rawValue);
+            if (result == null) {
+                failed = true;
             }
             if (tracer.isLoggable(Level.FINE)) {
                 tracer.fine(
@@ -201,13 +179,61 @@ public abstract class FarragoReentrantStmtExecutor
                     + " to result " + result);
             }
             results.add(result);
+            rawResults.add(rawValue);
         }
 
         assert (!resultSet.next());
     }
 
+    /**
+     * Converts the raw value an expression was evaluated to into an equivalent
+     * expression.
+     *
+     * @param rexBuilder rex builder
+     * @param expr expression which was evaluated
+     * @param rawValue null, a {@link Double} if expr is approximate numeric, or
+     * the string representation of the value otherwise
+     *
+     * @return literal (or cast of null) for the value, or null if the value
+     * cannot be represented as a literal
+     */
+    static RexNode makeResult(
+        RexBuilder rexBuilder,
+        RexNode expr,
+        Object rawValue)
+    {
+        if (rawValue == null) {
+            return rexBuilder.makeCast(
+                expr.getType(),
+                rexBuilder.constantNull());
+        }
+
+        // TODO jvs 26-May-2006:  See comment on RexLiteral
+        // constructor regarding SqlTypeFamily.
+        SqlTypeName typeName = broadenType(expr.getType().getSqlTypeName());
+        RelDataType literalType =
+            rexBuilder.getTypeFactory().createTypeWithNullability(
+                expr.getType(),
+                false);
+        if (rawValue instanceof Double) {
+            try {
+                return rexBuilder.makeApproxLiteral(
+                    new BigDecimal((Double) rawValue),
+                    literalType);
+            } catch (NumberFormatException ex) {
+                // Infinity or NaN.  For these rare cases,
+                // just skip constant reduction.
+                return null;
+            }
+        }
+        return RexLiteral.fromJdbcString(
+            literalType,
+            typeName,
+            (String) rawValue);
+    }
+
     // TODO jvs 26-May-2006:  Get rid of this.
-    private SqlTypeName broadenType(SqlTypeName typeName)
+    private static SqlTypeName broadenType(SqlTypeName typeName)
     {
         if (SqlTypeFamily.APPROXIMATE_NUMERIC.getTypeNames().contains(
                 typeName))
@@ -312,42 +312,87 @@ public class FarragoStmtValidator
         if (names.size() == 1) {
             // get all schema names
             List<SqlMoniker> schemaNames =
-                getAllObjectNamesByType(
-                    catalog.getOwnedElement(),
+                getIndexedObjectNames(
+                    catalog,
+                    null,
                     FemLocalSchema.class);
 
             // if default schema is set, get all table names in this schema
-            FemLocalSchema schema =
-                FarragoCatalogUtil.getSchemaByName(
+            schemaNames.addAll(
+                getIndexedObjectNames(
                     catalog,
-                    sessionVariables.schemaName);
-            if (schema != null) {
-                List<SqlMoniker> tableNames =
-                    getAllObjectNamesByType(
-                        schema.getOwnedElement(),
-                        FemLocalTable.class);
-                schemaNames.addAll(tableNames);
-            }
+                    sessionVariables.schemaName,
+                    FemLocalTable.class));
             return schemaNames;
         } else if (names.size() == 2) {
             // looking for table names under the specified schema
+            return getIndexedObjectNames(
+                catalog,
+                names.get(0),
+                FemLocalTable.class);
+        } else {
+            // currently not supporting the likes of SALES.EMPS.$DUMMY
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns the names of all objects of a given type in a catalog or one of
+     * its schemas, consulting the session's {@link FarragoSessionNameIndex}
+     * first so that repeated completion requests do not rescan the catalog.
+     *
+     * @param catalog Catalog
+     * @param schemaName Name of schema within catalog, or null to list the
+     * catalog itself
+     * @param type Type of object to return
+     *
+     * @return modifiable list of object names; empty if the schema does not
+     * exist
+     */
+    private List<SqlMoniker> getIndexedObjectNames(
+        CwmCatalog catalog,
+        String schemaName,
+        Class<? extends CwmModelElement> type)
+    {
+        // A session label may show an older catalog, so bypass the index.
+        FarragoSessionNameIndex nameIndex = null;
+        if ((session != null) && (session.getSessionLabelCsn() == null)) {
+            nameIndex = session.getNameIndex();
+        }
+        String key = null;
+        long catalogVersion = 0;
+        if (nameIndex != null) {
+            catalogVersion = nameIndex.getCatalogVersion();
+            key =
+                catalog.refMofId() + "." + schemaName + ":"
+                + type.getName();
+            List<SqlMoniker> names = nameIndex.get(key);
+            if (names != null) {
+                return new ArrayList<SqlMoniker>(names);
+            }
+        }
+
+        List<SqlMoniker> names;
+        if (schemaName == null) {
+            names = getAllObjectNamesByType(catalog.getOwnedElement(), type);
+        } else {
             FemLocalSchema schema =
                 FarragoCatalogUtil.getSchemaByName(
                     catalog,
-                    names.get(0));
-            if (schema != null) {
-                List<SqlMoniker> tableNames =
+                    schemaName);
+            if (schema == null) {
+                names = new ArrayList<SqlMoniker>();
+            } else {
+                names =
                     getAllObjectNamesByType(
                         schema.getOwnedElement(),
-                        FemLocalTable.class);
-                return tableNames;
-            } else {
-                return Collections.emptyList();
+                        type);
             }
-        } else {
-            // currently not supporting the likes of SALES.EMPS.$DUMMY
-            return Collections.emptyList();
         }
+        if (nameIndex != null) {
+            nameIndex.put(key, names, catalogVersion);
+        }
+        return names;
     }
 
     /**
@@ -114,14 +114,10 @@ class FarragoView
     private RelNode expandView(String queryString)
     {
         try {
-            // REVIEW:  cache view definition?
             final RelDataType rowType =
                 RelOptUtil.getRowTypeIncludingSystemFields(
                     getPreparingStmt().getTypeFactory(), this, false);
-            RelNode rel =
-                getPreparingStmt().expandView(
-                    rowType,
-                    queryString);
+            RelNode rel = getPreparingStmt().expandView(queryString);
 
             // NOTE jvs 22-Jan-2007:  It would be nice if we could
             // state that we only need a rename here (not a cast)
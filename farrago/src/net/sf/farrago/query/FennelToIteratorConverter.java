@@ -215,7 +215,7 @@ public class FennelToIteratorConverter
 
         // Generate code like this:
         //   connection.newFennelTupleIter(
-        //       new FennelTupleReader(){...},
+        //       new FennelBatchTupleReader(){...},
         //       << childrens' code >>);
         // The first ... requires some explanation.  Using the information
         // returned by tupleStreamDescribe, we're going to generate code to
@@ -449,13 +449,56 @@ public class FennelToIteratorConverter
                     rowClass,
                     new ExpressionList()));
 
+        // implement FennelBatchTupleReader, so that FennelAbstractTupleIter
+        // can unmarshal each tuple of a batch into a different object
+        StatementList newTupleBody = new StatementList();
+        newTupleBody.add(
+            new ReturnStatement(
+                new AllocationExpression(
+                    rowClass,
+                    new ExpressionList())));
+        MemberDeclaration newTupleMethodDecl =
+            new MethodDeclaration(
+                new ModifierList(ModifierList.PUBLIC),
+                OJUtil.typeNameForClass(Object.class),
+                "newTuple",
+                new ParameterList(),
+                null,
+                newTupleBody);
+
+        StatementList setTupleBody = new StatementList();
+        setTupleBody.add(
+            new ExpressionStatement(
+                new AssignmentExpression(
+                    new FieldAccess(varTuple.toString()),
+                    AssignmentExpression.EQUALS,
+                    new CastExpression(
+                        TypeName.forOJClass(rowClass),
+                        new Variable("tuple")))));
+        ParameterList setTupleParamList = new ParameterList();
+        setTupleParamList.add(
+            new Parameter(
+                new ModifierList(0),
+                OJUtil.typeNameForClass(Object.class),
+                "tuple"));
+        MemberDeclaration setTupleMethodDecl =
+            new MethodDeclaration(
+                new ModifierList(ModifierList.PUBLIC),
+                TypeName.forOJClass(OJSystem.VOID),
+                "setTuple",
+                setTupleParamList,
+                null,
+                setTupleBody);
+
         // generate code to allocate instance of anonymous class defined above
         MemberDeclarationList memberDeclList = new MemberDeclarationList();
         memberDeclList.add(rowVarDecl);
         memberDeclList.add(methodDecl);
+        memberDeclList.add(newTupleMethodDecl);
+        memberDeclList.add(setTupleMethodDecl);
         Expression newTupleReaderExp =
             new AllocationExpression(
-                OJUtil.typeNameForClass(FennelTupleReader.class),
+                OJUtil.typeNameForClass(FennelBatchTupleReader.class),
                 new ExpressionList(),
                 memberDeclList);
 
@@ -124,6 +124,16 @@ public class FarragoRuntimeContext
 
     private EnkiMDSession detachedSession;
 
+    /**
+     * Timings of the executing statement, or null if not collected.
+     */
+    private final FarragoSessionStmtTimings stmtTimings;
+
+    /**
+     * Start of the fetch currently in progress, from {@link System#nanoTime}.
+     */
+    private long fetchStartNanos;
+
     //~ Constructors -----------------------------------------------------------
 
     /**
@@ -135,6 +145,8 @@ public class FarragoRuntimeContext
     {
         session = params.session;
         stmtContext = params.stmtContext;
+        stmtTimings =
+            (stmtContext == null) ? null : stmtContext.getStmtTimings();
         repos = params.repos;
         codeCache = params.codeCache;
         txnCodeCache = params.txnCodeCache;
@@ -628,7 +640,13 @@ public class FarragoRuntimeContext
                     FarragoObjectCache.UninitializedEntry entry)
                 {
                     assert (key.equals(xmiFennelPlan));
+                    long startNanos = System.nanoTime();
                     streamGraph = prepareStreamGraph(xmiFennelPlan);
+                    if (stmtTimings != null) {
+                        stmtTimings.recordPhase(
+                            FarragoSessionStmtTimings.FENNEL_PREPARE,
+                            System.nanoTime() - startNanos);
+                    }
 
                     long memUsage =
                         FarragoUtil.getFennelMemoryUsage(xmiFennelPlan);
@@ -1001,6 +1019,9 @@ public class FarragoRuntimeContext
             if (active) {
                 // check before fetch
                 checkCancel();
+                fetchStartNanos = System.nanoTime();
+            } else if (cursorActive && (stmtTimings != null)) {
+                stmtTimings.recordFetch(System.nanoTime() - fetchStartNanos);
             }
             cursorActive = active;
             if (!cursorActive) {
@@ -52,6 +52,12 @@ public abstract class FarragoTransformImpl
     private FennelTupleWriter tupleWriter;
     private Object next;
 
+    /**
+     * Rows fetched from {@link #tupleIter} but not yet marshalled. Rows are
+     * fetched a batch at a time if the iterator is a {@link BatchTupleIter}.
+     */
+    private TupleBatch batch;
+
     //~ Methods ----------------------------------------------------------------
 
     /**
@@ -82,6 +88,7 @@ public abstract class FarragoTransformImpl
         this.tupleWriter = tupleWriter;
         this.tupleIter = tupleIter;
         this.next = null;
+        this.batch = new TupleBatch();
         if (tupleIter instanceof FarragoJavaUdxIterator) {
             ((FarragoJavaUdxIterator) tupleIter).setThreadName(peerStreamName);
         }
@@ -145,7 +152,7 @@ public abstract class FarragoTransformImpl
         // If next is not null, then a row was previously fetched but
         // there wasn't room to marshal it.
         if (next == null) {
-            Object o = tupleIter.fetchNext();
+            Object o = fetchRow();
             if (o == TupleIter.NoDataReason.END_OF_DATA) {
                 traceOutput(Level.FINER, 0, outputBuffer);
                 return 0;
@@ -181,7 +188,7 @@ public abstract class FarragoTransformImpl
             }
 
             // fetch a row
-            Object o = tupleIter.fetchNext();
+            Object o = fetchRow();
             if (o == TupleIter.NoDataReason.END_OF_DATA) {
                 // Will return 0 on next call to this method -- we've already
                 // marshaled at least one tuple that we need to return.
@@ -200,6 +207,22 @@ public abstract class FarragoTransformImpl
         return outputBuffer.limit();
     }
 
+    /**
+     * Returns the next row from the current batch, fetching a new batch from
+     * {@link #tupleIter} if the current one has been consumed.
+     *
+     * @return next row, or a {@link TupleIter.NoDataReason}
+     */
+    private Object fetchRow()
+    {
+        if (batch.isDrained()) {
+            if (TupleBatch.fetch(tupleIter, batch) == 0) {
+                return batch.getNoDataReason();
+            }
+        }
+        return batch.next();
+    }
+
     protected void traceOutput(
         Level level, long nrows, ByteBuffer outputBuffer)
     {
@@ -229,6 +252,7 @@ public abstract class FarragoTransformImpl
      */
     public void restart()
     {
+        batch.clear();
         tupleIter.restart();
     }
 }
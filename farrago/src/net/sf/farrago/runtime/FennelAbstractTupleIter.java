@@ -43,11 +43,18 @@ import org.eigenbase.runtime.*;
  * #requestData()} method to tell the producer that it is safe to start
  * producing more data.
  *
+ * <p>If the tuple reader is a {@link FennelBatchTupleReader},
+ * FennelAbstractTupleIter also implements {@link #fetchNextBatch} by
+ * unmarshalling as many tuples as fit in the batch from the current buffer.
+ * A batch never spans buffers, because the unmarshalled tuples point into the
+ * buffer.
+ *
  * @author John V. Sichi, Stephan Zuercher
  * @version $Id$
  */
 public abstract class FennelAbstractTupleIter
     extends AbstractTupleIter
+    implements BatchTupleIter
 {
     //~ Static fields/initializers ---------------------------------------------
 
@@ -63,6 +70,12 @@ public abstract class FennelAbstractTupleIter
     protected byte [] bufferAsArray;
     private boolean endOfData;
 
+    /**
+     * Tuple objects used by {@link #fetchNextBatch}, one per batch slot;
+     * allocated on first use.
+     */
+    private Object [] tuplePool;
+
     //~ Constructors -----------------------------------------------------------
 
     /**
@@ -132,6 +145,54 @@ public abstract class FennelAbstractTupleIter
         return unmarshal();
     }
 
+    // implement BatchTupleIter
+    public int fetchNextBatch(TupleBatch batch)
+    {
+        batch.clear();
+        if (!(tupleReader instanceof FennelBatchTupleReader)) {
+            return batch.addNext(this);
+        }
+        FennelBatchTupleReader batchReader =
+            (FennelBatchTupleReader) tupleReader;
+
+        if (endOfData) {
+            batch.setNoDataReason(NoDataReason.END_OF_DATA);
+            return 0;
+        } else if (!byteBuffer.hasRemaining()) {
+            int cb = populateBuffer();
+            if (cb == 0) {
+                bufferAsArray = null;
+                endOfData = true;
+                batch.setNoDataReason(NoDataReason.END_OF_DATA);
+                return 0;
+            } else if (cb < 0) {
+                batch.setNoDataReason(NoDataReason.UNDERFLOW);
+                return 0;
+            }
+            byteBuffer.limit(cb);
+        }
+
+        if ((tuplePool == null) || (tuplePool.length < batch.getCapacity())) {
+            Object [] newPool = new Object[batch.getCapacity()];
+            if (tuplePool != null) {
+                System.arraycopy(tuplePool, 0, newPool, 0, tuplePool.length);
+            }
+            tuplePool = newPool;
+        }
+
+        // Stop at the end of the buffer; refilling it would overwrite the
+        // data which the tuples already in the batch point to.
+        while (!batch.isFull() && byteBuffer.hasRemaining()) {
+            int i = batch.getSize();
+            if (tuplePool[i] == null) {
+                tuplePool[i] = batchReader.newTuple();
+            }
+            batchReader.setTuple(tuplePool[i]);
+            batch.add(unmarshal());
+        }
+        return batch.getSize();
+    }
+
     private Object unmarshal()
     {
         // REVIEW:  is slice allocation worth it?
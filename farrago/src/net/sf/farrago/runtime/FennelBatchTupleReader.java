@@ -0,0 +1,55 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.runtime;
+
+/**
+ * FennelBatchTupleReader extends {@link FennelTupleReader} so that successive
+ * tuples can be unmarshalled into different objects, as required by {@link
+ * FennelAbstractTupleIter#fetchNextBatch}. Implementations are generated by
+ * FennelToIteratorConverter.
+ *
+ * @version $Id$
+ */
+public interface FennelBatchTupleReader
+    extends FennelTupleReader
+{
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Allocates a new object of the class returned by {@link
+     * FennelTupleReader#unmarshalTuple}.
+     *
+     * @return new tuple object
+     */
+    Object newTuple();
+
+    /**
+     * Directs subsequent calls to {@link FennelTupleReader#unmarshalTuple} to
+     * write into a given tuple object, previously allocated by {@link
+     * #newTuple}.
+     *
+     * @param tuple tuple object
+     */
+    void setTuple(Object tuple);
+}
+
+// End FennelBatchTupleReader.java
@@ -0,0 +1,119 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.runtime;
+
+import net.sf.farrago.fennel.*;
+import net.sf.farrago.fennel.tuple.*;
+
+import org.eigenbase.runtime.*;
+
+
+/**
+ * FennelColumnarTupleIter reads tuples from a Fennel ExecStream a buffer at a
+ * time, decoding each buffer in one pass into a {@link FennelColumnarTupleData}
+ * rather than unmarshalling tuple by tuple.
+ *
+ * <p>{@link #fetchNext()} always returns the same FennelColumnarTupleData,
+ * positioned on the next row; consumers such as {@link FennelOnlyResultSet}
+ * read numeric column values straight from its arrays. Because rows are not
+ * distinct objects, {@link #fetchNextBatch} returns one row at a time.
+ *
+ * @version $Id$
+ */
+public class FennelColumnarTupleIter
+    extends FennelTupleIter
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private final FennelColumnarTupleData columnarData;
+    private boolean endOfData;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a new FennelColumnarTupleIter object.
+     *
+     * @param tupleDesc descriptor of the tuples produced by the stream
+     * @param streamGraph underlying FennelStreamGraph
+     * @param streamHandle handle to underlying Fennel ExecStream that this
+     * TupleIter reads from
+     * @param bufferSize number of bytes in buffer used for fetching from Fennel
+     */
+    public FennelColumnarTupleIter(
+        FennelTupleDescriptor tupleDesc,
+        FennelStreamGraph streamGraph,
+        FennelStreamHandle streamHandle,
+        int bufferSize)
+    {
+        super(null, streamGraph, streamHandle, bufferSize);
+        FennelTupleAccessor tupleAccessor = new FennelTupleAccessor(true);
+        tupleAccessor.compute(tupleDesc);
+        columnarData = new FennelColumnarTupleData(tupleDesc, tupleAccessor);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    // override FennelTupleIter
+    public void restart()
+    {
+        super.restart();
+        columnarData.load(byteBuffer);
+        endOfData = false;
+    }
+
+    // override FennelAbstractTupleIter
+    public Object fetchNext()
+    {
+        if (columnarData.next()) {
+            return columnarData;
+        }
+        if (endOfData) {
+            return NoDataReason.END_OF_DATA;
+        }
+
+        int cb = populateBuffer();
+        if (cb == 0) {
+            endOfData = true;
+            return NoDataReason.END_OF_DATA;
+        } else if (cb < 0) {
+            return NoDataReason.UNDERFLOW;
+        }
+
+        byteBuffer.limit(cb);
+        columnarData.load(byteBuffer);
+        requestData();
+        if (!columnarData.next()) {
+            // a non-empty buffer always holds at least one tuple
+            throw new AssertionError("empty buffer from " + getStatus(""));
+        }
+        return columnarData;
+    }
+
+    // override FennelAbstractTupleIter
+    public int fetchNextBatch(TupleBatch batch)
+    {
+        batch.clear();
+        return batch.addNext(this);
+    }
+}
+
+// End FennelColumnarTupleIter.java
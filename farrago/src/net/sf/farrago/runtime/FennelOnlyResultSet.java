@@ -40,12 +40,23 @@ import org.eigenbase.runtime.*;
  * FennelOnlyResultSet is a refinement of FarragoTupleIterResultSet, where the
  * result set consists of Fennel tuples.
  *
+ * <p>If the rows come from a {@link FennelColumnarTupleIter}, the primitive
+ * getters for exact and approximate numeric columns read the value straight
+ * from the decoded column arrays, without boxing it.
+ *
  * @author Zelaine Fong
  * @version $Id$
  */
 public class FennelOnlyResultSet
     extends FarragoTupleIterResultSet
 {
+    //~ Instance fields --------------------------------------------------------
+
+    /**
+     * JDBC type of each column, indexed from 0.
+     */
+    private final int [] columnTypes;
+
     //~ Constructors -----------------------------------------------------------
 
     /**
@@ -71,6 +82,12 @@ public class FennelOnlyResultSet
             new FennelColumnGetter(
                 new FarragoResultSetMetaData(rowType, fieldOrigins),
                 rowType));
+        List<RelDataTypeField> fields = rowType.getFieldList();
+        columnTypes = new int[fields.size()];
+        for (int i = 0; i < columnTypes.length; ++i) {
+            columnTypes[i] =
+                fields.get(i).getType().getSqlTypeName().getJdbcOrdinal();
+        }
         if (tracer.isLoggable(Level.FINE)) {
             tracer.fine(toString());
         }
@@ -86,6 +103,122 @@ public class FennelOnlyResultSet
         return obj;
     }
 
+    /**
+     * Returns the current row if it can be read column-wise, and if so sets
+     * {@link #wasNull} for a column.
+     *
+     * @param columnIndex the first column is 1, the second is 2, ...
+     *
+     * @return current row, or null if it is not columnar
+     */
+    private FennelColumnarTupleData getColumnar(int columnIndex)
+    {
+        if (!(current instanceof FennelColumnarTupleData)) {
+            return null;
+        }
+        FennelColumnarTupleData columnar = (FennelColumnarTupleData) current;
+        wasNull = columnar.isNull(columnIndex - 1);
+        return columnar;
+    }
+
+    private boolean isIntegral(int columnIndex)
+    {
+        switch (columnTypes[columnIndex - 1]) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+        case Types.BIGINT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    // override AbstractResultSet
+    public byte getByte(int columnIndex)
+        throws SQLException
+    {
+        if (isIntegral(columnIndex)) {
+            FennelColumnarTupleData columnar = getColumnar(columnIndex);
+            if (columnar != null) {
+                return (byte) columnar.getRawLong(columnIndex - 1);
+            }
+        }
+        return super.getByte(columnIndex);
+    }
+
+    // override AbstractResultSet
+    public short getShort(int columnIndex)
+        throws SQLException
+    {
+        if (isIntegral(columnIndex)) {
+            FennelColumnarTupleData columnar = getColumnar(columnIndex);
+            if (columnar != null) {
+                return (short) columnar.getRawLong(columnIndex - 1);
+            }
+        }
+        return super.getShort(columnIndex);
+    }
+
+    // override AbstractResultSet
+    public int getInt(int columnIndex)
+        throws SQLException
+    {
+        if (isIntegral(columnIndex)) {
+            FennelColumnarTupleData columnar = getColumnar(columnIndex);
+            if (columnar != null) {
+                return (int) columnar.getRawLong(columnIndex - 1);
+            }
+        }
+        return super.getInt(columnIndex);
+    }
+
+    // override AbstractResultSet
+    public long getLong(int columnIndex)
+        throws SQLException
+    {
+        if (isIntegral(columnIndex)) {
+            FennelColumnarTupleData columnar = getColumnar(columnIndex);
+            if (columnar != null) {
+                return columnar.getRawLong(columnIndex - 1);
+            }
+        }
+        return super.getLong(columnIndex);
+    }
+
+    // override AbstractResultSet
+    public float getFloat(int columnIndex)
+        throws SQLException
+    {
+        if (columnTypes[columnIndex - 1] == Types.REAL) {
+            FennelColumnarTupleData columnar = getColumnar(columnIndex);
+            if (columnar != null) {
+                return Float.intBitsToFloat(
+                    (int) columnar.getRawLong(columnIndex - 1));
+            }
+        }
+        return super.getFloat(columnIndex);
+    }
+
+    // override AbstractResultSet
+    public double getDouble(int columnIndex)
+        throws SQLException
+    {
+        switch (columnTypes[columnIndex - 1]) {
+        case Types.REAL:
+            return getFloat(columnIndex);
+        case Types.FLOAT:
+        case Types.DOUBLE:
+            FennelColumnarTupleData columnar = getColumnar(columnIndex);
+            if (columnar != null) {
+                return Double.longBitsToDouble(
+                    columnar.getRawLong(columnIndex - 1));
+            }
+            break;
+        }
+        return super.getDouble(columnIndex);
+    }
+
     //~ Inner Classes ----------------------------------------------------------
 
     /**
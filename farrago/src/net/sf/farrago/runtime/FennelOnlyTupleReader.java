@@ -31,6 +31,10 @@ import net.sf.farrago.fennel.tuple.*;
  * FennelOnlyTupleReader implements the FennelTupleReader interface for reading
  * tuples from a query plan that can be executed exclusively in Fennel.
  *
+ * <p>If the tuple data is a {@link FennelLazyTupleData}, the reader does not
+ * unmarshal anything; it just binds the tuple data to the tuple's position in
+ * the fetch buffer, and each column is unmarshalled when it is read.
+ *
  * @author Zelaine Fong
  * @version $Id$
  */
@@ -41,6 +45,7 @@ public class FennelOnlyTupleReader
 
     private final FennelTupleAccessor tupleAccessor;
     private final FennelTupleData tupleData;
+    private final FennelLazyTupleData lazyTupleData;
 
     //~ Constructors -----------------------------------------------------------
 
@@ -56,6 +61,20 @@ public class FennelOnlyTupleReader
         tupleAccessor = new FennelTupleAccessor(true);
         tupleAccessor.compute(tupleDesc);
         this.tupleData = tupleData;
+        this.lazyTupleData = null;
+    }
+
+    /**
+     * Creates a reader which returns a lazy view of each tuple.
+     *
+     * @param tupleDesc tuple descriptor of the tuples to be read
+     */
+    public FennelOnlyTupleReader(FennelTupleDescriptor tupleDesc)
+    {
+        tupleAccessor = new FennelTupleAccessor(true);
+        tupleAccessor.compute(tupleDesc);
+        this.lazyTupleData = new FennelLazyTupleData(tupleDesc, tupleAccessor);
+        this.tupleData = lazyTupleData;
     }
 
     //~ Methods ----------------------------------------------------------------
@@ -66,6 +85,13 @@ public class FennelOnlyTupleReader
         byte [] byteArray,
         ByteBuffer sliceBuffer)
     {
+        if (lazyTupleData != null) {
+            // sliceBuffer is newly allocated for each tuple, so the view can
+            // keep it
+            lazyTupleData.bind(sliceBuffer);
+            sliceBuffer.position(lazyTupleData.getBoundByteCount());
+            return lazyTupleData;
+        }
         if (tupleAccessor.getCurrentTupleBuf() == null) {
             tupleAccessor.setCurrentTupleBuf(byteBuffer);
         }
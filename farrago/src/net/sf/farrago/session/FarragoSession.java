@@ -425,6 +425,24 @@ public interface FarragoSession
      * otherwise
      */
     public boolean isReentrantAlterTableAddColumn();
+
+    /**
+     * Returns the cache of constant expression reductions for this session.
+     * Clones share the cache of the session from which they were created.
+     *
+     * @return reduction cache, already validated against the current catalog
+     * version
+     */
+    public FarragoSessionReductionCache getReductionCache();
+
+    /**
+     * Returns the index of object names used for completion hints. The index
+     * is shared by all sessions of the database.
+     *
+     * @return name index, already validated against the current catalog
+     * version
+     */
+    public FarragoSessionNameIndex getNameIndex();
 }
 
 // End FarragoSession.java
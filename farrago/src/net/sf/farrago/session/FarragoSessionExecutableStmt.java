@@ -26,6 +26,7 @@ import java.sql.*;
 
 import java.util.*;
 
+import net.sf.farrago.catalog.*;
 import net.sf.farrago.util.*;
 
 import org.eigenbase.rel.*;
@@ -114,6 +115,19 @@ public interface FarragoSessionExecutableStmt
      */
     public String getReferencedObjectModTime(String mofid);
 
+    /**
+     * Determines whether this statement has been invalidated by a change
+     * which does not lock out the objects it references, such as DML on a
+     * table the statement reads via a summary, and must be prepared again.
+     *
+     * @param repos repository
+     *
+     * @return true if the statement is stale
+     *
+     * @see FarragoSessionStalenessCheck
+     */
+    public boolean isStale(FarragoRepos repos);
+
     /**
      * @return map of access modes for all tables referenced
      */
@@ -0,0 +1,122 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.session;
+
+import java.util.*;
+
+import org.eigenbase.sql.validate.*;
+
+
+/**
+ * FarragoSessionNameIndex remembers the names of the objects in each schema
+ * and catalog, as offered by the SQL advisor for completion hints, so that
+ * each keystroke does not have to scan the catalog again.
+ *
+ * <p>The index is shared by all sessions of a database. Entries are loaded on
+ * demand, and only the most recently used {@link #MAX_ENTRIES} namespaces are
+ * kept, so memory stays bounded however large the catalog is. All entries are
+ * discarded whenever the catalog version passed to {@link #validate} changes,
+ * which happens after every committed DDL statement.
+ *
+ * @version $Id$
+ */
+public class FarragoSessionNameIndex
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Maximum number of namespaces (catalogs or schemas) whose names are
+     * remembered.
+     */
+    public static final int MAX_ENTRIES = 256;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final Map<String, List<SqlMoniker>> map =
+        new LinkedHashMap<String, List<SqlMoniker>>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(
+                Map.Entry<String, List<SqlMoniker>> eldest)
+            {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private long catalogVersion = -1;
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Discards all entries if the catalog has changed since the last call.
+     *
+     * @param catalogVersion current catalog version
+     */
+    public synchronized void validate(long catalogVersion)
+    {
+        if (catalogVersion != this.catalogVersion) {
+            map.clear();
+            this.catalogVersion = catalogVersion;
+        }
+    }
+
+    /**
+     * @return catalog version which the index currently reflects
+     */
+    public synchronized long getCatalogVersion()
+    {
+        return catalogVersion;
+    }
+
+    /**
+     * Looks up the names in a namespace.
+     *
+     * @param key key identifying the namespace and the kinds of object
+     *
+     * @return unmodifiable list of names, or null if not indexed
+     */
+    public synchronized List<SqlMoniker> get(String key)
+    {
+        return map.get(key);
+    }
+
+    /**
+     * Remembers the names in a namespace.
+     *
+     * @param key key identifying the namespace and the kinds of object
+     * @param names names of the objects in the namespace
+     * @param catalogVersion catalog version which the names were read from; if
+     * the catalog has changed since, the names are not remembered
+     */
+    public synchronized void put(
+        String key,
+        List<SqlMoniker> names,
+        long catalogVersion)
+    {
+        if (catalogVersion == this.catalogVersion) {
+            map.put(
+                key,
+                Collections.unmodifiableList(
+                    new ArrayList<SqlMoniker>(names)));
+        }
+    }
+}
+
+// End FarragoSessionNameIndex.java
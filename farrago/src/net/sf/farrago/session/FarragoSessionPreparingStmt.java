@@ -128,6 +128,14 @@ public interface FarragoSessionPreparingStmt
      */
     public void disableStatementCaching();
 
+    /**
+     * Registers a check to be made each time the statement is executed; if
+     * it fails, the statement is prepared again before being executed.
+     *
+     * @param check staleness check
+     */
+    public void addStalenessCheck(FarragoSessionStalenessCheck check);
+
     /**
      * @return generic stmt validator
      */
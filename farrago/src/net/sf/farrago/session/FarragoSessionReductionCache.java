@@ -0,0 +1,134 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.session;
+
+import java.util.*;
+
+
+/**
+ * FarragoSessionReductionCache remembers the values to which constant
+ * expressions were reduced during optimization, so that the same expression
+ * prepared again in the same session does not have to be compiled and executed
+ * a second time.
+ *
+ * <p>Keys are built by the caller and must capture everything the value depends
+ * on. Since deterministic routines may be redefined by DDL, the cache is
+ * discarded whenever the catalog version passed to {@link #validate} changes.
+ *
+ * <p>Values are kept in their raw form (null, a {@link Double} for approximate
+ * numerics, or the string representation of anything else) rather than as
+ * literals, because literals are bound to the type factory of the statement
+ * which created them.
+ *
+ * @version $Id$
+ */
+public class FarragoSessionReductionCache
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Maximum number of reduced values remembered per session.
+     */
+    public static final int MAX_ENTRIES = 1000;
+
+    /**
+     * Value returned by {@link #get} for an expression which is not cached.
+     */
+    public static final Object NOT_FOUND = new Object();
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final Map<String, Object> map =
+        new LinkedHashMap<String, Object>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(
+                Map.Entry<String, Object> eldest)
+            {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private long catalogVersion = -1;
+
+    private long hitCount;
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Discards all entries if the catalog has changed since the last call.
+     *
+     * @param catalogVersion current catalog version
+     */
+    public synchronized void validate(long catalogVersion)
+    {
+        if (catalogVersion != this.catalogVersion) {
+            map.clear();
+            this.catalogVersion = catalogVersion;
+        }
+    }
+
+    /**
+     * Looks up a reduced value.
+     *
+     * @param key expression key
+     *
+     * @return raw value (possibly null), or {@link #NOT_FOUND} if the
+     * expression is not cached
+     */
+    public synchronized Object get(String key)
+    {
+        Object value = map.get(key);
+        if ((value == null) && !map.containsKey(key)) {
+            return NOT_FOUND;
+        }
+        ++hitCount;
+        return value;
+    }
+
+    /**
+     * @return number of successful lookups since this cache was created
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Remembers a reduced value.
+     *
+     * @param key expression key
+     * @param value raw value
+     */
+    public synchronized void put(String key, Object value)
+    {
+        map.put(key, value);
+    }
+
+    /**
+     * Discards all entries.
+     */
+    public synchronized void clear()
+    {
+        map.clear();
+    }
+}
+
+// End FarragoSessionReductionCache.java
@@ -0,0 +1,55 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.session;
+
+import net.sf.farrago.catalog.*;
+
+
+/**
+ * FarragoSessionStalenessCheck is registered by an optimizer rule whose
+ * rewrite is only valid while some data has not changed, for example a rule
+ * which answers a query from a summary of a table. It is evaluated each time
+ * the prepared statement is executed; if it reports the plan as stale, the
+ * statement is prepared again before it runs.
+ *
+ * <p>A check must not hold on to repository objects, since it outlives the
+ * repository transaction in which the statement was prepared; it should
+ * remember MOF ids instead.
+ *
+ * @version $Id$
+ */
+public interface FarragoSessionStalenessCheck
+{
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Determines whether the plan which registered this check may no longer
+     * be executed. Called from within a repository read transaction.
+     *
+     * @param repos repository
+     *
+     * @return true if the statement must be prepared again
+     */
+    public boolean isStale(FarragoRepos repos);
+}
+
+// End FarragoSessionStalenessCheck.java
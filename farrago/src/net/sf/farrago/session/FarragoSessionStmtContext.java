@@ -65,6 +65,14 @@ public interface FarragoSessionStmtContext
      */
     public FarragoSessionExecutingStmtInfo getExecutingStmtInfo();
 
+    /**
+     * Returns the per-phase timings of the statement most recently prepared
+     * in this context.
+     *
+     * @return timings, or null if no statement has been prepared
+     */
+    public FarragoSessionStmtTimings getStmtTimings();
+
     /**
      * @return whether this context currently has a statement prepared
      */
@@ -0,0 +1,194 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.session;
+
+import java.util.*;
+
+import org.eigenbase.trace.*;
+
+
+/**
+ * FarragoSessionStmtTimings collects the time spent in each phase of
+ * preparing and executing one statement, so that it can be reported by
+ * management views rather than only traced.
+ *
+ * <p>Preparation phases are named after the events published via the
+ * statement's {@link EigenbaseTimingTracer} (for example "parse", "validation"
+ * and "optimization"); execution phases are the constants defined below.
+ * Time for a phase which occurs several times is summed.
+ *
+ * @version $Id$
+ */
+public class FarragoSessionStmtTimings
+    implements EigenbaseTimingTracer.Listener
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Phase for loading the Fennel plan of the statement.
+     */
+    public static final String FENNEL_PREPARE = "fennel prepare";
+
+    /**
+     * Phase for opening the statement's streams and, for DML, running it,
+     * excluding {@link #FENNEL_PREPARE}.
+     */
+    public static final String OPEN = "open";
+
+    /**
+     * Phase for the first call to fetch a row.
+     */
+    public static final String FIRST_FETCH = "first fetch";
+
+    /**
+     * Phase for all calls to fetch rows, including the first.
+     */
+    public static final String TOTAL_FETCH = "total fetch";
+
+    private static final String END_PREFIX = "end ";
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final long sessionId;
+    private final String sql;
+    private long stmtId;
+    private final Map<String, Long> phaseNanos;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a FarragoSessionStmtTimings.
+     *
+     * @param sessionId ID of the session executing the statement
+     * @param sql text of the statement
+     */
+    public FarragoSessionStmtTimings(long sessionId, String sql)
+    {
+        this.sessionId = sessionId;
+        this.sql = sql;
+        this.phaseNanos = new LinkedHashMap<String, Long>();
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    public long getSessionId()
+    {
+        return sessionId;
+    }
+
+    public String getSql()
+    {
+        return sql;
+    }
+
+    /**
+     * @return ID of the statement's current or latest execution, or 0 if it
+     * has not been executed
+     */
+    public synchronized long getStmtId()
+    {
+        return stmtId;
+    }
+
+    public synchronized void setStmtId(long stmtId)
+    {
+        this.stmtId = stmtId;
+    }
+
+    // implement EigenbaseTimingTracer.Listener
+    public void timeElapsed(String event, long elapsedNanos)
+    {
+        // "end parse" is the end of the parse phase
+        String phase = event;
+        if (phase.startsWith(END_PREFIX)) {
+            phase = phase.substring(END_PREFIX.length());
+        }
+        recordPhase(phase, elapsedNanos);
+    }
+
+    /**
+     * Adds time to a phase.
+     *
+     * @param phase phase name
+     * @param elapsedNanos nanoseconds spent in the phase
+     */
+    public synchronized void recordPhase(String phase, long elapsedNanos)
+    {
+        Long prev = phaseNanos.get(phase);
+        phaseNanos.put(
+            phase,
+            (prev == null) ? elapsedNanos : (prev + elapsedNanos));
+    }
+
+    /**
+     * Records the time taken by one call to fetch a row.
+     *
+     * @param elapsedNanos nanoseconds spent in the call
+     */
+    public synchronized void recordFetch(long elapsedNanos)
+    {
+        if (!phaseNanos.containsKey(FIRST_FETCH)) {
+            phaseNanos.put(FIRST_FETCH, elapsedNanos);
+        }
+        recordPhase(TOTAL_FETCH, elapsedNanos);
+    }
+
+    /**
+     * Returns the time spent in a phase.
+     *
+     * @param phase phase name
+     *
+     * @return nanoseconds spent in the phase, 0 if none recorded
+     */
+    public synchronized long getPhaseNanos(String phase)
+    {
+        Long nanos = phaseNanos.get(phase);
+        return (nanos == null) ? 0 : nanos;
+    }
+
+    /**
+     * @return whether any phase has been recorded since creation or the last
+     * call to {@link #snapshotAndClear}
+     */
+    public synchronized boolean isEmpty()
+    {
+        return phaseNanos.isEmpty();
+    }
+
+    /**
+     * Returns the phases recorded so far, in the order in which they were
+     * first recorded, and forgets them. A statement which is executed
+     * repeatedly is snapshotted after each execution, so that its preparation
+     * phases are reported only once.
+     *
+     * @return map from phase name to nanoseconds
+     */
+    public synchronized Map<String, Long> snapshotAndClear()
+    {
+        Map<String, Long> snapshot =
+            new LinkedHashMap<String, Long>(phaseNanos);
+        phaseNanos.clear();
+        return snapshot;
+    }
+}
+
+// End FarragoSessionStmtTimings.java
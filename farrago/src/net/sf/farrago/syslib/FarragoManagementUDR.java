@@ -247,6 +247,117 @@ public abstract class FarragoManagementUDR
         }
     }
 
+    /**
+     * Populates a table with the per-phase timings of recently completed
+     * statements, one row per statement and phase.
+     *
+     * @param resultInserter
+     *
+     * @throws SQLException
+     */
+    public static void statementTimings(PreparedStatement resultInserter)
+        throws SQLException
+    {
+        FarragoSession callerSession = FarragoUdrRuntime.getSession();
+        FarragoDatabase db = ((FarragoDbSession) callerSession).getDatabase();
+        List<FarragoDbStmtTimingHistory.StmtTiming> stmts =
+            db.getStmtTimingHistory().getRecentStmts();
+        for (FarragoDbStmtTimingHistory.StmtTiming stmt : stmts) {
+            for (Map.Entry<String, Long> entry : stmt.phaseNanos.entrySet()) {
+                int i = 0;
+                resultInserter.setLong(++i, stmt.stmtId);
+                resultInserter.setLong(++i, stmt.sessionId);
+                resultInserter.setTimestamp(
+                    ++i,
+                    new Timestamp(stmt.endTime));
+                resultInserter.setString(++i, stmt.sql);
+                resultInserter.setString(++i, entry.getKey());
+                resultInserter.setDouble(++i, nanosToMillis(entry.getValue()));
+                resultInserter.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Populates a table of statement phase timings aggregated per canonical
+     * SQL text (the text with literals replaced by '?').
+     *
+     * @param resultInserter
+     *
+     * @throws SQLException
+     */
+    public static void statementTimingSummary(PreparedStatement resultInserter)
+        throws SQLException
+    {
+        FarragoSession callerSession = FarragoUdrRuntime.getSession();
+        FarragoDatabase db = ((FarragoDbSession) callerSession).getDatabase();
+        List<FarragoDbStmtTimingHistory.PhaseSummary> summaries =
+            db.getStmtTimingHistory().getPhaseSummaries();
+        for (FarragoDbStmtTimingHistory.PhaseSummary summary : summaries) {
+            int i = 0;
+            resultInserter.setString(++i, summary.canonicalSql);
+            resultInserter.setString(++i, summary.phase);
+            resultInserter.setLong(++i, summary.getCount());
+            resultInserter.setDouble(
+                ++i,
+                nanosToMillis(summary.getTotalNanos()));
+            resultInserter.setDouble(++i, nanosToMillis(summary.getMinNanos()));
+            resultInserter.setDouble(++i, nanosToMillis(summary.getMaxNanos()));
+            resultInserter.setDouble(
+                ++i,
+                nanosToMillis(summary.getTotalNanos()) / summary.getCount());
+            resultInserter.setDouble(
+                ++i,
+                summary.getPercentileMicros(0.5) / 1000.0);
+            resultInserter.setDouble(
+                ++i,
+                summary.getPercentileMicros(0.95) / 1000.0);
+            resultInserter.executeUpdate();
+        }
+    }
+
+    /**
+     * Populates a table with the histograms of statement phase timings per
+     * canonical SQL text. Each row is a non-empty bucket, counting the
+     * executions which took less than its upper bound and at least half of
+     * it.
+     *
+     * @param resultInserter
+     *
+     * @throws SQLException
+     */
+    public static void statementTimingHistogram(
+        PreparedStatement resultInserter)
+        throws SQLException
+    {
+        FarragoSession callerSession = FarragoUdrRuntime.getSession();
+        FarragoDatabase db = ((FarragoDbSession) callerSession).getDatabase();
+        List<FarragoDbStmtTimingHistory.PhaseSummary> summaries =
+            db.getStmtTimingHistory().getPhaseSummaries();
+        for (FarragoDbStmtTimingHistory.PhaseSummary summary : summaries) {
+            for (int b = 0; b < FarragoDbStmtTimingHistory.BUCKET_COUNT; ++b) {
+                long count = summary.getBucketCount(b);
+                if (count == 0) {
+                    continue;
+                }
+                int i = 0;
+                resultInserter.setString(++i, summary.canonicalSql);
+                resultInserter.setString(++i, summary.phase);
+                resultInserter.setDouble(
+                    ++i,
+                    FarragoDbStmtTimingHistory.getBucketUpperBoundMicros(b)
+                    / 1000.0);
+                resultInserter.setLong(++i, count);
+                resultInserter.executeUpdate();
+            }
+        }
+    }
+
+    private static double nanosToMillis(long nanos)
+    {
+        return nanos / 1000000.0;
+    }
+
     /**
      * Populates a table of catalog objects in use by active statements.
      *
@@ -0,0 +1,172 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.test;
+
+import java.util.*;
+
+import junit.framework.*;
+
+import net.sf.farrago.db.*;
+
+import org.eigenbase.reltype.*;
+import org.eigenbase.sql.type.*;
+
+
+/**
+ * FarragoDbInsertValuesSplitterTest is a unit test for {@link
+ * FarragoDbInsertValuesSplitter}.
+ *
+ * @version $Id$
+ */
+public class FarragoDbInsertValuesSplitterTest
+    extends TestCase
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private final RelDataTypeFactory typeFactory = new SqlTypeFactoryImpl();
+
+    //~ Constructors -----------------------------------------------------------
+
+    public FarragoDbInsertValuesSplitterTest(String name)
+        throws Exception
+    {
+        super(name);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    public void testSplit()
+    {
+        assertEquals(
+            Arrays.asList(
+                "insert into s.t(a, b) values (1, 'x'), (2, 'y')",
+                "insert into s.t(a, b) values (3, 'z')"),
+            split("insert into s.t(a, b) values (1, 'x'), (2, 'y'), (3, 'z')",
+                2));
+        assertEquals(
+            Arrays.asList(
+                "INSERT INTO \"S\".\"T\" VALUES (1)",
+                "INSERT INTO \"S\".\"T\" VALUES (2)",
+                "INSERT INTO \"S\".\"T\" VALUES (3)"),
+            split("INSERT INTO \"S\".\"T\" VALUES (1),(2),\n(3)\n", 1));
+    }
+
+    public void testLexical()
+    {
+        // parentheses, commas and comment delimiters inside literals and
+        // comments must not confuse the row scan
+        assertEquals(
+            Arrays.asList(
+                "insert into t values (CAST('a)'' ,(' AS CHAR(11)))",
+                "insert into t values (' /* ), ( */')",
+                "insert into t values (CAST('--),()' AS CHAR(11)))"),
+            split(
+                "-- load\ninsert into t values ('a)'' ,('), /* ), */"
+                + " (' /* ), ( */'), ( -- ),\n'--),()')",
+                1));
+    }
+
+    public void testTypes()
+    {
+        // values are cast to the type of their column over all rows, as the
+        // validator would do for the unsplit statement
+        assertEquals(
+            Arrays.asList(
+                "insert into t values (CAST('x' AS CHAR(3)), "
+                + "CAST(1 AS DECIMAL(11, 1))), "
+                + "('yyy', CAST(2 AS DECIMAL(11, 1)))",
+                "insert into t values (CAST('zz' AS CHAR(3)), "
+                + "CAST(2.5 AS DECIMAL(11, 1)))"),
+            split("insert into t values ('x', 1), ('yyy', 2), ('zz', 2.5)", 2));
+
+        // NULL and signs don't change a column's type
+        assertEquals(
+            Arrays.asList(
+                "insert into t values (NULL, -1)",
+                "insert into t values ('a', - 2)",
+                "insert into t values ('b', 3)"),
+            split("insert into t values (NULL, -1), ('a', - 2), ('b', 3)", 1));
+    }
+
+    public void testNoSplit()
+    {
+        // not enough rows to need more than one batch
+        assertNull(
+            FarragoDbInsertValuesSplitter.create(
+                "insert into t values (1), (2)",
+                2,
+                typeFactory));
+
+        // splitting disabled
+        assertNull(
+            FarragoDbInsertValuesSplitter.create(
+                "insert into t values (1), (2)",
+                0,
+                typeFactory));
+
+        // statements of any other shape are left to the parser
+        String [] sqls = {
+            "select * from (values (1), (2), (3))",
+            "insert into t select * from (values (1), (2), (3))",
+            "insert into t values (1), (2), (3) union values (4)",
+            "insert into t values 1, 2, 3",
+            "insert into t values row(1), row(2), row(3)",
+            "insert into t values (1), (2), ('3)",
+            "insert into t values (1), (2), (3),",
+
+            // values other than literals, whose types are only known to
+            // the validator
+            "insert into t values (1), (2), (f(3))",
+            "insert into t values (1), (2), (1 + 2)",
+            "insert into t values ('a'), ('b'), ('c' 'd')",
+            "insert into t values ('a'), ('b'), (_ISO-8859-1'c')",
+            "insert into t values (x'01'), (x'02'), (x'03')",
+            "insert into t values (1), (2), (1234567890123456789)",
+
+            // rows of differing width, or values which can't be unified
+            "insert into t values (1, 2), (3), (4, 5)",
+            "insert into t values (1), ('2'), (3)",
+        };
+        for (String sql : sqls) {
+            assertNull(
+                sql,
+                FarragoDbInsertValuesSplitter.create(sql, 1, typeFactory));
+        }
+    }
+
+    private List<String> split(String sql, int batchSize)
+    {
+        FarragoDbInsertValuesSplitter splitter =
+            FarragoDbInsertValuesSplitter.create(sql, batchSize, typeFactory);
+        assertNotNull(splitter);
+        List<String> batches = new ArrayList<String>();
+        for (;;) {
+            String batch = splitter.nextBatch();
+            if (batch == null) {
+                return batches;
+            }
+            batches.add(batch);
+        }
+    }
+}
+
+// End FarragoDbInsertValuesSplitterTest.java
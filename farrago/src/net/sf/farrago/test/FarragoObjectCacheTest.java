@@ -198,6 +198,40 @@ public class FarragoObjectCacheTest
         runOneThreadSequential("Sport 2-door (Smoking)", 300, true);
     }
 
+    /**
+     * Tests that {@link FarragoObjectCache#pinExisting} only hands out cars
+     * already in the fleet, and never an in-use car from an exclusive agency
+     * or a car which has become stale.
+     */
+    public void testOneThreadPinExisting()
+    {
+        agency = new RentalCarAgency(true, MAX_TIRES);
+        String description = "Compact 4-door";
+
+        // Nothing in the fleet yet, and asking doesn't build anything.
+        assertNull(agency.rentExistingCar(description));
+        assertEquals(0, nCarsCreated.get());
+
+        RentalCarAgreement a1 = agency.rentCar(description);
+        RentalCar car1 = a1.getCar();
+
+        // The only matching car is out on the road.
+        assertNull(agency.rentExistingCar(description));
+        agency.returnCar(a1);
+
+        // Once it's back, we get the same car again.
+        RentalCarAgreement a2 = agency.rentExistingCar(description);
+        assertNotNull(a2);
+        assertSame(car1, a2.getCar());
+        assertEquals(1, nCarsCreated.get());
+
+        // Wear it out; now it's stale, so it can't be rented this way.
+        car1.drive(10 * MAX_MILEAGE);
+        agency.returnCar(a2);
+        assertNull(agency.rentExistingCar(description));
+        assertEquals(1, nCarsCreated.get());
+    }
+
     private void runOneThreadSequential(
         String description,
         int milesToDrive,
@@ -701,6 +735,24 @@ public class FarragoObjectCacheTest
             return rca;
         }
 
+        /**
+         * Rents out a car of a given description only if one is already
+         * available in the fleet.
+         *
+         * @param description of car to rent
+         *
+         * @return rental agreement, or null if no car is available
+         */
+        RentalCarAgreement rentExistingCar(String description)
+        {
+            FarragoObjectCache.Entry entry =
+                fleet.pinExisting(description, this, exclusiveRentals);
+            if (entry == null) {
+                return null;
+            }
+            return new RentalCarAgreement(entry);
+        }
+
         /**
          * Records that a customer has returned a car, terminating the
          * agreement.
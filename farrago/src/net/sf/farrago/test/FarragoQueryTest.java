@@ -802,6 +802,72 @@ public class FarragoQueryTest
         }
     }
 
+    /**
+     * Tests that a constant expression reduced while preparing one statement
+     * is taken from the session's reduction cache when another statement
+     * reduces the same expression.
+     */
+    public void testReductionCacheReuse()
+        throws Exception
+    {
+        FarragoJdbcEngineConnection farragoConnection =
+            (FarragoJdbcEngineConnection) connection;
+        FarragoSessionReductionCache cache =
+            farragoConnection.getSession().getReductionCache();
+
+        resultSet =
+            stmt.executeQuery(
+                "select name from sales.depts where deptno = 5 * 2");
+        assertTrue(resultSet.next());
+        assertEquals("Sales", resultSet.getString(1));
+        resultSet.close();
+        long hits = cache.getHitCount();
+
+        // different text, so that the statement is prepared again
+        resultSet =
+            stmt.executeQuery(
+                "select deptno from sales.depts where deptno = 5 * 2");
+        assertTrue(resultSet.next());
+        assertEquals(10, resultSet.getInt(1));
+        resultSet.close();
+        assertTrue(cache.getHitCount() > hits);
+    }
+
+    /**
+     * Tests that the reduced values of CURRENT_DATE and CURRENT_TIMESTAMP are
+     * not reused by a later statement, whose statement time differs.
+     */
+    public void testReductionCacheDynamicFunction()
+        throws Exception
+    {
+        FarragoJdbcEngineConnection farragoConnection =
+            (FarragoJdbcEngineConnection) connection;
+        FarragoSessionReductionCache cache =
+            farragoConnection.getSession().getReductionCache();
+
+        resultSet =
+            stmt.executeQuery(
+                "select current_date, current_timestamp from sales.depts"
+                + " where deptno = 10");
+        assertTrue(resultSet.next());
+        Timestamp ts1 = resultSet.getTimestamp(2);
+        resultSet.close();
+        long hits = cache.getHitCount();
+
+        // CURRENT_TIMESTAMP has a precision of seconds
+        Thread.sleep(1100);
+
+        resultSet =
+            stmt.executeQuery(
+                "select current_date, current_timestamp, name"
+                + " from sales.depts where deptno = 10");
+        assertTrue(resultSet.next());
+        Timestamp ts2 = resultSet.getTimestamp(2);
+        resultSet.close();
+        assertEquals(hits, cache.getHitCount());
+        assertTrue(ts2.after(ts1));
+    }
+
     //~ Inner Classes ----------------------------------------------------------
 
     private static class TxnListener
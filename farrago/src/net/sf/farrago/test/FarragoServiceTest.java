@@ -496,6 +496,49 @@ public class FarragoServiceTest extends FarragoTestCase
         tracer.warning(replaced[0]);
     }
 
+    /**
+     * Tests completion hints against a schema with many tables, tracing the
+     * latency of the first request (which scans the catalog) and of a
+     * repeated one (which uses the name index). Also checks that DDL
+     * invalidates the index.
+     */
+    public void testCompletionServiceManyTables()
+        throws SQLException
+    {
+        final int tableCount = 100;
+        stmt.execute("create schema advisor_many");
+        try {
+            for (int i = 0; i < tableCount; i++) {
+                stmt.execute(
+                    "create table advisor_many.t" + i
+                    + "(i int not null primary key)");
+            }
+            assertEquals(tableCount, getManyTablesCompletionCount());
+            assertEquals(tableCount, getManyTablesCompletionCount());
+
+            stmt.execute(
+                "create table advisor_many.t" + tableCount
+                + "(i int not null primary key)");
+            assertEquals(tableCount + 1, getManyTablesCompletionCount());
+        } finally {
+            stmt.execute("drop schema advisor_many cascade");
+        }
+    }
+
+    private int getManyTablesCompletionCount()
+    {
+        SqlParserUtil.StringAndPos sap =
+            SqlParserUtil.findPos("select * from advisor_many.^");
+        final String[] replaced = { null };
+        long start = System.nanoTime();
+        List<FarragoSqlAdvisorService.SqlItem> results = getSqlAdvisorService()
+            .getCompletionHints(sap.sql, sap.cursor, replaced, null);
+        tracer.info(
+            "completion hints: " + results.size() + " in "
+            + ((System.nanoTime() - start) / 1000) + " us");
+        return results.size();
+    }
+
     /**
      * Tests the SQL formatting through the SQL advisor service. Note this
      * does not need to test the formatter comprehensively; that happens in
@@ -172,6 +172,29 @@ public class FarragoSqlRunnerTest
         assertTrue(!Util.isNullOrEmpty(stream.toString()));
         diffTestLog();
     }
+
+    public void testParallelScript()
+        throws IOException, SQLException
+    {
+        String parallelScript =
+            FarragoProperties.instance().expandProperties(
+                "${FARRAGO_HOME}/unitsql/runner/parallel.sql");
+        File f =
+            new File(
+                parallelScript.substring(
+                    0,
+                    parallelScript.lastIndexOf('.')));
+        PrintStream stream = new PrintStream(openTestLogOutputStream(f));
+        SqlRunner.instance().runScriptParallel(
+            parallelScript,
+            serverUrl,
+            userName,
+            password,
+            4,
+            stream);
+        stream.close();
+        diffTestLog();
+    }
 }
 
 // End FarragoSqlRunnerTest.java
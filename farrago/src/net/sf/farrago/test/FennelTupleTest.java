@@ -732,6 +732,145 @@ public class FennelTupleTest
         assertTrue(iBuff.position() == iBuff.limit());
     }
 
+    /**
+     * Tests that {@link FennelLazyTupleData} unmarshals only the columns
+     * which are read, and gets the same values as an eager unmarshal.
+     */
+    public void testLazyUnmarshalling()
+    {
+        FennelStandardTypeDescriptor [] o1 =
+        {
+            FennelStandardTypeDescriptor.VARCHAR,
+            FennelStandardTypeDescriptor.INT_32,
+            FennelStandardTypeDescriptor.VARCHAR,
+            FennelStandardTypeDescriptor.INT_64
+        };
+        FennelTupleDescriptor desc =
+            buildDescriptor(
+                o1,
+                new boolean[] { false, false, true, true },
+                new int[] { 40, 0, 120, 0 });
+
+        final int COUNT = 10;
+        ByteBuffer iBuff = ByteBuffer.allocate(50000);
+        FennelTupleAccessor a = new FennelTupleAccessor();
+        a.compute(desc);
+        FennelTupleData d = new FennelTupleData(desc);
+        for (int i = 0; i < COUNT; ++i) {
+            Object [] vals =
+            {
+                "Value " + i,
+                new Integer(i),
+                ((i % 3) == 0) ? null : ("lazy " + i),
+                new Long((long) i * 20)
+            };
+            for (int j = 0; j < vals.length; ++j) {
+                d.getDatum(j).reset();
+            }
+            ByteBuffer sliceBuff =
+                marshallValues(desc, vals, iBuff.slice(), a, d);
+            iBuff.position(
+                a.alignRoundUp(iBuff.position() + sliceBuff.position()));
+        }
+        iBuff.flip();
+
+        FennelTupleAccessor lazyAccessor = new FennelTupleAccessor();
+        lazyAccessor.compute(desc);
+        FennelLazyTupleData lazy = new FennelLazyTupleData(desc, lazyAccessor);
+        for (int i = 0; i < COUNT; ++i) {
+            ByteBuffer uBuff = iBuff.slice();
+            lazy.bind(uBuff);
+            int byteCount = lazy.getBoundByteCount();
+
+            // read columns out of order, and skip column 0
+            assertEquals((long) i * 20, lazy.getDatum(3).getLong());
+            FennelTupleDatum datum = lazy.getDatum(2);
+            if ((i % 3) == 0) {
+                assertFalse(datum.isPresent());
+            } else {
+                assertEquals(
+                    "lazy " + i,
+                    new String(datum.getBytes(), 0, datum.getLength()));
+            }
+            assertEquals(i, lazy.getDatum(1).getInt());
+            iBuff.position(iBuff.position() + byteCount);
+        }
+        assertTrue(iBuff.position() == iBuff.limit());
+    }
+
+    public void testColumnarDecoding()
+    {
+        FennelStandardTypeDescriptor [] o1 =
+        {
+            FennelStandardTypeDescriptor.INT_32,
+            FennelStandardTypeDescriptor.VARCHAR,
+            FennelStandardTypeDescriptor.DOUBLE,
+            FennelStandardTypeDescriptor.INT_64
+        };
+        FennelTupleDescriptor desc =
+            buildDescriptor(
+                o1,
+                new boolean[] { false, true, false, true },
+                new int[] { 0, 60, 0, 0 });
+
+        final int COUNT = 100;
+        ByteBuffer iBuff = ByteBuffer.allocate(50000);
+        FennelTupleAccessor a = new FennelTupleAccessor();
+        a.compute(desc);
+        FennelTupleData d = new FennelTupleData(desc);
+        for (int i = 0; i < COUNT; ++i) {
+            Object [] vals =
+            {
+                new Integer(-i),
+                ((i % 4) == 0) ? null : ("columnar " + i),
+                new Double(i / 8.0),
+                ((i % 5) == 0) ? null : new Long((long) i << 33)
+            };
+            for (int j = 0; j < vals.length; ++j) {
+                d.getDatum(j).reset();
+            }
+            ByteBuffer sliceBuff =
+                marshallValues(desc, vals, iBuff.slice(), a, d);
+            iBuff.position(
+                a.alignRoundUp(iBuff.position() + sliceBuff.position()));
+        }
+        iBuff.flip();
+
+        FennelTupleAccessor columnarAccessor = new FennelTupleAccessor();
+        columnarAccessor.compute(desc);
+        FennelColumnarTupleData columnar =
+            new FennelColumnarTupleData(desc, columnarAccessor);
+        assertEquals(COUNT, columnar.load(iBuff));
+        assertFalse(iBuff.hasRemaining());
+        assertTrue(columnar.isByteColumn(1));
+        assertFalse(columnar.isByteColumn(2));
+        for (int i = 0; i < COUNT; ++i) {
+            assertTrue(columnar.next());
+            assertEquals(-i, (int) columnar.getRawLong(0));
+            assertEquals(
+                i / 8.0,
+                Double.longBitsToDouble(columnar.getRawLong(2)),
+                0);
+            assertEquals((i % 5) == 0, columnar.isNull(3));
+            if ((i % 5) != 0) {
+                assertEquals((long) i << 33, columnar.getRawLong(3));
+            }
+
+            // the datum view must agree with the arrays
+            FennelTupleDatum datum = columnar.getDatum(1);
+            if ((i % 4) == 0) {
+                assertTrue(columnar.isNull(1));
+                assertFalse(datum.isPresent());
+            } else {
+                assertEquals(
+                    "columnar " + i,
+                    new String(datum.getBytes(), 0, datum.getLength()));
+            }
+            assertEquals(-i, columnar.getDatum(0).getInt());
+        }
+        assertFalse(columnar.next());
+    }
+
     public void testLargeVarBuffers()
     {
         FennelStandardTypeDescriptor [] o1 =
@@ -424,6 +424,16 @@ public class MockSession
         {
             throw new UnsupportedOperationException();
         }
+
+        public FarragoSessionReductionCache getReductionCache()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        public FarragoSessionNameIndex getNameIndex()
+        {
+            throw new UnsupportedOperationException();
+        }
     }
 
     /**
@@ -139,6 +139,7 @@ public class FarragoCalcSystemTest
         exclude.add(SqlStdOperatorTable.throwOperator);
         exclude.add(SqlStdOperatorTable.reinterpretOperator);
         exclude.add(SqlStdOperatorTable.sliceOp);
+        exclude.add(SqlStdOperatorTable.inListOperator);
         exclude.add(SqlStdOperatorTable.nextValueFunc);
         exclude.add(SqlStdOperatorTable.histogramMaxFunction);
         exclude.add(SqlStdOperatorTable.histogramMinFunction);
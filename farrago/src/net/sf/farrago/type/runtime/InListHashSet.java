@@ -0,0 +1,169 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.type.runtime;
+
+import java.util.*;
+
+
+/**
+ * InListHashSet is the runtime representation of the values in a call to
+ * {@link org.eigenbase.sql.fun.SqlInListOperator}. Generated code builds one
+ * per calculator from the encoded literal values, then probes it once per
+ * row.
+ *
+ * <p>Integer values are kept in an open-addressed table of primitive longs,
+ * so that probes do not allocate. Character values are compared as strings
+ * with trailing spaces removed.
+ *
+ * @version $Id$
+ */
+public class InListHashSet
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    public static final String CONTAINS_METHOD_NAME = "contains";
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final Set<String> strings;
+    private final long [] table;
+    private final int mask;
+    private final boolean containsZero;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates an InListHashSet.
+     *
+     * @param encodedChunks values encoded by {@link
+     * org.eigenbase.sql.fun.SqlInListOperator#encodeValues}, split into
+     * chunks to keep each within the size limit for Java string constants
+     * @param integer whether the values are integers
+     */
+    public InListHashSet(String [] encodedChunks, boolean integer)
+    {
+        StringBuilder buf = new StringBuilder();
+        for (String chunk : encodedChunks) {
+            buf.append(chunk);
+        }
+        List<String> values = decode(buf.toString());
+        if (integer) {
+            strings = null;
+            int capacity = Integer.highestOneBit(values.size() * 2 + 1) << 1;
+            table = new long[capacity];
+            mask = capacity - 1;
+            boolean zero = false;
+            for (String value : values) {
+                long v = Long.parseLong(value);
+                if (v == 0) {
+                    zero = true;
+                } else {
+                    int i = hash(v) & mask;
+                    while ((table[i] != 0) && (table[i] != v)) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = v;
+                }
+            }
+            containsZero = zero;
+        } else {
+            strings = new HashSet<String>(values);
+            table = null;
+            mask = 0;
+            containsZero = false;
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Tests whether an integer value is in the set.
+     *
+     * @param v value
+     *
+     * @return whether value is in the set
+     */
+    public boolean contains(long v)
+    {
+        if (v == 0) {
+            return containsZero;
+        }
+        int i = hash(v) & mask;
+        for (;;) {
+            long entry = table[i];
+            if (entry == v) {
+                return true;
+            }
+            if (entry == 0) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Tests whether a character value is in the set. Trailing spaces are not
+     * significant.
+     *
+     * @param v value, typically a {@link EncodedCharPointer}
+     *
+     * @return whether value is in the set
+     */
+    public boolean contains(Object v)
+    {
+        String s = v.toString();
+        int n = s.length();
+        while ((n > 0) && (s.charAt(n - 1) == ' ')) {
+            --n;
+        }
+        return strings.contains(s.substring(0, n));
+    }
+
+    private static int hash(long v)
+    {
+        long h = v * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Decodes values in the form written by {@link
+     * org.eigenbase.sql.fun.SqlInListOperator#encodeValues}.
+     *
+     * @param encoded encoded values
+     *
+     * @return list of values
+     */
+    public static List<String> decode(String encoded)
+    {
+        List<String> values = new ArrayList<String>();
+        int pos = 0;
+        while (pos < encoded.length()) {
+            int colon = encoded.indexOf(':', pos);
+            int len = Integer.parseInt(encoded.substring(pos, colon));
+            values.add(encoded.substring(colon + 1, colon + 1 + len));
+            pos = colon + 1 + len;
+        }
+        return values;
+    }
+}
+
+// End InListHashSet.java
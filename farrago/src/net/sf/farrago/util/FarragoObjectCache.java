@@ -150,6 +150,54 @@ public class FarragoObjectCache
         }
     }
 
+    /**
+     * Pins an entry in the cache only if a usable one already exists; unlike
+     * {@link #pin}, never creates a new entry or waits for one under
+     * construction.
+     *
+     * @param key key of the entry to pin
+     * @param factory CachedObjectFactory used only to test candidate entries
+     * for staleness
+     * @param exclusive if true, only reuse unpinned entries (see {@link #pin})
+     *
+     * @return pinned entry, or null if no initialized, reusable, non-stale
+     * entry is currently cached
+     */
+    public Entry pinExisting(
+        Object key,
+        CachedObjectFactory factory,
+        boolean exclusive)
+    {
+        synchronized (mapKeyToEntry) {
+            for (FarragoCacheEntry entry : mapKeyToEntry.getMulti(key)) {
+                if (exclusive && (entry.pinCount != 0)) {
+                    continue;
+                }
+
+                // NOTE: as in findOrCreateEntry, we can't synchronize on
+                // entry here; an entry still under construction is skipped
+                // rather than waited for
+                Object value = entry.value;
+                if ((value == null)
+                    || (entry.constructionThread != null)
+                    || !entry.isReusable()
+                    || factory.isStale(value))
+                {
+                    continue;
+                }
+                entry.pinCount++;
+                victimPolicy.accessEntry(entry);
+                if (tracer.isLoggable(Level.FINE)) {
+                    tracer.fine(
+                        "returning existing entry with pin count = "
+                        + entry.pinCount);
+                }
+                return entry;
+            }
+        }
+        return null;
+    }
+
     private Entry tryPin(
         Object key,
         CachedObjectFactory factory,
@@ -0,0 +1,798 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package net.sf.farrago.util;
+
+import java.io.*;
+
+import java.sql.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+import java.util.regex.*;
+
+
+/**
+ * ParallelSqlRunner runs a SQL script using several sessions at once. It is
+ * intended for long load scripts consisting mostly of independent steps, such
+ * as INSERT ... SELECT into different tables or ANALYZE of different tables.
+ *
+ * <p>Statements are classified lexically:
+ *
+ * <ul>
+ * <li>queries (SELECT, VALUES, EXPLAIN, WITH) read the tables they mention;
+ * <li>INSERT, UPSERT, MERGE, DELETE, UPDATE, TRUNCATE TABLE and ANALYZE TABLE
+ * write their target table and read any other tables they mention;
+ * <li>SET and ALTER SESSION statements change session state; they are run as
+ * barriers and then replayed on every other session before its next
+ * statement;
+ * <li>everything else (DDL, CALL, COMMIT, ...) is a barrier.
+ * </ul>
+ *
+ * <p>A query or update which mentions a view or routine is also run as a
+ * barrier, since the tables it reads cannot be seen in its text. Views and
+ * routines are recognized by unqualified name, both those in the catalog when
+ * the script starts and those created by the script.
+ *
+ * <p>A statement starts once every earlier statement it conflicts with has
+ * finished; two statements conflict if one writes a table the other mentions,
+ * or if either is a barrier. Tables are compared by unqualified name, which can
+ * only add dependencies. A comment line of the form {@link #BARRIER_DIRECTIVE}
+ * forces a barrier explicitly; sqlline ignores it, so the same script can still
+ * be run sequentially. Lines beginning with '!' (sqlline commands) are
+ * skipped.
+ *
+ * <p>As with {@link SqlRunner}, errors do not stop the script. Output for each
+ * statement is buffered and written in script order, so it does not depend on
+ * the degree of parallelism.
+ *
+ * @version $Id$
+ */
+public class ParallelSqlRunner
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    protected static Logger logger =
+        Logger.getLogger(ParallelSqlRunner.class.getName());
+
+    /**
+     * Comment which separates the statements before it from the statements
+     * after it.
+     */
+    public static final String BARRIER_DIRECTIVE = "-- @barrier";
+
+    private static final Pattern BARRIER_PATTERN =
+        Pattern.compile(
+            "--\\s*@barrier\\s*",
+            Pattern.CASE_INSENSITIVE);
+
+    //~ Enums ------------------------------------------------------------------
+
+    /**
+     * Lexical classification of a script statement.
+     */
+    enum StmtKind
+    {
+        READ, WRITE, SESSION, BARRIER
+    }
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final int threadCount;
+
+    /**
+     * Session-changing statements run so far, to be replayed on each session.
+     */
+    private final List<String> sessionStmts = new ArrayList<String>();
+
+    private final List<Worker> workers = new ArrayList<Worker>();
+
+    private String url;
+    private String userName;
+    private String password;
+    private ThreadLocal<Worker> threadWorker;
+    private String [] outputs;
+    private int nextOutput;
+    private PrintStream out;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates a ParallelSqlRunner.
+     *
+     * @param threadCount maximum number of statements to run at once, and
+     * hence the maximum number of sessions to open
+     */
+    public ParallelSqlRunner(int threadCount)
+    {
+        assert (threadCount > 0) : "thread count must be positive";
+        this.threadCount = threadCount;
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Runs the specified SQL script against the server at the specified URL
+     * using the supplied credentials.
+     *
+     * @param pathName String containing a path name to a SQL script
+     * @param url String specifying the URL of a server
+     * @param userName String specifying the user to log into the server as
+     * @param password String containing the password for the specified user
+     * @param out PrintStream to write the output of each statement to
+     *
+     * @throws SQLException if the script cannot be read or no driver accepts
+     * the URL; errors from individual statements, including failure to open
+     * a session, are written to out instead
+     */
+    public synchronized void runScript(
+        String pathName,
+        String url,
+        String userName,
+        String password,
+        PrintStream out)
+        throws SQLException
+    {
+        assert (pathName != null) : "SQL script path cannot be null";
+        assert (url != null) : "Server URL cannot be null";
+        assert (userName != null) : "User name must be specified";
+
+        List<ScriptStmt> stmts;
+        try {
+            Reader reader = new FileReader(pathName);
+            try {
+                stmts = parseScript(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error processing SQL script", e);
+            throw new SQLException(e.getMessage());
+        }
+
+        // Fail early, like SqlRunner, if we cannot connect at all.
+        DriverManager.getDriver(url);
+        markOpaqueStmts(
+            stmts,
+            getCatalogOpaqueNames(url, userName, password));
+        if (!url.matches(".*;sessionName=.*")) {
+            url += ";sessionName=ParallelSqlRunner";
+        }
+        this.url = url;
+        this.userName = userName;
+        this.password = password;
+        this.out = out;
+        this.threadWorker = new ThreadLocal<Worker>();
+        this.outputs = new String[stmts.size()];
+        this.nextOutput = 0;
+        sessionStmts.clear();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            // Submission order matters: the pool is FIFO and each task only
+            // waits for earlier ones, so the oldest unfinished task can
+            // always proceed.
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < stmts.size(); i++) {
+                List<Future<Void>> deps = new ArrayList<Future<Void>>();
+                for (int j : getDependencies(stmts, i)) {
+                    deps.add(futures.get(j));
+                }
+                futures.add(
+                    executor.submit(new StmtTask(stmts.get(i), i, deps)));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            throw new SQLException(e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException(cause.getMessage());
+        } finally {
+            executor.shutdownNow();
+            for (Worker worker : workers) {
+                try {
+                    worker.connection.close();
+                } catch (SQLException e) {
+                    logger.warning(
+                        "Problem closing session: " + e.getMessage());
+                }
+            }
+            workers.clear();
+            out.flush();
+        }
+    }
+
+    /**
+     * Computes the earlier statements which must finish before a statement may
+     * start.
+     *
+     * @param stmts all statements of the script
+     * @param i ordinal of statement
+     *
+     * @return ordinals of statements which statement i depends on
+     */
+    static List<Integer> getDependencies(List<ScriptStmt> stmts, int i)
+    {
+        List<Integer> deps = new ArrayList<Integer>();
+        ScriptStmt stmt = stmts.get(i);
+        for (int j = i - 1; j >= 0; j--) {
+            ScriptStmt earlier = stmts.get(j);
+            if (earlier.isBarrier() || earlier.kind == StmtKind.SESSION) {
+                // Everything before the barrier already precedes it.
+                deps.add(j);
+                break;
+            }
+            if (stmt.isBarrier()
+                || stmt.kind == StmtKind.SESSION
+                || earlier.conflictsWith(stmt))
+            {
+                deps.add(j);
+            }
+        }
+        return deps;
+    }
+
+    /**
+     * Marks as opaque each query or update which mentions a view or routine,
+     * whether it existed in the catalog before the script started or is
+     * created by some statement of the script.
+     *
+     * @param stmts all statements of the script
+     * @param opaqueNames unqualified names of views and routines in the
+     * catalog
+     */
+    static void markOpaqueStmts(
+        List<ScriptStmt> stmts,
+        Set<String> opaqueNames)
+    {
+        opaqueNames = new HashSet<String>(opaqueNames);
+        for (ScriptStmt stmt : stmts) {
+            if (stmt.createdName != null) {
+                opaqueNames.add(stmt.createdName);
+            }
+        }
+        for (ScriptStmt stmt : stmts) {
+            if (stmt.kind == StmtKind.READ || stmt.kind == StmtKind.WRITE) {
+                stmt.opaque = !Collections.disjoint(stmt.names, opaqueNames);
+            }
+        }
+    }
+
+    /**
+     * Reads the unqualified names of all views and routines in the catalog.
+     * If the catalog cannot be read, the sessions which would run the script
+     * most likely cannot be opened either, so only a warning is logged.
+     */
+    private static Set<String> getCatalogOpaqueNames(
+        String url,
+        String userName,
+        String password)
+    {
+        Set<String> names = new HashSet<String>();
+        try {
+            Connection connection =
+                DriverManager.getConnection(url, userName, password);
+            try {
+                DatabaseMetaData metaData = connection.getMetaData();
+                ResultSet resultSet =
+                    metaData.getTables(
+                        null,
+                        null,
+                        "%",
+                        new String[] { "VIEW" });
+                try {
+                    while (resultSet.next()) {
+                        names.add(resultSet.getString("TABLE_NAME"));
+                    }
+                } finally {
+                    resultSet.close();
+                }
+                resultSet = metaData.getProcedures(null, null, "%");
+                try {
+                    while (resultSet.next()) {
+                        names.add(resultSet.getString("PROCEDURE_NAME"));
+                    }
+                } finally {
+                    resultSet.close();
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            logger.warning(
+                "Could not read views and routines from catalog: "
+                + e.getMessage());
+        }
+        return names;
+    }
+
+    /**
+     * Splits a script into statements, skipping comments between statements
+     * and sqlline commands. An explicit barrier is returned as a statement
+     * with null text.
+     *
+     * @param reader script text
+     *
+     * @return list of statements
+     */
+    static List<ScriptStmt> parseScript(Reader reader)
+        throws IOException
+    {
+        StringBuilder scriptBuf = new StringBuilder();
+        char [] buf = new char[4096];
+        for (int n; (n = reader.read(buf)) > 0;) {
+            scriptBuf.append(buf, 0, n);
+        }
+        String script = scriptBuf.toString();
+
+        List<ScriptStmt> stmts = new ArrayList<ScriptStmt>();
+        StringBuilder sql = new StringBuilder();
+        int pos = 0;
+        int len = script.length();
+        while (pos < len) {
+            char c = script.charAt(pos);
+            if (sql.length() == 0) {
+                // Between statements.
+                if (Character.isWhitespace(c)) {
+                    ++pos;
+                    continue;
+                }
+                if (c == '!' || script.startsWith("--", pos)) {
+                    int end = script.indexOf("\n", pos);
+                    if (end < 0) {
+                        end = len;
+                    }
+                    String line = script.substring(pos, end).trim();
+                    if (BARRIER_PATTERN.matcher(line).matches()) {
+                        stmts.add(new ScriptStmt(null));
+                    } else if (c == '!') {
+                        logger.fine("Ignoring sqlline command " + line);
+                    }
+                    pos = end;
+                    continue;
+                }
+            }
+            int end = skipToken(script, pos);
+            if (c == ';' && end == pos + 1) {
+                stmts.add(new ScriptStmt(sql.toString().trim()));
+                sql.setLength(0);
+            } else {
+                sql.append(script, pos, end);
+            }
+            pos = end;
+        }
+        if (sql.toString().trim().length() > 0) {
+            stmts.add(new ScriptStmt(sql.toString().trim()));
+        }
+        return stmts;
+    }
+
+    /**
+     * Returns the position after a quoted string, quoted identifier or comment
+     * starting at a given position, or the next position otherwise.
+     */
+    private static int skipToken(CharSequence s, int pos)
+    {
+        int len = s.length();
+        char c = s.charAt(pos);
+        if (c == '\'' || c == '"') {
+            int i = pos + 1;
+            while (i < len) {
+                if (s.charAt(i) == c) {
+                    if (i + 1 < len && s.charAt(i + 1) == c) {
+                        i += 2;
+                        continue;
+                    }
+                    return i + 1;
+                }
+                ++i;
+            }
+            return len;
+        }
+        if (c == '-' && pos + 1 < len && s.charAt(pos + 1) == '-') {
+            int i = pos;
+            while (i < len && s.charAt(i) != '\n') {
+                ++i;
+            }
+            return i;
+        }
+        if (c == '/' && pos + 1 < len && s.charAt(pos + 1) == '*') {
+            for (int i = pos + 2; i + 1 < len; i++) {
+                if (s.charAt(i) == '*' && s.charAt(i + 1) == '/') {
+                    return i + 2;
+                }
+            }
+            return len;
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Splits a statement into identifier tokens (upper-cased unless quoted)
+     * and punctuation, dropping literals, comments and whitespace.
+     */
+    static List<String> tokenize(String sql)
+    {
+        List<String> tokens = new ArrayList<String>();
+        int pos = 0;
+        int len = sql.length();
+        while (pos < len) {
+            char c = sql.charAt(pos);
+            int end = skipToken(sql, pos);
+            if (c == '"') {
+                int close = (sql.charAt(end - 1) == '"') ? (end - 1) : end;
+                tokens.add(
+                    sql.substring(pos + 1, Math.max(pos + 1, close))
+                    .replace("\"\"", "\""));
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                while (end < len
+                    && (Character.isLetterOrDigit(sql.charAt(end))
+                        || sql.charAt(end) == '_'
+                        || sql.charAt(end) == '$'))
+                {
+                    ++end;
+                }
+                tokens.add(sql.substring(pos, end).toUpperCase());
+            } else if (c == '.' || c == '(') {
+                tokens.add(String.valueOf(c));
+            }
+            pos = end;
+        }
+        return tokens;
+    }
+
+    private synchronized void finish(int ordinal, String output)
+    {
+        outputs[ordinal] = output;
+        while (nextOutput < outputs.length && outputs[nextOutput] != null) {
+            out.print(outputs[nextOutput]);
+            outputs[nextOutput] = null;
+            ++nextOutput;
+        }
+        out.flush();
+    }
+
+    private Worker getWorker()
+        throws SQLException
+    {
+        Worker worker = threadWorker.get();
+        if (worker == null) {
+            worker =
+                new Worker(
+                    DriverManager.getConnection(url, userName, password));
+            synchronized (workers) {
+                workers.add(worker);
+            }
+            threadWorker.set(worker);
+        }
+        return worker;
+    }
+
+    private String execute(ScriptStmt stmt)
+    {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        for (String line : stmt.sql.split("\n", -1)) {
+            pw.println("> " + line);
+        }
+        try {
+            Worker worker = getWorker();
+            List<String> pending;
+            synchronized (sessionStmts) {
+                pending =
+                    new ArrayList<String>(
+                        sessionStmts.subList(
+                            worker.sessionStmtCount,
+                            sessionStmts.size()));
+                worker.sessionStmtCount = sessionStmts.size();
+            }
+            Statement jdbcStmt = worker.connection.createStatement();
+            try {
+                for (String sessionSql : pending) {
+                    jdbcStmt.execute(sessionSql);
+                }
+                if (jdbcStmt.execute(stmt.sql)) {
+                    printResultSet(jdbcStmt.getResultSet(), pw);
+                } else if (stmt.kind == StmtKind.WRITE) {
+                    int n = jdbcStmt.getUpdateCount();
+                    pw.println(
+                        (n == 1) ? "1 row affected" : (n + " rows affected"));
+                }
+            } finally {
+                jdbcStmt.close();
+            }
+            if (stmt.kind == StmtKind.SESSION) {
+                synchronized (sessionStmts) {
+                    sessionStmts.add(stmt.sql);
+                    worker.sessionStmtCount = sessionStmts.size();
+                }
+            }
+        } catch (SQLException e) {
+            pw.println("Error: " + e.getMessage());
+        }
+        pw.flush();
+        return sw.toString();
+    }
+
+    private static void printResultSet(ResultSet resultSet, PrintWriter pw)
+        throws SQLException
+    {
+        try {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int n = metaData.getColumnCount();
+            StringBuilder buf = new StringBuilder();
+            for (int i = 1; i <= n; i++) {
+                if (i > 1) {
+                    buf.append(',');
+                }
+                buf.append(metaData.getColumnLabel(i));
+            }
+            pw.println(buf);
+            while (resultSet.next()) {
+                buf.setLength(0);
+                for (int i = 1; i <= n; i++) {
+                    if (i > 1) {
+                        buf.append(',');
+                    }
+                    String s = resultSet.getString(i);
+                    if (s != null) {
+                        buf.append(s);
+                    }
+                }
+                pw.println(buf);
+            }
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    /**
+     * Runs one or more scripts in parallel. Arguments are a subset of those
+     * accepted by sqlline: <code>-u url -d driverClass -n user -p password
+     * --parallel=threadCount script...</code>.
+     *
+     * @param args command-line arguments
+     */
+    public static void main(String [] args)
+        throws Exception
+    {
+        String url = null;
+        String userName = null;
+        String password = "";
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        List<String> scripts = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-u")) {
+                url = args[++i];
+            } else if (arg.equals("-d")) {
+                Class.forName(args[++i]);
+            } else if (arg.equals("-n")) {
+                userName = args[++i];
+            } else if (arg.equals("-p")) {
+                password = args[++i];
+            } else if (arg.startsWith("--parallel=")) {
+                threadCount =
+                    Integer.parseInt(arg.substring("--parallel=".length()));
+            } else if (arg.startsWith("--run=")) {
+                scripts.add(arg.substring("--run=".length()));
+            } else if (arg.startsWith("-")) {
+                logger.fine("Ignoring option " + arg);
+            } else {
+                scripts.add(arg);
+            }
+        }
+        ParallelSqlRunner runner = new ParallelSqlRunner(threadCount);
+        for (String script : scripts) {
+            runner.runScript(script, url, userName, password, System.out);
+        }
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * One statement of a script, with its lexical classification.
+     */
+    static class ScriptStmt
+    {
+        /**
+         * Statement text, or null for an explicit barrier.
+         */
+        final String sql;
+        final StmtKind kind;
+
+        /**
+         * Table written by the statement, or null.
+         */
+        final String target;
+
+        /**
+         * View or routine created by the statement, or null.
+         */
+        final String createdName;
+
+        /**
+         * All identifiers mentioned by the statement.
+         */
+        final Set<String> names;
+
+        /**
+         * Whether the statement mentions a view or routine, and so may access
+         * tables not mentioned in its text.
+         */
+        boolean opaque;
+
+        ScriptStmt(String sql)
+        {
+            this.sql = sql;
+            this.names = new HashSet<String>();
+            if (sql == null) {
+                kind = StmtKind.BARRIER;
+                target = null;
+                createdName = null;
+                return;
+            }
+            List<String> tokens = tokenize(sql);
+            names.addAll(tokens);
+            String first = tokens.isEmpty() ? "" : tokens.get(0);
+            String second = (tokens.size() > 1) ? tokens.get(1) : "";
+            int targetPos = -1;
+            int createdPos = -1;
+            if (first.equals("SELECT")
+                || first.equals("VALUES")
+                || first.equals("EXPLAIN")
+                || first.equals("WITH"))
+            {
+                kind = StmtKind.READ;
+            } else if (first.equals("SET")
+                || (first.equals("ALTER") && second.equals("SESSION")))
+            {
+                kind = StmtKind.SESSION;
+            } else if (
+                ((first.equals("INSERT")
+                        || first.equals("UPSERT")
+                        || first.equals("MERGE"))
+                    && second.equals("INTO"))
+                || (first.equals("DELETE") && second.equals("FROM"))
+                || ((first.equals("TRUNCATE") || first.equals("ANALYZE"))
+                    && second.equals("TABLE")))
+            {
+                kind = StmtKind.WRITE;
+                targetPos = 2;
+            } else if (first.equals("UPDATE")) {
+                kind = StmtKind.WRITE;
+                targetPos = 1;
+            } else {
+                kind = StmtKind.BARRIER;
+                if (first.equals("CREATE")) {
+                    createdPos = 1;
+                    if (second.equals("OR")) {
+                        // CREATE OR REPLACE
+                        createdPos = 3;
+                    }
+                    if (createdPos < tokens.size()) {
+                        String objectKind = tokens.get(createdPos);
+                        if (objectKind.equals("VIEW")
+                            || objectKind.equals("FUNCTION")
+                            || objectKind.equals("PROCEDURE"))
+                        {
+                            ++createdPos;
+                        } else {
+                            createdPos = -1;
+                        }
+                    }
+                }
+            }
+            target = getUnqualifiedName(tokens, targetPos);
+            createdName = getUnqualifiedName(tokens, createdPos);
+        }
+
+        /**
+         * Returns the last component of a possibly qualified name, or null if
+         * pos is negative.
+         */
+        private static String getUnqualifiedName(List<String> tokens, int pos)
+        {
+            String name = null;
+            if (pos >= 0) {
+                while (pos < tokens.size()) {
+                    name = tokens.get(pos);
+                    if (pos + 2 < tokens.size()
+                        && tokens.get(pos + 1).equals("."))
+                    {
+                        pos += 2;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            return name;
+        }
+
+        boolean isBarrier()
+        {
+            return (kind == StmtKind.BARRIER) || opaque;
+        }
+
+        boolean conflictsWith(ScriptStmt other)
+        {
+            return ((target != null) && other.names.contains(target))
+                || ((other.target != null) && names.contains(other.target));
+        }
+    }
+
+    /**
+     * Runs one {@link ScriptStmt} once its dependencies have finished.
+     */
+    private class StmtTask
+        implements Callable<Void>
+    {
+        private final ScriptStmt stmt;
+        private final int ordinal;
+        private final List<Future<Void>> deps;
+
+        StmtTask(ScriptStmt stmt, int ordinal, List<Future<Void>> deps)
+        {
+            this.stmt = stmt;
+            this.ordinal = ordinal;
+            this.deps = deps;
+        }
+
+        public Void call()
+            throws Exception
+        {
+            for (Future<Void> dep : deps) {
+                dep.get();
+            }
+            finish(
+                ordinal,
+                (stmt.sql == null) ? "" : execute(stmt));
+            return null;
+        }
+    }
+
+    /**
+     * Session used by one thread of the pool.
+     */
+    private static class Worker
+    {
+        final Connection connection;
+
+        /**
+         * Number of {@link ParallelSqlRunner#sessionStmts} already applied to
+         * this session.
+         */
+        int sessionStmtCount;
+
+        Worker(Connection connection)
+        {
+            this.connection = connection;
+        }
+    }
+}
+
+// End ParallelSqlRunner.java
@@ -206,6 +206,40 @@ public class SqlRunner
         }
     }
 
+    /**
+     * Run the specified SQL script against the server at the specified URL,
+     * executing independent statements concurrently on separate sessions. See
+     * {@link ParallelSqlRunner} for how dependencies between statements are
+     * determined.
+     *
+     * @param pathName String containing a path name to a SQL script
+     * @param url String specifying the URL of a server
+     * @param userName String specifying the user to log into the server as
+     * @param password String containing the password for the specified user
+     * @param threadCount maximum number of statements to run at once
+     * @param out PrintStream to write the output of each statement to, in
+     * script order
+     *
+     * @throws SQLException if the script cannot be read or no driver accepts
+     * the URL
+     */
+    public void runScriptParallel(
+        String pathName,
+        String url,
+        String userName,
+        String password,
+        int threadCount,
+        PrintStream out)
+        throws SQLException
+    {
+        new ParallelSqlRunner(threadCount).runScript(
+            pathName,
+            url,
+            userName,
+            password,
+            out);
+    }
+
     /**
      * Get a singleton instance of the SqlRunner class to run one or more
      * scripts with.
@@ -588,9 +588,58 @@ public class IterCalcRel
             // declare refinement of restart() and add to member list...
         }
 
+        // Let CalcTupleIter.fetchNextBatch write each row of a batch into a
+        // different output row object:
+        //     protected Object newOutputRow() {
+        //         return new OutputRowClass();
+        //     }
+        //     protected void setOutputRow(Object row) {
+        //         varOutputRow = (OutputRowClass) row;
+        //     }
+        StatementList newOutputRowBody = new StatementList();
+        newOutputRowBody.add(
+            new ReturnStatement(
+                new AllocationExpression(
+                    outputRowClass,
+                    new ExpressionList())));
+        MemberDeclaration newOutputRowMethodDecl =
+            new MethodDeclaration(
+                new ModifierList(ModifierList.PROTECTED),
+                OJUtil.typeNameForClass(Object.class),
+                "newOutputRow",
+                new ParameterList(),
+                null,
+                newOutputRowBody);
+
+        StatementList setOutputRowBody = new StatementList();
+        setOutputRowBody.add(
+            new ExpressionStatement(
+                new AssignmentExpression(
+                    varOutputRow,
+                    AssignmentExpression.EQUALS,
+                    new CastExpression(
+                        TypeName.forOJClass(outputRowClass),
+                        new Variable("outputRow")))));
+        ParameterList setOutputRowParams = new ParameterList();
+        setOutputRowParams.add(
+            new Parameter(
+                new ModifierList(0),
+                OJUtil.typeNameForClass(Object.class),
+                "outputRow"));
+        MemberDeclaration setOutputRowMethodDecl =
+            new MethodDeclaration(
+                new ModifierList(ModifierList.PROTECTED),
+                TypeName.forOJClass(OJSystem.VOID),
+                "setOutputRow",
+                setOutputRowParams,
+                null,
+                setOutputRowBody);
+
         memberList.add(inputRowVarDecl);
         memberList.add(outputRowVarDecl);
         memberList.add(fetchNextMethodDecl);
+        memberList.add(newOutputRowMethodDecl);
+        memberList.add(setOutputRowMethodDecl);
         Expression newTupleIterExp =
             new AllocationExpression(
                 OJUtil.typeNameForClass(CalcTupleIter.class),
@@ -48,6 +48,16 @@ public abstract class RelDataTypeFactoryImpl
     private final Map<RelDataType, RelDataType> map =
         new HashMap<RelDataType, RelDataType>();
 
+    /**
+     * Canonical record types, keyed by their field names and field types. A
+     * lookup here costs one pass over the fields, comparing the (canonical)
+     * field types by identity, whereas {@link #canonize} has to build the
+     * record type and its digest first, which for wide rows is the dominant
+     * cost of deriving a type.
+     */
+    private final Map<StructKey, RelDataType> structMap =
+        new HashMap<StructKey, RelDataType>();
+
     //~ Constructors -----------------------------------------------------------
 
     protected RelDataTypeFactoryImpl()
@@ -77,11 +87,10 @@ public abstract class RelDataTypeFactoryImpl
         RelDataType [] types,
         String [] fieldNames)
     {
-        final RelDataTypeField [] fields = new RelDataTypeField[types.length];
-        for (int i = 0; i < fields.length; i++) {
-            fields[i] = new RelDataTypeFieldImpl(fieldNames[i], i, types[i]);
-        }
-        return canonize(new RelRecordType(fields));
+        assert types.length == fieldNames.length;
+        return createInternedStructType(
+            fieldNames.clone(),
+            types.clone());
     }
 
     // implement RelDataTypeFactory
@@ -90,16 +99,9 @@ public abstract class RelDataTypeFactoryImpl
         List<String> fieldNameList)
     {
         assert typeList.size() == fieldNameList.size();
-        final RelDataTypeField [] fields =
-            new RelDataTypeField[typeList.size()];
-        for (int i = 0; i < fields.length; i++) {
-            fields[i] =
-                new RelDataTypeFieldImpl(
-                    fieldNameList.get(i),
-                    i,
-                    typeList.get(i));
-        }
-        return canonize(new RelRecordType(fields));
+        return createInternedStructType(
+            fieldNameList.toArray(new String[fieldNameList.size()]),
+            typeList.toArray(new RelDataType[typeList.size()]));
     }
 
     // implement RelDataTypeFactory
@@ -107,15 +109,42 @@ public abstract class RelDataTypeFactoryImpl
         RelDataTypeFactory.FieldInfo fieldInfo)
     {
         final int fieldCount = fieldInfo.getFieldCount();
-        final RelDataTypeField [] fields = new RelDataTypeField[fieldCount];
-        for (int i = 0; i < fields.length; i++) {
-            fields[i] =
-                new RelDataTypeFieldImpl(
-                    fieldInfo.getFieldName(i),
-                    i,
-                    fieldInfo.getFieldType(i));
+        final String [] fieldNames = new String[fieldCount];
+        final RelDataType [] types = new RelDataType[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fieldNames[i] = fieldInfo.getFieldName(i);
+            types[i] = fieldInfo.getFieldType(i);
         }
-        return canonize(new RelRecordType(fields));
+        return createInternedStructType(fieldNames, types);
+    }
+
+    /**
+     * Returns the canonical record type with the given fields, creating and
+     * registering it if it does not exist yet.
+     *
+     * @param fieldNames field names; not copied, so must not be modified
+     * afterwards
+     * @param types field types; not copied, so must not be modified afterwards
+     *
+     * @return canonical record type
+     */
+    private RelDataType createInternedStructType(
+        String [] fieldNames,
+        RelDataType [] types)
+    {
+        final StructKey key = new StructKey(fieldNames, types);
+        RelDataType type = structMap.get(key);
+        if (type == null) {
+            final RelDataTypeField [] fields =
+                new RelDataTypeField[types.length];
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] =
+                    new RelDataTypeFieldImpl(fieldNames[i], i, types[i]);
+            }
+            type = canonize(new RelRecordType(fields));
+            structMap.put(key, type);
+        }
+        return type;
     }
 
     // implement RelDataTypeFactory
@@ -635,6 +664,63 @@ public abstract class RelDataTypeFactoryImpl
             return JavaToSqlTypeConversionRules.instance().lookup(clazz);
         }
     }
+
+    /**
+     * Key identifying a record type by its field names and types. The hash is
+     * computed once, from the hashes of the names and types, which are
+     * themselves cached.
+     */
+    private static final class StructKey
+    {
+        private final String [] fieldNames;
+        private final RelDataType [] types;
+        private final int hash;
+
+        StructKey(String [] fieldNames, RelDataType [] types)
+        {
+            this.fieldNames = fieldNames;
+            this.types = types;
+            int h = types.length;
+            for (int i = 0; i < types.length; i++) {
+                h = (h * 31) + Util.hash(0, fieldNames[i]);
+                h = (h * 31) + types[i].hashCode();
+            }
+            this.hash = h;
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof StructKey)) {
+                return false;
+            }
+            StructKey that = (StructKey) obj;
+            if ((hash != that.hash) || (types.length != that.types.length)) {
+                return false;
+            }
+            for (int i = 0; i < types.length; i++) {
+                String name = fieldNames[i];
+                if ((name == null) ? (that.fieldNames[i] != null)
+                    : !name.equals(that.fieldNames[i]))
+                {
+                    return false;
+                }
+
+                // Field types are almost always canonical, so identity
+                // usually decides; fall back to comparing digests.
+                if ((types[i] != that.types[i])
+                    && !types[i].equals(that.types[i]))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
 
 // End RelDataTypeFactoryImpl.java
@@ -0,0 +1,149 @@
+/*
+// $Id$
+// Package org.eigenbase is a class library of data management components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.eigenbase.reltype;
+
+import java.util.*;
+
+import junit.framework.*;
+
+import org.eigenbase.sql.type.*;
+import org.eigenbase.util.*;
+
+
+/**
+ * Unit test for {@link RelDataTypeFactoryImpl}.
+ *
+ * @version $Id$
+ */
+public class RelDataTypeFactoryTest
+    extends TestCase
+{
+    //~ Instance fields --------------------------------------------------------
+
+    private RelDataTypeFactory typeFactory;
+    private RelDataType intType;
+    private RelDataType nullableIntType;
+    private RelDataType varcharType;
+
+    //~ Constructors -----------------------------------------------------------
+
+    public RelDataTypeFactoryTest(String name)
+    {
+        super(name);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+        typeFactory = new SqlTypeFactoryImpl();
+        intType = typeFactory.createSqlType(SqlTypeName.INTEGER);
+        nullableIntType =
+            typeFactory.createTypeWithNullability(intType, true);
+        varcharType = typeFactory.createSqlType(SqlTypeName.VARCHAR, 10);
+    }
+
+    /**
+     * Tests that structurally equal record types from one factory are the
+     * same instance, whichever form of createStructType builds them.
+     */
+    public void testStructTypeInterned()
+    {
+        RelDataType t1 =
+            typeFactory.createStructType(
+                new RelDataType[] { intType, varcharType },
+                new String[] { "A", "B" });
+        RelDataType t2 =
+            typeFactory.createStructType(
+                new RelDataType[] { intType, varcharType },
+                new String[] { "A", "B" });
+        assertSame(t1, t2);
+
+        RelDataType t3 =
+            typeFactory.createStructType(
+                Arrays.asList(intType, varcharType),
+                Arrays.asList("A", "B"));
+        assertSame(t1, t3);
+
+        RelDataType t4 =
+            typeFactory.createStructType(
+                Arrays.asList(
+                    new Pair<String, RelDataType>("A", intType),
+                    new Pair<String, RelDataType>("B", varcharType)));
+        assertSame(t1, t4);
+
+        // an equal field type created separately is canonical too
+        RelDataType t5 =
+            typeFactory.createStructType(
+                new RelDataType[] {
+                    typeFactory.createSqlType(SqlTypeName.INTEGER),
+                    typeFactory.createSqlType(SqlTypeName.VARCHAR, 10)
+                },
+                new String[] { "A", "B" });
+        assertSame(t1, t5);
+    }
+
+    /**
+     * Tests that record types which differ in field names or field
+     * nullability are distinct.
+     */
+    public void testStructTypeDistinct()
+    {
+        RelDataType t1 =
+            typeFactory.createStructType(
+                new RelDataType[] { intType, varcharType },
+                new String[] { "A", "B" });
+
+        RelDataType renamed =
+            typeFactory.createStructType(
+                new RelDataType[] { intType, varcharType },
+                new String[] { "A", "C" });
+        assertNotSame(t1, renamed);
+        assertFalse(t1.equals(renamed));
+
+        RelDataType nullable =
+            typeFactory.createStructType(
+                new RelDataType[] { nullableIntType, varcharType },
+                new String[] { "A", "B" });
+        assertNotSame(t1, nullable);
+        assertFalse(t1.equals(nullable));
+
+        // making every field nullable gives the same type as building it
+        // from nullable fields
+        RelDataType allNullable =
+            typeFactory.createTypeWithNullability(t1, true);
+        assertNotSame(t1, allNullable);
+        assertFalse(t1.equals(allNullable));
+        assertSame(
+            allNullable,
+            typeFactory.createStructType(
+                new RelDataType[] {
+                    nullableIntType,
+                    typeFactory.createTypeWithNullability(varcharType, true)
+                },
+                new String[] { "A", "B" }));
+    }
+}
+
+// End RelDataTypeFactoryTest.java
@@ -147,6 +147,9 @@ public abstract class RelDataTypeImpl
     // implement RelDataType
     public boolean equals(Object obj)
     {
+        if (obj == this) {
+            return true;
+        }
         if (obj instanceof RelDataTypeImpl) {
             final RelDataTypeImpl that = (RelDataTypeImpl) obj;
             return this.digest.equals(that.digest);
@@ -0,0 +1,68 @@
+/*
+// $Id$
+// Package org.eigenbase is a class library of data management components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.eigenbase.runtime;
+
+/**
+ * BatchTupleIter is an optional extension to {@link TupleIter} for iterators
+ * which can deliver several rows per call.
+ *
+ * <p>A consumer which processes many rows (for example, the marshalling loop
+ * in a Farrago transform) can call {@link #fetchNextBatch} instead of {@link
+ * TupleIter#fetchNext} and so pay the cost of the virtual call, the {@link
+ * TupleIter.NoDataReason} check and the producer's bookkeeping once per batch
+ * rather than once per row. Every
+ * implementation must still support the row-at-a-time {@link
+ * TupleIter#fetchNext}, and a consumer may switch between the two styles
+ * between calls. Use {@link TupleBatch#fetch(TupleIter, TupleBatch)} to read a
+ * batch from an iterator which may or may not implement this interface.
+ *
+ * <p>Unlike the object returned by {@link TupleIter#fetchNext}, each row in a
+ * batch is a distinct object. All rows of a batch remain valid until the next
+ * call to {@link #fetchNextBatch}, {@link TupleIter#fetchNext} or {@link
+ * TupleIter#restart} on the same iterator; the producer may re-use them after
+ * that.
+ *
+ * @version $Id$
+ */
+public interface BatchTupleIter
+    extends TupleIter
+{
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Fetches up to {@link TupleBatch#getCapacity()} rows into a batch. The
+     * batch is cleared before it is filled.
+     *
+     * <p>If this method returns 0, {@link TupleBatch#getNoDataReason()}
+     * indicates why no rows were returned, with the same meaning as the {@link
+     * TupleIter.NoDataReason} values returned by {@link TupleIter#fetchNext}. A
+     * batch containing at least one row may be shorter than its capacity;
+     * this does not imply that the iterator is exhausted.
+     *
+     * @param batch batch to fill
+     *
+     * @return number of rows fetched
+     */
+    public int fetchNextBatch(TupleBatch batch);
+}
+
+// End BatchTupleIter.java
@@ -27,14 +27,39 @@ import org.eigenbase.util.*;
 /**
  * <code>CalcTupleIter</code> is an abstract base for iterator implementations
  * generated by {@link org.eigenbase.oj.rel.IterCalcRel} .
+ *
+ * <p>CalcTupleIter implements {@link BatchTupleIter} by calling the generated
+ * {@link #fetchNext} once per row, directing each call to write into a
+ * different output row object. Implementations which can allocate output rows
+ * override {@link #newOutputRow} and {@link #setOutputRow}; others return
+ * batches of one row.
+ *
+ * <p>Output rows may point into their input rows (for example, VARCHAR
+ * values are assigned by reference to the input's buffer), so a batch of
+ * output rows is computed from a single batch of input rows, all of which
+ * stay valid together. A batch therefore ends where the input's batch ends,
+ * such as at the end of a Fennel buffer.
  */
 public abstract class CalcTupleIter
-    implements TupleIter
+    implements BatchTupleIter
 {
     //~ Instance fields --------------------------------------------------------
 
     protected TupleIter inputIterator;
 
+    /**
+     * Output row objects used by {@link #fetchNextBatch}, one per batch slot;
+     * allocated on first use.
+     */
+    private Object [] outputRowPool;
+
+    /**
+     * Wrapper around the original input iterator which replays a batch of
+     * input rows; installed as {@link #inputIterator} by the first call to
+     * {@link #fetchNextBatch}.
+     */
+    private InputBatchTupleIter inputBatchIter;
+
     //~ Constructors -----------------------------------------------------------
 
     /**
@@ -49,6 +74,92 @@ public abstract class CalcTupleIter
 
     //~ Methods ----------------------------------------------------------------
 
+    /**
+     * Allocates a new output row object, or returns null if this iterator
+     * always writes into the same object. The default implementation returns
+     * null.
+     *
+     * @return new output row, or null
+     */
+    protected Object newOutputRow()
+    {
+        return null;
+    }
+
+    /**
+     * Directs subsequent calls to {@link #fetchNext} to write into a given
+     * output row object, previously allocated by {@link #newOutputRow}. The
+     * default implementation does nothing.
+     *
+     * @param outputRow output row
+     */
+    protected void setOutputRow(Object outputRow)
+    {
+    }
+
+    // implement BatchTupleIter
+    public int fetchNextBatch(TupleBatch batch)
+    {
+        batch.clear();
+        if (outputRowPool == null) {
+            Object outputRow = newOutputRow();
+            if (outputRow == null) {
+                return batch.addNext(this);
+            }
+            outputRowPool = new Object[batch.getCapacity()];
+            outputRowPool[0] = outputRow;
+        } else if (outputRowPool.length < batch.getCapacity()) {
+            Object [] newPool = new Object[batch.getCapacity()];
+            System.arraycopy(
+                outputRowPool,
+                0,
+                newPool,
+                0,
+                outputRowPool.length);
+            outputRowPool = newPool;
+        }
+
+        if (inputBatchIter == null) {
+            inputBatchIter = new InputBatchTupleIter(inputIterator);
+            inputIterator = inputBatchIter;
+        }
+
+        inputBatchIter.batchOnly = true;
+        try {
+            while (true) {
+                if (!inputBatchIter.fetchBatch(batch.getCapacity())) {
+                    batch.setNoDataReason(
+                        inputBatchIter.batch.getNoDataReason());
+                    return 0;
+                }
+                while (!batch.isFull()) {
+                    int i = batch.getSize();
+                    if (outputRowPool[i] == null) {
+                        outputRowPool[i] = newOutputRow();
+                    }
+                    setOutputRow(outputRowPool[i]);
+                    if (batch.addNext(this) == 0) {
+                        break;
+                    }
+                }
+                if ((batch.getSize() > 0)
+                    || !inputBatchIter.batch.isDrained())
+                {
+                    // Either we have rows, or fetchNext reported a problem
+                    // other than running out of input (say, too many row
+                    // errors). The rest of the input batch, if any, is
+                    // read by the next call.
+                    return batch.getSize();
+                }
+
+                // every row in the input batch was filtered out
+                batch.clear();
+            }
+        } finally {
+            inputBatchIter.batchOnly = false;
+        }
+    }
+
     // implement TupleIter
     public boolean setTimeout(long timeout, boolean asUnderflow)
     {
@@ -78,6 +189,99 @@ public abstract class CalcTupleIter
     {
         inputIterator.closeAllocation();
     }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * Input iterator seen by the generated {@link #fetchNext} code. It
+     * returns the rows of the current input batch first; then, while {@link
+     * #fetchNextBatch} is running, it reports underflow so that the output
+     * batch ends with the input batch, and otherwise it reads from the
+     * original input iterator.
+     */
+    private static class InputBatchTupleIter
+        implements TupleIter
+    {
+        private final TupleIter input;
+        private TupleBatch batch;
+        private boolean batchOnly;
+
+        InputBatchTupleIter(TupleIter input)
+        {
+            this.input = input;
+        }
+
+        /**
+         * Fetches the next batch of input rows, unless some rows of the
+         * current batch have not been read yet.
+         *
+         * @param capacity maximum number of rows to fetch
+         *
+         * @return false if no rows are available
+         */
+        boolean fetchBatch(int capacity)
+        {
+            if ((batch != null) && !batch.isDrained()) {
+                return true;
+            }
+
+            // Each input row yields at most one output row, so a batch of
+            // input rows no bigger than the output batch never leaves rows
+            // behind unless fetchNext stops early.
+            if ((batch == null) || (batch.getCapacity() != capacity)) {
+                batch = new TupleBatch(capacity);
+            }
+            return TupleBatch.fetch(input, batch) > 0;
+        }
+
+        // implement TupleIter
+        public Object fetchNext()
+        {
+            if (batch != null) {
+                Object row = batch.next();
+                if (row != null) {
+                    return row;
+                }
+            }
+            if (batchOnly) {
+                return NoDataReason.UNDERFLOW;
+            }
+            return input.fetchNext();
+        }
+
+        // implement TupleIter
+        public boolean setTimeout(long timeout, boolean asUnderflow)
+        {
+            return input.setTimeout(timeout, asUnderflow);
+        }
+
+        // implement TupleIter
+        public boolean addListener(MoreDataListener c)
+        {
+            return input.addListener(c);
+        }
+
+        // implement TupleIter
+        public void restart()
+        {
+            if (batch != null) {
+                batch.clear();
+            }
+            input.restart();
+        }
+
+        // implement TupleIter
+        public StringBuilder printStatus(StringBuilder b)
+        {
+            return input.printStatus(b);
+        }
+
+        // implement TupleIter
+        public void closeAllocation()
+        {
+            input.closeAllocation();
+        }
+    }
 }
 
 // End CalcTupleIter.java
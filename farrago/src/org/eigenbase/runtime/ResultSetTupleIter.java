@@ -28,9 +28,14 @@ import java.sql.*;
 /**
  * A <code>ResultSetTupleIter</code> is an adapter which converts a {@link
  * ResultSet} to a {@link TupleIter}.
+ *
+ * <p>It also implements {@link BatchTupleIter}. Subclasses whose {@link
+ * #makeRow} re-uses a row object must override {@link #newRow} and {@link
+ * #setRow} so that each row of a batch gets its own object.
  */
 public class ResultSetTupleIter
     extends AbstractTupleIter
+    implements BatchTupleIter
 {
     //~ Instance fields --------------------------------------------------------
 
@@ -40,6 +45,12 @@ public class ResultSetTupleIter
     protected boolean underflow;
     protected Object row;
 
+    /**
+     * Row objects used by {@link #fetchNextBatch}, one per batch slot, if
+     * {@link #newRow} returns non-null; allocated on first use.
+     */
+    private Object [] rowPool;
+
     //~ Constructors -----------------------------------------------------------
 
     public ResultSetTupleIter(ResultSetProvider resultSetProvider)
@@ -70,6 +81,67 @@ public class ResultSetTupleIter
         return result;
     }
 
+    // implement BatchTupleIter
+    public int fetchNextBatch(TupleBatch batch)
+    {
+        batch.clear();
+        if (row != null) {
+            // A row was read ahead by restart(); return it on its own, since
+            // it may occupy a pooled row object.
+            return batch.addNext(this);
+        }
+        boolean pooled = (rowPool != null);
+        if (!pooled) {
+            Object newRow = newRow();
+            if (newRow != null) {
+                rowPool = new Object[batch.getCapacity()];
+                rowPool[0] = newRow;
+                pooled = true;
+            }
+        }
+        if (pooled && (rowPool.length < batch.getCapacity())) {
+            Object [] newPool = new Object[batch.getCapacity()];
+            System.arraycopy(rowPool, 0, newPool, 0, rowPool.length);
+            rowPool = newPool;
+        }
+        while (!batch.isFull()) {
+            if (pooled) {
+                int i = batch.getSize();
+                if (rowPool[i] == null) {
+                    rowPool[i] = newRow();
+                }
+                setRow(rowPool[i]);
+            }
+            if (batch.addNext(this) == 0) {
+                break;
+            }
+        }
+        return batch.getSize();
+    }
+
+    /**
+     * Allocates a new object of the kind returned by {@link #makeRow}, or
+     * returns null if {@link #makeRow} allocates a new object each time. The
+     * default implementation returns null.
+     *
+     * @return new row, or null
+     */
+    protected Object newRow()
+    {
+        return null;
+    }
+
+    /**
+     * Directs subsequent calls to {@link #makeRow} to populate a given row
+     * object, previously allocated by {@link #newRow}. The default
+     * implementation does nothing.
+     *
+     * @param row row object
+     */
+    protected void setRow(Object row)
+    {
+    }
+
     /**
      * Instantiates the result set from the result set provider, if it has not
      * been instantiated already.  Typically this method is called on first
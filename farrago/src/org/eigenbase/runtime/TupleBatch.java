@@ -0,0 +1,206 @@
+/*
+// $Id$
+// Package org.eigenbase is a class library of data management components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.eigenbase.runtime;
+
+/**
+ * TupleBatch is a fixed-capacity array of rows, filled by {@link
+ * BatchTupleIter#fetchNextBatch} and read by its consumer.
+ *
+ * <p>A batch also has a read cursor, so that a consumer which cannot process
+ * a whole batch at once (say, because its output buffer filled up) can
+ * remember where it got to; see {@link #next()}.
+ *
+ * @version $Id$
+ */
+public class TupleBatch
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Capacity used by consumers which have no better idea. Large enough to
+     * amortize per-batch overhead, small enough that a batch of synthetic row
+     * objects stays in cache.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final Object [] rows;
+    private int size;
+    private int position;
+    private TupleIter.NoDataReason noDataReason;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param capacity maximum number of rows in the batch; must be positive
+     */
+    public TupleBatch(int capacity)
+    {
+        assert capacity > 0 : capacity;
+        this.rows = new Object[capacity];
+    }
+
+    /**
+     * Creates an empty batch with {@link #DEFAULT_CAPACITY}.
+     */
+    public TupleBatch()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Fetches a batch of rows from an iterator. If the iterator is a {@link
+     * BatchTupleIter}, delegates to {@link BatchTupleIter#fetchNextBatch};
+     * otherwise fetches a single row, because the iterator may re-use the
+     * object it returns.
+     *
+     * @param iter iterator
+     * @param batch batch to fill
+     *
+     * @return number of rows fetched
+     */
+    public static int fetch(TupleIter iter, TupleBatch batch)
+    {
+        if (iter instanceof BatchTupleIter) {
+            return ((BatchTupleIter) iter).fetchNextBatch(batch);
+        }
+        batch.clear();
+        return batch.addNext(iter);
+    }
+
+    /**
+     * Fetches one row from an iterator using {@link TupleIter#fetchNext} and
+     * appends it to this batch. If the iterator returns a {@link
+     * TupleIter.NoDataReason} and this batch is empty, records the reason.
+     *
+     * @param iter iterator
+     *
+     * @return number of rows added, 0 or 1
+     */
+    public int addNext(TupleIter iter)
+    {
+        Object next = iter.fetchNext();
+        if (next instanceof TupleIter.NoDataReason) {
+            if (size == 0) {
+                noDataReason = (TupleIter.NoDataReason) next;
+            }
+            return 0;
+        }
+        add(next);
+        return 1;
+    }
+
+    /**
+     * Removes all rows, resets the read cursor and clears the no-data reason.
+     * The contents of the array returned by {@link #getRows()} are left as
+     * they are.
+     */
+    public void clear()
+    {
+        size = 0;
+        position = 0;
+        noDataReason = null;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param row row; must not be a {@link TupleIter.NoDataReason}
+     */
+    public void add(Object row)
+    {
+        assert !(row instanceof TupleIter.NoDataReason);
+        rows[size++] = row;
+    }
+
+    /**
+     * Returns the row at the read cursor and advances the cursor, or null if
+     * all rows have been read.
+     */
+    public Object next()
+    {
+        if (position < size) {
+            return rows[position++];
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the read cursor has reached the end of the batch.
+     */
+    public boolean isDrained()
+    {
+        return position >= size;
+    }
+
+    public Object get(int i)
+    {
+        assert i < size : i;
+        return rows[i];
+    }
+
+    /**
+     * Returns the array underlying this batch. Only the first {@link
+     * #getSize()} entries are valid.
+     */
+    public Object [] getRows()
+    {
+        return rows;
+    }
+
+    public int getSize()
+    {
+        return size;
+    }
+
+    public int getCapacity()
+    {
+        return rows.length;
+    }
+
+    public boolean isFull()
+    {
+        return size == rows.length;
+    }
+
+    /**
+     * Returns why the last fetch into this batch returned no rows, or null if
+     * it returned at least one row.
+     */
+    public TupleIter.NoDataReason getNoDataReason()
+    {
+        return noDataReason;
+    }
+
+    public void setNoDataReason(TupleIter.NoDataReason noDataReason)
+    {
+        assert size == 0;
+        this.noDataReason = noDataReason;
+    }
+}
+
+// End TupleBatch.java
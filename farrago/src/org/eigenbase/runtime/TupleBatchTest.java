@@ -0,0 +1,269 @@
+/*
+// $Id$
+// Package org.eigenbase is a class library of data management components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.eigenbase.runtime;
+
+import java.util.*;
+
+import junit.framework.*;
+
+
+/**
+ * Test case for {@link TupleBatch} and {@link BatchTupleIter}.
+ *
+ * @version $Id$
+ */
+public class TupleBatchTest
+    extends TestCase
+{
+    //~ Constructors -----------------------------------------------------------
+
+    public TupleBatchTest(String s)
+        throws Exception
+    {
+        super(s);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Tests that a plain {@link TupleIter} is read one row per batch.
+     */
+    public void testFetchFromRowIter()
+    {
+        TupleIter iter =
+            new RestartableCollectionTupleIter(Arrays.asList("a", "b"));
+        TupleBatch batch = new TupleBatch(10);
+        assertEquals(1, TupleBatch.fetch(iter, batch));
+        assertEquals("a", batch.next());
+        assertTrue(batch.isDrained());
+        assertEquals(1, TupleBatch.fetch(iter, batch));
+        assertEquals("b", batch.get(0));
+        assertEquals(0, TupleBatch.fetch(iter, batch));
+        assertEquals(
+            TupleIter.NoDataReason.END_OF_DATA,
+            batch.getNoDataReason());
+    }
+
+    /**
+     * Tests that a {@link CalcTupleIter} which re-uses its output row still
+     * returns a distinct object for each row in a batch.
+     */
+    public void testCalcBatch()
+    {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 7; i++) {
+            values.add(i);
+        }
+        TupleIter iter =
+            new RefCalcTupleIter(new BufferTupleIter(values, 10));
+        TupleBatch batch = new TupleBatch(3);
+        List<Object> result = new ArrayList<Object>();
+        int [] expectedSizes = { 3, 3, 1 };
+        for (int expectedSize : expectedSizes) {
+            assertEquals(expectedSize, TupleBatch.fetch(iter, batch));
+            Set<Object> distinct = new HashSet<Object>();
+            for (Object row; (row = batch.next()) != null;) {
+                assertTrue(distinct.add(row));
+                result.add(RefCalcTupleIter.getValue(row));
+            }
+        }
+        assertEquals(values, result);
+        assertEquals(0, TupleBatch.fetch(iter, batch));
+        assertEquals(
+            TupleIter.NoDataReason.END_OF_DATA,
+            batch.getNoDataReason());
+
+        // row-at-a-time access still works after a restart
+        iter.restart();
+        assertEquals(0, RefCalcTupleIter.getValue(iter.fetchNext()));
+    }
+
+    /**
+     * Tests that a batch from a {@link CalcTupleIter} whose output rows point
+     * into the input's buffer ends at the end of that buffer, so that
+     * refilling the buffer cannot change rows already in the batch.
+     */
+    public void testCalcBatchEndsWithInputBuffer()
+    {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 10; i++) {
+            values.add(i);
+        }
+        TupleIter iter =
+            new RefCalcTupleIter(new BufferTupleIter(values, 4));
+        TupleBatch batch = new TupleBatch(3);
+        List<Object> result = new ArrayList<Object>();
+        int [] expectedSizes = { 3, 1, 3, 1, 2 };
+        for (int expectedSize : expectedSizes) {
+            assertEquals(expectedSize, TupleBatch.fetch(iter, batch));
+
+            // read the values only once the whole batch has been fetched
+            for (Object row; (row = batch.next()) != null;) {
+                result.add(RefCalcTupleIter.getValue(row));
+            }
+        }
+        assertEquals(values, result);
+        assertEquals(0, TupleBatch.fetch(iter, batch));
+
+        // switching to row-at-a-time access in the middle of a buffer
+        // neither skips nor repeats rows
+        iter.restart();
+        assertEquals(3, TupleBatch.fetch(iter, batch));
+        assertEquals(3, RefCalcTupleIter.getValue(iter.fetchNext()));
+        assertEquals(4, RefCalcTupleIter.getValue(iter.fetchNext()));
+        assertEquals(3, TupleBatch.fetch(iter, batch));
+        assertEquals(5, RefCalcTupleIter.getValue(batch.get(0)));
+        assertEquals(7, RefCalcTupleIter.getValue(batch.get(2)));
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * Position of a value within the buffer of a {@link BufferTupleIter}.
+     */
+    private static class BufferSlot
+    {
+        private final int [] buffer;
+        private final int offset;
+
+        BufferSlot(int [] buffer, int offset)
+        {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        int get()
+        {
+            return buffer[offset];
+        }
+    }
+
+    /**
+     * Iterator which loads its values into a fixed-size buffer, overwriting
+     * the previous contents, and returns rows which point into the buffer,
+     * mimicking {@link net.sf.farrago.runtime.FennelAbstractTupleIter}.
+     */
+    private static class BufferTupleIter
+        extends AbstractTupleIter
+        implements BatchTupleIter
+    {
+        private final List<Integer> values;
+        private final int [] buffer;
+        private int next;
+        private int bufferEnd;
+        private int bufferPos;
+
+        BufferTupleIter(List<Integer> values, int bufferSize)
+        {
+            this.values = values;
+            this.buffer = new int[bufferSize];
+        }
+
+        private boolean fillBuffer()
+        {
+            if (bufferPos < bufferEnd) {
+                return true;
+            }
+            bufferPos = 0;
+            bufferEnd = 0;
+            while ((bufferEnd < buffer.length) && (next < values.size())) {
+                buffer[bufferEnd++] = values.get(next++);
+            }
+            return bufferEnd > 0;
+        }
+
+        public Object fetchNext()
+        {
+            if (!fillBuffer()) {
+                return NoDataReason.END_OF_DATA;
+            }
+            return new BufferSlot(buffer, bufferPos++);
+        }
+
+        public int fetchNextBatch(TupleBatch batch)
+        {
+            batch.clear();
+            if (!fillBuffer()) {
+                batch.setNoDataReason(NoDataReason.END_OF_DATA);
+                return 0;
+            }
+            while (!batch.isFull() && (bufferPos < bufferEnd)) {
+                batch.add(new BufferSlot(buffer, bufferPos++));
+            }
+            return batch.getSize();
+        }
+
+        public void restart()
+        {
+            next = 0;
+            bufferEnd = 0;
+            bufferPos = 0;
+        }
+
+        public void closeAllocation()
+        {
+        }
+    }
+
+    /**
+     * Calc iterator which stores a reference to its input into a re-used
+     * one-element output row, the way the code generated by {@link
+     * org.eigenbase.oj.rel.IterCalcRel} assigns VARCHAR values by reference.
+     */
+    private static class RefCalcTupleIter
+        extends CalcTupleIter
+    {
+        private BufferSlot [] outputRow = new BufferSlot[1];
+
+        RefCalcTupleIter(TupleIter inputIterator)
+        {
+            super(inputIterator);
+        }
+
+        static int getValue(Object row)
+        {
+            return ((BufferSlot []) row)[0].get();
+        }
+
+        public Object fetchNext()
+        {
+            Object input = inputIterator.fetchNext();
+            if (input instanceof NoDataReason) {
+                return input;
+            }
+            outputRow[0] = (BufferSlot) input;
+            return outputRow;
+        }
+
+        protected Object newOutputRow()
+        {
+            return new BufferSlot[1];
+        }
+
+        protected void setOutputRow(Object outputRow)
+        {
+            this.outputRow = (BufferSlot []) outputRow;
+        }
+    }
+}
+
+// End TupleBatchTest.java
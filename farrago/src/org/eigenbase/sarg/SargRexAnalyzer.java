@@ -171,6 +171,10 @@ public class SargRexAnalyzer
                 SqlStdOperatorTable.orOperator,
                 new BooleanConvertlet(
                     SargSetOperator.UNION));
+
+            registerConvertlet(
+                SqlStdOperatorTable.inListOperator,
+                new InListConvertlet());
         }
 
         registerConvertlet(
@@ -624,6 +628,44 @@ public class SargRexAnalyzer
         }
     }
 
+    /**
+     * Converts a call to {@link SqlStdOperatorTable#inListOperator} into the
+     * union of one point interval per list value, exactly as for the
+     * equivalent disjunction of equality predicates.
+     */
+    private class InListConvertlet
+        extends CallConvertlet
+    {
+        // implement CallConvertlet
+        public void convert(RexCall call)
+        {
+            // Only the key has been visited; the list values are not
+            // coordinates of a single comparison.
+            if (!variableSeen || (coordinate != null)) {
+                failed = true;
+            }
+
+            if (failed) {
+                return;
+            }
+
+            SargSetExpr expr =
+                factory.newSetExpr(
+                    boundInputRef.getType(),
+                    SargSetOperator.UNION);
+            RexNode [] operands = call.getOperands();
+            for (int i = 1; i < operands.length; i++) {
+                SargIntervalExpr point =
+                    factory.newIntervalExpr(boundInputRef.getType());
+                point.setPoint(operands[i]);
+                expr.addChild(point);
+            }
+            exprStack.add(expr);
+
+            clearLeaf();
+        }
+    }
+
     private class NodeVisitor
         extends RexVisitorImpl<Void>
     {
@@ -692,8 +734,13 @@ public class SargRexAnalyzer
                 return null;
             }
 
-            // visit operands first
-            super.visitCall(call);
+            // visit operands first; for an IN list, only the key is
+            // visited, and the convertlet takes the values as a whole
+            if (call.getOperator() == SqlStdOperatorTable.inListOperator) {
+                call.getOperands()[0].accept(this);
+            } else {
+                super.visitCall(call);
+            }
 
             convertlet.convert(call);
             return null;
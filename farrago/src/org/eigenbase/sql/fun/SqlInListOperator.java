@@ -0,0 +1,181 @@
+/*
+// $Id$
+// Package org.eigenbase is a class library of data management components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.eigenbase.sql.fun;
+
+import java.math.*;
+
+import java.util.*;
+
+import org.eigenbase.reltype.*;
+import org.eigenbase.rex.*;
+import org.eigenbase.sql.*;
+import org.eigenbase.sql.type.*;
+import org.eigenbase.util.*;
+
+
+/**
+ * An internal operator which tests a value for membership in a list of
+ * literals, <code>$IN_LIST(key, literal1, literal2, ...)</code>.
+ *
+ * <p>It is introduced by {@link org.eigenbase.sql2rel.SqlToRelConverter} for
+ * long <code>IN</code> lists which would otherwise become a long chain of
+ * <code>OR</code>s or a join against a <code>VALUES</code> list. Calculators
+ * evaluate it by probing a hash set built once from the literals, and sarg
+ * analysis treats it as a union of points, so it can still drive index
+ * searches.
+ *
+ * <p>Only integer and character keys are supported, and the literals must be
+ * non-null. Per the PAD SPACE rule for character comparisons, trailing spaces
+ * are not significant in character values.
+ *
+ * @version $Id$
+ */
+public class SqlInListOperator
+    extends SqlInternalOperator
+{
+    //~ Constructors -----------------------------------------------------------
+
+    SqlInListOperator()
+    {
+        super(
+            "$IN_LIST",
+            SqlKind.OTHER,
+            30,
+            true,
+            SqlTypeStrategies.rtiNullableBoolean,
+            null,
+            null);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Returns whether a key of a given type can be tested by this operator.
+     *
+     * @param keyType type of key
+     *
+     * @return whether key type is supported
+     */
+    public static boolean isSupportedKeyType(RelDataType keyType)
+    {
+        return SqlTypeUtil.isIntType(keyType)
+            || SqlTypeUtil.inCharFamily(keyType);
+    }
+
+    /**
+     * Returns whether a value can appear in the list for a given key type.
+     *
+     * @param keyType type of key
+     * @param value candidate value
+     *
+     * @return whether value is a non-null literal comparable to the key
+     */
+    public static boolean isSupportedValue(RelDataType keyType, RexNode value)
+    {
+        if (!(value instanceof RexLiteral)) {
+            return false;
+        }
+        Comparable v = ((RexLiteral) value).getValue();
+        if (v == null) {
+            return false;
+        }
+        if (SqlTypeUtil.isIntType(keyType)) {
+            if (!(v instanceof BigDecimal)) {
+                return false;
+            }
+            BigDecimal bd = (BigDecimal) v;
+            if ((bd.signum() != 0) && (bd.stripTrailingZeros().scale() > 0)) {
+                return false;
+            }
+            return bd.toBigInteger().bitLength() < 64;
+        }
+        return (v instanceof NlsString)
+            && SqlTypeUtil.inCharFamily(keyType);
+    }
+
+    /**
+     * Returns the distinct values in a call to this operator, in canonical
+     * string form: integers in decimal, and strings with trailing spaces
+     * removed.
+     *
+     * @param call call to this operator
+     *
+     * @return distinct canonical values, in order of first appearance
+     */
+    public static Set<String> getCanonicalValues(RexCall call)
+    {
+        assert (call.getOperator() instanceof SqlInListOperator);
+        Set<String> values = new LinkedHashSet<String>();
+        RexNode [] operands = call.getOperands();
+        for (int i = 1; i < operands.length; i++) {
+            Comparable v = ((RexLiteral) operands[i]).getValue();
+            if (v instanceof BigDecimal) {
+                values.add(((BigDecimal) v).toBigInteger().toString());
+            } else {
+                values.add(trimTrailingSpaces(((NlsString) v).getValue()));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Encodes a set of values as a single string, each value written as its
+     * length in characters, a colon, and the value itself. Calculators decode
+     * this form to build their hash sets.
+     *
+     * @param values canonical values
+     *
+     * @return encoded values
+     */
+    public static String encodeValues(Collection<String> values)
+    {
+        StringBuilder buf = new StringBuilder();
+        for (String value : values) {
+            buf.append(value.length()).append(':').append(value);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Removes trailing spaces from a string.
+     *
+     * @param s string
+     *
+     * @return string without trailing spaces
+     */
+    public static String trimTrailingSpaces(String s)
+    {
+        int n = s.length();
+        while ((n > 0) && (s.charAt(n - 1) == ' ')) {
+            --n;
+        }
+        return s.substring(0, n);
+    }
+
+    // override SqlOperator
+    public SqlOperandCountRange getOperandCountRange()
+    {
+        return SqlOperandCountRange.Variadic;
+    }
+}
+
+// End SqlInListOperator.java
@@ -282,6 +282,14 @@ public class SqlStdOperatorTable
     public static final SqlBinaryOperator notInOperator =
         new SqlInOperator(true);
 
+    /**
+     * The internal <code>$IN_LIST</code> operator tests for a value's
+     * membership in a list of literals using a hash lookup; see {@link
+     * SqlInListOperator}.
+     */
+    public static final SqlInListOperator inListOperator =
+        new SqlInListOperator();
+
     /**
      * Logical less-than operator, '<code>&lt;</code>'.
      */
@@ -1116,6 +1116,120 @@ public class RelDecorrelator
         }
     }
 
+    /**
+     * Rewrite SetOpRel (UnionRel, IntersectRel or MinusRel).
+     *
+     * @param rel the set operation rel to rewrite
+     */
+    public void decorrelateRel(SetOpRel rel)
+    {
+        //
+        // Rewrite logic:
+        //
+        // 1. Collect the correlated variables produced by any of the inputs.
+        // 2. Join each input which does not produce all of them with a value
+        //    generator for the ones it is missing. Such an input returns the
+        //    same rows whatever the values of those variables, so this
+        //    yields its result for every combination of correlated values.
+        // 3. Project each input to its original fields followed by the
+        //    correlated variables, in the same order for every input, so
+        //    that the set operation is applied per combination of
+        //    correlated values.
+        //
+
+        // SetOpRel itself never references cor vars.
+        assert (!mapRefRelToCorVar.containsKey(rel));
+
+        RelNode [] oldInputs = rel.getInputs();
+        RelNode [] newInputs = new RelNode[oldInputs.length];
+        SortedSet<CorrelatorRel.Correlation> corVars =
+            new TreeSet<CorrelatorRel.Correlation>();
+        for (int i = 0; i < oldInputs.length; i++) {
+            newInputs[i] = mapOldToNewRel.get(oldInputs[i]);
+            if (newInputs[i] == null) {
+                // If any child has not been rewritten, do not rewrite this
+                // rel.
+                return;
+            }
+            if (mapNewRelToMapCorVarToOutputPos.containsKey(newInputs[i])) {
+                corVars.addAll(
+                    mapNewRelToMapCorVarToOutputPos.get(newInputs[i])
+                    .keySet());
+            }
+        }
+
+        if (corVars.isEmpty()) {
+            // output positions do not change
+            decorrelateRelGeneric(rel);
+            return;
+        }
+
+        int oldFieldCount = rel.getRowType().getFieldCount();
+        for (int i = 0; i < newInputs.length; i++) {
+            RelNode newInputRel = newInputs[i];
+
+            Map<Integer, Integer> childMapOldToNewOutputPos =
+                mapNewRelToMapOldToNewOutputPos.get(newInputRel);
+            assert (childMapOldToNewOutputPos != null);
+
+            SortedMap<CorrelatorRel.Correlation, Integer>
+                childMapCorVarToOutputPos =
+                    new TreeMap<CorrelatorRel.Correlation, Integer>();
+            if (mapNewRelToMapCorVarToOutputPos.containsKey(newInputRel)) {
+                childMapCorVarToOutputPos.putAll(
+                    mapNewRelToMapCorVarToOutputPos.get(newInputRel));
+            }
+
+            SortedSet<CorrelatorRel.Correlation> missingCorVars =
+                new TreeSet<CorrelatorRel.Correlation>(corVars);
+            missingCorVars.removeAll(childMapCorVarToOutputPos.keySet());
+            if (!missingCorVars.isEmpty()) {
+                RelNode valueGenRel =
+                    createValueGenerator(
+                        missingCorVars,
+                        newInputRel.getRowType().getFieldCount(),
+                        childMapCorVarToOutputPos);
+                newInputRel =
+                    new JoinRel(
+                        rel.getCluster(),
+                        newInputRel,
+                        valueGenRel,
+                        rexBuilder.makeLiteral(true),
+                        JoinRelType.INNER,
+                        Collections.<String>emptySet());
+            }
+
+            List<Integer> projectPosList = new ArrayList<Integer>();
+            for (int oldPos = 0; oldPos < oldFieldCount; oldPos++) {
+                projectPosList.add(childMapOldToNewOutputPos.get(oldPos));
+            }
+            for (CorrelatorRel.Correlation corVar : corVars) {
+                projectPosList.add(childMapCorVarToOutputPos.get(corVar));
+            }
+            newInputs[i] = CalcRel.createProject(newInputRel, projectPosList);
+        }
+
+        RelNode newRel = rel.copy(newInputs);
+
+        // Every input now has the original fields in their original positions,
+        // followed by the cor vars.
+        Map<Integer, Integer> mapOldToNewOutputPos =
+            new HashMap<Integer, Integer>();
+        for (int oldPos = 0; oldPos < oldFieldCount; oldPos++) {
+            mapOldToNewOutputPos.put(oldPos, oldPos);
+        }
+        SortedMap<CorrelatorRel.Correlation, Integer> mapCorVarToOutputPos =
+            new TreeMap<CorrelatorRel.Correlation, Integer>();
+        int newPos = oldFieldCount;
+        for (CorrelatorRel.Correlation corVar : corVars) {
+            mapCorVarToOutputPos.put(corVar, newPos++);
+        }
+
+        mapOldToNewRel.put(rel, newRel);
+        mapNewRelToMapOldToNewOutputPos.put(newRel, mapOldToNewOutputPos);
+        mapNewRelToMapCorVarToOutputPos.put(newRel, mapCorVarToOutputPos);
+    }
+
     private RexInputRef getNewForOldInputRef(RexInputRef oldInputRef)
     {
         assert (currentRel != null);
@@ -65,6 +65,12 @@ public class SqlToRelConverter
     protected static final Logger sqlToRelTracer =
         EigenbaseTrace.getSqlToRelTracer();
 
+    /**
+     * Default size of an IN list at which it stops being converted to a chain
+     * of ORs.
+     */
+    public static final int DEFAULT_IN_SUBQUERY_THRESHOLD = 20;
+
     //~ Instance fields --------------------------------------------------------
 
     protected final SqlValidator validator;
@@ -84,6 +90,8 @@ public class SqlToRelConverter
     private boolean decorrelationEnabled;
     private boolean trimUnusedFields;
     private boolean shouldCreateValuesRel;
+    private int inSubqueryThreshold = DEFAULT_IN_SUBQUERY_THRESHOLD;
+    private boolean shouldCreateInList;
     private boolean isExplain;
     private int nDynamicParamsInExplain;
 
@@ -324,6 +332,33 @@ public class SqlToRelConverter
         shouldCreateValuesRel = enabled;
     }
 
+    /**
+     * Sets the list size threshold under which IN lists are converted to a
+     * chain of ORs; see {@link #getInSubqueryThreshold}. To have any effect,
+     * this must be called before any convert method.
+     *
+     * @param threshold threshold
+     */
+    public void setInSubqueryThreshold(int threshold)
+    {
+        inSubqueryThreshold = threshold;
+    }
+
+    /**
+     * Controls whether IN lists of literals at or above the {@link
+     * #getInSubqueryThreshold threshold} are converted to a call to {@link
+     * SqlStdOperatorTable#inListOperator} instead of a join against an inline
+     * table. The operator must be supported by the physical implementation.
+     * To have any effect, this must be called before any convert method.
+     *
+     * @param enabled true to generate the IN list operator; false to join
+     * against an inline table (the default)
+     */
+    public void enableInListCreation(boolean enabled)
+    {
+        shouldCreateInList = enabled;
+    }
+
     private void checkConvertedType(SqlNode query, RelNode result)
     {
         if (!query.isA(SqlKind.DML)) {
@@ -990,6 +1025,18 @@ public class SqlToRelConverter
                             isNotIn);
                     bb.mapSubqueryToExpr.put(node, expression);
                     return;
+                } else if (!seenNull && shouldCreateInList) {
+                    // A list of literals can be tested with a hash lookup.
+                    RexNode expression =
+                        convertInToInList(
+                            bb,
+                            leftJoinKeysForIn,
+                            valueList,
+                            isNotIn);
+                    if (expression != null) {
+                        bb.mapSubqueryToExpr.put(node, expression);
+                        return;
+                    }
                 } else {
                     // Otherwise, let convertExists translate
                     // values list into an inline table for the
@@ -1234,18 +1281,69 @@ public class SqlToRelConverter
         return result;
     }
 
+    /**
+     * Converts an IN list of literals to a call to {@link
+     * SqlStdOperatorTable#inListOperator}.
+     *
+     * @param bb blackboard
+     * @param leftKeys LHS
+     * @param valuesList RHS
+     * @param isNotIn is this a NOT IN operator
+     *
+     * @return converted expression, or null if the key is not a single value
+     * of a supported type or the list contains anything other than literals
+     */
+    private RexNode convertInToInList(
+        Blackboard bb,
+        RexNode [] leftKeys,
+        SqlNodeList valuesList,
+        boolean isNotIn)
+    {
+        if (leftKeys.length != 1) {
+            return null;
+        }
+        RexNode key = leftKeys[0];
+        if (!SqlInListOperator.isSupportedKeyType(key.getType())) {
+            return null;
+        }
+        List<RexNode> operands = new ArrayList<RexNode>();
+        operands.add(key);
+        for (SqlNode rightVal : valuesList) {
+            if (!(rightVal instanceof SqlLiteral)) {
+                return null;
+            }
+            RexNode value = bb.convertExpression(rightVal);
+            if (!SqlInListOperator.isSupportedValue(key.getType(), value)) {
+                return null;
+            }
+            operands.add(value);
+        }
+        RexNode result =
+            rexBuilder.makeCall(
+                SqlStdOperatorTable.inListOperator,
+                operands.toArray(new RexNode[operands.size()]));
+        if (isNotIn) {
+            result =
+                rexBuilder.makeCall(
+                    SqlStdOperatorTable.notOperator,
+                    result);
+        }
+        return result;
+    }
+
     /**
      * Gets the list size threshold under which {@link #convertInToOr} is used.
      * Lists of this size or greater will instead be converted to use a join
-     * against an inline table ({@link ValuesRel}) rather than a predicate. A
-     * threshold of 0 forces usage of an inline table in all cases; a threshold
-     * of Integer.MAX_VALUE forces usage of OR in all cases
+     * against an inline table ({@link ValuesRel}) rather than a predicate, or,
+     * if {@link #enableInListCreation enabled}, to a hash-based IN list
+     * predicate. A threshold of 0 forces usage of an inline table in all
+     * cases; a threshold of Integer.MAX_VALUE forces usage of OR in all cases
      *
-     * @return threshold, default 20
+     * @return threshold, default {@link #DEFAULT_IN_SUBQUERY_THRESHOLD}
      */
     protected int getInSubqueryThreshold()
     {
-        return 20;
+        return inSubqueryThreshold;
     }
 
     /**
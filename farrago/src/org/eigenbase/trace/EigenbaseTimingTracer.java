@@ -30,6 +30,10 @@ import java.util.logging.*;
  * EigenbaseTimingTracer provides a mechanism for tracing the timing of a call
  * sequence at nanosecond resolution.
  *
+ * <p>Besides logging, a tracer can report each event to a {@link Listener},
+ * which allows timings to be collected as structured data without enabling
+ * the logger.
+ *
  * @author John V. Sichi
  * @version $Id$
  */
@@ -44,6 +48,8 @@ public class EigenbaseTimingTracer
 
     private final Logger logger;
 
+    private final Listener listener;
+
     private long lastNanoTime;
 
     //~ Constructors -----------------------------------------------------------
@@ -60,14 +66,35 @@ public class EigenbaseTimingTracer
         Logger logger,
         String startEvent)
     {
+        this(logger, startEvent, null);
+    }
+
+    /**
+     * Creates a new timing tracer which also reports events to a listener.
+     *
+     * @param logger logger on which to log timing events; level FINE will be
+     * used
+     * @param startEvent event to trace as start of timing
+     * @param listener listener to notify of each subsequent event, or null
+     */
+    public EigenbaseTimingTracer(
+        Logger logger,
+        String startEvent,
+        Listener listener)
+    {
+        this.listener = listener;
         if (!logger.isLoggable(Level.FINE)) {
             this.logger = null;
-            return;
+            if (listener == null) {
+                return;
+            }
         } else {
             this.logger = logger;
         }
         lastNanoTime = System.nanoTime();
-        logger.fine(startEvent + ":  elapsed nanos=0");
+        if (this.logger != null) {
+            logger.fine(startEvent + ":  elapsed nanos=0");
+        }
     }
 
     //~ Methods ----------------------------------------------------------------
@@ -79,14 +106,35 @@ public class EigenbaseTimingTracer
      */
     public void traceTime(String event)
     {
-        if (logger == null) {
+        if ((logger == null) && (listener == null)) {
             return;
         }
         long newNanoTime = System.nanoTime();
         long elapsed = newNanoTime - lastNanoTime;
         lastNanoTime = newNanoTime;
-        logger.fine(
-            event + ":  elapsed nanos=" + decimalFormat.format(elapsed));
+        if (listener != null) {
+            listener.timeElapsed(event, elapsed);
+        }
+        if (logger != null) {
+            logger.fine(
+                event + ":  elapsed nanos=" + decimalFormat.format(elapsed));
+        }
+    }
+
+    //~ Inner Interfaces -------------------------------------------------------
+
+    /**
+     * Receives the events published by an {@link EigenbaseTimingTracer}.
+     */
+    public interface Listener
+    {
+        /**
+         * Called when an event is traced.
+         *
+         * @param event event name
+         * @param elapsedNanos nanoseconds elapsed since the previous event
+         */
+        void timeElapsed(String event, long elapsedNanos);
     }
 }
 
@@ -27,6 +27,7 @@ import java.lang.reflect.*;
 import java.nio.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 
 /**
@@ -43,6 +44,32 @@ public abstract class ReflectUtil
     private static Map<Class, Method> primitiveToByteBufferReadMethod;
     private static Map<Class, Method> primitiveToByteBufferWriteMethod;
 
+    /**
+     * Visit methods resolved by dispatchers and by {@link #invokeVisitor},
+     * shared across all of them so that resolution is not repeated for each
+     * statement's visitors. Only keys whose classes are all loaded by the
+     * class loader of ReflectUtil (or one of its ancestors) are stored here;
+     * such classes live as long as this map does, so it neither pins plugin
+     * class loaders nor grows beyond the number of core visitor/visitee
+     * pairs. Failed lookups are recorded as {@link #NO_METHOD}.
+     */
+    private static final ConcurrentMap<VisitKey, Method>
+        sharedVisitMethodCache = new ConcurrentHashMap<VisitKey, Method>();
+
+    /**
+     * Placeholder in {@link #sharedVisitMethodCache} for "no such visit
+     * method", since ConcurrentHashMap does not allow null values.
+     */
+    private static final Method NO_METHOD;
+
+    static {
+        try {
+            NO_METHOD = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
     static {
         primitiveToBoxingMap = new HashMap<Class, Class>();
         primitiveToBoxingMap.put(Boolean.TYPE, Boolean.class);
@@ -250,13 +277,33 @@ public abstract class ReflectUtil
         Class hierarchyRoot,
         String visitMethodName)
     {
-        Class<?> visitorClass = visitor.getClass();
-        Class visiteeClass = visitee.getClass();
         Method method =
-            lookupVisitMethod(
-                visitorClass,
-                visiteeClass,
-                visitMethodName);
+            lookupVisitMethodCached(
+                visitor.getClass(),
+                visitee.getClass(),
+                visitMethodName,
+                Collections.<Class>emptyList(),
+                null);
+        return invokeVisitMethod(method, visitor, visitee, hierarchyRoot);
+    }
+
+    /**
+     * Invokes a visit method found by a lookup.
+     *
+     * @param method visit method, or null if the lookup found none
+     * @param visitor object whose visit method is to be invoked
+     * @param visitee object to be passed as a parameter to the visit method
+     * @param hierarchyRoot if non-null, visitor method will only be invoked if
+     * it takes a parameter whose type is a subtype of hierarchyRoot
+     *
+     * @return true if the method was invoked
+     */
+    private static boolean invokeVisitMethod(
+        Method method,
+        Object visitor,
+        Object visitee,
+        Class hierarchyRoot)
+    {
         if (method == null) {
             return false;
         }
@@ -355,6 +402,104 @@ public abstract class ReflectUtil
             cache);
     }
 
+    /**
+     * Looks up a visit method, consulting {@link #sharedVisitMethodCache} and
+     * then a caller-owned cache before resolving it by reflection. A newly
+     * resolved method (or its absence) is stored in the shared cache if all
+     * classes in the key may be shared, otherwise in the caller's cache.
+     *
+     * @param visitorClass class of object whose visit method is to be invoked
+     * @param visiteeClass class of object to be passed as a parameter to the
+     * visit method
+     * @param visitMethodName name of visit method
+     * @param additionalParameterTypes list of additional parameter types
+     * @param localCache cache for methods which may not be shared, or null
+     *
+     * @return method found, or null if none found
+     */
+    private static Method lookupVisitMethodCached(
+        Class<?> visitorClass,
+        Class<?> visiteeClass,
+        String visitMethodName,
+        List<Class> additionalParameterTypes,
+        Map<VisitKey, Method> localCache)
+    {
+        final VisitKey key =
+            new VisitKey(
+                visitorClass,
+                visiteeClass,
+                visitMethodName,
+                additionalParameterTypes);
+        Method method = sharedVisitMethodCache.get(key);
+        if (method != null) {
+            return (method == NO_METHOD) ? null : method;
+        }
+        if ((localCache != null) && localCache.containsKey(key)) {
+            return localCache.get(key);
+        }
+
+        method =
+            lookupVisitMethod(
+                visitorClass,
+                visiteeClass,
+                visitMethodName,
+                additionalParameterTypes);
+        if (method != null) {
+            // Suppress the access check on each invoke. This also lets a
+            // public visit method be invoked when the visitor class itself is
+            // not public.
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException ex) {
+                // not permitted; keep the access check
+            }
+        }
+
+        // Copy the parameter list into the stored key, in case the caller's
+        // list is mutable.
+        final VisitKey storedKey =
+            new VisitKey(
+                visitorClass,
+                visiteeClass,
+                visitMethodName,
+                new ArrayList<Class>(additionalParameterTypes));
+        if (storedKey.isShareable()) {
+            sharedVisitMethodCache.putIfAbsent(
+                storedKey,
+                (method == null) ? NO_METHOD : method);
+        } else if (localCache != null) {
+            localCache.put(storedKey, method);
+        }
+        return method;
+    }
+
+    /**
+     * Returns whether a class is loaded by the class loader of ReflectUtil or
+     * one of its ancestors (including the bootstrap loader), and so can be
+     * referenced from a static cache without keeping any other loader alive.
+     *
+     * @param clazz class
+     *
+     * @return whether clazz may be held by a static cache
+     */
+    private static boolean isLoadedByCoreLoader(Class<?> clazz)
+    {
+        ClassLoader loader = clazz.getClassLoader();
+        if (loader == null) {
+            return true;
+        }
+        for (
+            ClassLoader core = ReflectUtil.class.getClassLoader();
+            core != null;
+            core = core.getParent())
+        {
+            if (core == loader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static Method lookupVisitMethod(
         final Class<?> visitorClass,
         final Class<?> visiteeClass,
@@ -438,7 +583,15 @@ public abstract class ReflectUtil
 
     /**
      * Creates a dispatcher for calls to {@link #lookupVisitMethod}. The
-     * dispatcher caches methods between invocations.
+     * dispatcher caches methods between invocations, including failed
+     * lookups.
+     *
+     * <p>Methods of visitor and visitee classes loaded by the class loader of
+     * ReflectUtil are cached in a table shared by all dispatchers, so a
+     * dispatcher created for each statement starts warm. Methods involving
+     * other classes (for example those of plugins) are cached only by the
+     * dispatcher and are discarded with it, so they do not keep those classes
+     * (and their class loaders) reachable.
      *
      * @param visitorBaseClazz Visitor base class
      * @param visiteeBaseClazz Visitee base class
@@ -453,8 +606,7 @@ public abstract class ReflectUtil
         assert ReflectiveVisitor.class.isAssignableFrom(visitorBaseClazz);
         assert Object.class.isAssignableFrom(visiteeBaseClazz);
         return new ReflectiveVisitDispatcher<R, E>() {
-            final Map<List<Object>, Method> map =
-                new HashMap<List<Object>, Method>();
+            final Map<VisitKey, Method> map = new HashMap<VisitKey, Method>();
 
             public Method lookupVisitMethod(
                 Class<? extends R> visitorClass,
@@ -474,27 +626,12 @@ public abstract class ReflectUtil
                 String visitMethodName,
                 List<Class> additionalParameterTypes)
             {
-                final List<Object> key =
-                    Arrays.asList(
-                        visitorClass,
-                        visiteeClass,
-                        visitMethodName,
-                        additionalParameterTypes);
-                Method method = map.get(key);
-                if (method == null) {
-                    if (map.containsKey(key)) {
-                        // We already looked for the method and found nothing.
-                    } else {
-                        method =
-                            ReflectUtil.lookupVisitMethod(
-                                visitorClass,
-                                visiteeClass,
-                                visitMethodName,
-                                additionalParameterTypes);
-                        map.put(key, method);
-                    }
-                }
-                return method;
+                return lookupVisitMethodCached(
+                    visitorClass,
+                    visiteeClass,
+                    visitMethodName,
+                    additionalParameterTypes,
+                    map);
             }
 
             public boolean invokeVisitor(
@@ -502,11 +639,18 @@ public abstract class ReflectUtil
                 E visitee,
                 String visitMethodName)
             {
-                return ReflectUtil.invokeVisitor(
+                Method method =
+                    lookupVisitMethodCached(
+                        visitor.getClass(),
+                        visitee.getClass(),
+                        visitMethodName,
+                        Collections.<Class>emptyList(),
+                        map);
+                return invokeVisitMethod(
+                    method,
                     visitor,
                     visitee,
-                    visiteeBaseClazz,
-                    visitMethodName);
+                    visiteeBaseClazz);
             }
         };
     }
@@ -637,6 +781,81 @@ public abstract class ReflectUtil
 
     //~ Inner Classes ----------------------------------------------------------
 
+    /**
+     * Key for {@link ReflectUtil#sharedVisitMethodCache} and for the method
+     * cache of a dispatcher created by {@link ReflectUtil#createDispatcher}.
+     * Its hash code is computed once, since a key is built for every visit.
+     */
+    private static final class VisitKey
+    {
+        private final Class<?> visitorClass;
+        private final Class<?> visiteeClass;
+        private final String visitMethodName;
+        private final List<Class> additionalParameterTypes;
+        private final int hash;
+
+        VisitKey(
+            Class<?> visitorClass,
+            Class<?> visiteeClass,
+            String visitMethodName,
+            List<Class> additionalParameterTypes)
+        {
+            this.visitorClass = visitorClass;
+            this.visiteeClass = visiteeClass;
+            this.visitMethodName = visitMethodName;
+            this.additionalParameterTypes = additionalParameterTypes;
+            int h = visitorClass.hashCode();
+            h = (h * 31) + visiteeClass.hashCode();
+            h = (h * 31) + visitMethodName.hashCode();
+            h = (h * 31) + additionalParameterTypes.hashCode();
+            this.hash = h;
+        }
+
+        /**
+         * Returns whether this key may be stored in the shared cache. The
+         * method it resolves to is declared by the visitor class or one of
+         * its supertypes, and takes the visitee class's supertypes and the
+         * additional parameter types, all of which are visible from the
+         * loaders checked here.
+         *
+         * @return whether all classes in this key are loaded by the class
+         * loader of ReflectUtil or one of its ancestors
+         */
+        boolean isShareable()
+        {
+            if (!isLoadedByCoreLoader(visitorClass)
+                || !isLoadedByCoreLoader(visiteeClass))
+            {
+                return false;
+            }
+            for (Class<?> paramType : additionalParameterTypes) {
+                if (!isLoadedByCoreLoader(paramType)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof VisitKey)) {
+                return false;
+            }
+            VisitKey that = (VisitKey) obj;
+            return (hash == that.hash)
+                && (visitorClass == that.visitorClass)
+                && (visiteeClass == that.visiteeClass)
+                && visitMethodName.equals(that.visitMethodName)
+                && additionalParameterTypes.equals(
+                    that.additionalParameterTypes);
+        }
+    }
+
     /**
      * Can invoke a method on an object of type E with return type T.
      *
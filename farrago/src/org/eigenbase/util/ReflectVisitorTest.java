@@ -22,6 +22,8 @@
 */
 package org.eigenbase.util;
 
+import java.lang.reflect.*;
+
 import java.math.*;
 
 import junit.framework.*;
@@ -141,6 +143,61 @@ public class ReflectVisitorTest
             0.001);
     }
 
+    /**
+     * Tests that repeated lookups, successful or not, return the same result
+     * as the first, and that a dispatcher created later (as each statement's
+     * visitors do) reuses methods resolved by an earlier one.
+     */
+    public void testLookupCache()
+    {
+        ReflectiveVisitDispatcher<CarefulNumberNegater, Number> dispatcher =
+            ReflectUtil.createDispatcher(
+                CarefulNumberNegater.class,
+                Number.class);
+        Method m1 =
+            dispatcher.lookupVisitMethod(
+                CarefulNumberNegater.class,
+                Short.class,
+                "visit");
+        assertNotNull(m1);
+        assertEquals(Short.class, m1.getParameterTypes()[0]);
+        Method m2 =
+            dispatcher.lookupVisitMethod(
+                CarefulNumberNegater.class,
+                Short.class,
+                "visit");
+        assertSame(m1, m2);
+
+        for (int i = 0; i < 2; i++) {
+            assertNull(
+                dispatcher.lookupVisitMethod(
+                    CarefulNumberNegater.class,
+                    Integer.class,
+                    "noSuchVisit"));
+        }
+
+        // a second dispatcher starts warm, since these classes are loaded by
+        // the same class loader as ReflectUtil
+        ReflectiveVisitDispatcher<CarefulNumberNegater, Number> dispatcher2 =
+            ReflectUtil.createDispatcher(
+                CarefulNumberNegater.class,
+                Number.class);
+        assertSame(
+            m1,
+            dispatcher2.lookupVisitMethod(
+                CarefulNumberNegater.class,
+                Short.class,
+                "visit"));
+
+        // the dispatcher resolves the same method as an uncached lookup
+        assertEquals(
+            m1,
+            ReflectUtil.lookupVisitMethod(
+                CarefulNumberNegater.class,
+                Short.class,
+                "visit"));
+    }
+
     //~ Inner Interfaces -------------------------------------------------------
 
     /**
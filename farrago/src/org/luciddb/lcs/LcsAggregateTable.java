@@ -0,0 +1,548 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.luciddb.lcs;
+
+import java.util.*;
+
+import net.sf.farrago.catalog.*;
+import net.sf.farrago.fem.med.*;
+import net.sf.farrago.fem.sql2003.*;
+import net.sf.farrago.resource.*;
+import net.sf.farrago.session.*;
+
+import org.eigenbase.util.*;
+
+
+/**
+ * LcsAggregateTable describes a table which has been registered as holding
+ * pre-aggregated rows of an LCS fact table, so that {@link
+ * LcsAggregateTableRule} can answer matching GROUP BY queries from it.
+ *
+ * <p>A registration is kept as tag annotations on the two tables, so it
+ * survives restarts and disappears along with the aggregate table. The
+ * definition is a comma-separated list of items describing each column of
+ * the aggregate table which the optimizer may use:
+ *
+ * <ul>
+ * <li><code>COL</code> or <code>COL = FACT_COL</code>: a grouping key holding
+ * fact column <code>FACT_COL</code> (by default, the one of the same name)
+ * <li><code>COL = f(FACT_COL)</code>: a measure, where <code>f</code> is
+ * one of <code>SUM</code>, <code>COUNT</code>, <code>MIN</code> or
+ * <code>MAX</code>
+ * <li><code>COL = COUNT(*)</code>: the number of fact rows in each group
+ * </ul>
+ *
+ * <p>Identifiers follow SQL rules: unquoted ones are upper-cased. The
+ * registration also records a version stamp of both tables (their DML
+ * timestamps and row counts), and is ignored once either table has been
+ * modified; registering the table again after refreshing it brings it
+ * back into use.
+ *
+ * @version $Id$
+ */
+public class LcsAggregateTable
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Tag on a fact table listing the MOF ids of its aggregate tables,
+     * separated by spaces.
+     */
+    public static final String TAG_AGGREGATE_TABLES =
+        "luciddb.aggregateTables";
+
+    /**
+     * Tag on an aggregate table holding the MOF id of its fact table.
+     */
+    public static final String TAG_FACT_TABLE = "luciddb.aggregateFactTable";
+
+    /**
+     * Tag on an aggregate table holding its definition.
+     */
+    public static final String TAG_DEFINITION = "luciddb.aggregateDefinition";
+
+    /**
+     * Tag on an aggregate table holding the version stamp of the fact and
+     * aggregate tables at registration time.
+     */
+    public static final String TAG_VERSION = "luciddb.aggregateVersion";
+
+    private static final List<String> MEASURE_FUNCTIONS =
+        Arrays.asList("SUM", "COUNT", "MIN", "MAX");
+
+    //~ Instance fields --------------------------------------------------------
+
+    private final FemLocalTable table;
+
+    /**
+     * Maps fact column names to the aggregate columns grouping on them.
+     */
+    private final Map<String, String> keyColumns;
+
+    /**
+     * Maps measures, as "FUNC(FACT_COL)" or "COUNT(*)", to the aggregate
+     * columns holding them.
+     */
+    private final Map<String, String> measureColumns;
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates an LcsAggregateTable by parsing a definition.
+     *
+     * @param table aggregate table
+     * @param definition definition, in the format described above
+     *
+     * @throws EigenbaseException if the definition is malformed
+     */
+    public LcsAggregateTable(FemLocalTable table, String definition)
+    {
+        this.table = table;
+        keyColumns = new HashMap<String, String>();
+        measureColumns = new HashMap<String, String>();
+        for (String item : split(definition, ',')) {
+            List<String> sides = split(item, '=');
+            if (sides.isEmpty() || (sides.size() > 2)) {
+                throw newInvalidDefinition(
+                    definition,
+                    "expected COL or COL = expression: " + item);
+            }
+            String aggColumn = normalizeIdentifier(sides.get(0));
+            String expr = sides.get(sides.size() - 1).trim();
+            int paren = expr.indexOf('(');
+            if (paren < 0) {
+                keyColumns.put(normalizeIdentifier(expr), aggColumn);
+                continue;
+            }
+            String function = expr.substring(0, paren).trim().toUpperCase();
+            if (!MEASURE_FUNCTIONS.contains(function)
+                || !expr.endsWith(")"))
+            {
+                throw newInvalidDefinition(
+                    definition,
+                    "unsupported measure: " + expr);
+            }
+            String arg = expr.substring(paren + 1, expr.length() - 1).trim();
+            if (arg.equals("*")) {
+                if (!function.equals("COUNT")) {
+                    throw newInvalidDefinition(
+                        definition,
+                        "unsupported measure: " + expr);
+                }
+            } else {
+                arg = normalizeIdentifier(arg);
+            }
+            measureColumns.put(makeMeasureKey(function, arg), aggColumn);
+        }
+        if (keyColumns.isEmpty() && measureColumns.isEmpty()) {
+            throw newInvalidDefinition(definition, "no columns");
+        }
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * @return the aggregate table
+     */
+    public FemLocalTable getTable()
+    {
+        return table;
+    }
+
+    /**
+     * @return names of the fact columns the aggregate table groups on
+     */
+    public Set<String> getKeyFactColumns()
+    {
+        return Collections.unmodifiableSet(keyColumns.keySet());
+    }
+
+    /**
+     * @return names of all aggregate columns named by the definition
+     */
+    public Set<String> getAggregateColumns()
+    {
+        Set<String> names = new HashSet<String>(keyColumns.values());
+        names.addAll(measureColumns.values());
+        return names;
+    }
+
+    /**
+     * @return names of all fact columns named by the definition
+     */
+    public Set<String> getFactColumns()
+    {
+        Set<String> names = new HashSet<String>(keyColumns.keySet());
+        for (String key : measureColumns.keySet()) {
+            String arg = key.substring(key.indexOf('(') + 1, key.length() - 1);
+            if (!arg.equals("*")) {
+                names.add(arg);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Finds the aggregate column grouping on a fact column.
+     *
+     * @param factColumn name of fact column
+     *
+     * @return name of aggregate column, or null if the aggregate table does
+     * not group on the fact column
+     */
+    public String getKeyColumn(String factColumn)
+    {
+        return keyColumns.get(factColumn);
+    }
+
+    /**
+     * Finds the aggregate column holding a measure.
+     *
+     * @param function one of SUM, COUNT, MIN, MAX
+     * @param factColumn name of fact column, or null for COUNT(*)
+     *
+     * @return name of aggregate column, or null if the aggregate table does
+     * not hold the measure
+     */
+    public String getMeasureColumn(String function, String factColumn)
+    {
+        return measureColumns.get(
+            makeMeasureKey(
+                function,
+                (factColumn == null) ? "*" : factColumn));
+    }
+
+    /**
+     * Determines whether neither the fact table nor the aggregate table has
+     * been modified since the aggregate table was registered.
+     *
+     * @param repos repository
+     * @param factTable fact table
+     *
+     * @return whether the aggregate table may be used
+     */
+    public boolean isCurrent(
+        FarragoRepos repos,
+        FemAbstractColumnSet factTable)
+    {
+        String version = repos.getTagAnnotationValue(table, TAG_VERSION);
+        return getVersion(factTable, table).equals(version);
+    }
+
+    /**
+     * Creates a check which reports a statement answered from this aggregate
+     * table as stale once either table has been modified, so that a
+     * statement which is prepared once and executed many times does not go
+     * on reading a stale aggregate table.
+     *
+     * @param factTable fact table
+     *
+     * @return staleness check
+     */
+    public FarragoSessionStalenessCheck newStalenessCheck(
+        FemAbstractColumnSet factTable)
+    {
+        return new CurrencyCheck(factTable.refMofId(), table.refMofId());
+    }
+
+    /**
+     * Returns the aggregate tables registered for a fact table. Tables whose
+     * registration can no longer be read are skipped.
+     *
+     * @param repos repository
+     * @param factTable fact table
+     *
+     * @return list of aggregate tables; empty if there are none
+     */
+    public static List<LcsAggregateTable> getAggregateTables(
+        FarragoRepos repos,
+        FemAbstractColumnSet factTable)
+    {
+        String mofIds =
+            repos.getTagAnnotationValue(factTable, TAG_AGGREGATE_TABLES);
+        if (mofIds == null) {
+            return Collections.emptyList();
+        }
+        List<LcsAggregateTable> list = new ArrayList<LcsAggregateTable>();
+        for (String mofId : mofIds.trim().split(" +")) {
+            if (mofId.length() == 0) {
+                continue;
+            }
+            Object obj = repos.getMdrRepos().getByMofId(mofId);
+            if (!(obj instanceof FemLocalTable)) {
+                // dropped since it was registered
+                continue;
+            }
+            FemLocalTable aggTable = (FemLocalTable) obj;
+            if (!factTable.refMofId().equals(
+                    repos.getTagAnnotationValue(aggTable, TAG_FACT_TABLE)))
+            {
+                continue;
+            }
+            String definition =
+                repos.getTagAnnotationValue(aggTable, TAG_DEFINITION);
+            if (definition == null) {
+                continue;
+            }
+            try {
+                list.add(new LcsAggregateTable(aggTable, definition));
+            } catch (EigenbaseException ex) {
+                // validated at registration; ignore if it has gone bad
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Registers an aggregate table, replacing any previous registration of
+     * it. Must be called from within a repository write transaction.
+     *
+     * @param repos repository
+     * @param factTable fact table
+     * @param aggTable aggregate table
+     * @param definition definition of the aggregate table's columns
+     *
+     * @throws EigenbaseException if the definition is invalid
+     */
+    public static void register(
+        FarragoRepos repos,
+        FemLocalTable factTable,
+        FemLocalTable aggTable,
+        String definition)
+    {
+        LcsAggregateTable aggregate =
+            new LcsAggregateTable(aggTable, definition);
+        for (String name : aggregate.getAggregateColumns()) {
+            if (FarragoCatalogUtil.getModelElementByName(
+                    aggTable.getFeature(),
+                    name) == null)
+            {
+                throw aggregate.newInvalidDefinition(
+                    definition,
+                    "unknown column " + name);
+            }
+        }
+        for (String name : aggregate.getFactColumns()) {
+            if (FarragoCatalogUtil.getModelElementByName(
+                    factTable.getFeature(),
+                    name) == null)
+            {
+                throw aggregate.newInvalidDefinition(
+                    definition,
+                    "unknown fact column " + name);
+            }
+        }
+
+        unregister(repos, aggTable);
+        repos.setTagAnnotationValue(
+            aggTable,
+            TAG_FACT_TABLE,
+            factTable.refMofId());
+        repos.setTagAnnotationValue(aggTable, TAG_DEFINITION, definition);
+        repos.setTagAnnotationValue(
+            aggTable,
+            TAG_VERSION,
+            getVersion(factTable, aggTable));
+
+        String mofIds =
+            repos.getTagAnnotationValue(factTable, TAG_AGGREGATE_TABLES);
+        repos.setTagAnnotationValue(
+            factTable,
+            TAG_AGGREGATE_TABLES,
+            ((mofIds == null) || (mofIds.trim().length() == 0))
+            ? aggTable.refMofId()
+            : (mofIds.trim() + " " + aggTable.refMofId()));
+    }
+
+    /**
+     * Removes the registration of an aggregate table, if any. Must be called
+     * from within a repository write transaction.
+     *
+     * @param repos repository
+     * @param aggTable aggregate table
+     */
+    public static void unregister(
+        FarragoRepos repos,
+        FemLocalTable aggTable)
+    {
+        String factMofId =
+            repos.getTagAnnotationValue(aggTable, TAG_FACT_TABLE);
+        if (factMofId != null) {
+            Object obj = repos.getMdrRepos().getByMofId(factMofId);
+            if (obj instanceof FemAnnotatedElement) {
+                FemAnnotatedElement factTable = (FemAnnotatedElement) obj;
+                String mofIds =
+                    repos.getTagAnnotationValue(
+                        factTable,
+                        TAG_AGGREGATE_TABLES);
+                if (mofIds != null) {
+                    StringBuilder buf = new StringBuilder();
+                    for (String mofId : mofIds.trim().split(" +")) {
+                        if (mofId.equals(aggTable.refMofId())) {
+                            continue;
+                        }
+                        if (buf.length() > 0) {
+                            buf.append(' ');
+                        }
+                        buf.append(mofId);
+                    }
+                    repos.setTagAnnotationValue(
+                        factTable,
+                        TAG_AGGREGATE_TABLES,
+                        buf.toString());
+                }
+            }
+        }
+        for (String tagName
+            : new String[] { TAG_FACT_TABLE, TAG_DEFINITION, TAG_VERSION })
+        {
+            FemTagAnnotation tag = repos.getTagAnnotation(aggTable, tagName);
+            if (tag != null) {
+                tag.refDelete();
+            }
+        }
+    }
+
+    /**
+     * Computes a stamp which changes whenever DML or DDL modifies either
+     * table. LucidDB maintains row counts and a DML timestamp in the catalog
+     * as part of every DML statement, so those serve as the tables'
+     * modification marks.
+     */
+    private static String getVersion(
+        FemAbstractColumnSet factTable,
+        FemAbstractColumnSet aggTable)
+    {
+        return getVersion(factTable) + "|" + getVersion(aggTable);
+    }
+
+    private static String getVersion(FemAbstractColumnSet table)
+    {
+        List<FemRowCountStatistics> statsList = table.getRowCountStats();
+        String dmlTimestamp = null;
+        if (!statsList.isEmpty()) {
+            dmlTimestamp =
+                statsList.get(statsList.size() - 1).getDmlTimestamp();
+        }
+        return table.getModificationTimestamp() + "/" + dmlTimestamp + "/"
+            + table.getRowCount() + "/" + table.getDeletedRowCount();
+    }
+
+    private static String makeMeasureKey(String function, String factColumn)
+    {
+        return function + "(" + factColumn + ")";
+    }
+
+    private static String normalizeIdentifier(String s)
+    {
+        s = s.trim();
+        if ((s.length() >= 2) && s.startsWith("\"") && s.endsWith("\"")) {
+            return s.substring(1, s.length() - 1).replace("\"\"", "\"");
+        }
+        return s.toUpperCase();
+    }
+
+    /**
+     * Splits a string on a separator, ignoring separators inside
+     * double-quoted identifiers and parentheses.
+     */
+    private static List<String> split(String s, char separator)
+    {
+        List<String> list = new ArrayList<String>();
+        StringBuilder buf = new StringBuilder();
+        boolean quoted = false;
+        int depth = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == '(')) {
+                ++depth;
+            } else if (!quoted && (c == ')')) {
+                --depth;
+            } else if (!quoted && (depth == 0) && (c == separator)) {
+                list.add(buf.toString());
+                buf.setLength(0);
+                continue;
+            }
+            buf.append(c);
+        }
+        list.add(buf.toString());
+        for (String item : list) {
+            if (item.trim().length() == 0) {
+                return Collections.emptyList();
+            }
+        }
+        return list;
+    }
+
+    private EigenbaseException newInvalidDefinition(
+        String definition,
+        String reason)
+    {
+        return FarragoResource.instance().AggregateTableDefinitionInvalid.ex(
+            (table == null) ? "" : table.getName(),
+            definition,
+            reason);
+    }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * Staleness check created by {@link #newStalenessCheck}. It remembers the
+     * tables by MOF id, since it outlives the repository transaction in which
+     * the statement was prepared.
+     */
+    private static class CurrencyCheck
+        implements FarragoSessionStalenessCheck
+    {
+        private final String factTableMofId;
+        private final String aggTableMofId;
+
+        CurrencyCheck(String factTableMofId, String aggTableMofId)
+        {
+            this.factTableMofId = factTableMofId;
+            this.aggTableMofId = aggTableMofId;
+        }
+
+        // implement FarragoSessionStalenessCheck
+        public boolean isStale(FarragoRepos repos)
+        {
+            Object factTable = repos.getMdrRepos().getByMofId(factTableMofId);
+            Object aggTable = repos.getMdrRepos().getByMofId(aggTableMofId);
+            if (!(factTable instanceof FemAbstractColumnSet)
+                || !(aggTable instanceof FemLocalTable))
+            {
+                return true;
+            }
+            String version =
+                repos.getTagAnnotationValue(
+                    (FemLocalTable) aggTable,
+                    TAG_VERSION);
+            return !getVersion(
+                (FemAbstractColumnSet) factTable,
+                (FemLocalTable) aggTable).equals(version);
+        }
+    }
+}
+
+// End LcsAggregateTable.java
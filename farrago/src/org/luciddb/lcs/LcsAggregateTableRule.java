@@ -0,0 +1,437 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.luciddb.lcs;
+
+import java.math.*;
+
+import java.util.*;
+
+import net.sf.farrago.catalog.*;
+import net.sf.farrago.fem.med.*;
+import net.sf.farrago.fem.sql2003.*;
+import net.sf.farrago.fennel.rel.*;
+import net.sf.farrago.query.*;
+
+import org.eigenbase.rel.*;
+import org.eigenbase.relopt.*;
+import org.eigenbase.reltype.*;
+import org.eigenbase.rex.*;
+import org.eigenbase.sql.fun.*;
+import org.eigenbase.util.*;
+
+
+/**
+ * LcsAggregateTableRule answers a GROUP BY query over an LCS fact table from
+ * a registered aggregate table (see {@link LcsAggregateTable}) which groups
+ * on a superset of the query's grouping and filter columns.
+ *
+ * <p>The query's aggregate is re-applied over the aggregate table, rolling
+ * its groups up: SUM and MIN/MAX re-aggregate the corresponding measures,
+ * COUNT sums the stored counts, and DISTINCT aggregates of key columns
+ * aggregate the key itself. The rewritten statement is not cached, and it
+ * is prepared again (reading the fact table) if it is executed after either
+ * table has been modified, so a table which has become stale is never used.
+ *
+ * <p>The rule must be applied after filters and projections have been pushed
+ * down onto the row scan, but before DISTINCT aggregates are expanded. AVG
+ * is split into SUM and COUNT only after that, so a query which uses AVG is
+ * never answered from an aggregate table.
+ *
+ * @version $Id$
+ */
+public class LcsAggregateTableRule
+    extends RelOptRule
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    public static final LcsAggregateTableRule instanceProjectFilter =
+        new LcsAggregateTableRule(
+            new RelOptRuleOperand(
+                AggregateRel.class,
+                new RelOptRuleOperand(
+                    ProjectRel.class,
+                    new RelOptRuleOperand(
+                        FilterRel.class,
+                        new RelOptRuleOperand(LcsRowScanRel.class)))),
+            "with project and filter");
+
+    public static final LcsAggregateTableRule instanceProject =
+        new LcsAggregateTableRule(
+            new RelOptRuleOperand(
+                AggregateRel.class,
+                new RelOptRuleOperand(
+                    ProjectRel.class,
+                    new RelOptRuleOperand(LcsRowScanRel.class))),
+            "with project");
+
+    public static final LcsAggregateTableRule instanceFilter =
+        new LcsAggregateTableRule(
+            new RelOptRuleOperand(
+                AggregateRel.class,
+                new RelOptRuleOperand(
+                    FilterRel.class,
+                    new RelOptRuleOperand(LcsRowScanRel.class))),
+            "with filter");
+
+    public static final LcsAggregateTableRule instanceRowScan =
+        new LcsAggregateTableRule(
+            new RelOptRuleOperand(
+                AggregateRel.class,
+                new RelOptRuleOperand(LcsRowScanRel.class)),
+            "row scan");
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates an LcsAggregateTableRule.
+     *
+     * @param operand Root operand, must not be null
+     * @param id Description of rule
+     */
+    public LcsAggregateTableRule(
+        RelOptRuleOperand operand,
+        String id)
+    {
+        super(operand, "LcsAggregateTableRule: " + id);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    // implement RelOptRule
+    public void onMatch(RelOptRuleCall call)
+    {
+        AggregateRel aggRel = (AggregateRel) call.rels[0];
+        ProjectRel project = null;
+        FilterRel filter = null;
+        LcsRowScanRel rowScan = null;
+        for (int i = 1; i < call.rels.length; i++) {
+            if (call.rels[i] instanceof ProjectRel) {
+                project = (ProjectRel) call.rels[i];
+            } else if (call.rels[i] instanceof FilterRel) {
+                filter = (FilterRel) call.rels[i];
+            } else {
+                rowScan = (LcsRowScanRel) call.rels[i];
+            }
+        }
+        if ((rowScan.getInputs().length > 0)
+            || !rowScan.isFullScan
+            || rowScan.hasResidualFilters()
+            || !aggRel.getSystemFieldList().isEmpty())
+        {
+            return;
+        }
+
+        FarragoPreparingStmt stmt = FennelRelUtil.getPreparingStmt(rowScan);
+        if ((stmt == null)
+            || (stmt.getSession().getSessionLabelCsn() != null))
+        {
+            // aggregate tables reflect the latest data only
+            return;
+        }
+        FarragoRepos repos = stmt.getRepos();
+        FemAbstractColumnSet factTable =
+            (FemAbstractColumnSet) rowScan.lcsTable.getCwmColumnSet();
+        List<LcsAggregateTable> aggTables =
+            LcsAggregateTable.getAggregateTables(repos, factTable);
+        if (aggTables.isEmpty()) {
+            return;
+        }
+
+        // Name the fact column behind each field of the aggregate's input;
+        // null if the field is computed.
+        RelDataTypeField [] inputFields =
+            aggRel.getChild().getRowType().getFields();
+        String [] inputColumns = new String[inputFields.length];
+        for (int i = 0; i < inputFields.length; i++) {
+            int scanField = i;
+            if (project != null) {
+                RexNode expr = project.getProjectExps()[i];
+                if (!(expr instanceof RexInputRef)) {
+                    continue;
+                }
+                scanField = ((RexInputRef) expr).getIndex();
+            }
+            inputColumns[i] = getColumnName(rowScan, scanField);
+        }
+
+        for (LcsAggregateTable aggTable : aggTables) {
+            if (!aggTable.isCurrent(repos, factTable)) {
+                continue;
+            }
+            RelNode rel =
+                rewrite(
+                    aggRel,
+                    filter,
+                    rowScan,
+                    inputColumns,
+                    aggTable,
+                    stmt);
+            if (rel != null) {
+                stmt.disableStatementCaching();
+                stmt.addStalenessCheck(aggTable.newStalenessCheck(factTable));
+                call.transformTo(rel);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rewrites an aggregate to read from an aggregate table.
+     *
+     * @return rewritten expression, or null if the aggregate table cannot
+     * answer the query
+     */
+    private RelNode rewrite(
+        AggregateRel aggRel,
+        FilterRel filter,
+        LcsRowScanRel rowScan,
+        String [] inputColumns,
+        LcsAggregateTable aggTable,
+        FarragoPreparingStmt stmt)
+    {
+        RelOptCluster cluster = aggRel.getCluster();
+        RexBuilder rexBuilder = cluster.getRexBuilder();
+        RelDataTypeFactory typeFactory = cluster.getTypeFactory();
+
+        // Check that everything the query needs is available before touching
+        // the aggregate table.
+        if (filter != null) {
+            BitSet filterFields = new BitSet();
+            filter.getCondition().accept(
+                new RelOptUtil.InputFinder(filterFields));
+            for (int i : Util.toIter(filterFields)) {
+                String column = getColumnName(rowScan, i);
+                if ((column == null) || (aggTable.getKeyColumn(column) == null))
+                {
+                    return null;
+                }
+            }
+        }
+        for (int i : Util.toIter(aggRel.getGroupSet())) {
+            if ((inputColumns[i] == null)
+                || (aggTable.getKeyColumn(inputColumns[i]) == null))
+            {
+                return null;
+            }
+        }
+        List<String> sourceColumns = new ArrayList<String>();
+        for (AggregateCall aggCall : aggRel.getAggCallList()) {
+            String source = getSourceColumn(aggCall, inputColumns, aggTable);
+            if (source == null) {
+                return null;
+            }
+            sourceColumns.add(source);
+        }
+
+        FemLocalTable table = aggTable.getTable();
+        RelOptTable relOptTable =
+            stmt.getTableForMember(
+                new String[] {
+                    table.getNamespace().getNamespace().getName(),
+                    table.getNamespace().getName(),
+                    table.getName()
+                });
+        if (relOptTable == null) {
+            return null;
+        }
+        stmt.addDependency(table, null);
+        RelNode aggScan = relOptTable.toRel(cluster, rowScan.connection);
+        final RelDataType aggScanType = aggScan.getRowType();
+
+        // Re-express the filter in terms of the aggregate table's keys.
+        if (filter != null) {
+            final LcsRowScanRel scan = rowScan;
+            final LcsAggregateTable agg = aggTable;
+            RexNode condition =
+                filter.getCondition().accept(
+                    new RexShuttle() {
+                        public RexNode visitInputRef(RexInputRef inputRef)
+                        {
+                            return makeRef(
+                                aggScanType,
+                                agg.getKeyColumn(
+                                    getColumnName(
+                                        scan,
+                                        inputRef.getIndex())));
+                        }
+                    });
+            aggScan = CalcRel.createFilter(aggScan, condition);
+        }
+
+        // Project the query's grouping keys first, followed by the measures
+        // and keys which the aggregate calls roll up.
+        List<RexNode> exprs = new ArrayList<RexNode>();
+        List<String> names = new ArrayList<String>();
+        for (int i : Util.toIter(aggRel.getGroupSet())) {
+            exprs.add(
+                makeRef(
+                    aggScanType,
+                    aggTable.getKeyColumn(inputColumns[i])));
+            names.add(aggRel.getRowType().getFields()[exprs.size() - 1]
+                .getName());
+        }
+        int groupCount = exprs.size();
+        Map<String, Integer> sourceOrdinals = new HashMap<String, Integer>();
+        for (String source : sourceColumns) {
+            if (!sourceOrdinals.containsKey(source)) {
+                sourceOrdinals.put(source, exprs.size());
+                exprs.add(makeRef(aggScanType, source));
+                names.add(source);
+            }
+        }
+        RelNode child = CalcRel.createProject(aggScan, exprs, names);
+
+        List<AggregateCall> newCalls = new ArrayList<AggregateCall>();
+        List<AggregateCall> aggCalls = aggRel.getAggCallList();
+        for (int i = 0; i < aggCalls.size(); i++) {
+            AggregateCall aggCall = aggCalls.get(i);
+            int arg = sourceOrdinals.get(sourceColumns.get(i));
+            RelDataType argType = exprs.get(arg).getType();
+            RelDataType nullableType =
+                typeFactory.createTypeWithNullability(argType, true);
+            String function = aggCall.getAggregation().getName();
+            Aggregation aggregation;
+            RelDataType type;
+            if (function.equals("MIN")) {
+                aggregation = SqlStdOperatorTable.minOperator;
+                type = nullableType;
+            } else if (function.equals("MAX")) {
+                aggregation = SqlStdOperatorTable.maxOperator;
+                type = nullableType;
+            } else if (aggCall.isDistinct() && function.equals("COUNT")) {
+                aggregation = SqlStdOperatorTable.countOperator;
+                type =
+                    SqlStdOperatorTable.countOperator.getReturnType(
+                        typeFactory);
+            } else {
+                // SUM of a measure, SUM(DISTINCT key), or a COUNT rolled
+                // up as the SUM of stored counts
+                aggregation = new SqlSumAggFunction(nullableType);
+                type = nullableType;
+            }
+            newCalls.add(
+                new AggregateCall(
+                    aggregation,
+                    aggCall.isDistinct(),
+                    Collections.singletonList(arg),
+                    type,
+                    aggCall.getName()));
+        }
+        RelNode newAggRel =
+            new AggregateRel(
+                cluster,
+                child,
+                aggRel.getSystemFieldList(),
+                Util.bitSetBetween(0, groupCount),
+                newCalls);
+
+        // Restore the original types; a rolled-up COUNT over no rows has to
+        // be zero rather than null.
+        RelDataTypeField [] newFields = newAggRel.getRowType().getFields();
+        RelDataTypeField [] oldFields = aggRel.getRowType().getFields();
+        List<RexNode> castExprs = new ArrayList<RexNode>();
+        List<String> castNames = new ArrayList<String>();
+        for (int i = 0; i < oldFields.length; i++) {
+            RexNode expr = new RexInputRef(i, newFields[i].getType());
+            RelDataType oldType = oldFields[i].getType();
+            if ((i >= groupCount)
+                && !aggCalls.get(i - groupCount).isDistinct()
+                && aggCalls.get(i - groupCount).getAggregation().getName()
+                .equals("COUNT"))
+            {
+                expr =
+                    rexBuilder.makeCall(
+                        SqlStdOperatorTable.caseOperator,
+                        rexBuilder.makeCall(
+                            SqlStdOperatorTable.isNullOperator,
+                            expr),
+                        rexBuilder.makeExactLiteral(BigDecimal.ZERO, oldType),
+                        expr);
+            }
+            if (!expr.getType().equals(oldType)) {
+                expr = rexBuilder.makeCast(oldType, expr);
+            }
+            castExprs.add(expr);
+            castNames.add(oldFields[i].getName());
+        }
+        return CalcRel.createProject(newAggRel, castExprs, castNames);
+    }
+
+    /**
+     * Finds the aggregate table column from which an aggregate call can be
+     * rolled up.
+     *
+     * @return column name, or null if there is none
+     */
+    private String getSourceColumn(
+        AggregateCall aggCall,
+        String [] inputColumns,
+        LcsAggregateTable aggTable)
+    {
+        String function = aggCall.getAggregation().getName();
+        List<Integer> args = aggCall.getArgList();
+        if (args.size() > 1) {
+            return null;
+        }
+        String column = null;
+        if (args.size() == 1) {
+            column = inputColumns[args.get(0)];
+            if (column == null) {
+                return null;
+            }
+        }
+        if (aggCall.isDistinct()) {
+            // the aggregate table holds each distinct key value of a group
+            if (!function.equals("COUNT")
+                && !function.equals("SUM")
+                && !function.equals("MIN")
+                && !function.equals("MAX"))
+            {
+                return null;
+            }
+            return (column == null) ? null : aggTable.getKeyColumn(column);
+        }
+        if (function.equals("MIN") || function.equals("MAX")) {
+            String key = aggTable.getKeyColumn(column);
+            if (key != null) {
+                return key;
+            }
+        } else if (!function.equals("SUM") && !function.equals("COUNT")) {
+            return null;
+        }
+        return aggTable.getMeasureColumn(function, column);
+    }
+
+    private static String getColumnName(LcsRowScanRel rowScan, int field)
+    {
+        FemAbstractColumn column = rowScan.getColumnForFieldAccess(field);
+        return (column == null) ? null : column.getName();
+    }
+
+    private static RexNode makeRef(RelDataType rowType, String columnName)
+    {
+        RelDataTypeField field = rowType.getField(columnName);
+        return new RexInputRef(field.getIndex(), field.getType());
+    }
+}
+
+// End LcsAggregateTableRule.java
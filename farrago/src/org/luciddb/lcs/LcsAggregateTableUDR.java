@@ -0,0 +1,162 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.luciddb.lcs;
+
+import java.sql.*;
+
+import net.sf.farrago.catalog.*;
+import net.sf.farrago.cwm.relational.*;
+import net.sf.farrago.fem.med.*;
+import net.sf.farrago.fem.sql2003.*;
+import net.sf.farrago.resource.*;
+import net.sf.farrago.runtime.*;
+import net.sf.farrago.session.*;
+
+
+/**
+ * LcsAggregateTableUDR implements the system procedures which register
+ * aggregate tables with the optimizer; see {@link LcsAggregateTable}.
+ *
+ * @version $Id$
+ */
+public abstract class LcsAggregateTableUDR
+{
+    //~ Methods ----------------------------------------------------------------
+
+    /**
+     * Registers a table as holding pre-aggregated rows of a fact table. Call
+     * again after repopulating either table.
+     */
+    public static void register_aggregate_table(
+        String catalogName,
+        String factSchemaName,
+        String factTableName,
+        String aggSchemaName,
+        String aggTableName,
+        String definition)
+        throws SQLException
+    {
+        try {
+            FarragoSession session = FarragoUdrRuntime.getSession();
+            FarragoRepos repos = session.getRepos();
+            FarragoReposTxnContext txn = repos.newTxnContext();
+            try {
+                txn.beginWriteTxn();
+                FemLocalTable factTable =
+                    lookupTable(
+                        session,
+                        catalogName,
+                        factSchemaName,
+                        factTableName);
+                FemLocalTable aggTable =
+                    lookupTable(
+                        session,
+                        catalogName,
+                        aggSchemaName,
+                        aggTableName);
+                LcsAggregateTable.register(
+                    repos,
+                    factTable,
+                    aggTable,
+                    definition);
+                txn.commit();
+            } finally {
+                txn.rollback();
+            }
+        } catch (Throwable e) {
+            throw new SQLException(e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the registration of an aggregate table.
+     */
+    public static void unregister_aggregate_table(
+        String catalogName,
+        String aggSchemaName,
+        String aggTableName)
+        throws SQLException
+    {
+        try {
+            FarragoSession session = FarragoUdrRuntime.getSession();
+            FarragoRepos repos = session.getRepos();
+            FarragoReposTxnContext txn = repos.newTxnContext();
+            try {
+                txn.beginWriteTxn();
+                FemLocalTable aggTable =
+                    lookupTable(
+                        session,
+                        catalogName,
+                        aggSchemaName,
+                        aggTableName);
+                LcsAggregateTable.unregister(repos, aggTable);
+                txn.commit();
+            } finally {
+                txn.rollback();
+            }
+        } catch (Throwable e) {
+            throw new SQLException(e.getMessage());
+        }
+    }
+
+    private static FemLocalTable lookupTable(
+        FarragoSession session,
+        String catalogName,
+        String schemaName,
+        String tableName)
+        throws Exception
+    {
+        FarragoRepos repos = session.getRepos();
+        if ((catalogName == null) || (catalogName.length() == 0)) {
+            catalogName = session.getSessionVariables().catalogName;
+        }
+        CwmCatalog catalog = repos.getCatalog(catalogName);
+        if (catalog == null) {
+            throw FarragoResource.instance().ValidatorUnknownObject.ex(
+                catalogName);
+        }
+        if ((schemaName == null) || (schemaName.length() == 0)) {
+            schemaName = session.getSessionVariables().schemaName;
+        }
+        FemLocalSchema schema =
+            FarragoCatalogUtil.getSchemaByName(catalog, schemaName);
+        if (schema == null) {
+            throw FarragoResource.instance().ValidatorUnknownObject.ex(
+                schemaName);
+        }
+        FemLocalTable table = null;
+        if (tableName != null) {
+            table =
+                FarragoCatalogUtil.getModelElementByNameAndType(
+                    schema.getOwnedElement(),
+                    tableName,
+                    FemLocalTable.class);
+        }
+        if (table == null) {
+            throw FarragoResource.instance().ValidatorUnknownObject.ex(
+                tableName);
+        }
+        return table;
+    }
+}
+
+// End LcsAggregateTableUDR.java
@@ -24,6 +24,7 @@ package org.luciddb.lcs;
 import java.util.*;
 
 import net.sf.farrago.fem.med.*;
+import net.sf.farrago.fennel.rel.*;
 import net.sf.farrago.query.*;
 
 import org.eigenbase.rel.*;
@@ -95,13 +96,23 @@ public class LcsIndexAggRule
     {
         AggregateRel aggRel = (AggregateRel) call.rels[0];
         boolean allowRidOnlyProjection = true;
-        // If any agg call references any column of the input,
-        // then we have something other than COUNT(*), in which case
-        // the LDB-201 special case does not apply.
         for (AggregateCall aggCall : aggRel.getAggCallList()) {
+            // The bitmap aggregate weights each index entry by the number
+            // of rids in its bitmap, which only Fennel's builtins know how
+            // to do. DISTINCT calls should already have been rewritten by
+            // RemoveDistinctAggregateRule into a grouping on the key, which
+            // this rule then handles.
+            if (aggCall.isDistinct()
+                || !FennelRelUtil.isFennelBuiltinAggFunction(aggCall))
+            {
+                return;
+            }
+
+            // If any agg call references any column of the input,
+            // then we have something other than COUNT(*), in which case
+            // the LDB-201 special case does not apply.
             if (aggCall.getArgList().size() > 0) {
                 allowRidOnlyProjection = false;
-                break;
             }
         }
         LcsRowScanRel rowScan = null;
@@ -26,15 +26,21 @@ import net.sf.farrago.fem.fennel.*;
 import net.sf.farrago.fennel.rel.*;
 import net.sf.farrago.query.*;
 
+import org.eigenbase.rel.*;
 import org.eigenbase.rel.metadata.*;
 import org.eigenbase.relopt.*;
 
 
 /**
  * LcsIndexMergeRel is a relation for merging the results of an index scan. The
- * input to this relation must be a single input and it must be an
- * LcsIndexSearchRel. The input data consists of unordered rid segments. The
- * result set produced by this relation will be ordered rid segments.
+ * input to this relation must be a single input, usually an LcsIndexSearchRel.
+ * The input data consists of unordered rid segments. The result set produced
+ * by this relation will be ordered rid segments.
+ *
+ * <p>The input may also be any relation producing rows of the unclustered
+ * bitmap row type; {@link LcsLateMaterializationRule} uses this to merge a
+ * stream of singleton rids produced by a join into a bitmap that drives a
+ * row scan.
  *
  * @author John Pham
  * @version $Id$
@@ -58,7 +64,7 @@ class LcsIndexMergeRel
      */
     public LcsIndexMergeRel(
         LcsTable lcsTable,
-        LcsIndexSearchRel indexSearchRel,
+        RelNode indexSearchRel,
         FennelRelParamId consumerSridParamId,
         FennelRelParamId segmentLimitParamId,
         FennelRelParamId ridLimitParamId)
@@ -85,7 +91,7 @@ class LcsIndexMergeRel
     {
         return new LcsIndexMergeRel(
             lcsTable,
-            (LcsIndexSearchRel) getChild().clone(),
+            getChild().clone(),
             consumerSridParamId,
             segmentLimitParamId,
             ridLimitParamId);
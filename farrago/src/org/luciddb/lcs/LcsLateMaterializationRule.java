@@ -0,0 +1,352 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.luciddb.lcs;
+
+import org.luciddb.session.*;
+
+import java.util.*;
+
+import net.sf.farrago.fem.med.*;
+import net.sf.farrago.fennel.rel.*;
+import net.sf.farrago.query.*;
+
+import org.eigenbase.rel.*;
+import org.eigenbase.rel.metadata.*;
+import org.eigenbase.relopt.*;
+import org.eigenbase.reltype.*;
+import org.eigenbase.rex.*;
+
+
+/**
+ * LcsLateMaterializationRule defers reading the wide, non-join columns of an
+ * LCS table until a join has reduced the set of rows that need them.
+ *
+ * <p>An LcsRowScanRel reads every projected cluster in lockstep with its rid
+ * stream, so a full scan feeding a selective join pays for decompressing the
+ * wide columns of rows the join then throws away. This rule rewrites
+ *
+ * <blockquote><pre>
+ * JoinRel(
+ *     LcsRowScanRel(full scan, columns = keys + wide),
+ *     other)</pre>
+ * </blockquote>
+ *
+ * into
+ *
+ * <blockquote><pre>
+ * JoinRel(
+ *     LcsRowScanRel(columns = keys + wide,
+ *         LcsIndexMergeRel(
+ *             ProjectRel(rid, null, null,
+ *                 JoinRel(
+ *                     LcsRowScanRel(full scan, columns = keys + LCS_RID),
+ *                     other)))),
+ *     other)</pre>
+ * </blockquote>
+ *
+ * The inner join only reads the clusters holding the join keys. The rids of
+ * the rows surviving it are emitted as singleton bitmap entries, which the
+ * merge sorts and ORs into an ordered bitmap, eliminating duplicates. The
+ * outer row scan then reads the remaining clusters only for those rids, and
+ * the outer join reattaches the other input's columns. The deletion index is
+ * applied to the merged bitmap later by {@link LcsAddDeletionScanRule}.
+ *
+ * <p>The rewrite evaluates the other input twice, so it is only applied when
+ * the join is estimated to keep a small fraction of the table's rows, the
+ * other input is small relative to the table, and the wide columns live in
+ * clusters that the join keys do not already require.
+ *
+ * @version $Id$
+ */
+public class LcsLateMaterializationRule
+    extends RelOptRule
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    /**
+     * Largest fraction of the table's rows the join may return for the
+     * rewrite to be worthwhile; beyond this, rereading the join keys and
+     * evaluating the other input a second time costs more than the clusters
+     * it saves.
+     */
+    private static final double MAX_JOIN_SELECTIVITY = 0.25;
+
+    public static final LcsLateMaterializationRule instanceLeft =
+        new LcsLateMaterializationRule(
+            new RelOptRuleOperand(
+                JoinRel.class,
+                new RelOptRuleOperand(LcsRowScanRel.class, ANY),
+                new RelOptRuleOperand(RelNode.class, ANY)),
+            "table on left");
+
+    public static final LcsLateMaterializationRule instanceRight =
+        new LcsLateMaterializationRule(
+            new RelOptRuleOperand(
+                JoinRel.class,
+                new RelOptRuleOperand(RelNode.class, ANY),
+                new RelOptRuleOperand(LcsRowScanRel.class, ANY)),
+            "table on right");
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates an LcsLateMaterializationRule.
+     *
+     * @param operand Root operand, must not be null
+     * @param id Description of rule
+     */
+    public LcsLateMaterializationRule(
+        RelOptRuleOperand operand,
+        String id)
+    {
+        super(operand, "LcsLateMaterializationRule: " + id);
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    // implement RelOptRule
+    public void onMatch(RelOptRuleCall call)
+    {
+        JoinRel join = (JoinRel) call.rels[0];
+        boolean tableOnLeft = (call.rels[1] instanceof LcsRowScanRel);
+        LcsRowScanRel origScan =
+            (LcsRowScanRel) (tableOnLeft ? call.rels[1] : call.rels[2]);
+        RelNode other = tableOnLeft ? join.getRight() : join.getLeft();
+
+        if ((join.getJoinType() != JoinRelType.INNER)
+            || !join.getSystemFieldList().isEmpty())
+        {
+            return;
+        }
+
+        // Only rewrite a full scan which does not already have inputs, e.g.
+        // residual filters or an index search.  This also keeps the rule from
+        // firing on the late scans it creates; the narrow scans it creates
+        // have nothing left to defer.
+        if (!origScan.isFullScan || (origScan.getInputs().length > 0)) {
+            return;
+        }
+
+        // A scan which has not been projected returns every column
+        int nScanFields = origScan.getRowType().getFieldCount();
+        Integer [] scanColumns = origScan.projectedColumns;
+        if (scanColumns == null) {
+            scanColumns = new Integer[nScanFields];
+            for (int i = 0; i < nScanFields; i++) {
+                scanColumns[i] = i;
+            }
+        }
+
+        // Determine which of the scan's fields the join condition needs
+        int scanOffset =
+            tableOnLeft ? 0 : join.getLeft().getRowType().getFieldCount();
+        BitSet condRefs = new BitSet();
+        join.getCondition().accept(new RelOptUtil.InputFinder(condRefs));
+        List<Integer> keyFields = new ArrayList<Integer>();
+        for (int i = 0; i < nScanFields; i++) {
+            if (condRefs.get(scanOffset + i)) {
+                keyFields.add(i);
+            }
+        }
+        if (keyFields.isEmpty()) {
+            return;
+        }
+
+        LcsIndexGuide indexGuide = origScan.getIndexGuide();
+        Integer [] keyColumns = new Integer[keyFields.size() + 1];
+        for (int i = 0; i < keyFields.size(); i++) {
+            keyColumns[i] = scanColumns[keyFields.get(i)];
+        }
+        keyColumns[keyFields.size()] =
+            LucidDbOperatorTable.ldbInstance().getSpecialOpColumnId(
+                LucidDbOperatorTable.lcsRidFunc);
+
+        // Split the scan's clusters into those needed to evaluate the join
+        // and those needed only for the deferred columns.  If every cluster
+        // is needed by the join, there is nothing to defer.
+        List<FemLocalIndex> keyClusters = new ArrayList<FemLocalIndex>();
+        boolean deferredClusters = false;
+        for (FemLocalIndex index : origScan.clusteredIndexes) {
+            if (indexGuide.testIndexCoverage(index, keyColumns)) {
+                keyClusters.add(index);
+            } else {
+                deferredClusters = true;
+            }
+        }
+        if (!deferredClusters) {
+            return;
+        }
+        if (keyClusters.isEmpty()) {
+            // only the rid is needed; read it from the smallest cluster
+            keyClusters.add(
+                LcsIndexOptimizer.getIndexWithMinDiskPages(origScan));
+        }
+
+        if (!isSelective(join, origScan, other)) {
+            return;
+        }
+
+        RelOptCluster cluster = origScan.getCluster();
+        RexBuilder rexBuilder = cluster.getRexBuilder();
+
+        // Create the narrow scan and join it with the other input, mapping
+        // the condition's references to the narrow scan's fields
+        LcsRowScanRel keyScan =
+            new LcsRowScanRel(
+                cluster,
+                new RelNode[0],
+                origScan.lcsTable,
+                keyClusters,
+                origScan.getConnection(),
+                keyColumns,
+                true,
+                new Integer[0],
+                origScan.inputSelectivity);
+
+        int nJoinFields = join.getRowType().getFieldCount();
+        final int [] fieldMap = new int[nJoinFields];
+        Arrays.fill(fieldMap, -1);
+        for (int i = 0; i < keyFields.size(); i++) {
+            fieldMap[scanOffset + keyFields.get(i)] =
+                (tableOnLeft ? 0 : scanOffset) + i;
+        }
+        int nOtherFields = other.getRowType().getFieldCount();
+        int otherOffset = tableOnLeft ? nScanFields : 0;
+        int newOtherOffset = tableOnLeft ? keyColumns.length : 0;
+        for (int i = 0; i < nOtherFields; i++) {
+            fieldMap[otherOffset + i] = newOtherOffset + i;
+        }
+        RexNode keyCondition =
+            join.getCondition().accept(
+                new RexShuttle() {
+                    public RexNode visitInputRef(RexInputRef inputRef)
+                    {
+                        int index = fieldMap[inputRef.getIndex()];
+                        assert (index >= 0);
+                        return new RexInputRef(index, inputRef.getType());
+                    }
+                });
+        JoinRel keyJoin =
+            new JoinRel(
+                cluster,
+                tableOnLeft ? keyScan : other,
+                tableOnLeft ? other : keyScan,
+                keyCondition,
+                JoinRelType.INNER,
+                join.getVariablesStopped(),
+                join.isSemiJoinDone(),
+                join.getSystemFieldList());
+
+        // Convert the surviving rids into singleton bitmap entries, and merge
+        // them into an ordered bitmap
+        RelDataType bitmapRowType = indexGuide.createUnclusteredBitmapRowType();
+        RelDataTypeField [] bitmapFields = bitmapRowType.getFields();
+        int ridField = (tableOnLeft ? 0 : scanOffset) + keyFields.size();
+        RexNode [] bitmapExprs =
+            new RexNode[] {
+                rexBuilder.makeCast(
+                    bitmapFields[0].getType(),
+                    rexBuilder.makeInputRef(
+                        keyJoin.getRowType().getFields()[ridField].getType(),
+                        ridField)),
+                rexBuilder.makeCast(
+                    bitmapFields[1].getType(),
+                    rexBuilder.constantNull()),
+                rexBuilder.makeCast(
+                    bitmapFields[2].getType(),
+                    rexBuilder.constantNull())
+            };
+        String [] bitmapFieldNames =
+            RelOptUtil.getFieldNames(bitmapRowType);
+        RelNode ridBitmap =
+            CalcRel.createProject(
+                keyJoin,
+                bitmapExprs,
+                bitmapFieldNames);
+
+        FennelRelImplementor relImplementor =
+            FennelRelUtil.getRelImplementor(origScan);
+        LcsIndexMergeRel merge =
+            new LcsIndexMergeRel(
+                origScan.lcsTable,
+                ridBitmap,
+                null,
+                null,
+                relImplementor.allocateRelParamId());
+
+        // Read all of the original columns, but only for the surviving rids,
+        // and redo the join to reattach the other input's columns
+        double selectivity =
+            RelMetadataQuery.getRowCount(join)
+            / RelMetadataQuery.getRowCount(origScan);
+        LcsRowScanRel lateScan =
+            new LcsRowScanRel(
+                cluster,
+                new RelNode[] { merge },
+                origScan.lcsTable,
+                origScan.clusteredIndexes,
+                origScan.getConnection(),
+                origScan.projectedColumns,
+                false,
+                origScan.residualColumns,
+                origScan.inputSelectivity * Math.min(selectivity, 1.0));
+
+        JoinRel newJoin =
+            new JoinRel(
+                cluster,
+                tableOnLeft ? lateScan : join.getLeft(),
+                tableOnLeft ? join.getRight() : lateScan,
+                join.getCondition(),
+                JoinRelType.INNER,
+                join.getVariablesStopped(),
+                join.isSemiJoinDone(),
+                join.getSystemFieldList());
+
+        call.transformTo(newJoin);
+    }
+
+    /**
+     * Determines whether a join is selective enough, and its other input
+     * small enough, for late materialization to pay off.
+     *
+     * @param join the join
+     * @param scan the row scan whose columns would be deferred
+     * @param other the other input into the join
+     *
+     * @return true if the rewrite should be applied
+     */
+    private boolean isSelective(JoinRel join, LcsRowScanRel scan, RelNode other)
+    {
+        Double joinRows = RelMetadataQuery.getRowCount(join);
+        Double scanRows = RelMetadataQuery.getRowCount(scan);
+        Double otherRows = RelMetadataQuery.getRowCount(other);
+        if ((joinRows == null) || (scanRows == null) || (otherRows == null)
+            || (scanRows <= 0))
+        {
+            return false;
+        }
+        double limit = scanRows * MAX_JOIN_SELECTIVITY;
+        return (joinRows <= limit) && (otherRows <= limit);
+    }
+}
+
+// End LcsLateMaterializationRule.java
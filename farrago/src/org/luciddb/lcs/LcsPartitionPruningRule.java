@@ -0,0 +1,117 @@
+/*
+// $Id$
+// Farrago is an extensible data management system.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package org.luciddb.lcs;
+
+import java.util.*;
+
+import org.eigenbase.rel.*;
+import org.eigenbase.relopt.*;
+import org.eigenbase.rex.*;
+import org.eigenbase.sarg.*;
+
+
+/**
+ * LcsPartitionPruningRule eliminates a filtered LCS row scan whose filter can
+ * never be satisfied, replacing it with an {@link EmptyRel}.
+ *
+ * <p>A range-partitioned table is defined in LucidDB as a UNION ALL view over
+ * one LCS table per partition, each branch restricting its table to the
+ * partition's range, e.g.
+ *
+ * <blockquote><pre>
+ * create view sales as
+ *   select * from sales_2009
+ *   where sale_date &lt; date '2010-01-01'
+ * union all
+ *   select * from sales_2010
+ *   where sale_date &gt;= date '2010-01-01'
+ *   and sale_date &lt; date '2011-01-01';</pre>
+ * </blockquote>
+ *
+ * Each partition keeps its own clusters and bitmap indexes, and can be
+ * truncated, rebuilt, analyzed or dropped on its own. Once the query's filter
+ * has been pushed into each branch and merged with the branch's range, the
+ * combined predicate on the partitioning column is analyzed by {@link
+ * SargRexAnalyzer}; if it describes an empty interval, the branch cannot
+ * produce any rows and is pruned, and {@link
+ * org.eigenbase.rel.rules.RemoveEmptyRule} then removes it from the union.
+ *
+ * @version $Id$
+ */
+public class LcsPartitionPruningRule
+    extends RelOptRule
+{
+    //~ Static fields/initializers ---------------------------------------------
+
+    public static final LcsPartitionPruningRule instance =
+        new LcsPartitionPruningRule();
+
+    //~ Constructors -----------------------------------------------------------
+
+    /**
+     * Creates the singleton.
+     */
+    private LcsPartitionPruningRule()
+    {
+        super(
+            new RelOptRuleOperand(
+                FilterRel.class,
+                new RelOptRuleOperand(LcsRowScanRel.class, ANY)));
+    }
+
+    //~ Methods ----------------------------------------------------------------
+
+    // implement RelOptRule
+    public void onMatch(RelOptRuleCall call)
+    {
+        FilterRel filter = (FilterRel) call.rels[0];
+
+        SargFactory sargFactory =
+            new SargFactory(filter.getCluster().getRexBuilder());
+        SargRexAnalyzer rexAnalyzer = sargFactory.newRexAnalyzer();
+        List<SargBinding> sargBindingList =
+            rexAnalyzer.analyzeAll(filter.getCondition());
+
+        for (SargBinding sargBinding : sargBindingList) {
+            SargExpr sargExpr = sargBinding.getExpr();
+
+            // Predicates on dynamic parameters can only be evaluated at
+            // execution time.
+            Set<RexDynamicParam> dynamicParams =
+                new HashSet<RexDynamicParam>();
+            sargExpr.collectDynamicParams(dynamicParams);
+            if (!dynamicParams.isEmpty()) {
+                continue;
+            }
+
+            if (sargExpr.evaluate().getList().isEmpty()) {
+                call.transformTo(
+                    new EmptyRel(
+                        filter.getCluster(),
+                        filter.getRowType()));
+                return;
+            }
+        }
+    }
+}
+
+// End LcsPartitionPruningRule.java
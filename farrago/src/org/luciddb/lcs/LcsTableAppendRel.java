@@ -135,10 +135,9 @@ public class LcsTableAppendRel
         // TODO:
         // make list of index names available in the verbose mode of
         // explain plan.
-        pw.explain(
-            this,
-            new String[] { "child", "table" },
-            new Object[] { Arrays.asList(lcsTable.getQualifiedName()) });
+        explainTableMod(
+            pw,
+            Arrays.asList(lcsTable.getQualifiedName()));
     }
 
     // implement FennelRel
@@ -130,10 +130,9 @@ public class LcsTableDeleteRel
     // Override TableModificationRelBase
     public void explain(RelOptPlanWriter pw)
     {
-        pw.explain(
-            this,
-            new String[] { "child", "table" },
-            new Object[] { Arrays.asList(lcsTable.getQualifiedName()) });
+        explainTableMod(
+            pw,
+            Arrays.asList(lcsTable.getQualifiedName()));
     }
 
     // implement FennelRel
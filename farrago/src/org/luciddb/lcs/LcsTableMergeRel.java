@@ -168,10 +168,9 @@ public class LcsTableMergeRel
     // Override TableModificationRelBase
     public void explain(RelOptPlanWriter pw)
     {
-        pw.explain(
-            this,
-            new String[] { "child", "table" },
-            new Object[] { Arrays.asList(lcsTable.getQualifiedName()) });
+        explainTableMod(
+            pw,
+            Arrays.asList(lcsTable.getQualifiedName()));
     }
 
     // override RelNode
@@ -84,6 +84,8 @@ public class LucidDbSessionPersonality
     public static final String LAST_UPSERT_ROWS_INSERTED_DEFAULT = null;
     public static final String LAST_ROWS_REJECTED = "lastRowsRejected";
     public static final String LAST_ROWS_REJECTED_DEFAULT = null;
+    public static final String LOCK_WAIT_TIMEOUT = "lockWaitTimeout";
+    public static final String LOCK_WAIT_TIMEOUT_DEFAULT = "0";
     public static final String REDUCE_NON_CORRELATED_SUBQUERIES_LUCIDDB_DFLT =
         "true";
 
@@ -133,6 +135,11 @@ public class LucidDbSessionPersonality
             true,
             0,
             Integer.MAX_VALUE);
+        paramValidator.registerLongParam(
+            LOCK_WAIT_TIMEOUT,
+            false,
+            0,
+            Long.MAX_VALUE);
         if (defaultPersonality == null) {
             defaultLucidDb = true;
         } else if (defaultPersonality instanceof LucidDbSessionPersonality) {
@@ -368,12 +375,31 @@ public class LucidDbSessionPersonality
         // Push filters down again after pulling and pushing projects
         applyPushDownFilterRules(builder);
 
+        // Prune the branches of partitioned views whose partition range
+        // contradicts the filters that have just been pushed into them.
+        builder.addGroupBegin();
+        builder.addRuleInstance(LcsPartitionPruningRule.instance);
+        builder.addRuleInstance(RemoveEmptyRule.unionInstance);
+        builder.addRuleInstance(RemoveEmptyRule.projectInstance);
+        builder.addRuleInstance(RemoveEmptyRule.filterInstance);
+        builder.addGroupEnd();
+
         // Merge any projects that are now on top of one another as a result
         // of pushing filters.  This ensures that the subprogram below fires
         // the 3 rules described in lockstep fashion on only the nodes related
         // to joins.
         builder.addRuleInstance(new MergeProjectRule(true));
 
+        // Answer aggregates from registered aggregate tables where possible.
+        // This must happen before DISTINCT aggregates are expanded, while
+        // the aggregate still sits directly over the row scan.
+        builder.addGroupBegin();
+        builder.addRuleInstance(LcsAggregateTableRule.instanceProjectFilter);
+        builder.addRuleInstance(LcsAggregateTableRule.instanceProject);
+        builder.addRuleInstance(LcsAggregateTableRule.instanceFilter);
+        builder.addRuleInstance(LcsAggregateTableRule.instanceRowScan);
+        builder.addGroupEnd();
+
         // Eliminate AGG(DISTINCT x).  Because this transformation
         // may introduce new joins, it needs to be applied before
         // the rules that determine join ordering.
@@ -547,6 +573,16 @@ public class LucidDbSessionPersonality
             builder.addRuleInstance(LcsIndexOnlyAccessRule.instanceMerge);
         }
 
+        // Defer reading wide columns of a table scan until a selective join
+        // has reduced the rids that need them.  This has to happen after
+        // projections have been pushed into the row scans, so we know which
+        // clusters the join keys need, and before the joins are converted
+        // into hash joins.
+        builder.addGroupBegin();
+        builder.addRuleInstance(LcsLateMaterializationRule.instanceLeft);
+        builder.addRuleInstance(LcsLateMaterializationRule.instanceRight);
+        builder.addGroupEnd();
+
         // We're getting close to physical implementation.  First, insert
         // type coercions for expressions which require it.
         builder.addRuleClass(CoerceInputsRule.class);
@@ -816,6 +852,7 @@ public class LucidDbSessionPersonality
         variables.setDefault(
             LAST_ROWS_REJECTED,
             LAST_ROWS_REJECTED_DEFAULT);
+        variables.setDefault(LOCK_WAIT_TIMEOUT, LOCK_WAIT_TIMEOUT_DEFAULT);
         variables.set(
             REDUCE_NON_CORRELATED_SUBQUERIES,
             REDUCE_NON_CORRELATED_SUBQUERIES_LUCIDDB_DFLT);
@@ -940,6 +977,7 @@ public class LucidDbSessionPersonality
                 rowCountStats);
             long currRowCount = rowCountStats[0];
             long currDeletedRowCount = rowCountStats[1];
+            long origRowCount = currRowCount;
 
             // categorize the rowcounts returned by the statement
             long insertedRowCount = 0;
@@ -1015,6 +1053,14 @@ public class LucidDbSessionPersonality
                 currRowCount,
                 currDeletedRowCount,
                 database.getUserRepos());
+
+            // keep the column statistics in step with loads, so plans don't
+            // degrade until the table is reanalyzed
+            FarragoCatalogUtil.extrapolateHistograms(
+                columnSet,
+                origRowCount,
+                currRowCount,
+                database.getUserRepos());
             txn.commit();
         } finally {
             txn.rollback();
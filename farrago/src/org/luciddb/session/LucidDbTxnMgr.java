@@ -22,6 +22,7 @@
 package org.luciddb.session;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import net.sf.farrago.catalog.*;
@@ -42,6 +43,23 @@ import org.eigenbase.util.*;
  * LucidDbTxnMgr implements the {@link FarragoSessionTxnMgr} interface with
  * locking semantics customized for LucidDB.
  *
+ * <p>Writers to a table are serialized by an exclusive table lock, since
+ * LucidDB's versioned pages do not allow two transactions to modify the same
+ * cluster or index pages. By default, a writer which cannot get the lock
+ * fails immediately. If the session sets "lockWaitTimeout" to a positive
+ * number of milliseconds, the writer instead queues for the lock for up to
+ * that long, so that parallel loaders into the same table take turns rather
+ * than fail. This only queues writers; it does not let them append to the
+ * table concurrently. (Loaders which need to append truly in parallel should
+ * each load their own partition of a partitioned view; see {@link
+ * org.luciddb.lcs.LcsPartitionPruningRule}.)
+ *
+ * <p>A writer never waits while its thread holds the catalog lock, as DDL
+ * statements which run as DML (e.g. ALTER TABLE REBUILD) do when they access
+ * their target table. The writer holding the table lock may need the catalog
+ * lock to finish (for example, to update row counts), and the lock manager
+ * cannot detect that deadlock, so such statements fail immediately instead.
+ *
  * @author John V. Sichi
  * @version $Id$
  */
@@ -58,6 +76,12 @@ class LucidDbTxnMgr
 
     private final LockManager2 lockMgr;
 
+    /**
+     * Lock wait settings for each active transaction; absent if the
+     * transaction does not wait for locks.
+     */
+    private final Map<FarragoSessionTxnId, LockWait> lockWaits;
+
     //~ Constructors -----------------------------------------------------------
 
     LucidDbTxnMgr()
@@ -67,6 +91,7 @@ class LucidDbTxnMgr
         // java.util.logging settings
         LoggerFacade loggerFacade = new Jdk14Logger(tracer);
         lockMgr = new GenericLockManager(2, loggerFacade);
+        lockWaits = new ConcurrentHashMap<FarragoSessionTxnId, LockWait>();
     }
 
     //~ Methods ----------------------------------------------------------------
@@ -74,7 +99,20 @@ class LucidDbTxnMgr
     // implement FarragoSessionTxnMgr
     public FarragoSessionTxnId beginTxn(FarragoSession session)
     {
-        return super.beginTxn(session);
+        FarragoSessionTxnId txnId = super.beginTxn(session);
+        FarragoSessionVariables vars = session.getSessionVariables();
+        if (vars.containsVariable(
+                LucidDbSessionPersonality.LOCK_WAIT_TIMEOUT))
+        {
+            Long timeout =
+                vars.getLong(LucidDbSessionPersonality.LOCK_WAIT_TIMEOUT);
+            if ((timeout != null) && (timeout > 0)) {
+                lockWaits.put(
+                    txnId,
+                    new LockWait(timeout, session.getRepos()));
+            }
+        }
+        return txnId;
     }
 
     // override FarragoDbNullTxnMgr
@@ -106,6 +144,7 @@ class LucidDbTxnMgr
         tracer.fine(
             "Transaction " + txnId + " releasing all table and database locks");
         lockMgr.releaseAll(txnId);
+        lockWaits.remove(txnId);
     }
 
     private void acquireLock(
@@ -119,14 +158,69 @@ class LucidDbTxnMgr
             + ((lockLevel == 1) ? "shared" : "exclusive")
             + " lock on "
             + renderedName);
-        if (lockMgr.tryLock(txnId, resourceId, lockLevel, true)) {
+        LockWait lockWait = lockWaits.get(txnId);
+        if ((lockWait != null) && lockWait.isCatalogLocked()) {
+            // Waiting here could deadlock with the current lock holder if it
+            // needs the catalog lock to finish, and the lock manager would
+            // not notice; so fail fast instead.
             tracer.fine(
-                "Transaction " + txnId + " acquired lock successfully");
-            return;
+                "Transaction " + txnId
+                + " holds the catalog lock; not waiting for table lock");
+            lockWait = null;
+        }
+        if (lockWait == null) {
+            if (lockMgr.tryLock(txnId, resourceId, lockLevel, true)) {
+                tracer.fine(
+                    "Transaction " + txnId + " acquired lock successfully");
+                return;
+            }
+        } else {
+            try {
+                lockMgr.lock(
+                    txnId,
+                    resourceId,
+                    lockLevel,
+                    true,
+                    lockWait.timeout);
+                tracer.fine(
+                    "Transaction " + txnId + " acquired lock successfully");
+                return;
+            } catch (LockException ex) {
+                // timed out, or chosen as a deadlock victim
+                tracer.fine(
+                    "Transaction " + txnId + " gave up waiting for lock:  "
+                    + ex.getMessage());
+            }
         }
         throw FarragoResource.instance().LockDenied.ex(
             renderedName);
     }
+
+    //~ Inner Classes ----------------------------------------------------------
+
+    /**
+     * LockWait records how a transaction waits for table locks.
+     */
+    private static class LockWait
+    {
+        private final long timeout;
+        private final FarragoRepos repos;
+
+        LockWait(long timeout, FarragoRepos repos)
+        {
+            this.timeout = timeout;
+            this.repos = repos;
+        }
+
+        /**
+         * @return true if the current thread holds the catalog lock
+         */
+        boolean isCatalogLocked()
+        {
+            return (repos instanceof FarragoReposImpl)
+                && ((FarragoReposImpl) repos).isReposLockedByCurrentThread();
+        }
+    }
 }
 
 // End LucidDbTxnMgr.java
@@ -0,0 +1,88 @@
+-- $Id$
+-- Test that statements looked up by their SQL text are prepared again
+-- whenever something which could change their meaning has changed
+
+create schema stc1;
+create schema stc2;
+create table stc1.stc_t(i int not null primary key);
+create table stc2.stc_t(i int not null primary key);
+insert into stc1.stc_t values (1);
+insert into stc2.stc_t values (2);
+
+-- counts executions of "select * from stc_t" which were found by their text
+create view stc1.hits as
+select count(*) as hits from sys_boot.mgmt.statement_timings_view
+where sql_stmt like 'select * from stc_t%'
+and phase = 'sql text cache hit';
+
+set schema 'stc1';
+select * from stc_t;
+select * from stc1.hits;
+
+-- should hit
+select * from stc_t;
+select * from stc1.hits;
+
+-- should miss:  the same text means a different table in another schema
+set schema 'stc2';
+select * from stc_t;
+select * from stc1.hits;
+
+-- should hit
+set schema 'stc1';
+select * from stc_t;
+select * from stc1.hits;
+
+-- should miss:  any DDL may change name resolution or privileges, even DDL
+-- on objects the statement does not reference
+create table stc2.unrelated(i int not null primary key);
+select * from stc_t;
+select * from stc1.hits;
+
+-- should miss:  session parameters which affect planning are part of the key
+alter session set "reduceNonCorrelatedSubqueries" = true;
+select * from stc_t;
+select * from stc1.hits;
+
+alter session set "hashInList" = false;
+select * from stc_t;
+select * from stc1.hits;
+
+-- should hit
+select * from stc_t;
+select * from stc1.hits;
+
+alter session set "reduceNonCorrelatedSubqueries" = false;
+alter session set "hashInList" = true;
+
+-- Farrago has no REVOKE, so take the privilege away by recreating the table
+-- without it
+create user STC_USER authorization 'Unknown';
+grant select on stc2.stc_t to STC_USER;
+
+!closeall
+!connect jdbc:farrago: STC_USER tiger
+
+set schema 'stc2';
+select * from stc_t;
+select * from stc_t;
+
+!closeall
+!connect jdbc:farrago: sa tiger
+
+drop table stc2.stc_t;
+create table stc2.stc_t(i int not null primary key);
+
+!closeall
+!connect jdbc:farrago: STC_USER tiger
+
+-- should fail:  no grant on the new table
+set schema 'stc2';
+select * from stc_t;
+
+!closeall
+!connect jdbc:farrago: sa tiger
+
+drop schema stc1 cascade;
+drop schema stc2 cascade;
+drop user STC_USER;
@@ -114,4 +114,11 @@ create view scalarSelectView as
   select empno, (select 1 from (values (true))) as x from sales.emps;
 explain plan with type for select * from scalarSelectView;
 
+-- nested views referencing the same view more than once
+create view dv1 as select deptno, name from sales.depts;
+create view dv2 as
+  select a.deptno, b.name from dv1 a, dv1 b where a.deptno = b.deptno;
+create view dv3 as select * from dv2 union all select * from dv2;
+select * from dv3 order by deptno;
+
 -- End view.sql
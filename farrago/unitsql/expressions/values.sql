@@ -85,6 +85,27 @@ values (1/3);
 -- if type union results in loss of digits, verify that rounding occurs
 values 100000.0, 0.555555555555555555;
 
+-- multi-row INSERT ... VALUES split into batches
+create schema insert_values;
+create table insert_values.t(
+    i int not null primary key, s varchar(10), d decimal(6, 2));
+alter session set "insertValuesBatchSize" = 2;
+insert into insert_values.t values (1, 'a', 1), (2, 'b /* ) */', 2.5),
+(3, 'c'' ),(', -3),
+(4, null, null), (5, 'e', .25);
+select i, s from insert_values.t order by i;
+
+-- each batch keeps the column types of the whole row list, so 'a' is
+-- padded to CHAR(9) just as in the unsplit statement
+select i, char_length(s) as len, d from insert_values.t order by i;
+
+-- bad:  failure in a later batch rolls back the earlier ones
+insert into insert_values.t values (6, 'f', 0), (7, 'g', 0), (null, 'h', 0);
+select count(*) from insert_values.t;
+
+alter session set "insertValuesBatchSize" = 0;
+drop schema insert_values cascade;
+
 !set outputformat csv
 
 values ('no'), ('yes'), ('maybe');
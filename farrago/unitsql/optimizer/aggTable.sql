@@ -0,0 +1,80 @@
+-- $Id$
+-- Test rewrite of aggregate queries to use registered aggregate tables
+
+create schema aggtab;
+set schema 'aggtab';
+
+alter session implementation set jar sys_boot.sys_boot.luciddb_plugin;
+
+create table sales(dept int, region varchar(10), amount int);
+
+insert into sales values
+(10, 'NORTH', 100), (10, 'NORTH', 50), (10, 'SOUTH', 25),
+(20, 'NORTH', 10), (20, 'SOUTH', 5), (20, 'SOUTH', null);
+
+create table sales_agg(
+    dept int, region varchar(10), total int, cnt bigint, amount_cnt bigint);
+
+insert into sales_agg
+select dept, region, sum(amount), count(*), count(amount)
+from sales group by dept, region;
+
+-- bad definitions
+call sys_boot.mgmt.register_aggregate_table(
+    'LOCALDB', 'AGGTAB', 'SALES', 'AGGTAB', 'SALES_AGG',
+    'DEPT, REGION, TOTAL = AVG(AMOUNT)');
+call sys_boot.mgmt.register_aggregate_table(
+    'LOCALDB', 'AGGTAB', 'SALES', 'AGGTAB', 'SALES_AGG',
+    'DEPT, REGION, TOTAL = SUM(NOSUCHCOLUMN)');
+
+call sys_boot.mgmt.register_aggregate_table(
+    'LOCALDB', 'AGGTAB', 'SALES', 'AGGTAB', 'SALES_AGG',
+    'DEPT, REGION, TOTAL = SUM(AMOUNT), CNT = COUNT(*), AMOUNT_CNT = COUNT(AMOUNT)');
+
+!set outputformat csv
+
+-- should read from the aggregate table
+explain plan for
+select dept, sum(amount), count(*) from sales group by dept;
+
+explain plan for
+select region, count(amount) from sales where dept = 10 group by region;
+
+explain plan for
+select count(distinct region) from sales;
+
+-- not answerable from the aggregate table
+explain plan for
+select dept, max(amount) from sales group by dept;
+
+-- AVG is only split into SUM and COUNT after aggregate tables are considered
+explain plan for
+select dept, avg(amount) from sales group by dept;
+
+!set outputformat table
+
+select dept, sum(amount), count(*) from sales group by dept order by dept;
+
+select region, count(amount) from sales where dept = 10 group by region
+order by region;
+
+select count(distinct region), min(dept), max(dept) from sales;
+
+select count(*) from sales where dept = 30;
+
+-- modifying the fact table makes the aggregate table stale
+insert into sales values (30, 'EAST', 1);
+
+!set outputformat csv
+explain plan for
+select dept, sum(amount), count(*) from sales group by dept;
+!set outputformat table
+
+select dept, sum(amount), count(*) from sales group by dept order by dept;
+
+call sys_boot.mgmt.unregister_aggregate_table(
+    'LOCALDB', 'AGGTAB', 'SALES_AGG');
+
+drop schema aggtab cascade;
+
+-- End aggTable.sql
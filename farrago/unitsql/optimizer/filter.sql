@@ -6,6 +6,10 @@ set schema 'sales';
 -- force usage of Fennel calculator
 alter system set "calcVirtualMachine" = 'CALCVM_FENNEL';
 
+-- keep long IN lists as joins for the plans below; hash evaluation
+-- of IN lists is tested at the end
+alter session set "hashInList" = false;
+
 -- filter which returns one row
 select name from emps where empno = 120;
 
@@ -191,3 +195,57 @@ select * from
     (select e.empno, d.name from emps e left outer join depts d
         on e.deptno = d.deptno)
 where name is null;
+
+-- IN lists at or above the threshold with only literal values are
+-- evaluated by hash lookup instead of a join
+alter session set "hashInList" = true;
+
+!set outputformat csv
+explain plan without implementation for
+select name from emps where empno in
+(110, 110, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+!set outputformat table
+
+alter system set "calcVirtualMachine" = 'CALCVM_JAVA';
+
+select name from emps where empno in
+(110, 110, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1)
+order by name;
+
+select name from emps where empno not in
+(110, 110, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1)
+order by name;
+
+-- nullable key; trailing spaces are not significant
+select name from emps where city in
+('Vancouver', 'San Francisco  ', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h',
+ 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r')
+order by name;
+
+select name from emps where city not in
+('Vancouver', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i',
+ 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's')
+order by name;
+
+alter system set "calcVirtualMachine" = 'CALCVM_FENNEL';
+
+select name from emps where empno in
+(110, 110, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1)
+order by name;
+
+select name from emps where empno not in
+(110, 110, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1)
+order by name;
+
+-- nullable key; trailing spaces are not significant
+select name from emps where city in
+('Vancouver', 'San Francisco  ', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h',
+ 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r')
+order by name;
+
+select name from emps where city not in
+('Vancouver', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i',
+ 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's')
+order by name;
+
+alter system set "calcVirtualMachine" = 'CALCVM_JAVA';
@@ -126,6 +126,8 @@ select * from lhxemps, lhxdepts
 where lhxemps.deptno = lhxdepts.deptnoA
 order by empno, ename;
 
+alter session set "hashInList" = false;
+
 -- test hash join implementation for big IN
 explain plan for 
 select ename from lhxemps
@@ -540,6 +540,21 @@ order by ename;
 select ename from lbmemps where deptno in (20, 30)
 order by ename;
 
+-- a long IN list of literals is evaluated by hash lookup, and still becomes
+-- an index search
+explain plan without implementation for
+select ename from lbmemps where deptno in
+(20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30);
+
+explain plan for
+select ename from lbmemps where deptno in
+(20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30)
+order by ename;
+
+select ename from lbmemps where deptno in
+(20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30, 20, 30)
+order by ename;
+
 -- OR on same column is supported
 explain plan for
 select *
@@ -684,6 +699,10 @@ select age, count(*) from person group by age order by age;
 explain plan for 
 select count(distinct(age)) from person;
 
+-- extremes and sums weighted by bitmap cardinality
+explain plan for 
+select min(age), max(age), sum(age) from person;
+
 -- agg with index search
 explain plan for 
 select avg(age) from person where age > 30;
@@ -719,6 +738,40 @@ select avg(age+1) from person;
 explain plan for 
 select avg(age+1) from person where age = 30;
 
+-- results of aggregates weighted by bitmap cardinality; the interleaved
+-- keys give sparse bitmaps spanning several segments per key, and every
+-- fourth key is null
+create function ramp(n int)
+returns table(i int)
+language java
+parameter style system defined java
+no sql
+external name 'class net.sf.farrago.test.FarragoTestUDR.ramp';
+
+create table aggbits(id int, k int) server sys_column_store_data_server;
+create index aggbits_k on aggbits(k);
+insert into aggbits
+select i, case when mod(i, 4) = 3 then null else mod(i, 4) end
+from table(ramp(6000));
+-- a dense run of one repeated key
+insert into aggbits select i + 6000, 7 from table(ramp(3000));
+
+explain plan excluding attributes for
+select min(k), max(k), sum(k) from aggbits;
+
+!set outputformat table
+select min(k) as mn, max(k) as mx, sum(k) as s, count(k) as ck,
+    count(*) as c
+from aggbits;
+select min(k) as mn, max(k) as mx, sum(k) as s, count(k) as ck
+from aggbits where k > 0;
+select min(k) as mn, max(k) as mx, sum(k) as s, count(k) as ck
+from aggbits where k < 7;
+select count(distinct k) as d from aggbits;
+select k, count(*) as c from aggbits where k is not null group by k
+order by k;
+select count(*) as c from aggbits where k is null;
+
 ----------------------------------------------------------
 -- Tests to exercise using startrid in bitmap index search
 ----------------------------------------------------------
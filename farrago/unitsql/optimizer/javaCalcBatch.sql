@@ -0,0 +1,35 @@
+-- $Id$
+-- Tests Fennel to Java calc to Fennel plans whose VARCHAR values span many
+-- buffers, so that batches of Java calc output rows end where the input's
+-- buffer does
+
+create schema jcb;
+set schema 'jcb';
+
+create table ten(i int not null primary key);
+insert into ten values (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+create table src(id int not null primary key, v varchar(200) not null);
+insert into src
+select a.i*1000 + b.i*100 + c.i*10 + d.i,
+    'row ' || cast(a.i*1000 + b.i*100 + c.i*10 + d.i as varchar(10))
+    || ' the quick brown fox jumps over the lazy dog and keeps running through the long grass until the batch boundary is far behind it'
+from ten a, ten b, ten c, ten d;
+
+create table dst(id int not null primary key, v varchar(200) not null);
+
+alter system set "calcVirtualMachine" = 'CALCVM_JAVA';
+
+!set outputformat csv
+explain plan excluding attributes for
+insert into dst select id, upper(v) from src;
+!set outputformat table
+
+insert into dst select id, upper(v) from src;
+
+alter system set "calcVirtualMachine" = 'CALCVM_AUTO';
+
+-- every row must hold the value computed from its own source row
+select count(*) from dst;
+select count(*) from src s, dst d where s.id = d.id and d.v = upper(s.v);
+select v from dst where id in (0, 5000, 9999) order by id;
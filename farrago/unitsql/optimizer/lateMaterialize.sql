@@ -0,0 +1,97 @@
+-- $Id$
+-- Tests late materialization of wide columns in LCS row scans joined
+-- with selective dimension tables
+
+create schema latemat;
+set schema 'latemat';
+
+alter session implementation set jar sys_boot.sys_boot.luciddb_plugin;
+
+-- the join key and the wide columns live in separate clusters, and there is
+-- no index on the join key, so the fact table is read with a full scan
+create table fact(
+    dim_id int, qty int, descr varchar(128), notes varchar(128));
+create table dim(id int primary key, name varchar(20));
+
+insert into fact values
+(1, 10, 'first row', 'notes 1'),
+(2, 20, 'second row', 'notes 2'),
+(3, 30, 'third row', 'notes 3'),
+(1, 40, 'fourth row', 'notes 4'),
+(2, 50, 'fifth row', 'notes 5'),
+(3, 60, 'sixth row', 'notes 6'),
+(1, 70, 'seventh row', 'notes 7');
+insert into dim values (1, 'one'), (2, 'two'), (3, 'three');
+
+-- deleted rows must not reappear when the wide columns are fetched by rid
+delete from fact where qty = 70;
+
+-- Create fake statistics so the join with a single dimension row looks
+-- selective
+call sys_boot.mgmt.stat_set_row_count('LOCALDB', 'LATEMAT', 'FACT', 100000);
+call sys_boot.mgmt.stat_set_row_count('LOCALDB', 'LATEMAT', 'DIM', 100);
+call sys_boot.mgmt.stat_set_column_histogram(
+    'LOCALDB', 'LATEMAT', 'FACT', 'DIM_ID', 100, 100, 100, 1, 'A');
+call sys_boot.mgmt.stat_set_column_histogram(
+    'LOCALDB', 'LATEMAT', 'DIM', 'ID', 100, 100, 100, 1, 'A');
+call sys_boot.mgmt.stat_set_column_histogram(
+    'LOCALDB', 'LATEMAT', 'DIM', 'NAME', 100, 100, 100, 1,
+    'ABCDEFGHIJKLMNOPQRSTUVWXYZ');
+
+-- The join is first evaluated over a scan of just the join key and the rid;
+-- the surviving rids are merged into a bitmap which drives a second scan of
+-- the fact table, reading the remaining columns only for those rows
+!set outputformat csv
+explain plan excluding attributes for
+select f.qty, f.descr, f.notes, d.name
+from fact f, dim d
+where f.dim_id = d.id and d.name = 'one'
+order by f.qty;
+
+!set outputformat table
+
+-- table on the left of the join
+select f.qty, f.descr, f.notes, d.name
+from fact f, dim d
+where f.dim_id = d.id and d.name = 'one'
+order by f.qty;
+
+-- table on the right of the join
+select d.name, f.descr, f.notes
+from dim d, fact f
+where d.id = f.dim_id and d.name = 'two'
+order by f.descr;
+
+-- duplicate join keys on the dimension side must not duplicate fact rows
+-- beyond what the join itself produces
+create table dim2(id int, tag varchar(20));
+insert into dim2 values (3, 'a'), (3, 'b');
+call sys_boot.mgmt.stat_set_row_count('LOCALDB', 'LATEMAT', 'DIM2', 2);
+call sys_boot.mgmt.stat_set_column_histogram(
+    'LOCALDB', 'LATEMAT', 'DIM2', 'ID', 1, 100, 1, 1, 'A');
+
+!set outputformat csv
+explain plan excluding attributes for
+select f.qty, f.descr, d.tag
+from fact f, dim2 d
+where f.dim_id = d.id
+order by f.qty, d.tag;
+
+!set outputformat table
+select f.qty, f.descr, d.tag
+from fact f, dim2 d
+where f.dim_id = d.id
+order by f.qty, d.tag;
+
+-- no matching rows
+select f.descr, f.notes
+from fact f, dim d
+where f.dim_id = d.id and d.name = 'four';
+
+-- Without the filter on the dimension table, the join keeps every fact row,
+-- so the fact table is read in a single scan
+!set outputformat csv
+explain plan excluding attributes for
+select f.descr, d.name
+from fact f, dim d
+where f.dim_id = d.id;
@@ -0,0 +1,48 @@
+-- $Id$
+-- Tests loads, index builds and rebuilds of LCS tables with parallel
+-- maintenance of the table's clusters and indexes
+
+create schema pdml;
+set schema 'pdml';
+
+alter session implementation set jar sys_boot.sys_boot.luciddb_plugin;
+alter session set "dmlDegreeOfParallelism" = 4;
+
+create table t(id int primary key, a int, b varchar(10), c int);
+create index t_a on t(a);
+create index t_b on t(b);
+
+-- the load maintains all of the indexes at once
+insert into t values
+(1, 10, 'x', 100),
+(2, 20, 'y', 200),
+(3, 10, 'z', 300),
+(4, 20, 'x', 400),
+(5, 30, 'y', 500),
+(6, 10, 'z', 600);
+
+select id from t where a = 10 order by id;
+select id from t where b = 'x' order by id;
+
+-- DML plans show the degree of parallelism they are prepared with when it
+-- is greater than 1
+create table u(x int);
+!set outputformat csv
+explain plan for insert into u values (10);
+alter session set "dmlDegreeOfParallelism" = 1;
+explain plan for insert into u values (10);
+alter session set "dmlDegreeOfParallelism" = 4;
+!set outputformat table
+
+-- build an index on existing rows
+create index t_c on t(c);
+select id from t where c between 200 and 400 order by id;
+
+-- rebuild all of the indexes after deleting some rows
+delete from t where b = 'y';
+alter table t rebuild;
+
+select id from t where a = 20 order by id;
+select id from t where b = 'z' order by id;
+select id from t where c >= 400 order by id;
+select count(*) from t;
@@ -0,0 +1,81 @@
+-- $Id$
+-- Test pruning of range-partitioned LCS tables
+
+create schema part;
+set schema 'part';
+
+alter session implementation set jar sys_boot.sys_boot.luciddb_plugin;
+
+-- one table per yearly partition, each with its own clusters and indexes
+create table sales_2009(sale_date date, amount int);
+create table sales_2010(sale_date date, amount int);
+create table sales_2011(sale_date date, amount int);
+
+insert into sales_2009 values
+(date '2009-03-01', 10), (date '2009-11-15', 20);
+insert into sales_2010 values
+(date '2010-02-01', 30), (date '2010-06-10', 40), (date '2010-06-20', 50);
+insert into sales_2011 values
+(date '2011-02-01', 60);
+
+create view sales as
+    select * from sales_2009
+    where sale_date < date '2010-01-01'
+union all
+    select * from sales_2010
+    where sale_date >= date '2010-01-01' and sale_date < date '2011-01-01'
+union all
+    select * from sales_2011
+    where sale_date >= date '2011-01-01';
+
+!set outputformat csv
+
+-- only the 2010 partition is scanned
+explain plan for
+select sum(amount) from sales
+where sale_date >= date '2010-06-01' and sale_date < date '2010-07-01';
+
+-- only the 2011 partition is scanned
+explain plan for
+select * from sales where sale_date = date '2011-02-01';
+
+-- no partition qualifies
+explain plan for
+select * from sales where sale_date > date '2012-01-01';
+
+-- every partition is scanned
+explain plan for
+select count(*) from sales where amount > 25;
+
+!set outputformat table
+
+select sum(amount) from sales
+where sale_date >= date '2010-06-01' and sale_date < date '2010-07-01';
+
+select * from sales where sale_date = date '2011-02-01';
+
+select * from sales where sale_date > date '2012-01-01';
+
+select count(*) from sales where amount > 25;
+
+-- partition-level maintenance
+truncate table sales_2009;
+alter table sales_2010 rebuild;
+analyze table sales_2011 compute statistics for all columns;
+
+select count(*) from sales;
+
+-- roll the window forward
+create or replace view sales as
+    select * from sales_2010
+    where sale_date >= date '2010-01-01' and sale_date < date '2011-01-01'
+union all
+    select * from sales_2011
+    where sale_date >= date '2011-01-01';
+drop table sales_2009;
+
+select count(*) from sales;
+
+drop schema part cascade;
+
+-- End lcsPartition.sql
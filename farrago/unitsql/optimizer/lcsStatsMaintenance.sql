@@ -0,0 +1,43 @@
+-- $Id$
+-- Tests that LucidDB column statistics follow rows added after the table
+-- was analyzed
+
+create schema lcsstats;
+set schema 'lcsstats';
+
+alter session implementation set jar sys_boot.sys_boot.luciddb_plugin;
+
+create table ten(i int);
+insert into ten values (0),(1),(2),(3),(4),(5),(6),(7),(8),(9);
+
+create table t(id int, grp int);
+insert into t select a.i*10 + b.i, b.i from ten a, ten b;
+analyze table t compute statistics for all columns;
+
+select table_name, column_name, "CARDINALITY", cardinality_estimated
+from sys_boot.mgmt.histograms_view
+where table_schem = 'LCSSTATS' order by 1, 2;
+
+-- the unique column grows with the rows; the low cardinality column may be
+-- drawing on a bounded domain, so it is left alone
+insert into t select a.i*10 + b.i + 100, b.i from ten a, ten b;
+
+select table_name, row_count from sys_boot.mgmt.row_counts_view
+where table_schem = 'LCSSTATS' order by 1;
+select table_name, column_name, "CARDINALITY", cardinality_estimated
+from sys_boot.mgmt.histograms_view
+where table_schem = 'LCSSTATS' order by 1, 2;
+
+-- deletes leave the statistics alone
+delete from t where id >= 150;
+
+select table_name, column_name, "CARDINALITY", cardinality_estimated
+from sys_boot.mgmt.histograms_view
+where table_schem = 'LCSSTATS' order by 1, 2;
+
+-- reanalyzing brings back exact counts
+analyze table t compute statistics for all columns;
+
+select table_name, column_name, "CARDINALITY", cardinality_estimated
+from sys_boot.mgmt.histograms_view
+where table_schem = 'LCSSTATS' order by 1, 2;
@@ -470,6 +470,8 @@ order by a, sid;
 -- semijoin used for IN clause; customer column has 100 distinct values so
 -- the semijoin should be worthwhile
 --------------------------------------------------------------------------
+-- (keep the list from being evaluated by hash lookup instead)
+alter session set "hashInList" = false;
 !set outputformat csv
 explain plan for
     select * from sales where customer in
@@ -793,9 +793,9 @@ lateral (select *
          where depts2.deptno = d.deptno and depts2.deptno <> emps.deptno) as d2
 order by emps.empno;
 
--- Correlations through set ops are not decorrelated.
+-- Correlations through set ops are decorrelated by joining each branch
+-- with the distinct values of the correlated variables it does not use.
 -- 6.1 union/union all
--- Decorrelation is not performed.
 explain plan without implementation for 
 select empno from emps
 where exists (select * from (select * from depts where depts.deptno = emps.deptno union all
@@ -806,6 +806,11 @@ select empno from emps
 where exists (select * from (select * from depts where depts.deptno = emps.deptno union
                              select * from depts2 where depts2.deptno <> emps.empno));
 
+select empno from emps
+where exists (select * from (select * from depts where depts.deptno = emps.deptno union all
+                             select * from depts2 where depts2.deptno <> emps.empno))
+order by empno;
+
 -- 6.1.1 A solution to 6.1 could be to expand the union and rewrite the exists
 -- condition into exists(union branch 1) or exists(union branch 2).
 explain plan without implementation for 
@@ -844,6 +849,11 @@ select empno from emps
 where exists (select * from (select * from depts where depts.deptno = emps.deptno intersect
                              select * from depts2 where depts2.deptno <> emps.empno));
 
+select empno from emps
+where exists (select * from (select * from depts where depts.deptno = emps.deptno intersect
+                             select * from depts2 where depts2.deptno <> emps.empno))
+order by empno;
+
 -- 6.2.1 however, this is not equivalent to 6.2.
 explain plan without implementation for 
 select empno from emps
@@ -881,6 +891,11 @@ select empno from emps
 where exists (select * from (select * from depts where depts.deptno = emps.deptno except
                              select * from depts2 where depts2.deptno <> emps.empno));
 
+select empno from emps
+where exists (select * from (select * from depts where depts.deptno = emps.deptno except
+                             select * from depts2 where depts2.deptno <> emps.empno))
+order by empno;
+
 -- 6.3.1 however, this is not equivalent to 6.3.
 explain plan without implementation for 
 select empno from emps
@@ -912,6 +927,27 @@ where empno in (
     select empno from emps
     where exists (select * from depts2 where depts2.deptno <> emps.empno));
 
+-- 6.4 When every branch of the set op is correlated on the same column, the
+-- plans contain only hash joins:  the correlator is gone, and the set op is
+-- applied to the branches joined with the distinct outer values.
+-- 6.4.1 union all
+explain plan excluding attributes for
+select name from depts2
+where exists (select * from (select deptno from emps where emps.deptno = depts2.deptno union all
+                             select deptno from depts where depts.deptno = depts2.deptno));
+
+-- 6.4.2 intersect
+explain plan excluding attributes for
+select name from depts2
+where exists (select * from (select deptno from emps where emps.deptno = depts2.deptno intersect
+                             select deptno from depts where depts.deptno = depts2.deptno));
+
+-- 6.4.3 except
+explain plan excluding attributes for
+select name from depts2
+where exists (select * from (select deptno from emps where emps.deptno = depts2.deptno except
+                             select deptno from depts where depts.deptno = depts2.deptno));
+
 -- 7.1 some multiset queries are not decorrelated because they contain set ops.
 explain plan without implementation for 
 select 'abc', multiset[deptno,empno] from emps;
@@ -0,0 +1,24 @@
+-- $Id$
+-- Test script for parallel execution in SqlRunner
+
+create schema parallel_runner;
+set schema 'parallel_runner';
+create table t1(i int not null primary key);
+create table t2(i int not null primary key);
+
+-- independent loads
+insert into t1 values (1), (2);
+insert into t2 values (10);
+insert into t1 select i + 2 from t1;
+insert into t2 select i + 10 from t2;
+
+-- @barrier
+select * from t1 order by i;
+select * from t2 order by i;
+select * from nonexistent;
+
+-- a view hides the table it reads, so the query waits for the insert
+create view v1 as select i from t1;
+insert into t1 values (5);
+select count(*) as c from v1;
+drop schema parallel_runner cascade;
@@ -6,6 +6,11 @@ select sql_stmt from sys_boot.mgmt.statements_view;
 
 select count(mof_id) from sys_boot.mgmt.objects_in_use_view;
 
+select distinct phase from sys_boot.mgmt.statement_timings_view
+where sql_stmt like 'select count(mof_id) from sys_boot.mgmt.objects_in_use%'
+and phase in ('parse', 'validation', 'open', 'prepare')
+order by phase;
+
 select sys_boot.mgmt.sleep(1500) from (values(0));
 
 select count("mofId") from sys_boot.mgmt.dba_foreign_wrappers_internal;
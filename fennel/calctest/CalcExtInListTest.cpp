@@ -0,0 +1,177 @@
+/*
+// $Id$
+// Fennel is a library of data storage and processing components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+#include "fennel/common/CommonPreamble.h"
+#include "fennel/test/TestBase.h"
+#include "fennel/common/TraceSource.h"
+
+#include "fennel/tuple/TupleDataWithBuffer.h"
+#include "fennel/tuple/TuplePrinter.h"
+#include "fennel/calculator/CalcCommon.h"
+#include "fennel/calculator/StringToHex.h"
+#include "fennel/common/FennelExcn.h"
+
+#include <boost/test/test_tools.hpp>
+#include <boost/scoped_array.hpp>
+#include <string>
+#include <limits>
+
+
+using namespace fennel;
+using namespace std;
+
+
+class CalcExtInListTest : virtual public TestBase, public TraceSource
+{
+    void testCalcExtInList();
+
+    void checkOutput(
+        TupleDataWithBuffer const & outTuple,
+        bool const * exp,
+        int validoutputs,
+        int outputs);
+
+    void printOutput(
+        TupleData const & tup,
+        Calculator const & calc);
+
+public:
+    explicit CalcExtInListTest()
+        : TraceSource(shared_from_this(), "CalcExtInListTest")
+    {
+        CalcInit::instance();
+        FENNEL_UNIT_TEST_CASE(CalcExtInListTest, testCalcExtInList);
+    }
+
+    virtual ~CalcExtInListTest()
+    {
+    }
+};
+
+// for nitty-gritty debugging. sadly, doesn't use BOOST_MESSAGE.
+void
+CalcExtInListTest::printOutput(
+    TupleData const & tup,
+    Calculator const & calc)
+{
+#if 0
+    TuplePrinter tuplePrinter;
+    tuplePrinter.print(cout, calc.getOutputRegisterDescriptor(), tup);
+    cout << endl;
+#endif
+}
+
+// outputs [0, validoutputs) hold the expected booleans, the rest are null
+void
+CalcExtInListTest::checkOutput(
+    TupleDataWithBuffer const & outTuple,
+    bool const * exp,
+    int validoutputs,
+    int outputs)
+{
+    int i;
+    for (i = 0; i < validoutputs; i++) {
+        if (!outTuple[i].pData) {
+            BOOST_MESSAGE("error on valid output [" << i << "]");
+            BOOST_REQUIRE(outTuple[i].pData);
+        }
+        BOOST_CHECK_EQUAL(
+            *(reinterpret_cast<bool const *>(outTuple[i].pData)),
+            exp[i]);
+    }
+    for (i = validoutputs; i < outputs; i++) {
+        if (outTuple[i].pData) {
+            BOOST_MESSAGE("error on null output [" << i << "]");
+        }
+        BOOST_CHECK(outTuple[i].pData == NULL);
+    }
+}
+
+void
+CalcExtInListTest::testCalcExtInList()
+{
+    ostringstream pg("");
+    bool exp[6];
+
+    pg << "O bo, bo, bo, bo, bo, bo, bo, bo;" << endl;
+    pg << "L bo, bo, bo, bo, bo, bo, bo, bo;" << endl;
+    pg << "C s8, s8, s8, s8, vc,30, vc,5, c,5, vc,5, vc,5, vc,30;" << endl;
+    pg << "V 110, 2, -5, , ";
+    // list values are each written as their length, a colon and the value
+    pg << "0x" << stringToHex("3:1102:-51:1") << ", ";
+    pg << "0x" << stringToHex("abc") << ", ";
+    pg << "0x" << stringToHex("abc  ") << ", ";
+    pg << "0x" << stringToHex("ab") << ", ";
+    pg << ", ";
+    pg << "0x" << stringToHex("3:abc1:b2:xy") << ";" << endl;
+    pg << "T;" << endl;
+
+    // integer key
+    pg << "CALL 'inListInt(L0, C0, C4);" << endl; exp[0] = true;
+    pg << "CALL 'inListInt(L1, C1, C4);" << endl; exp[1] = false;
+    pg << "CALL 'inListInt(L2, C2, C4);" << endl; exp[2] = true;
+
+    // character keys; trailing spaces are not significant
+    pg << "CALL 'inListStrA(L3, C5, C9);" << endl; exp[3] = true;
+    pg << "CALL 'inListStrA(L4, C6, C9);" << endl; exp[4] = true;
+    pg << "CALL 'inListStrA(L5, C7, C9);" << endl; exp[5] = false;
+    int validoutputs = 6;
+
+    // null keys
+    pg << "CALL 'inListInt(L6, C3, C4);" << endl;
+    pg << "CALL 'inListStrA(L7, C8, C9);" << endl;
+    int outputs = 8;
+
+    for (int i = 0; i < outputs; i++) {
+        pg << "REF O" << i << ", L" << i << ";" << endl;
+    }
+
+    Calculator calc(0);
+
+    try {
+        calc.assemble(pg.str().c_str());
+    } catch (FennelExcn& ex) {
+        BOOST_MESSAGE("Assemble exception " << ex.getMessage());
+        BOOST_MESSAGE(pg.str());
+        BOOST_FAIL("assembler error");
+    }
+
+    TupleDataWithBuffer outTuple(calc.getOutputRegisterDescriptor());
+    TupleDataWithBuffer inTuple(calc.getInputRegisterDescriptor());
+
+    calc.bind(&inTuple, &outTuple);
+    calc.exec();
+    printOutput(outTuple, calc);
+    checkOutput(outTuple, exp, validoutputs, outputs);
+    BOOST_CHECK(calc.mWarnings.empty());
+
+    // run again, so that the hash sets cached in the instruction contexts
+    // are probed rather than built
+    calc.exec();
+    checkOutput(outTuple, exp, validoutputs, outputs);
+    BOOST_CHECK(calc.mWarnings.empty());
+}
+
+
+FENNEL_UNIT_TEST_SUITE(CalcExtInListTest);
+
+// End CalcExtInListTest.cpp
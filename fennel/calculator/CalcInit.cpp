@@ -47,6 +47,7 @@ CalcInit::instance()
     ExtMathRegister(InstructionFactory::getExtendedInstructionTable());
     ExtDateTimeRegister(InstructionFactory::getExtendedInstructionTable());
     ExtRegExpRegister(InstructionFactory::getExtendedInstructionTable());
+    ExtInListRegister(InstructionFactory::getExtendedInstructionTable());
     ExtCastRegister(InstructionFactory::getExtendedInstructionTable());
     ExtDynamicVariableRegister(
         InstructionFactory::getExtendedInstructionTable());
@@ -0,0 +1,177 @@
+/*
+// $Id$
+// Fennel is a library of data storage and processing components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+
+#include "fennel/common/CommonPreamble.h"
+#include "fennel/calculator/ExtendedInstructionTable.h"
+#include "fennel/calculator/ExtendedInstructionContext.h"
+#include "fennel/calculator/ExtInList.h"
+
+#include <hash_set>
+#include "boost/lexical_cast.hpp"
+
+FENNEL_BEGIN_NAMESPACE
+
+
+// FNV-1a hash over the bytes of a string, which may contain NULs
+struct InListStringHash
+{
+    size_t operator()(string const &s) const
+    {
+        size_t h = 2166136261U;
+        for (string::size_type i = 0; i < s.size(); i++) {
+            h ^= static_cast<unsigned char>(s[i]);
+            h *= 16777619U;
+        }
+        return h;
+    }
+};
+
+// Context for caching the set of list values, built on first execution
+// from the encoded literal
+class ExtInListContext : public ExtendedInstructionContext
+{
+public:
+    explicit
+    ExtInListContext()
+    {
+    }
+    std::hash_set<int64_t> ints;
+    std::hash_set<string, InListStringHash> strings;
+};
+
+// Decodes values in the form written by SqlInListOperator.encodeValues:
+// each value is its length, a colon, and then the value itself.
+static void
+inListDecode(
+    RegisterRef<char*>* encoded,
+    vector<string> &values)
+{
+    char const *p = encoded->pointer();
+    char const *end = p + encoded->stringLength();
+    while (p < end) {
+        int len = 0;
+        while (p < end && *p != ':') {
+            len = len * 10 + (*p - '0');
+            p++;
+        }
+        // skip colon
+        p++;
+        assert(p + len <= end);
+        values.push_back(string(p, len));
+        p += len;
+    }
+}
+
+void
+inListInt(
+    boost::scoped_ptr<ExtendedInstructionContext>& context,
+    RegisterRef<bool>* result,
+    RegisterRef<int64_t>* value,
+    RegisterRef<char*>* encoded)
+{
+    if (value->isNull()) {
+        result->toNull();
+        return;
+    }
+    ExtInListContext* ctxP = static_cast<ExtInListContext*>(context.get());
+    if (!ctxP) {
+        ctxP = new ExtInListContext();
+        context.reset(ctxP);
+        vector<string> values;
+        inListDecode(encoded, values);
+        for (uint i = 0; i < values.size(); i++) {
+            ctxP->ints.insert(boost::lexical_cast<int64_t>(values[i]));
+        }
+    }
+    result->value(ctxP->ints.find(value->value()) != ctxP->ints.end());
+}
+
+void
+inListStrA(
+    boost::scoped_ptr<ExtendedInstructionContext>& context,
+    RegisterRef<bool>* result,
+    RegisterRef<char*>* value,
+    RegisterRef<char*>* encoded)
+{
+    assert(StandardTypeDescriptor::isTextArray(value->type()));
+
+    if (value->isNull()) {
+        result->toNull();
+        return;
+    }
+    ExtInListContext* ctxP = static_cast<ExtInListContext*>(context.get());
+    if (!ctxP) {
+        ctxP = new ExtInListContext();
+        context.reset(ctxP);
+        vector<string> values;
+        inListDecode(encoded, values);
+        ctxP->strings.insert(values.begin(), values.end());
+    }
+
+    // PAD SPACE: trailing spaces are not significant, and were already
+    // trimmed from the list values
+    char const *p = value->pointer();
+    int len = value->stringLength();
+    while (len > 0 && p[len - 1] == ' ') {
+        len--;
+    }
+    result->value(
+        ctxP->strings.find(string(p, len)) != ctxP->strings.end());
+}
+
+void
+ExtInListRegister(ExtendedInstructionTable* eit)
+{
+    assert(eit != NULL);
+
+    vector<StandardTypeDescriptorOrdinal> params;
+    params.push_back(STANDARD_TYPE_BOOL);
+    params.push_back(STANDARD_TYPE_INT_64);
+    params.push_back(STANDARD_TYPE_VARCHAR);
+
+    eit->add(
+        "inListInt", params,
+        (ExtendedInstruction3Context<bool, int64_t, char*>*) NULL,
+        &inListInt);
+
+    for (int i = 0; i < 2; i++) {
+        vector<StandardTypeDescriptorOrdinal> strParams;
+        strParams.push_back(STANDARD_TYPE_BOOL);
+        if (i) {
+            strParams.push_back(STANDARD_TYPE_CHAR);
+        } else {
+            strParams.push_back(STANDARD_TYPE_VARCHAR);
+        }
+        strParams.push_back(STANDARD_TYPE_VARCHAR);
+
+        eit->add(
+            "inListStrA", strParams,
+            (ExtendedInstruction3Context<bool, char*, char*>*) NULL,
+            &inListStrA);
+    }
+}
+
+
+FENNEL_END_NAMESPACE
+
+// End ExtInList.cpp
@@ -0,0 +1,62 @@
+/*
+// $Id$
+// Fennel is a library of data storage and processing components.
+// Copyright (C) 2011 The Eigenbase Project
+// Copyright (C) 2011 SQLstream, Inc.
+// Copyright (C) 2011 Dynamo BI Corporation
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+
+#ifndef Fennel_ExtInList_Included
+#define Fennel_ExtInList_Included
+
+#include "fennel/calculator/RegisterReference.h"
+#include "fennel/calculator/ExtendedInstruction.h"
+
+FENNEL_BEGIN_NAMESPACE
+
+//! Tests an integer for membership in a list of values, for the
+//! $IN_LIST operator. The list is encoded as a single VARCHAR by
+//! the Farrago calc program builder; it is decoded into a hash set
+//! on first execution and cached in the instruction context.
+void
+inListInt(
+    boost::scoped_ptr<ExtendedInstructionContext>& context,
+    RegisterRef<bool>* result,
+    RegisterRef<int64_t>* value,
+    RegisterRef<char*>* encoded);
+
+//! Tests a string for membership in a list of values. Ascii.
+//! Trailing spaces are not significant (PAD SPACE).
+void
+inListStrA(
+    boost::scoped_ptr<ExtendedInstructionContext>& context,
+    RegisterRef<bool>* result,
+    RegisterRef<char*>* value,
+    RegisterRef<char*>* encoded);
+
+class ExtendedInstructionTable;
+
+void
+ExtInListRegister(ExtendedInstructionTable* eit);
+
+
+FENNEL_END_NAMESPACE
+
+#endif
+
+// End ExtInList.h
@@ -48,6 +48,7 @@
 #include "fennel/calculator/ExtendedInstructionTable.h"
 #include "fennel/calculator/ExtString.h"
 #include "fennel/calculator/ExtRegExp.h"
+#include "fennel/calculator/ExtInList.h"
 #include "fennel/calculator/ExtMath.h"
 #include "fennel/calculator/ExtDateTime.h"
 #include "fennel/calculator/ExtCast.h"
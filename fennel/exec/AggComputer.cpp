@@ -91,6 +91,16 @@ AggComputer::~AggComputer()
 {
 }
 
+void AggComputer::updateAccumulatorRepeated(
+    TupleDatum &accumulatorDatum,
+    TupleData const &inputTuple,
+    uint64_t nRepeats)
+{
+    for (uint64_t i = 0; i < nRepeats; i++) {
+        updateAccumulator(accumulatorDatum, inputTuple);
+    }
+}
+
 inline uint64_t &CountAggComputer::interpretDatum(TupleDatum &datum)
 {
     assert(datum.cbData == sizeof(uint64_t));
@@ -117,6 +127,14 @@ void CountAggComputer::updateAccumulatorImpl(
     ++count;
 }
 
+inline void CountAggComputer::updateAccumulatorImpl(
+    TupleDatum &accumulatorDatum,
+    uint64_t nRepeats)
+{
+    uint64_t &count = interpretDatum(accumulatorDatum);
+    count += nRepeats;
+}
+
 void CountAggComputer::computeOutput(
     TupleDatum &outputDatum,
     TupleDatum const &accumulatorDatum)
@@ -138,6 +156,14 @@ void CountStarAggComputer::updateAccumulator(
     updateAccumulatorImpl(accumulatorDatum);
 }
 
+void CountStarAggComputer::updateAccumulatorRepeated(
+    TupleDatum &accumulatorDatum,
+    TupleData const &,
+    uint64_t nRepeats)
+{
+    updateAccumulatorImpl(accumulatorDatum, nRepeats);
+}
+
 void CountStarAggComputer::initAccumulator(
     TupleDatum &accumulatorDatum,
     TupleData const &)
@@ -182,6 +208,18 @@ void CountNullableAggComputer::updateAccumulator(
     }
 }
 
+void CountNullableAggComputer::updateAccumulatorRepeated(
+    TupleDatum &accumulatorDatum,
+    TupleData const &inputTuple,
+    uint64_t nRepeats)
+{
+    assert(iInputAttr != -1);
+    TupleDatum const &inputDatum = inputTuple[iInputAttr];
+    if (inputDatum.pData) {
+        updateAccumulatorImpl(accumulatorDatum, nRepeats);
+    }
+}
+
 void CountNullableAggComputer::initAccumulator(
     TupleDatum &accumulatorDatum,
     TupleData const &inputTuple)
@@ -281,6 +319,21 @@ void ExtremeAggComputer::updateAccumulator(
     copyInputToAccumulator(accumulatorDatum, inputDatum);
 }
 
+void ExtremeAggComputer::updateAccumulatorRepeated(
+    TupleDatum &accumulatorDatum,
+    TupleData const &inputTuple,
+    uint64_t nRepeats)
+{
+    // MIN and MAX are idempotent, so only whether the value occurs at all
+    // matters; SINGLE_VALUE has to see every occurrence to detect duplicates
+    if (aggFunction == AGG_FUNC_SINGLE_VALUE) {
+        AggComputer::updateAccumulatorRepeated(
+            accumulatorDatum, inputTuple, nRepeats);
+    } else if (nRepeats) {
+        updateAccumulator(accumulatorDatum, inputTuple);
+    }
+}
+
 void ExtremeAggComputer::computeOutput(
     TupleDatum &outputDatum,
     TupleDatum const &accumulatorDatum)
@@ -94,6 +94,24 @@ public:
         TupleDatum &accumulatorDatum,
         TupleData const &inputTuple) = 0;
 
+    /**
+     * Updates an accumulator as if the same input tuple had been seen
+     * a number of times in succession.  The default implementation
+     * calls updateAccumulator once per repetition; computers with a
+     * closed form (e.g. COUNT and SUM) override it.
+     *
+     * @param accumulatorDatum in-memory value to be updated
+     *
+     * @param inputTuple source for update; no references to this
+     * data should be retained after this method returns
+     *
+     * @param nRepeats number of times the input tuple occurs; may be 0
+     */
+    virtual void updateAccumulatorRepeated(
+        TupleDatum &accumulatorDatum,
+        TupleData const &inputTuple,
+        uint64_t nRepeats);
+
     /**
      * Computes an output based on accumulator state.
      *
@@ -43,6 +43,9 @@ protected:
         TupleDatum &accumulatorDatum);
     inline void updateAccumulatorImpl(
         TupleDatum &accumulatorDatum);
+    inline void updateAccumulatorImpl(
+        TupleDatum &accumulatorDatum,
+        uint64_t nRepeats);
 
 public:
     // implement AggComputer
@@ -68,6 +71,12 @@ public:
         TupleDatum &accumulatorDatum,
         TupleData const &inputTuple);
 
+    // implement AggComputer
+    virtual void updateAccumulatorRepeated(
+        TupleDatum &accumulatorDatum,
+        TupleData const &inputTuple,
+        uint64_t nRepeats);
+
     virtual void initAccumulator(
         TupleDatum &accumulatorDatumDest,
         TupleData const &inputTuple);
@@ -99,6 +108,12 @@ public:
         TupleDatum &accumulatorDatum,
         TupleData const &inputTuple);
 
+    // implement AggComputer
+    virtual void updateAccumulatorRepeated(
+        TupleDatum &accumulatorDatum,
+        TupleData const &inputTuple,
+        uint64_t nRepeats);
+
     virtual void initAccumulator(
         TupleDatum &accumulatorDatumDest,
         TupleData const &inputTuple);
@@ -153,6 +168,12 @@ public:
         TupleDatum &accumulatorDatum,
         TupleData const &inputTuple);
 
+    // implement AggComputer
+    virtual void updateAccumulatorRepeated(
+        TupleDatum &accumulatorDatum,
+        TupleData const &inputTuple,
+        uint64_t nRepeats);
+
     // implement AggComputer
     virtual void computeOutput(
         TupleDatum &outputDatum,
@@ -231,6 +252,24 @@ public:
         }
     }
 
+    // implement AggComputer
+    virtual void updateAccumulatorRepeated(
+        TupleDatum &accumulatorDatum,
+        TupleData const &inputTuple,
+        uint64_t nRepeats)
+    {
+        assert(iInputAttr != -1);
+        TupleDatum const &inputDatum = inputTuple[iInputAttr];
+        if (!inputDatum.pData || !nRepeats) {
+            return;
+        }
+        isResultNull = false;
+        T &sum = interpretDatum(accumulatorDatum);
+        T input = interpretDatum(inputDatum);
+        // TODO jvs 6-Oct-2005:  overflow check
+        sum += input * static_cast<T>(nRepeats);
+    }
+
     // implement AggComputer
     virtual void computeOutput(
         TupleDatum &outputDatum,
@@ -281,6 +281,8 @@ void LhxHashTable::init(
     hashGen.init(partitionLevel);
     hashGenSub.init(partitionLevel + 1);
 
+    resetLastKey(true);
+
     uint i;
 
     /*
@@ -419,6 +421,7 @@ bool LhxHashTable::allocateResources(bool reuse)
     slotBlocks.clear();
     firstSlot = NULL;
     lastSlot = NULL;
+    resetLastKey(false);
 
     if (!reuse) {
         firstBlock = allocBlock();
@@ -511,6 +514,17 @@ void LhxHashTable::releaseResources(bool reuse)
     blockAccessor.reset();
     nodeBlockAccessor.reset();
     currentBlock = NULL;
+    resetLastKey(false);
+}
+
+void LhxHashTable::resetLastKey(bool resetStats)
+{
+    lastKeyLocation = NULL;
+    if (resetStats) {
+        lastKeyLookups = 0;
+        lastKeyHits = 0;
+        useLastKey = true;
+    }
 }
 
 void LhxHashTable::calculateNumSlots(
@@ -618,31 +632,59 @@ PBuffer LhxHashTable::findKeyLocation(
     bool isProbing,
     bool removeDuplicateProbe)
 {
-    uint slotNum =
-        (hashGen.hash(inputTuple, inputKeyProj, isKeyColVarChar)) % numSlots;
+    PBuffer keyLocation = NULL;
 
-    PBuffer *slot = getSlot(slotNum);
-    PBuffer keyLocation = (PBuffer)slot;
-    PBuffer firstKey = *slot;
-    PBuffer nextKey;
-
-    if (firstKey) {
+    if (useLastKey && lastKeyLocation) {
         /*
-         * Keep searching if the key has already been linked to keys in the
-         * same slot.
+         * Try the key found by the previous lookup first.  Only
+         * addKeyData shifts existing keys to a different location, and it
+         * replaces the cached location with that of the key it inserts;
+         * aggData only replaces the key buffer stored at a location.
          */
-        hashKeyAccessor.setCurrent(firstKey, true);
-        while (!hashKeyAccessor.matches(inputTuple, inputKeyProj)) {
-            nextKey = hashKeyAccessor.getNext();
-            if (!nextKey) {
-                return NULL;
-            }
+        PBuffer lastKey;
+        memcpy((PBuffer)&lastKey, lastKeyLocation, sizeof(PBuffer));
+        hashKeyAccessor.setCurrent(lastKey, true);
+        lastKeyLookups++;
+        if (hashKeyAccessor.matches(inputTuple, inputKeyProj)) {
+            keyLocation = lastKeyLocation;
+            lastKeyHits++;
+        } else if (lastKeyLookups >= LAST_KEY_SAMPLE_SIZE
+            && lastKeyHits < lastKeyLookups / 8)
+        {
+            useLastKey = false;
+        }
+    }
 
-            keyLocation = hashKeyAccessor.getNextLocation();
-            hashKeyAccessor.setCurrent(nextKey, true);
+    if (!keyLocation) {
+        uint slotNum =
+            (hashGen.hash(inputTuple, inputKeyProj, isKeyColVarChar))
+            % numSlots;
+
+        PBuffer *slot = getSlot(slotNum);
+        keyLocation = (PBuffer)slot;
+        PBuffer firstKey = *slot;
+        PBuffer nextKey;
+
+        if (firstKey) {
+            /*
+             * Keep searching if the key has already been linked to keys in
+             * the same slot.
+             */
+            hashKeyAccessor.setCurrent(firstKey, true);
+            while (!hashKeyAccessor.matches(inputTuple, inputKeyProj)) {
+                nextKey = hashKeyAccessor.getNext();
+                if (!nextKey) {
+                    return NULL;
+                }
+
+                keyLocation = hashKeyAccessor.getNextLocation();
+                hashKeyAccessor.setCurrent(nextKey, true);
+            }
+        } else {
+            return NULL;
         }
-    } else {
-        return NULL;
+
+        lastKeyLocation = keyLocation;
     }
 
     /*
@@ -738,6 +780,7 @@ bool LhxHashTable::addKeyData(TupleData const &inputTuple)
     }
 
     *slot = newKey;
+    lastKeyLocation = (PBuffer)slot;
     hashKeyAccessor.setCurrent(newKey, false);
     hashKeyAccessor.setMatched(false);
     hashKeyAccessor.setNext(newNextKey);
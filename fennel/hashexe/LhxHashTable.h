@@ -758,6 +758,40 @@ class FENNEL_HASHEXE_EXPORT LhxHashTable
     TupleData tmpKeyTuple;
     TupleData tmpDataTuple;
 
+    /**
+     * Location of the key most recently found or inserted, or NULL if there
+     * is none. Column store scans return long runs of the same value, since
+     * each compressed batch holds only a small dictionary of distinct values;
+     * checking this key first lets a run be grouped or probed with a single
+     * key comparison per tuple, instead of hashing the (possibly long) key
+     * and walking its slot chain.
+     */
+    PBuffer lastKeyLocation;
+
+    /**
+     * Number of lookups, and the number of them satisfied by
+     * lastKeyLocation. Once enough lookups have been made, the check is
+     * disabled if it is rarely satisfied, so that input without runs does not
+     * pay for an extra comparison per tuple.
+     */
+    uint lastKeyLookups;
+    uint lastKeyHits;
+    bool useLastKey;
+
+    /**
+     * Number of lookups after which lastKeyLocation is checked for
+     * usefulness.
+     */
+    static const uint LAST_KEY_SAMPLE_SIZE = 1024;
+
+    /**
+     * Forget the cached key location, e.g. because the hash table contents
+     * are being discarded.
+     *
+     * @param [in] resetStats whether to also restart the hit rate sampling
+     */
+    void resetLastKey(bool resetStats);
+
 public:
 
     // REVIEW jvs 25-Aug-2006:  No need to repeat LhxHashTable qualifier
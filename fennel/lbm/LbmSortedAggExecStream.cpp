@@ -32,8 +32,11 @@ FENNEL_BEGIN_CPPFILE("$Id$");
  * LbmRepeatingAggComputer is an aggregate computer that wraps another
  * aggregate computer. Its input is expected to be bitmap tuples. On an
  * update, it counts bits from the segment data field (expected to be
- * the last one) and applies the update multiple times, once for each bit
- * set in the segment data field.
+ * the last one) and applies the update as if the tuple had been seen once
+ * for each bit set in the segment data field. The wrapped computer does
+ * this in closed form where it can, so COUNT adds the bit count and SUM
+ * adds the key times the bit count, while MIN and MAX only consider keys
+ * whose bitmaps are non-empty.
  */
 class LbmRepeatingAggComputer : public AggComputer
 {
@@ -42,6 +45,8 @@ class LbmRepeatingAggComputer : public AggComputer
 public:
     explicit LbmRepeatingAggComputer(AggComputer *pComputer);
 
+    virtual ~LbmRepeatingAggComputer();
+
     // implement AggComputer
     virtual void setInputAttrIndex(uint iInputAttrIndex);
 
@@ -77,6 +82,11 @@ LbmRepeatingAggComputer::LbmRepeatingAggComputer(
     this->pComputer = pComputer;
 }
 
+LbmRepeatingAggComputer::~LbmRepeatingAggComputer()
+{
+    delete pComputer;
+}
+
 void LbmRepeatingAggComputer::setInputAttrIndex(uint iInputAttrIndex)
 {
     AggComputer::setInputAttrIndex(iInputAttrIndex);
@@ -95,11 +105,9 @@ void LbmRepeatingAggComputer::updateAccumulator(
 {
     // segment data should be contained in the last field
     TupleDatum segmentDatum = inputTuple[inputTuple.size() - 1];
-    uint loops = LbmByteSegment::countBits(segmentDatum);
+    uint64_t nBits = LbmByteSegment::countBits(segmentDatum);
 
-    for (uint i = 0; i < loops; i++) {
-        pComputer->updateAccumulator(accumulatorDatum, inputTuple);
-    }
+    pComputer->updateAccumulatorRepeated(accumulatorDatum, inputTuple, nBits);
 }
 
 void LbmRepeatingAggComputer::computeOutput(
@@ -147,14 +155,9 @@ AggComputer *LbmSortedAggExecStream::newAggComputer(
     AggComputer *pComputer =
         SortedAggExecStream::newAggComputer(aggFunction, pAttrDesc);
 
-    switch (aggFunction) {
-    case AGG_FUNC_COUNT:
-    case AGG_FUNC_SUM:
-        pComputer = new LbmRepeatingAggComputer(pComputer);
-    default:
-        ;
-    }
-    return pComputer;
+    // every builtin is weighted by bitmap cardinality; MIN and MAX need the
+    // wrapper too, so that entries with empty bitmaps are skipped
+    return new LbmRepeatingAggComputer(pComputer);
 }
 
 FENNEL_END_CPPFILE("$Id$");
@@ -47,9 +47,10 @@ struct LbmSortedAggExecStreamParams : public SortedAggExecStreamParams
  *
  * <p>
  *
- * The behavior of MIN and MAX are not changed by bitmap fields.
- * However, the COUNT and SUM accumulations are applied multiple times,
- * according to the number of bits in the bitmap fields.
+ * Each input tuple is weighted by the number of bits in its bitmap fields.
+ * COUNT adds that number and SUM adds the key multiplied by it, without
+ * visiting the bits one at a time. MIN and MAX are otherwise unchanged, but
+ * skip tuples whose bitmaps are empty.
  *
  * @author John Pham
  * @version $Id$
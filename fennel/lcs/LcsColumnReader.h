@@ -285,6 +285,21 @@ public:
     bool applyFilters(
         TupleDescriptor &projDescriptor,
         TupleData &outputTupleData);
+
+    /**
+     * Determines whether the residual filters on this column reject every
+     * value in the current batch, so that no row in the batch can qualify.
+     * Only compressed batches are recognized; since their distinct values
+     * are sorted, this falls out of building the filtering bitmap, and serves
+     * as a min/max synopsis of the batch without any extra storage.
+     *
+     * @return true if the rest of the current batch can be skipped
+     */
+    bool batchExcluded() const
+    {
+        return !filters.filteringBitmap.empty()
+            && filters.filteringBitmap.none();
+    }
 };
 
 FENNEL_END_NAMESPACE
@@ -487,6 +487,7 @@ ExecStreamResult LcsRowScanExecStream::execute(ExecStreamQuantum const &quantum)
                         outputTupleData,
                         prevClusterEnd);
                 if (!passedFilter) {
+                    skipExcludedBatch(pScan);
                     break;
                 }
                 prevClusterEnd += pScan->nColsToRead;
@@ -527,6 +528,23 @@ ExecStreamResult LcsRowScanExecStream::execute(ExecStreamQuantum const &quantum)
     return EXECRC_QUANTUM_EXPIRED;
 }
 
+void LcsRowScanExecStream::skipExcludedBatch(SharedLcsClusterReader &pScan)
+{
+    for (uint i = 0; i < pScan->nColsToRead; i++) {
+        if (pScan->clusterCols[i].batchExcluded()) {
+            LcsRid endRid = pScan->getRangeEndRid();
+            if (nextRid < endRid) {
+                FENNEL_TRACE(
+                    TRACE_FINER,
+                    "skipping rids " << opaqueToInt(nextRid) << " to "
+                    << opaqueToInt(endRid) << " excluded by filters");
+                nextRid = endRid;
+            }
+            return;
+        }
+    }
+}
+
 ExecStreamResult LcsRowScanExecStream::fillRidRunBuffer()
 {
     ExecStreamResult rc;
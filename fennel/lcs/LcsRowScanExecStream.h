@@ -336,6 +336,16 @@ class FENNEL_LCS_EXPORT LcsRowScanExecStream
      */
     ExecStreamResult fillRidRunBuffer();
 
+    /**
+     * Called when a row fails the residual filters of a cluster. If the
+     * filters reject every value in the cluster's current batch, advances
+     * nextRid past the batch, so that its remaining rows are not fetched
+     * from any cluster.
+     *
+     * @param pScan reader for the cluster whose filters failed
+     */
+    void skipExcludedBatch(SharedLcsClusterReader &pScan);
+
 protected:
     /**
      * Turn on count aggregation mode.
@@ -86,6 +86,14 @@ protected:
         BTreeDescriptor &bTreeDescriptor,
         bool compressed);
 
+    /**
+     * Loads a single cluster with nRows rows, with one column per generator.
+     */
+    void loadOneCluster(
+        uint nRows,
+        vector<SharedInt64ColumnGenerator> const &columnGenerators,
+        BTreeDescriptor &bTreeDescriptor);
+
     /**
      * Reads rows from clusters.  Assumes clusters have been loaded by
      * loadClusters/loadOneCluster.
@@ -145,6 +153,19 @@ protected:
         bool compressed,
         LcsCountAggExecStreamParams *pCountParams = NULL);
 
+    /**
+     * Reads every "skipRows" rows from a single cluster loaded by
+     * testFilterSkipsBatches, with a residual filter that only qualifies
+     * the rows of the middle run, and verifies their rids and values.
+     *
+     * @param nRows total number of rows in the cluster
+     *
+     * @param blockRows number of rows in each run of equal values
+     *
+     * @param skipRows read every "skipRows" rows
+     */
+    void testBatchSkipScan(uint nRows, uint blockRows, uint skipRows);
+
     void setSearchKey(
         char lowerDirective,
         char upperDirective,
@@ -228,6 +249,8 @@ public:
             LcsRowScanExecStreamTest, testScanPastEndOfCluster);
         FENNEL_UNIT_TEST_CASE(
             LcsRowScanExecStreamTest, testCompressedFiltering);
+        FENNEL_UNIT_TEST_CASE(
+            LcsRowScanExecStreamTest, testFilterSkipsBatches);
         FENNEL_UNIT_TEST_CASE(LcsRowScanExecStreamTest, testBernoulliSampling);
         FENNEL_UNIT_TEST_CASE(LcsRowScanExecStreamTest, testSystemSampling);
         FENNEL_UNIT_TEST_CASE(LcsRowScanExecStreamTest, testCount);
@@ -240,6 +263,7 @@ public:
     void testScanOnEmptyCluster();
     void testScanPastEndOfCluster();
     void testCompressedFiltering();
+    void testFilterSkipsBatches();
     void testBernoulliSampling();
     void testSystemSampling();
     void testCount();
@@ -268,15 +292,9 @@ void LcsRowScanExecStreamTest::loadOneCluster(
     BTreeDescriptor &bTreeDescriptor,
     bool compressed)
 {
-    MockProducerExecStreamParams mockParams;
-    for (uint i = 0; i < nCols; i++) {
-        mockParams.outputTupleDesc.push_back(attrDesc_int64);
-    }
-    mockParams.nRows = nRows;
-
     // generators for input stream load
 
-    vector<boost::shared_ptr<ColumnGenerator<int64_t> > > columnGenerators;
+    vector<SharedInt64ColumnGenerator> columnGenerators;
     for (uint i = 0; i < nCols; i++) {
         SharedInt64ColumnGenerator col =
             SharedInt64ColumnGenerator(
@@ -286,6 +304,21 @@ void LcsRowScanExecStreamTest::loadOneCluster(
                 : new SeqColumnGenerator(i + colStart));
         columnGenerators.push_back(col);
     }
+    loadOneCluster(nRows, columnGenerators, bTreeDescriptor);
+}
+
+void LcsRowScanExecStreamTest::loadOneCluster(
+    uint nRows,
+    vector<SharedInt64ColumnGenerator> const &columnGenerators,
+    BTreeDescriptor &bTreeDescriptor)
+{
+    uint nCols = columnGenerators.size();
+
+    MockProducerExecStreamParams mockParams;
+    for (uint i = 0; i < nCols; i++) {
+        mockParams.outputTupleDesc.push_back(attrDesc_int64);
+    }
+    mockParams.nRows = nRows;
     mockParams.pGenerator.reset(
         new CompositeExecStreamGenerator(columnGenerators));
 
@@ -641,6 +674,149 @@ void LcsRowScanExecStreamTest::testCompressedFiltering()
     testFilterCols(nRows, nCols, nClusters, proj, 1, 500*NDUPS+500, true);
 }
 
+/**
+ * Filters a cluster whose column holds runs of equal values long enough to
+ * fill whole batches, each of which compresses to a single distinct value.
+ * The residual filter rejects every value in the batches before and after the
+ * middle run, so the scan skips those batches; the rows after the skipped
+ * batches must still be fetched with the right rids.
+ */
+void LcsRowScanExecStreamTest::testFilterSkipsBatches()
+{
+    uint blockRows = 10000;
+    uint nRows = 3 * blockRows;
+
+    // column 0 is 0 for the first blockRows rows, then 1, then 2
+    boost::shared_ptr<BTreeDescriptor> pBTreeDesc =
+        boost::shared_ptr<BTreeDescriptor> (new BTreeDescriptor());
+    bTreeClusters.push_back(pBTreeDesc);
+    vector<SharedInt64ColumnGenerator> columnGenerators;
+    columnGenerators.push_back(
+        SharedInt64ColumnGenerator(new DupColumnGenerator(blockRows)));
+    loadOneCluster(nRows, columnGenerators, *(bTreeClusters[0]));
+    resetExecStreamTest();
+
+    testBatchSkipScan(nRows, blockRows, 1);
+    resetExecStreamTest();
+
+    // skip rows, so that the first qualifying rid is not the first rid of
+    // the run
+    testBatchSkipScan(nRows, blockRows, 3);
+}
+
+void LcsRowScanExecStreamTest::testBatchSkipScan(
+    uint nRows,
+    uint blockRows,
+    uint skipRows)
+{
+    // setup input rid stream
+
+    ValuesExecStreamParams valuesParams;
+    boost::shared_array<FixedBuffer> pBuffer;
+    ExecStreamEmbryo valuesStreamEmbryo;
+    LcsRowScanExecStreamParams scanParams;
+
+    scanParams.hasExtraFilter = true;
+    scanParams.samplingMode = SAMPLING_OFF;
+    scanParams.isFullScan = false;
+
+    valuesParams.outputTupleDesc.push_back(attrDesc_int64);
+    valuesParams.outputTupleDesc.push_back(attrDesc_bitmap);
+    valuesParams.outputTupleDesc.push_back(attrDesc_bitmap);
+
+    uint bufferSize = std::max(
+        16, (int) (nRows / 8 + nRows / bitmapColSize * 8));
+    pBuffer.reset(new FixedBuffer[bufferSize]);
+    valuesParams.pTupleBuffer = pBuffer;
+    valuesParams.bufSize = generateBitmaps(
+        nRows, skipRows, valuesParams.outputTupleDesc, pBuffer.get());
+    assert(valuesParams.bufSize <= bufferSize);
+    valuesStreamEmbryo.init(new ValuesExecStream(), valuesParams);
+    valuesStreamEmbryo.getStream()->setName("ValuesExecStream");
+
+    // setup the search key key0 = 1, where key0 corresponds to column #0
+
+    TupleAttributeDescriptor attrDesc_nullableInt64 =
+        TupleAttributeDescriptor(
+            stdTypeFactory.newDataType(STANDARD_TYPE_INT_64),
+            true, sizeof(uint64_t));
+
+    ValuesExecStreamParams filterParams;
+    TupleDescriptor inputTupleDesc;
+    for (uint i = 0; i < 2; i++) {
+        inputTupleDesc.push_back(attrDesc_char1);
+        inputTupleDesc.push_back(attrDesc_nullableInt64);
+        filterParams.outputTupleDesc.push_back(attrDesc_char1);
+        filterParams.outputTupleDesc.push_back(attrDesc_nullableInt64);
+    }
+    TupleData inputTupleData(inputTupleDesc);
+    TupleAccessor inputTupleAccessor;
+    inputTupleAccessor.compute(inputTupleDesc);
+
+    boost::shared_array<FixedBuffer> inputBuffer;
+    inputBuffer.reset(new FixedBuffer[inputTupleAccessor.getMaxByteCount()]);
+    uint offset = 0;
+
+    setSearchKey(
+        '[', ']', 1, 1, inputBuffer.get(), offset, inputTupleAccessor,
+        inputTupleData);
+
+    filterParams.pTupleBuffer = inputBuffer;
+    filterParams.bufSize = offset;
+    ExecStreamEmbryo filterStreamEmbryo;
+    filterStreamEmbryo.init(new ValuesExecStream(), filterParams);
+    filterStreamEmbryo.getStream()->setName("ValuesExecStream1");
+
+    // setup parameters into scan
+    //  1 cluster with 1 column
+
+    struct LcsClusterScanDef clusterScanDef;
+
+    clusterScanDef.clusterTupleDesc.push_back(attrDesc_int64);
+    clusterScanDef.pSegment = bTreeClusters[0]->segmentAccessor.pSegment;
+    clusterScanDef.pCacheAccessor =
+        bTreeClusters[0]->segmentAccessor.pCacheAccessor;
+    clusterScanDef.tupleDesc = bTreeClusters[0]->tupleDescriptor;
+    clusterScanDef.keyProj = bTreeClusters[0]->keyProjection;
+    clusterScanDef.rootPageId = bTreeClusters[0]->rootPageId;
+    clusterScanDef.segmentId = bTreeClusters[0]->segmentId;
+    clusterScanDef.pageOwnerId = bTreeClusters[0]->pageOwnerId;
+
+    scanParams.lcsClusterScanDefs.push_back(clusterScanDef);
+
+    // project the rid as well as the filtered column
+    scanParams.outputProj.push_back(LCS_RID_COLUMN_ID);
+    scanParams.outputProj.push_back(0);
+    scanParams.outputTupleDesc.push_back(attrDesc_int64);
+    scanParams.outputTupleDesc.push_back(attrDesc_int64);
+    scanParams.residualFilterCols.push_back(0);
+
+    ExecStreamEmbryo scanStreamEmbryo;
+    scanStreamEmbryo.init(new LcsRowScanExecStream(), scanParams);
+    scanStreamEmbryo.getStream()->setName("RowScanExecStream");
+
+    std::vector<ExecStreamEmbryo> sources;
+    sources.push_back(valuesStreamEmbryo);
+    sources.push_back(filterStreamEmbryo);
+
+    SharedExecStream pOutputStream =
+        prepareConfluenceGraph(sources, scanStreamEmbryo);
+
+    // only the rids read from the middle run qualify
+    uint firstRid = (blockRows + skipRows - 1) / skipRows * skipRows;
+    uint expectedNumRows = (2 * blockRows - 1 - firstRid) / skipRows + 1;
+
+    vector<SharedInt64ColumnGenerator> columnGenerators;
+    columnGenerators.push_back(
+        SharedInt64ColumnGenerator(
+            new SeqColumnGenerator(firstRid, skipRows)));
+    columnGenerators.push_back(
+        SharedInt64ColumnGenerator(new ConstColumnGenerator(1)));
+
+    CompositeExecStreamGenerator resultGenerator(columnGenerators);
+    verifyOutput(*pOutputStream, expectedNumRows, resultGenerator);
+}
+
 void LcsRowScanExecStreamTest::testCount()
 {
     uint nRows = 50000;
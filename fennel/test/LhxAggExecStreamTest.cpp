@@ -38,6 +38,12 @@ class LhxAggExecStreamTest : public ExecStreamUnitTestBase
     void testCountImpl(uint forcePartitionLevel);
     void testSumImpl(uint forcePartitionLevel);
     void testGroupCountImpl(uint forcePartitionLevel);
+    void testGroupCountRunsImpl(uint forcePartitionLevel);
+    void testGroupCountImpl(
+        uint forcePartitionLevel,
+        uint numRows,
+        SharedMockProducerExecStreamGenerator pGenerator,
+        uint groupSize);
     void testSingleValueImpl(uint forcePartitionLevel);
 
 public:
@@ -46,10 +52,13 @@ public:
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testCount);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testSum);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testGroupCount);
+        FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testGroupCountRuns);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testSingleValue);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testCountPartition);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testSumPartition);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testGroupCountPartition);
+        FENNEL_UNIT_TEST_CASE(
+            LhxAggExecStreamTest, testGroupCountRunsPartition);
         FENNEL_UNIT_TEST_CASE(LhxAggExecStreamTest, testSingleValuePartition);
     }
 
@@ -60,7 +69,9 @@ public:
     void testSumPartition();
 
     void testGroupCount();
+    void testGroupCountRuns();
     void testGroupCountPartition();
+    void testGroupCountRunsPartition();
 
     void testSingleValue();
     void testSingleValuePartition();
@@ -91,11 +102,38 @@ void LhxAggExecStreamTest::testGroupCount()
     testGroupCountImpl(0);
 }
 
+void LhxAggExecStreamTest::testGroupCountRuns()
+{
+    testGroupCountRunsImpl(0);
+}
+
 void LhxAggExecStreamTest::testGroupCountPartition()
 {
     testGroupCountImpl(2);
 }
 
+void LhxAggExecStreamTest::testGroupCountRunsPartition()
+{
+    testGroupCountRunsImpl(2);
+}
+
+void LhxAggExecStreamTest::testGroupCountRunsImpl(uint forcePartitionLevel)
+{
+    // Long runs of the same key, as produced by scans of compressed
+    // column store batches, with each key recurring in several runs.
+    vector<boost::shared_ptr<ColumnGenerator< ::int64_t > > > columnGenerators;
+    SharedInt64ColumnGenerator col =
+        SharedInt64ColumnGenerator(new DupRepeatingSeqColumnGenerator(10, 100));
+    columnGenerators.push_back(col);
+
+    testGroupCountImpl(
+        forcePartitionLevel,
+        10000,
+        SharedMockProducerExecStreamGenerator(
+            new CompositeExecStreamGenerator(columnGenerators)),
+        1000);
+}
+
 void LhxAggExecStreamTest::testSingleValue()
 {
     testSingleValueImpl(0);
@@ -205,17 +243,30 @@ void LhxAggExecStreamTest::testSumImpl(uint forcePartitionLevel)
 }
 
 void LhxAggExecStreamTest::testGroupCountImpl(uint forcePartitionLevel)
+{
+    // Create one column, with two duplicates per value.
+    testGroupCountImpl(
+        forcePartitionLevel,
+        1000,
+        SharedMockProducerExecStreamGenerator(
+            new RampDuplicateExecStreamGenerator()),
+        2);
+}
+
+void LhxAggExecStreamTest::testGroupCountImpl(
+    uint forcePartitionLevel,
+    uint numRows,
+    SharedMockProducerExecStreamGenerator pGenerator,
+    uint groupSize)
 {
     StandardTypeDescriptorFactory stdTypeFactory;
     TupleAttributeDescriptor attrDesc(
         stdTypeFactory.newDataType(STANDARD_TYPE_INT_64));
 
-    uint numRows = 1000;
-    // Create one column, with two duplicates per value.
     MockProducerExecStreamParams mockParams;
     mockParams.outputTupleDesc.push_back(attrDesc);
     mockParams.nRows = numRows;
-    mockParams.pGenerator.reset(new RampDuplicateExecStreamGenerator());
+    mockParams.pGenerator = pGenerator;
 
     ExecStreamEmbryo mockStreamEmbryo;
     mockStreamEmbryo.init(new MockProducerExecStream(), mockParams);
@@ -238,7 +289,7 @@ void LhxAggExecStreamTest::testGroupCountImpl(uint forcePartitionLevel)
     aggParams.scratchAccessor =
         pSegmentFactory->newScratchSegment(pCache, 100);
     aggParams.pTempSegment = pRandomSegment;
-    aggParams.cndGroupByKeys = numRows / 2;
+    aggParams.cndGroupByKeys = numRows / groupSize;
     aggParams.numRows = numRows;
     aggParams.forcePartitionLevel = forcePartitionLevel;
     aggParams.enableSubPartStat = true;
@@ -274,19 +325,20 @@ void LhxAggExecStreamTest::testGroupCountImpl(uint forcePartitionLevel)
         mockStreamEmbryo, transforms);
 
     // Result should be a sequence of values in the first column
-    // and 2 for the second column
+    // and the group size for the second column
     vector<boost::shared_ptr<ColumnGenerator< ::int64_t > > > columnGenerators;
 
     SharedInt64ColumnGenerator col =
         SharedInt64ColumnGenerator(new SeqColumnGenerator());
     columnGenerators.push_back(col);
 
-    col = SharedInt64ColumnGenerator(new ConstColumnGenerator(2));
+    col = SharedInt64ColumnGenerator(new ConstColumnGenerator(groupSize));
     columnGenerators.push_back(col);
 
     CompositeExecStreamGenerator expectedResultGenerator(columnGenerators);
 
-    verifyOutput(*pOutputStream, mockParams.nRows/2, expectedResultGenerator);
+    verifyOutput(
+        *pOutputStream, mockParams.nRows / groupSize, expectedResultGenerator);
 }
 
 void LhxAggExecStreamTest::testSingleValueImpl(uint forcePartitionLevel)
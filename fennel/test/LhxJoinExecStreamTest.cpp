@@ -53,6 +53,12 @@ class LhxJoinExecStreamTest : public ExecStreamUnitTestBase
         bool needSort,
         bool fakeInterrupt);
 
+    void testSemiImpl(
+        uint numRows,
+        uint cndKeyLeft,
+        uint cndKeyRight,
+        bool leftSemi);
+
     void testImpl(
         uint numInputRows,
         uint keyCount,
@@ -68,7 +74,9 @@ class LhxJoinExecStreamTest : public ExecStreamUnitTestBase
         bool enableJoinFilter,
         bool enableSubPartStat,
         bool needSort,
-        bool fakeInterrupt);
+        bool fakeInterrupt,
+        bool returnLeft,
+        bool returnRight);
 
 public:
     explicit LhxJoinExecStreamTest()
@@ -77,6 +85,8 @@ public:
         FENNEL_UNIT_TEST_CASE(LhxJoinExecStreamTest, testDup1);
         FENNEL_UNIT_TEST_CASE(LhxJoinExecStreamTest, testDup2);
         FENNEL_UNIT_TEST_CASE(LhxJoinExecStreamTest, testConst);
+        FENNEL_UNIT_TEST_CASE(LhxJoinExecStreamTest, testLeftSemiDup);
+        FENNEL_UNIT_TEST_CASE(LhxJoinExecStreamTest, testRightSemiDup);
 
 /*
         FENNEL_UNIT_TEST_CASE(
@@ -182,6 +192,18 @@ public:
     void testConstPartitionStat();
     void testConstPartitionFilterStat();
     void testConstCleanup();
+
+    /*
+     * Semi joins of these two sets, probing the hash table with runs of
+     * equal keys:
+     *  left:  0, 0  0, .. 1, 1, 1, .. 2, 2, 2, ..
+     * right:  0, 0, .. 1, 1, .. 2, 2, .. 3, 3, ..
+     *
+     * LeftSemi returns each left tuple once; RightSemi returns each matching
+     * right tuple once, although every left tuple with its key matches it.
+     */
+    void testLeftSemiDup();
+    void testRightSemiDup();
 };
 
 void LhxJoinExecStreamTest::testSequential()
@@ -279,6 +301,16 @@ void  LhxJoinExecStreamTest::testConstPartitionFilterStat()
     testDupImpl(960,  1, 60, 2, true, true, false, false);
 }
 
+void  LhxJoinExecStreamTest::testLeftSemiDup()
+{
+    testSemiImpl(960, 16, 60, true);
+}
+
+void  LhxJoinExecStreamTest::testRightSemiDup()
+{
+    testSemiImpl(960, 16, 60, false);
+}
+
 void  LhxJoinExecStreamTest::testConstCleanup()
 {
     /*
@@ -363,7 +395,7 @@ void LhxJoinExecStreamTest::testSequentialImpl(
         numRows, keyCount, cndKeys, numRows, inputDesc, outputDesc,
         outputProj, pLeftGenerator, pRightGenerator, verifier,
         forcePartitionLevel, enableJoinFilter, enableSubPartStat,
-        needSort, fakeInterrupt);
+        needSort, fakeInterrupt, true, true);
 }
 
 void LhxJoinExecStreamTest::testDupImpl(
@@ -449,7 +481,72 @@ void LhxJoinExecStreamTest::testDupImpl(
         numRows, keyCount, cndKeys, numResRows, inputDesc, outputDesc,
         outputProj, pLeftGenerator, pRightGenerator, verifier,
         forcePartitionLevel, enableJoinFilter, enableSubPartStat, needSort,
-        fakeInterrupt);
+        fakeInterrupt, true, true);
+}
+
+void LhxJoinExecStreamTest::testSemiImpl(
+    uint numRows,
+    uint cndKeyLeft,
+    uint cndKeyRight,
+    bool leftSemi)
+{
+    assert(cndKeyLeft <= cndKeyRight);
+
+    uint numCols = 2;
+    uint keyCount = 1;
+
+    vector<boost::shared_ptr<ColumnGenerator< ::int64_t > > >
+        leftColumnGenerators;
+    vector<boost::shared_ptr<ColumnGenerator< ::int64_t > > >
+        rightColumnGenerators;
+    vector<boost::shared_ptr<ColumnGenerator< ::int64_t > > >
+        outColumnGenerators;
+
+    StandardTypeDescriptorFactory stdTypeFactory;
+    TupleAttributeDescriptor attrDesc(
+        stdTypeFactory.newDataType(STANDARD_TYPE_INT_64));
+
+    TupleDescriptor inputDesc;
+    TupleDescriptor outputDesc;
+    TupleProjection outputProj;
+
+    /*
+     * Every left key matches. The result holds the tuples of one input only,
+     * in the order of the left keys which first match them.
+     */
+    uint outputDupCount =
+        leftSemi ? (numRows / cndKeyLeft) : (numRows / cndKeyRight);
+    uint numResRows =
+        leftSemi ? numRows : (cndKeyLeft * numRows / cndKeyRight);
+
+    for (uint i = 0; i < numCols; i++) {
+        leftColumnGenerators.push_back(
+            SharedInt64ColumnGenerator(
+                new DupColumnGenerator(numRows / cndKeyLeft)));
+        rightColumnGenerators.push_back(
+            SharedInt64ColumnGenerator(
+                new DupColumnGenerator(numRows / cndKeyRight)));
+        outColumnGenerators.push_back(
+            SharedInt64ColumnGenerator(
+                new DupColumnGenerator(outputDupCount)));
+
+        inputDesc.push_back(attrDesc);
+        outputDesc.push_back(attrDesc);
+        outputProj.push_back(i);
+    }
+
+    SharedMockProducerExecStreamGenerator pLeftGenerator(
+        new CompositeExecStreamGenerator(leftColumnGenerators));
+
+    SharedMockProducerExecStreamGenerator pRightGenerator(
+        new CompositeExecStreamGenerator(rightColumnGenerators));
+
+    CompositeExecStreamGenerator verifier(outColumnGenerators);
+
+    testImpl(
+        numRows, keyCount, cndKeyRight, numResRows, inputDesc, outputDesc,
+        outputProj, pLeftGenerator, pRightGenerator, verifier,
+        0, false, false, false, false, leftSemi, !leftSemi);
 }
 
 void LhxJoinExecStreamTest::testImpl(
@@ -460,7 +557,7 @@ void LhxJoinExecStreamTest::testImpl(
     SharedMockProducerExecStreamGenerator pRightGenerator,
     CompositeExecStreamGenerator &verifier,
     uint forcePartitionLevel, bool enableJoinFilter, bool enableSubPartStat,
-    bool needSort, bool fakeInterrupt)
+    bool needSort, bool fakeInterrupt, bool returnLeft, bool returnRight)
 {
     TupleProjection leftKeyProj;
     TupleProjection rightKeyProj;
@@ -492,9 +589,9 @@ void LhxJoinExecStreamTest::testImpl(
     /*
      * Fields in LhxJoinExecStreamParams
      */
-    joinParams.leftInner     = true;
+    joinParams.leftInner     = returnLeft;
     joinParams.leftOuter     = false;
-    joinParams.rightInner    = true;
+    joinParams.rightInner    = returnRight;
     joinParams.rightOuter    = false;
 
     joinParams.setopAll      = false;
@@ -999,6 +999,15 @@ parameter style java
 reads sql data
 external name  'applib.applibJar:com.lucidera.luciddb.applib.util.DropSchemaIfExistsUdp.execute';
 
+-- UDP for rebuilding the tables in a schema that have accumulated deleted rows
+create or replace procedure rebuild_fragmented_tables(
+in schemaName varchar(255),
+in deletedRowRatio double)
+language java
+parameter style java
+reads sql data
+external name 'applib.applibJar:com.lucidera.luciddb.applib.util.RebuildFragmentedTablesUdp.execute';
+
 -- UDP for replicating a Mondrian schema
 create or replace procedure applib.replicate_mondrian(
     mondrian_schema_filename varchar(65535), 
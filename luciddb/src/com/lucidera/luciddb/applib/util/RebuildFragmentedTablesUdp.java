@@ -0,0 +1,108 @@
+/*
+// $Id$
+// LucidDB is a DBMS optimized for business intelligence.
+// Copyright (C) 2006-2007 LucidEra, Inc.
+// Copyright (C) 2006-2007 The Eigenbase Project
+//
+// This program is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License as published by the Free
+// Software Foundation; either version 2 of the License, or (at your option)
+// any later version approved by The Eigenbase Project.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.lucidera.luciddb.applib.util;
+
+import com.lucidera.luciddb.applib.resource.*;
+import org.eigenbase.util.StackWriter;
+import java.sql.*;
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * RebuildFragmentedTablesUdp runs ALTER TABLE ... REBUILD on the tables in a
+ * schema whose deleted rows make up at least a given fraction of their
+ * storage, most fragmented table first. Tables below the threshold are left
+ * alone, so the procedure can be scheduled frequently without rewriting the
+ * whole schema each time.
+ *
+ * <p>Each table is rebuilt by its own statement, which commits before the
+ * next table is started. Because the rebuild versions the existing index
+ * pages, queries on a table keep reading the snapshot from before its
+ * rebuild.
+ *
+ * @version $Id$
+ */
+public abstract class RebuildFragmentedTablesUdp
+{
+    /**
+     * @param schemaName name of schema whose tables are to be rebuilt
+     * @param deletedRowRatio minimum ratio of deleted rows to all rows
+     * (current plus deleted) for a table to be rebuilt; must be between 0 and
+     * 1
+     */
+    public static void execute(String schemaName, double deletedRowRatio)
+        throws SQLException, ApplibException
+    {
+        if ((deletedRowRatio < 0) || (deletedRowRatio > 1)) {
+            throw ApplibResourceObject.get().InvalidDeletedRowRatio.ex(
+                Double.toString(deletedRowRatio));
+        }
+
+        Connection conn =
+            DriverManager.getConnection("jdbc:default:connection");
+
+        PreparedStatement ps = conn.prepareStatement(
+            "select SCHEMA_NAME from SYS_ROOT.DBA_TABLES "
+            + "where SCHEMA_NAME = ?");
+        ps.setString(1, schemaName);
+        ResultSet rs = ps.executeQuery();
+        if (!rs.next()) {
+            throw ApplibResourceObject.get().NoSuchSchema.ex(schemaName);
+        }
+        rs.close();
+
+        // collect the tables up front, since each rebuild updates the row
+        // counts we are selecting on
+        ps = conn.prepareStatement(
+            "select TABLE_NAME from SYS_ROOT.DBA_STORED_TABLES "
+            + "where SCHEMA_NAME = ? and DELETED_ROW_COUNT > 0 "
+            + "and DELETED_ROW_COUNT >= "
+            + "? * (CURRENT_ROW_COUNT + DELETED_ROW_COUNT) "
+            + "order by cast(DELETED_ROW_COUNT as double) "
+            + "/ (CURRENT_ROW_COUNT + DELETED_ROW_COUNT) desc, TABLE_NAME");
+        ps.setString(1, schemaName);
+        ps.setDouble(2, deletedRowRatio);
+        rs = ps.executeQuery();
+        List<String> tableNames = new ArrayList<String>();
+        while (rs.next()) {
+            tableNames.add(rs.getString(1));
+        }
+        rs.close();
+
+        Statement stmt = conn.createStatement();
+        for (String tableName : tableNames) {
+            StringWriter sw = new StringWriter();
+            StackWriter stackw =
+                new StackWriter(sw, StackWriter.INDENT_SPACE4);
+            PrintWriter pw = new PrintWriter(stackw);
+            pw.print("alter table ");
+            StackWriter.printSqlIdentifier(pw, schemaName);
+            pw.print(".");
+            StackWriter.printSqlIdentifier(pw, tableName);
+            pw.print(" rebuild");
+            pw.close();
+            stmt.executeUpdate(sw.toString());
+        }
+    }
+}
+
+// End RebuildFragmentedTablesUdp.java
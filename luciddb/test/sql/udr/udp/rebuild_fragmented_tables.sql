@@ -0,0 +1,40 @@
+-- test the rebuild_fragmented_tables UDP
+create schema RFT;
+set schema 'RFT';
+create table T1(col1 integer);
+create table T2(col1 integer);
+create table T3(col1 integer);
+insert into T1 values (1), (2), (3), (4), (5), (6), (7), (8), (9), (10);
+insert into T2 values (1), (2), (3), (4), (5), (6), (7), (8), (9), (10);
+insert into T3 values (1), (2), (3);
+
+-- T1 is mostly deleted rows, T2 only a little, T3 not at all
+delete from T1 where col1 > 4;
+delete from T2 where col1 = 10;
+
+select TABLE_NAME, CURRENT_ROW_COUNT, DELETED_ROW_COUNT
+from SYS_ROOT.DBA_STORED_TABLES where SCHEMA_NAME = 'RFT' order by 1;
+
+-- only T1 should be rebuilt
+call applib.rebuild_fragmented_tables('RFT', 0.5);
+
+select TABLE_NAME, CURRENT_ROW_COUNT, DELETED_ROW_COUNT
+from SYS_ROOT.DBA_STORED_TABLES where SCHEMA_NAME = 'RFT' order by 1;
+select * from T1 order by 1;
+
+-- a ratio of zero rebuilds every table with deleted rows
+call applib.rebuild_fragmented_tables('RFT', 0);
+
+select TABLE_NAME, CURRENT_ROW_COUNT, DELETED_ROW_COUNT
+from SYS_ROOT.DBA_STORED_TABLES where SCHEMA_NAME = 'RFT' order by 1;
+select * from T2 order by 1;
+
+-- the rebuilt tables are still writable
+insert into T1 values (5);
+select count(*) from T1;
+
+-- should get errors
+call applib.rebuild_fragmented_tables('RFT', 1.5);
+call applib.rebuild_fragmented_tables('IMAGINARY_SCHEMA', 0.5);
+
+drop schema RFT cascade;